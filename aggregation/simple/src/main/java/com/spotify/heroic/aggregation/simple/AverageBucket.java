@@ -25,6 +25,7 @@ import com.google.common.util.concurrent.AtomicDouble;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -45,10 +46,27 @@ public class AverageBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        value.addAndGet(d.getValue());
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        this.value.addAndGet(value);
         count.incrementAndGet();
     }
 
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double sum = 0D;
+
+        for (int i = from; i < to; i++) {
+            sum += points.value(i);
+        }
+
+        this.value.addAndGet(sum);
+        this.count.addAndGet(to - from);
+    }
+
     @Override
     public void updateSpread(Map<String, String> key, Spread sample) {
         value.addAndGet(sample.getSum());
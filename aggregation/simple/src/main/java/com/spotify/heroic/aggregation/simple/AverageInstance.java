@@ -24,6 +24,9 @@ package com.spotify.heroic.aggregation.simple;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
@@ -43,6 +46,18 @@ public class AverageInstance extends DistributedBucketInstance<StripedAverageBuc
 
     @Override
     protected Metric build(final StripedAverageBucket bucket) {
+        return buildPoint(bucket);
+    }
+
+    /**
+     * Partial sessions are only updated by one thread at a time, and use plain buckets.
+     */
+    @Override
+    public AggregationSession partialSession(final DateRange range) {
+        return session(range, PlainAverageBucket::new, this::buildPoint, PlainAverageBucket::merge);
+    }
+
+    private Metric buildPoint(final DoubleBucket bucket) {
         final double value = bucket.value();
 
         if (!Double.isFinite(value)) {
@@ -51,4 +66,16 @@ public class AverageInstance extends DistributedBucketInstance<StripedAverageBuc
 
         return new Point(bucket.timestamp(), bucket.value());
     }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(
+        final StripedAverageBucket bucket, final StripedAverageBucket other
+    ) {
+        bucket.merge(other);
+    }
 }
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AnyBucket;
 import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.PointChunk;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Map;
@@ -48,6 +49,16 @@ public class CountBucket implements AnyBucket {
         count.incrementAndGet();
     }
 
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        count.incrementAndGet();
+    }
+
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        count.addAndGet(to - from);
+    }
+
     public long count() {
         return count.get();
     }
@@ -24,6 +24,8 @@ package com.spotify.heroic.aggregation.simple;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
 
@@ -45,6 +47,15 @@ public class CountInstance extends DistributedBucketInstance<StripedCountBucket>
         return new Point(bucket.timestamp(), bucket.count());
     }
 
+    /**
+     * Partial sessions are only updated by one thread at a time, and use plain buckets.
+     */
+    @Override
+    public AggregationSession partialSession(final DateRange range) {
+        return session(range, PlainCountBucket::new,
+            bucket -> new Point(bucket.timestamp(), bucket.count()), PlainCountBucket::merge);
+    }
+
     @Override
     public AggregationInstance distributed() {
         return this;
@@ -54,4 +65,14 @@ public class CountInstance extends DistributedBucketInstance<StripedCountBucket>
     public AggregationInstance reducer() {
         return new SumInstance(size, extent);
     }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final StripedCountBucket bucket, final StripedCountBucket other) {
+        bucket.merge(other);
+    }
 }
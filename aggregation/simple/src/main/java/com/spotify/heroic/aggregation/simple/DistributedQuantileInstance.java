@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.BucketAggregationInstance;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Payload;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * The distributed part of a {@link QuantileInstance}, which outputs the serialized sketch of each
+ * bucket as a {@link Payload}.
+ */
+@Data
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class DistributedQuantileInstance extends BucketAggregationInstance<QuantileBucket> {
+    public static final String NAME = "quantile-distributed";
+
+    private final double q;
+    private final double error;
+
+    @JsonCreator
+    public DistributedQuantileInstance(
+        @JsonProperty("size") final long size, @JsonProperty("extent") final long extent,
+        @JsonProperty("q") final double q, @JsonProperty("error") double error
+    ) {
+        super(size, extent, ImmutableSet.of(MetricType.POINT, MetricType.CARDINALITY),
+            MetricType.CARDINALITY);
+        this.q = q;
+        this.error = error;
+    }
+
+    @Override
+    protected QuantileBucket buildBucket(long timestamp) {
+        return new QuantileBucket(timestamp, q, error);
+    }
+
+    @Override
+    protected Metric build(QuantileBucket bucket) {
+        if (bucket.isEmpty()) {
+            return Metric.invalid();
+        }
+
+        return new Payload(bucket.timestamp(), bucket.state());
+    }
+
+    @Override
+    public AggregationInstance reducer() {
+        return new QuantileInstance(size, extent, q, error);
+    }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final QuantileBucket bucket, final QuantileBucket other) {
+        bucket.merge(other);
+    }
+}
@@ -32,6 +32,7 @@ import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 
 import java.util.List;
@@ -77,6 +78,11 @@ public class FilterAggregation implements AggregationInstance {
         return false;
     }
 
+    @Override
+    public boolean mergeable() {
+        return EmptyInstance.INSTANCE.mergeable();
+    }
+
     @Override
     public AggregationSession session(DateRange range) {
         return new Session(filterStrategy, EmptyInstance.INSTANCE.session(range));
@@ -98,6 +104,13 @@ public class FilterAggregation implements AggregationInstance {
             childSession.updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            Map<String, String> key, Set<Series> series, PointChunk values
+        ) {
+            childSession.updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             Map<String, String> key, Set<Series> series, List<Event> values
@@ -126,6 +139,15 @@ public class FilterAggregation implements AggregationInstance {
             childSession.updatePayload(key, series, values);
         }
 
+        @Override
+        public void merge(final AggregationSession other) {
+            if (!(other instanceof FilterAggregation.Session)) {
+                throw new IllegalArgumentException("cannot merge with session: " + other);
+            }
+
+            childSession.merge(((Session) other).childSession);
+        }
+
         @Override
         public AggregationResult result() {
             final AggregationResult result = childSession.result();
@@ -68,6 +68,16 @@ public class GroupUniqueBucket extends AbstractBucket implements Bucket {
         return result.build();
     }
 
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final GroupUniqueBucket other) {
+        points.addAll(other.points);
+        events.addAll(other.events);
+        spreads.addAll(other.spreads);
+        groups.addAll(other.groups);
+    }
+
     @Override
     public void updatePoint(Map<String, String> key, Point sample) {
         points.add(sample);
@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.BucketAggregationInstance;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricCollection;
@@ -56,4 +57,23 @@ public class GroupUniqueInstance extends BucketAggregationInstance<GroupUniqueBu
 
         return new MetricGroup(bucket.timestamp(), groups);
     }
+
+    /**
+     * The partial result of each shard is a group for each bucket, which needs to be unpacked when
+     * reducing instead of being treated as a group sample.
+     */
+    @Override
+    public AggregationInstance reducer() {
+        return new ReduceGroupUniqueInstance(size, extent);
+    }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final GroupUniqueBucket bucket, final GroupUniqueBucket other) {
+        bucket.merge(other);
+    }
 }
@@ -25,6 +25,7 @@ import com.google.common.util.concurrent.AtomicDouble;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
 
@@ -47,19 +48,35 @@ public class MaxBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         while (true) {
-            double current = value.get();
+            double current = this.value.get();
 
-            if (current > d.getValue()) {
+            if (current > value) {
                 break;
             }
 
-            if (value.compareAndSet(current, d.getValue())) {
+            if (this.value.compareAndSet(current, value)) {
                 break;
             }
         }
     }
 
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, points.value(i));
+        }
+
+        updatePoint(key, points.timestamp(from), max);
+    }
+
     @Override
     public void updateSpread(Map<String, String> key, Spread d) {
         while (true) {
@@ -24,6 +24,10 @@ package com.spotify.heroic.aggregation.simple;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
@@ -42,7 +46,19 @@ public class MaxInstance extends DistributedBucketInstance<StripedMaxBucket> {
     }
 
     @Override
-    protected Metric build(StripedMaxBucket bucket) {
+    protected Metric build(final StripedMaxBucket bucket) {
+        return buildPoint(bucket);
+    }
+
+    /**
+     * Partial sessions are only updated by one thread at a time, and use plain buckets.
+     */
+    @Override
+    public AggregationSession partialSession(final DateRange range) {
+        return session(range, PlainMaxBucket::new, this::buildPoint, PlainMaxBucket::merge);
+    }
+
+    private Metric buildPoint(final DoubleBucket bucket) {
         final double value = bucket.value();
 
         if (Double.isNaN(value)) {
@@ -51,4 +67,22 @@ public class MaxInstance extends DistributedBucketInstance<StripedMaxBucket> {
 
         return new Point(bucket.timestamp(), value);
     }
+
+    /**
+     * The max of each shard is a complete partial, which is reduced using this aggregation.
+     */
+    @Override
+    public AggregationInstance distributed() {
+        return this;
+    }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final StripedMaxBucket bucket, final StripedMaxBucket other) {
+        bucket.merge(other);
+    }
 }
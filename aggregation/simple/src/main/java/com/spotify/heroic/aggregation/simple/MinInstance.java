@@ -24,6 +24,10 @@ package com.spotify.heroic.aggregation.simple;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
@@ -42,7 +46,19 @@ public class MinInstance extends DistributedBucketInstance<StripedMinBucket> {
     }
 
     @Override
-    protected Metric build(StripedMinBucket bucket) {
+    protected Metric build(final StripedMinBucket bucket) {
+        return buildPoint(bucket);
+    }
+
+    /**
+     * Partial sessions are only updated by one thread at a time, and use plain buckets.
+     */
+    @Override
+    public AggregationSession partialSession(final DateRange range) {
+        return session(range, PlainMinBucket::new, this::buildPoint, PlainMinBucket::merge);
+    }
+
+    private Metric buildPoint(final DoubleBucket bucket) {
         final double value = bucket.value();
 
         if (Double.isNaN(value)) {
@@ -51,4 +67,22 @@ public class MinInstance extends DistributedBucketInstance<StripedMinBucket> {
 
         return new Point(bucket.timestamp(), value);
     }
+
+    /**
+     * The min of each shard is a complete partial, which is reduced using this aggregation.
+     */
+    @Override
+    public AggregationInstance distributed() {
+        return this;
+    }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final StripedMinBucket bucket, final StripedMinBucket other) {
+        bucket.merge(other);
+    }
 }
@@ -109,6 +109,9 @@ public class Module implements HeroicModule {
                     }
                 });
 
+            c.registerInstance(DistributedQuantileInstance.NAME,
+                DistributedQuantileInstance.class);
+
             c.register(TopK.NAME, TopK.class, TopKInstance.class,
                 args -> new TopK(fetchK(args, IntegerExpression.class).getValue()));
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.metric.Spread;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Bucket that calculates the average of all samples seen.
+ * <p>
+ * This bucket uses plain fields, and must only be updated by one thread at a time.
+ */
+@RequiredArgsConstructor
+public class PlainAverageBucket extends AbstractBucket implements DoubleBucket {
+    private final long timestamp;
+
+    private double value = 0D;
+    private long count = 0L;
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        this.value += value;
+        count += 1;
+    }
+
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        for (int i = from; i < to; i++) {
+            value += points.value(i);
+        }
+
+        count += to - from;
+    }
+
+    @Override
+    public void updateSpread(Map<String, String> key, Spread sample) {
+        value += sample.getSum();
+        count += sample.getCount();
+    }
+
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final PlainAverageBucket other) {
+        value += other.value;
+        count += other.count;
+    }
+
+    @Override
+    public double value() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        return value / count;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.spotify.heroic.aggregation.AbstractBucket;
+import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.metric.Spread;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * A bucket implementation that retains the smallest (min) value seen.
+ * <p>
+ * This bucket uses plain fields, and must only be updated by one thread at a time.
+ */
+@RequiredArgsConstructor
+public class PlainMinBucket extends AbstractBucket implements DoubleBucket {
+    private final long timestamp;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    public long timestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        min = Math.min(min, value);
+    }
+
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, points.value(i));
+        }
+    }
+
+    @Override
+    public void updateSpread(Map<String, String> key, Spread d) {
+        min = Math.min(min, d.getMin());
+    }
+
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final PlainMinBucket other) {
+        min = Math.min(min, other.min);
+    }
+
+    @Override
+    public double value() {
+        if (!Double.isFinite(min)) {
+            return Double.NaN;
+        }
+
+        return min;
+    }
+}
@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.aggregation.BucketAggregationInstance;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricType;
@@ -44,7 +45,8 @@ public class QuantileInstance extends BucketAggregationInstance<QuantileBucket>
         @JsonProperty("size") final long size, @JsonProperty("extent") final long extent,
         @JsonProperty("q") final double q, @JsonProperty("error") double error
     ) {
-        super(size, extent, ImmutableSet.of(MetricType.POINT), MetricType.POINT);
+        super(size, extent, ImmutableSet.of(MetricType.POINT, MetricType.CARDINALITY),
+            MetricType.POINT);
         this.q = q;
         this.error = error;
     }
@@ -64,4 +66,22 @@ public class QuantileInstance extends BucketAggregationInstance<QuantileBucket>
 
         return new Point(bucket.timestamp(), value);
     }
+
+    /**
+     * Shards build sketches for each bucket, which are merged by this aggregation when reducing.
+     */
+    @Override
+    public AggregationInstance distributed() {
+        return new DistributedQuantileInstance(size, extent, q, error);
+    }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final QuantileBucket bucket, final QuantileBucket other) {
+        bucket.merge(other);
+    }
 }
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A mergeable sketch for estimating quantiles with a bounded relative error.
+ * <p>
+ * Values are mapped into logarithmically sized bins, so that all values in a bin are within the
+ * relative accuracy of the value representing the bin.
+ * <p>
+ * See: Masson, Rim, and Lee, "DDSketch: A Fast and Fully-Mergeable Quantile Sketch with
+ * Relative-Error Guarantees" in VLDB 2019
+ * <p>
+ * Bin counts are kept in dense arrays, so updates never allocate once the range of seen values is
+ * covered. Two sketches with the same relative accuracy are merged by adding their bin counts,
+ * which makes the sketch suitable for distributed aggregations. This class is not thread-safe.
+ */
+public class QuantileSketch {
+    /**
+     * Maximum number of bins for each sign. With a relative accuracy of 1% this covers values
+     * spanning about 17 orders of magnitude, beyond that the smallest bins are collapsed.
+     */
+    static final int MAX_BINS = 2048;
+
+    /**
+     * Values with a smaller magnitude than this are counted as zero.
+     */
+    static final double MIN_VALUE = 1e-9;
+
+    private static final byte VERSION = 1;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    private final Bins positive = new Bins();
+    private final Bins negative = new Bins();
+
+    private long zeroCount = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Build a new, empty sketch.
+     *
+     * @param relativeAccuracy The relative accuracy of estimated values, e.g. 0.01 for 1%.
+     */
+    public QuantileSketch(final double relativeAccuracy) {
+        if (!(relativeAccuracy > 0D && relativeAccuracy < 1D)) {
+            throw new IllegalArgumentException(
+                "relative accuracy must be in (0, 1): " + relativeAccuracy);
+        }
+
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1D + relativeAccuracy) / (1D - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Total count of values added to this sketch.
+     */
+    public long count() {
+        return negative.total + zeroCount + positive.total;
+    }
+
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+
+    /**
+     * Add a single value to the sketch. Non-finite values are ignored.
+     */
+    public void add(final double value) {
+        if (!Double.isFinite(value)) {
+            return;
+        }
+
+        if (value > MIN_VALUE) {
+            positive.add(key(value), 1);
+        } else if (value < -MIN_VALUE) {
+            negative.add(key(-value), 1);
+        } else {
+            zeroCount++;
+        }
+
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Merge another sketch into this one.
+     *
+     * @param other The sketch to merge, must have the same relative accuracy as this sketch.
+     */
+    public void merge(final QuantileSketch other) {
+        if (Double.compare(relativeAccuracy, other.relativeAccuracy) != 0) {
+            throw new IllegalArgumentException(
+                "cannot merge sketches with different relative accuracy (" + relativeAccuracy +
+                    " != " + other.relativeAccuracy + ")");
+        }
+
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Estimate the value at the given quantile.
+     *
+     * @param quantile Queried quantile, e.g. 0.50 or 0.99.
+     * @return Estimated value at that quantile, or {@code NaN} if the sketch is empty.
+     */
+    public double quantile(final double quantile) {
+        final long count = count();
+
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        final long rank = (long) (Math.max(0D, Math.min(1D, quantile)) * (count - 1));
+
+        /* the extremes are tracked exactly */
+        if (rank == 0) {
+            return min;
+        }
+
+        if (rank == count - 1) {
+            return max;
+        }
+
+        final double result;
+
+        if (rank < negative.total) {
+            result = -value(negative.keyAt(negative.total - 1 - rank));
+        } else if (rank < negative.total + zeroCount) {
+            result = 0D;
+        } else {
+            result = value(positive.keyAt(rank - negative.total - zeroCount));
+        }
+
+        return Math.max(min, Math.min(max, result));
+    }
+
+    /**
+     * Serialize the state of this sketch.
+     *
+     * @see #fromBytes(byte[])
+     */
+    public byte[] toBytes() {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        out.write(VERSION);
+        writeLong(out, Double.doubleToLongBits(relativeAccuracy));
+        writeLong(out, Double.doubleToLongBits(min));
+        writeLong(out, Double.doubleToLongBits(max));
+        writeVarLong(out, zeroCount);
+        negative.write(out);
+        positive.write(out);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Deserialize a sketch from a state previously built with {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException if the state is not a valid sketch.
+     */
+    public static QuantileSketch fromBytes(final byte[] state) {
+        final ByteBuffer buffer = ByteBuffer.wrap(state);
+
+        try {
+            final byte version = buffer.get();
+
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported sketch version: " + version);
+            }
+
+            final QuantileSketch sketch =
+                new QuantileSketch(Double.longBitsToDouble(buffer.getLong()));
+
+            sketch.min = Double.longBitsToDouble(buffer.getLong());
+            sketch.max = Double.longBitsToDouble(buffer.getLong());
+            sketch.zeroCount = readVarLong(buffer);
+            sketch.negative.read(buffer);
+            sketch.positive.read(buffer);
+            return sketch;
+        } catch (final BufferUnderflowException e) {
+            throw new IllegalArgumentException("truncated sketch state", e);
+        }
+    }
+
+    private int key(final double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    private double value(final int key) {
+        return 2D * Math.pow(gamma, key) / (gamma + 1D);
+    }
+
+    private static void writeLong(final ByteArrayOutputStream out, final long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeVarLong(final ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.write((int) value);
+    }
+
+    private static long readVarLong(final ByteBuffer buffer) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("malformed variable-length integer");
+    }
+
+    /**
+     * Dense counts for a contiguous range of bin keys.
+     * <p>
+     * If the keys of the added values span more than {@link #MAX_BINS}, the lowest bins are
+     * collapsed into the lowest retained bin.
+     */
+    private static final class Bins {
+        private static final int INITIAL_BINS = 32;
+        private static final long[] EMPTY = new long[0];
+
+        private long[] counts = EMPTY;
+        /* the key of counts[0] */
+        private int offset = 0;
+        /* range of keys which may have a non-zero count, only valid if total > 0 */
+        private int minKey = 0;
+        private int maxKey = 0;
+        private long total = 0;
+
+        void add(final int key, final long count) {
+            if (count <= 0) {
+                return;
+            }
+
+            final int k = reserve(key);
+            counts[k - offset] += count;
+            total += count;
+        }
+
+        void merge(final Bins other) {
+            for (int k = other.minKey; other.total > 0 && k <= other.maxKey; k++) {
+                add(k, other.counts[k - other.offset]);
+            }
+        }
+
+        /**
+         * Find the key of the bin containing the value with the given (zero-based) rank, in
+         * ascending key order.
+         */
+        int keyAt(final long rank) {
+            long n = 0;
+
+            for (int k = minKey; k <= maxKey; k++) {
+                n += counts[k - offset];
+
+                if (n > rank) {
+                    return k;
+                }
+            }
+
+            return maxKey;
+        }
+
+        void write(final ByteArrayOutputStream out) {
+            if (total == 0) {
+                writeVarLong(out, 0);
+                return;
+            }
+
+            writeVarLong(out, maxKey - minKey + 1);
+            /* zig-zag encode the key, since it is frequently negative */
+            writeVarLong(out, ((minKey << 1) ^ (minKey >> 31)) & 0xFFFFFFFFL);
+
+            for (int k = minKey; k <= maxKey; k++) {
+                writeVarLong(out, counts[k - offset]);
+            }
+        }
+
+        void read(final ByteBuffer buffer) {
+            final long size = readVarLong(buffer);
+
+            if (size == 0) {
+                return;
+            }
+
+            if (size < 0 || size > MAX_BINS) {
+                throw new IllegalArgumentException("invalid number of bins: " + size);
+            }
+
+            final int zigzag = (int) readVarLong(buffer);
+            final int first = (zigzag >>> 1) ^ -(zigzag & 1);
+
+            for (int i = 0; i < size; i++) {
+                add(first + i, readVarLong(buffer));
+            }
+        }
+
+        /**
+         * Make sure that the given key can be counted, growing or collapsing the bins as needed.
+         *
+         * @return The key of the bin to count the given key in.
+         */
+        private int reserve(final int key) {
+            if (total == 0) {
+                if (counts.length == 0) {
+                    counts = new long[INITIAL_BINS];
+                }
+
+                offset = key - counts.length / 2;
+                minKey = key;
+                maxKey = key;
+                return key;
+            }
+
+            final int high = Math.max(maxKey, key);
+            final int low = Math.max(Math.min(minKey, key), high - MAX_BINS + 1);
+
+            if (low < offset || high >= offset + counts.length || low > minKey) {
+                rebuild(low, high);
+            }
+
+            minKey = Math.max(Math.min(minKey, key), low);
+            maxKey = high;
+            return Math.max(key, low);
+        }
+
+        /**
+         * Reallocate the bins to cover the range {@code [low, high]}, collapsing any existing
+         * counts below {@code low}.
+         */
+        private void rebuild(final int low, final int high) {
+            final int range = high - low + 1;
+            final int length = Math.min(MAX_BINS, Math.max(range * 2, INITIAL_BINS));
+            final int newOffset = low - (length - range) / 2;
+
+            final long[] newCounts = new long[length];
+
+            for (int k = minKey; k <= maxKey; k++) {
+                newCounts[Math.max(k, low) - newOffset] += counts[k - offset];
+            }
+
+            counts = newCounts;
+            offset = newOffset;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.BucketAggregationInstance;
+import com.spotify.heroic.metric.Event;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricGroup;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.Spread;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces the partial results of {@link GroupUniqueInstance}.
+ * <p>
+ * Each received group is the output of a single bucket on a shard, the collections in it are
+ * unpacked into the bucket instead of being added as a group.
+ */
+@ToString(callSuper = true)
+public class ReduceGroupUniqueInstance extends BucketAggregationInstance<GroupUniqueBucket> {
+    public ReduceGroupUniqueInstance(final long size, final long extent) {
+        super(size, extent, ImmutableSet.of(MetricType.GROUP), MetricType.GROUP);
+    }
+
+    @Override
+    protected GroupUniqueBucket buildBucket(long timestamp) {
+        return new ReduceBucket(timestamp);
+    }
+
+    @Override
+    protected Metric build(final GroupUniqueBucket bucket) {
+        final List<MetricCollection> groups = bucket.groups();
+
+        if (groups.isEmpty()) {
+            return Metric.invalid();
+        }
+
+        return new MetricGroup(bucket.timestamp(), groups);
+    }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final GroupUniqueBucket bucket, final GroupUniqueBucket other) {
+        bucket.merge(other);
+    }
+
+    static class ReduceBucket extends GroupUniqueBucket {
+        ReduceBucket(final long timestamp) {
+            super(timestamp);
+        }
+
+        @Override
+        public void updateGroup(final Map<String, String> key, final MetricGroup sample) {
+            for (final MetricCollection c : sample.getGroups()) {
+                switch (c.getType()) {
+                    case POINT:
+                        points.addAll(c.getDataAs(Point.class));
+                        break;
+                    case EVENT:
+                        events.addAll(c.getDataAs(Event.class));
+                        break;
+                    case SPREAD:
+                        spreads.addAll(c.getDataAs(Spread.class));
+                        break;
+                    case GROUP:
+                        groups.addAll(c.getDataAs(MetricGroup.class));
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
 
@@ -70,8 +71,11 @@ public class SpreadBucket extends AbstractBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        final double value = d.getValue();
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
 
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         if (!Double.isFinite(value)) {
             return;
         }
@@ -83,6 +87,39 @@ public class SpreadBucket extends AbstractBucket {
         min.accumulate(value);
     }
 
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double sum = 0D;
+        double sum2 = 0D;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int i = from; i < to; i++) {
+            final double value = points.value(i);
+            sum += value;
+            sum2 += value * value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        this.count.add(to - from);
+        this.sum.add(sum);
+        this.sum2.add(sum2);
+        this.max.accumulate(max);
+        this.min.accumulate(min);
+    }
+
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final SpreadBucket other) {
+        count.add(other.count.sum());
+        sum.add(other.sum.sum());
+        sum2.add(other.sum2.sum());
+        max.accumulate(other.max.get());
+        min.accumulate(other.min.get());
+    }
+
     public Metric newSpread() {
         final long count = this.count.sum();
 
@@ -51,4 +51,14 @@ public class SpreadInstance extends DistributedBucketInstance<SpreadBucket> {
     public AggregationInstance distributed() {
         return this;
     }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final SpreadBucket bucket, final SpreadBucket other) {
+        bucket.merge(other);
+    }
 }
@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Map;
@@ -45,8 +46,11 @@ public class StdDevBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        final double value = d.getValue();
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
 
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         while (true) {
             final Cell c = cell.get();
 
@@ -63,6 +67,39 @@ public class StdDevBucket extends AbstractBucket implements DoubleBucket {
         }
     }
 
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        /* fold the run locally using Welford's method, then merge it into the shared cell */
+        long count = 0;
+        double mean = 0D;
+        double s = 0D;
+
+        for (int i = from; i < to; i++) {
+            final double value = points.value(i);
+            count++;
+            final double delta = value - mean;
+            mean += delta / count;
+            s += delta * (value - mean);
+        }
+
+        if (count == 0) {
+            return;
+        }
+
+        while (true) {
+            final Cell c = cell.get();
+
+            final long n = c.count + count;
+            final double delta = mean - c.mean;
+            final double m = c.mean + delta * count / n;
+            final double ns = c.s + s + delta * delta * c.count * count / n;
+
+            if (cell.compareAndSet(c, new Cell(m, ns, n))) {
+                break;
+            }
+        }
+    }
+
     @Override
     public long timestamp() {
         return timestamp;
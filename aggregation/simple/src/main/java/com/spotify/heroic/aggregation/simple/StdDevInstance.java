@@ -24,12 +24,20 @@ package com.spotify.heroic.aggregation.simple;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
-import com.spotify.heroic.aggregation.BucketAggregationInstance;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
 
-public class StdDevInstance extends BucketAggregationInstance<StripedStdDevBucket> {
+/**
+ * Standard deviation aggregation.
+ * <p>
+ * Distributed through {@link SpreadInstance}, since a spread carries the count, sum, and sum of
+ * squares which make up the state of a {@link StripedStdDevBucket}.
+ */
+public class StdDevInstance extends DistributedBucketInstance<StripedStdDevBucket> {
     @JsonCreator
     public StdDevInstance(
         @JsonProperty("size") final long size, @JsonProperty("extent") final long extent
@@ -43,7 +51,19 @@ public class StdDevInstance extends BucketAggregationInstance<StripedStdDevBucke
     }
 
     @Override
-    protected Metric build(StripedStdDevBucket bucket) {
+    protected Metric build(final StripedStdDevBucket bucket) {
+        return buildPoint(bucket);
+    }
+
+    /**
+     * Partial sessions are only updated by one thread at a time, and use plain buckets.
+     */
+    @Override
+    public AggregationSession partialSession(final DateRange range) {
+        return session(range, PlainStdDevBucket::new, this::buildPoint, PlainStdDevBucket::merge);
+    }
+
+    private Metric buildPoint(final DoubleBucket bucket) {
         final double value = bucket.value();
 
         if (Double.isNaN(value)) {
@@ -52,4 +72,14 @@ public class StdDevInstance extends BucketAggregationInstance<StripedStdDevBucke
 
         return new Point(bucket.timestamp(), value);
     }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final StripedStdDevBucket bucket, final StripedStdDevBucket other) {
+        bucket.merge(other);
+    }
 }
@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
 
@@ -49,16 +50,41 @@ public class StripedAverageBucket extends AbstractBucket implements DoubleBucket
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        value.add(d.getValue());
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        this.value.add(value);
         count.increment();
     }
 
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double sum = 0D;
+
+        for (int i = from; i < to; i++) {
+            sum += points.value(i);
+        }
+
+        this.value.add(sum);
+        this.count.add(to - from);
+    }
+
     @Override
     public void updateSpread(Map<String, String> key, Spread sample) {
         value.add(sample.getSum());
         count.add(sample.getCount());
     }
 
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final StripedAverageBucket other) {
+        value.add(other.value.sum());
+        count.add(other.count.sum());
+    }
+
     @Override
     public double value() {
         final long count = this.count.sum();
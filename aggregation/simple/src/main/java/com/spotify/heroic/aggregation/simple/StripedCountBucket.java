@@ -23,6 +23,7 @@ package com.spotify.heroic.aggregation.simple;
 
 import com.spotify.heroic.aggregation.AnyBucket;
 import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.PointChunk;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Map;
@@ -50,6 +51,23 @@ public class StripedCountBucket implements AnyBucket {
         count.increment();
     }
 
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        count.increment();
+    }
+
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        count.add(to - from);
+    }
+
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final StripedCountBucket other) {
+        count.add(other.count.sum());
+    }
+
     public long count() {
         return count.sum();
     }
@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
 
@@ -52,7 +53,23 @@ public class StripedMaxBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        max.accumulate(d.getValue());
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        max.accumulate(value);
+    }
+
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double max = Double.NEGATIVE_INFINITY;
+
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, points.value(i));
+        }
+
+        this.max.accumulate(max);
     }
 
     @Override
@@ -60,6 +77,13 @@ public class StripedMaxBucket extends AbstractBucket implements DoubleBucket {
         max.accumulate(d.getMax());
     }
 
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final StripedMaxBucket other) {
+        max.accumulate(other.max.get());
+    }
+
     @Override
     public double value() {
         final double result = max.doubleValue();
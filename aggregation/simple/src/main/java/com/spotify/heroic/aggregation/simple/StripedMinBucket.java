@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
 
@@ -57,7 +58,30 @@ public class StripedMinBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        min.accumulate(d.getValue());
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        min.accumulate(value);
+    }
+
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double min = Double.POSITIVE_INFINITY;
+
+        for (int i = from; i < to; i++) {
+            min = Math.min(min, points.value(i));
+        }
+
+        this.min.accumulate(min);
+    }
+
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final StripedMinBucket other) {
+        min.accumulate(other.min.get());
     }
 
     @Override
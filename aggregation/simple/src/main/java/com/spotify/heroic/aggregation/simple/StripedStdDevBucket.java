@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
 
@@ -55,13 +56,41 @@ public class StripedStdDevBucket extends AbstractBucket implements DoubleBucket
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
-        final double v = d.getValue();
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
 
-        sum.add(v);
-        sum2.add(v * v);
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
+        sum.add(value);
+        sum2.add(value * value);
         count.increment();
     }
 
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double sum = 0D;
+        double sum2 = 0D;
+
+        for (int i = from; i < to; i++) {
+            final double value = points.value(i);
+            sum += value;
+            sum2 += value * value;
+        }
+
+        this.sum.add(sum);
+        this.sum2.add(sum2);
+        this.count.add(to - from);
+    }
+
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final StripedStdDevBucket other) {
+        sum.add(other.sum.sum());
+        sum2.add(other.sum2.sum());
+        count.add(other.count.sum());
+    }
+
     @Override
     public long timestamp() {
         return timestamp;
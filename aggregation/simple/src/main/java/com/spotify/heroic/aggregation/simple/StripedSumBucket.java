@@ -24,6 +24,7 @@ package com.spotify.heroic.aggregation.simple;
 import com.spotify.heroic.aggregation.AbstractBucket;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.RequiredArgsConstructor;
 
@@ -52,8 +53,25 @@ public class StripedSumBucket extends AbstractBucket implements DoubleBucket {
 
     @Override
     public void updatePoint(Map<String, String> key, Point d) {
+        updatePoint(key, d.getTimestamp(), d.getValue());
+    }
+
+    @Override
+    public void updatePoint(Map<String, String> key, long timestamp, double value) {
         valid = true;
-        sum.add(d.getValue());
+        sum.add(value);
+    }
+
+    @Override
+    public void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        double sum = 0D;
+
+        for (int i = from; i < to; i++) {
+            sum += points.value(i);
+        }
+
+        valid = true;
+        this.sum.add(sum);
     }
 
     @Override
@@ -62,6 +80,18 @@ public class StripedSumBucket extends AbstractBucket implements DoubleBucket {
         sum.add(d.getSum());
     }
 
+    /**
+     * Merge the state of another bucket into this one.
+     */
+    public void merge(final StripedSumBucket other) {
+        if (!other.valid) {
+            return;
+        }
+
+        valid = true;
+        sum.add(other.sum.sum());
+    }
+
     @Override
     public double value() {
         if (!valid) {
@@ -25,6 +25,9 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
 import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.DoubleBucket;
+import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
 
@@ -42,7 +45,19 @@ public class SumInstance extends DistributedBucketInstance<StripedSumBucket> {
     }
 
     @Override
-    protected Point build(StripedSumBucket bucket) {
+    protected Point build(final StripedSumBucket bucket) {
+        return buildPoint(bucket);
+    }
+
+    /**
+     * Partial sessions are only updated by one thread at a time, and use plain buckets.
+     */
+    @Override
+    public AggregationSession partialSession(final DateRange range) {
+        return session(range, PlainSumBucket::new, this::buildPoint, PlainSumBucket::merge);
+    }
+
+    private Point buildPoint(final DoubleBucket bucket) {
         return new Point(bucket.timestamp(), bucket.value());
     }
 
@@ -50,4 +65,14 @@ public class SumInstance extends DistributedBucketInstance<StripedSumBucket> {
     public AggregationInstance distributed() {
         return this;
     }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
+    @Override
+    protected void mergeBucket(final StripedSumBucket bucket, final StripedSumBucket other) {
+        bucket.merge(other);
+    }
 }
@@ -16,7 +16,8 @@ public class AverageBucketTest {
     private static final Map<String, String> tags = ImmutableMap.of();
 
     public Collection<? extends DoubleBucket> buckets() {
-        return ImmutableList.<DoubleBucket>of(new AverageBucket(0L), new StripedAverageBucket(0L));
+        return ImmutableList.<DoubleBucket>of(new AverageBucket(0L), new StripedAverageBucket(0L),
+            new PlainAverageBucket(0L));
     }
 
     @Test
@@ -0,0 +1,151 @@
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationOutput;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricGroup;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that reducing the distributed partials of each aggregation gives the same result as
+ * applying the aggregation to all data at once.
+ */
+public class DistributedAggregationTest {
+    private static final DateRange RANGE = new DateRange(0, 10000);
+    private static final Map<String, String> KEY = ImmutableMap.of();
+    private static final Series SERIES = Series.of("foo", ImmutableMap.of());
+
+    private final List<List<Point>> shards = buildShards(new Random(0x5eed), 4, 1000);
+
+    @Test
+    public void testSum() {
+        assertReduced(new SumInstance(1000, 1000), 1e-9);
+    }
+
+    @Test
+    public void testAverage() {
+        assertReduced(new AverageInstance(1000, 1000), 1e-9);
+    }
+
+    @Test
+    public void testMin() {
+        assertReduced(new MinInstance(1000, 1000), 0.0);
+    }
+
+    @Test
+    public void testMax() {
+        assertReduced(new MaxInstance(1000, 1000), 0.0);
+    }
+
+    @Test
+    public void testCount() {
+        assertReduced(new CountInstance(1000, 1000), 0.0);
+    }
+
+    @Test
+    public void testStdDev() {
+        assertReduced(new StdDevInstance(1000, 1000), 1e-9);
+    }
+
+    @Test
+    public void testQuantile() {
+        assertReduced(new QuantileInstance(1000, 1000, 0.9, 0.01), 0.0);
+    }
+
+    @Test
+    public void testGroupUnique() {
+        final AggregationInstance instance = new GroupUniqueInstance(1000, 1000);
+
+        final List<Metric> expected = direct(instance);
+        final List<Metric> actual = reduced(instance);
+
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+            assertEquals(MetricGroup.class, actual.get(i).getClass());
+        }
+    }
+
+    private void assertReduced(final AggregationInstance instance, final double delta) {
+        final List<Point> expected = points(direct(instance));
+        final List<Point> actual = points(reduced(instance));
+
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue(),
+                Math.abs(expected.get(i).getValue()) * delta);
+        }
+    }
+
+    private List<Metric> direct(final AggregationInstance instance) {
+        final AggregationSession session = instance.session(RANGE);
+
+        for (final List<Point> shard : shards) {
+            session.updatePoints(KEY, ImmutableSet.of(SERIES), shard);
+        }
+
+        return data(session);
+    }
+
+    private List<Metric> reduced(final AggregationInstance instance) {
+        final AggregationSession reducer = instance.reducer().session(RANGE);
+
+        for (final List<Point> shard : shards) {
+            final AggregationSession session = instance.distributed().session(RANGE);
+            session.updatePoints(KEY, ImmutableSet.of(SERIES), shard);
+
+            for (final AggregationOutput out : session.result().getResult()) {
+                out.getMetrics().updateAggregation(reducer, out.getKey(), out.getSeries());
+            }
+        }
+
+        return data(reducer);
+    }
+
+    private List<Metric> data(final AggregationSession session) {
+        final List<AggregationOutput> result = session.result().getResult();
+        assertEquals(1, result.size());
+        return ImmutableList.copyOf(result.get(0).getMetrics().getData());
+    }
+
+    private List<Point> points(final List<Metric> metrics) {
+        return MetricCollection.build(MetricType.POINT, metrics).getDataAs(Point.class);
+    }
+
+    private static List<List<Point>> buildShards(
+        final Random random, final int count, final int size
+    ) {
+        final List<List<Point>> shards = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            final List<Point> points = new ArrayList<>();
+
+            for (int n = 0; n < size; n++) {
+                points.add(new Point(n * 10, random.nextGaussian() * 100 + 1000));
+            }
+
+            shards.add(points);
+        }
+
+        return shards;
+    }
+}
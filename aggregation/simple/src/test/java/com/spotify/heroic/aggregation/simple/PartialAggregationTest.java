@@ -0,0 +1,118 @@
+package com.spotify.heroic.aggregation.simple;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.aggregation.AggregationOutput;
+import com.spotify.heroic.aggregation.AggregationSession;
+import com.spotify.heroic.aggregation.ChainInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Point;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that merging partial sessions gives the same result as feeding a single session.
+ */
+public class PartialAggregationTest {
+    private static final DateRange RANGE = new DateRange(0, 10000);
+    private static final Map<String, String> KEY = ImmutableMap.of();
+    private static final Series SERIES = Series.of("foo", ImmutableMap.of());
+
+    private final List<List<Point>> shards = buildShards(new Random(0x5eed), 4, 1000);
+
+    @Test
+    public void testSum() {
+        assertMerged(new SumInstance(1000, 1000), 1e-9);
+    }
+
+    @Test
+    public void testAverage() {
+        assertMerged(new AverageInstance(1000, 1000), 1e-9);
+    }
+
+    @Test
+    public void testMin() {
+        assertMerged(new MinInstance(1000, 1000), 0.0);
+    }
+
+    @Test
+    public void testMax() {
+        assertMerged(new MaxInstance(1000, 1000), 0.0);
+    }
+
+    @Test
+    public void testCount() {
+        assertMerged(new CountInstance(1000, 1000), 0.0);
+    }
+
+    @Test
+    public void testStdDev() {
+        assertMerged(new StdDevInstance(1000, 1000), 1e-9);
+    }
+
+    @Test
+    public void testChain() {
+        assertMerged(ChainInstance.of(new SumInstance(1000, 1000), new MaxInstance(2000, 2000)),
+            0.0);
+    }
+
+    private void assertMerged(final AggregationInstance instance, final double delta) {
+        final AggregationSession direct = instance.session(RANGE);
+
+        for (final List<Point> shard : shards) {
+            direct.updatePoints(KEY, ImmutableSet.of(SERIES), shard);
+        }
+
+        final AggregationSession merged = instance.partialSession(RANGE);
+
+        for (final List<Point> shard : shards) {
+            final AggregationSession partial = instance.partialSession(RANGE);
+            partial.updatePoints(KEY, ImmutableSet.of(SERIES), shard);
+            merged.merge(partial);
+        }
+
+        final List<Point> expected = points(direct);
+        final List<Point> actual = points(merged);
+
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+            assertEquals(expected.get(i).getValue(), actual.get(i).getValue(),
+                Math.abs(expected.get(i).getValue()) * delta);
+        }
+    }
+
+    private List<Point> points(final AggregationSession session) {
+        final List<AggregationOutput> result = session.result().getResult();
+        assertEquals(1, result.size());
+        return ImmutableList.copyOf(result.get(0).getMetrics().getDataAs(Point.class));
+    }
+
+    private static List<List<Point>> buildShards(
+        final Random random, final int count, final int size
+    ) {
+        final List<List<Point>> shards = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            final List<Point> points = new ArrayList<>();
+
+            for (int n = 0; n < size; n++) {
+                points.add(new Point(n * 10, random.nextGaussian() * 100 + 1000));
+            }
+
+            shards.add(points);
+        }
+
+        return shards;
+    }
+}
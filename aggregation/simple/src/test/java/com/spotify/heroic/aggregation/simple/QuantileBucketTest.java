@@ -1,5 +1,6 @@
 package com.spotify.heroic.aggregation.simple;
 
+import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Point;
 import org.junit.Assert;
 import org.junit.Test;
@@ -19,6 +20,12 @@ public class QuantileBucketTest {
         Assert.assertEquals(1337.0, b.value(), 0.0);
     }
 
+    @Test
+    public void testEmpty() throws IOException {
+        final QuantileBucket b = new QuantileBucket(0, 0.5, ERROR);
+        Assert.assertTrue(Double.isNaN(b.value()));
+    }
+
     @Test
     public void testQuantiles() throws IOException {
         final QuantileBucket b = new QuantileBucket(0, 0.5, ERROR);
@@ -40,4 +47,20 @@ public class QuantileBucketTest {
 
         Assert.assertEquals(1000.0, b.value(), 10000 * ERROR);
     }
+
+    @Test
+    public void testPayload() throws IOException {
+        final QuantileBucket a = new QuantileBucket(0, 0.5, ERROR);
+        final QuantileBucket b = new QuantileBucket(0, 0.5, ERROR);
+        final QuantileBucket reduced = new QuantileBucket(0, 0.5, ERROR);
+
+        for (int i = 1; i <= 10000; i++) {
+            (i % 2 == 0 ? a : b).updatePoint(TAGS, new Point(0, i));
+        }
+
+        reduced.updatePayload(TAGS, new Payload(0, a.state()));
+        reduced.updatePayload(TAGS, new Payload(0, b.state()));
+
+        Assert.assertEquals(5000.0, reduced.value(), 5000.0 * ERROR);
+    }
 }
@@ -0,0 +1,108 @@
+package com.spotify.heroic.aggregation.simple;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+    private static final double ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0.0, 0.01, 0.1, 0.5, 0.9, 0.99, 1.0};
+
+    @Test
+    public void testRelativeAccuracy() {
+        final Random random = new Random(0x5eed);
+        final double[] values = new double[10000];
+        final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 5) * (random.nextBoolean() ? 1 : -1);
+            sketch.add(values[i]);
+        }
+
+        assertQuantiles(values, sketch);
+    }
+
+    @Test
+    public void testZeroes() {
+        final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+
+        sketch.add(-1.0);
+        sketch.add(0.0);
+        sketch.add(0.0);
+        sketch.add(1.0);
+
+        assertEquals(-1.0, sketch.quantile(0.0), 0.0);
+        assertEquals(0.0, sketch.quantile(0.5), 0.0);
+        assertEquals(1.0, sketch.quantile(1.0), 0.0);
+    }
+
+    @Test
+    public void testMerge() {
+        final Random random = new Random(0x5eed);
+        final double[] values = new double[10000];
+        final QuantileSketch a = new QuantileSketch(ACCURACY);
+        final QuantileSketch b = new QuantileSketch(ACCURACY);
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * 1000;
+            (i < 5000 ? a : b).add(values[i]);
+        }
+
+        a.merge(b);
+        assertEquals(values.length, a.count());
+        assertQuantiles(values, a);
+    }
+
+    @Test
+    public void testSerialization() {
+        final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+
+        for (int i = -500; i <= 1000; i++) {
+            sketch.add(i * 1.5);
+        }
+
+        final QuantileSketch copy = QuantileSketch.fromBytes(sketch.toBytes());
+
+        assertEquals(sketch.count(), copy.count());
+
+        for (final double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), copy.quantile(q), 0.0);
+        }
+
+        assertTrue(QuantileSketch.fromBytes(new QuantileSketch(ACCURACY).toBytes()).isEmpty());
+    }
+
+    @Test
+    public void testCollapse() {
+        final QuantileSketch sketch = new QuantileSketch(ACCURACY);
+
+        for (int i = -300; i <= 300; i++) {
+            sketch.add(Math.pow(10, i / 10.0));
+        }
+
+        /* the lowest bins are collapsed, but high quantiles keep their accuracy */
+        assertEquals(601, sketch.count());
+        assertEquals(1e-30, sketch.quantile(0.0), 0.0);
+        assertEquals(1e24, sketch.quantile(0.9), 1e24 * ACCURACY);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentAccuracy() {
+        new QuantileSketch(0.01).merge(new QuantileSketch(0.02));
+    }
+
+    private void assertQuantiles(final double[] values, final QuantileSketch sketch) {
+        final double[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        for (final double q : QUANTILES) {
+            final double expected = sorted[(int) (q * (sorted.length - 1))];
+            assertEquals("q = " + q, expected, sketch.quantile(q),
+                Math.abs(expected) * ACCURACY + 1e-9);
+        }
+    }
+}
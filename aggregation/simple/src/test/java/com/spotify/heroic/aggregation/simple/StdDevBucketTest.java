@@ -4,18 +4,22 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import org.junit.Test;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Random;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class StdDevBucketTest {
     public Collection<? extends DoubleBucket> buckets() {
-        return ImmutableList.<DoubleBucket>of(new StdDevBucket(0L), new StripedStdDevBucket(0L));
+        return ImmutableList.<DoubleBucket>of(new StdDevBucket(0L), new StripedStdDevBucket(0L),
+            new PlainStdDevBucket(0L));
     }
 
     @Test
@@ -48,4 +52,35 @@ public class StdDevBucketTest {
             assertFalse(bucket.getClass().getSimpleName(), Double.isNaN(bucket.value()));
         }
     }
+
+    @Test
+    public void testRuns() {
+        final Random rnd = new Random();
+        final Map<String, String> tags = ImmutableMap.of();
+
+        final PointChunk.Builder builder = PointChunk.builder();
+
+        for (int i = 0; i < 1000; i++) {
+            builder.add(0L, rnd.nextDouble());
+        }
+
+        final PointChunk points = builder.build();
+
+        final Iterator<? extends DoubleBucket> references = buckets().iterator();
+
+        for (final DoubleBucket bucket : buckets()) {
+            final DoubleBucket reference = references.next();
+
+            for (int i = 0; i < points.size(); i++) {
+                reference.updatePoint(tags, points.timestamp(i), points.value(i));
+            }
+
+            bucket.updatePoints(tags, points, 0, 300);
+            bucket.updatePoints(tags, points, 300, 301);
+            bucket.updatePoints(tags, points, 301, points.size());
+
+            assertEquals(bucket.getClass().getSimpleName(), reference.value(), bucket.value(),
+                1e-9);
+        }
+    }
 }
@@ -4,6 +4,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.spotify.heroic.aggregation.DoubleBucket;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import org.junit.Test;
 
 import java.util.Collection;
@@ -16,7 +17,8 @@ public class SumBucketTest {
     private static final Map<String, String> tags = ImmutableMap.of();
 
     public Collection<? extends DoubleBucket> buckets() {
-        return ImmutableList.<DoubleBucket>of(new SumBucket(0L), new StripedSumBucket(0L));
+        return ImmutableList.<DoubleBucket>of(new SumBucket(0L), new StripedSumBucket(0L),
+            new PlainSumBucket(0L));
     }
 
     @Test
@@ -34,4 +36,32 @@ public class SumBucketTest {
             assertEquals(bucket.getClass().getSimpleName(), 30.0, bucket.value(), 0.0);
         }
     }
+
+    @Test
+    public void testAddRun() {
+        final PointChunk points =
+            PointChunk.builder().add(0, 10.0).add(0, 20.0).add(0, 30.0).add(0, 40.0).build();
+
+        for (final DoubleBucket bucket : buckets()) {
+            bucket.updatePoints(tags, points, 1, 3);
+            assertEquals(bucket.getClass().getSimpleName(), 50.0, bucket.value(), 0.0);
+        }
+    }
+
+    @Test
+    public void testMerge() {
+        final StripedSumBucket a = new StripedSumBucket(0L);
+        final StripedSumBucket b = new StripedSumBucket(0L);
+
+        a.merge(b);
+        assertTrue(Double.isNaN(a.value()));
+
+        b.updatePoint(tags, new Point(0, 10.0));
+        a.merge(b);
+        assertEquals(10.0, a.value(), 0.0);
+
+        a.updatePoint(tags, new Point(0, 20.0));
+        a.merge(b);
+        assertEquals(40.0, a.value(), 0.0);
+    }
 }
@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.spotify.heroic.common.GrokProcessor;
+import com.spotify.heroic.common.SeriesCache;
 import com.spotify.heroic.ingestion.Ingestion;
 import com.spotify.heroic.ingestion.IngestionGroup;
 import eu.toolchain.async.AsyncFramework;
@@ -48,6 +49,7 @@ public class CollectdChannelHandler extends SimpleChannelInboundHandler<Datagram
     private final IngestionGroup ingestion;
     private final Optional<GrokProcessor> hostProcessor;
     private final CollectdTypes types;
+    private final SeriesCache seriesCache;
 
     @Override
     protected void channelRead0(final ChannelHandlerContext ctx, final DatagramPacket msg)
@@ -69,9 +71,9 @@ public class CollectdChannelHandler extends SimpleChannelInboundHandler<Datagram
                     Iterables.transform(parts.entrySet(),
                         e -> Pair.of(e.getKey(), e.getValue().toString())));
 
-                ingestions = types.convert(s, Iterables.concat(base, tags));
+                ingestions = types.convert(s, Iterables.concat(base, tags), seriesCache);
             } else {
-                ingestions = types.convert(s, base);
+                ingestions = types.convert(s, base, seriesCache);
             }
 
             final List<AsyncFuture<Ingestion>> futures = new ArrayList<>();
@@ -24,6 +24,7 @@ package com.spotify.heroic.consumer.collectd;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.common.GrokProcessor;
+import com.spotify.heroic.common.SeriesCache;
 import com.spotify.heroic.consumer.ConsumerModule;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.ingestion.IngestionComponent;
@@ -139,7 +140,8 @@ public class CollectdConsumerModule implements ConsumerModule {
         @Provides
         @CollectdScope
         Managed<Server> connection(
-            final AsyncFramework async, final IngestionManager ingestionManager
+            final AsyncFramework async, final IngestionManager ingestionManager,
+            final SeriesCache seriesCache
         ) {
             return async.managed(new ManagedSetup<Server>() {
                 @Override
@@ -151,7 +153,8 @@ public class CollectdConsumerModule implements ConsumerModule {
                     }
 
                     final CollectdChannelHandler handler =
-                        new CollectdChannelHandler(async, ingestion, hostProcessor, types);
+                        new CollectdChannelHandler(async, ingestion, hostProcessor, types,
+                            seriesCache);
 
                     final InetAddress h = host.map(host -> {
                         try {
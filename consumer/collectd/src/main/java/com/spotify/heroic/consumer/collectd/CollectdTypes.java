@@ -27,6 +27,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesCache;
 import com.spotify.heroic.ingestion.Ingestion;
 import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.Point;
@@ -121,23 +122,25 @@ public class CollectdTypes {
     }
 
     public List<Ingestion.Request> convert(
-        final CollectdSample sample, final Iterable<Map.Entry<String, String>> tags
+        final CollectdSample sample, final Iterable<Map.Entry<String, String>> tags,
+        final SeriesCache seriesCache
     ) {
         final Mapper mapping = mappings.get(sample.getType());
 
         if (mapping == null) {
             log.info("No mapping found for sample {} {}", sample, tags);
-            return convertDefault(sample, tags);
+            return convertDefault(sample, tags, seriesCache);
         }
 
-        return mapping.convert(sample, tags);
+        return mapping.convert(sample, tags, seriesCache);
     }
 
     /**
      * Default conversion of collectd samples.
      */
     private List<Ingestion.Request> convertDefault(
-        final CollectdSample sample, final Iterable<Map.Entry<String, String>> tags
+        final CollectdSample sample, final Iterable<Map.Entry<String, String>> tags,
+        final SeriesCache seriesCache
     ) {
         final long time = sample.getTime() * 1000;
 
@@ -148,7 +151,7 @@ public class CollectdTypes {
         while (values.hasNext()) {
             final CollectdValue value = values.next();
 
-            final Series series = Series.of(key, Iterables.concat(tags, sampleTags).iterator());
+            final Series series = seriesCache.intern(key, Iterables.concat(tags, sampleTags));
             final Point point = new Point(time, value.toDouble());
 
             final MetricCollection data = MetricCollection.points(ImmutableList.of(point));
@@ -203,7 +206,8 @@ public class CollectdTypes {
 
     interface Mapper {
         List<Ingestion.Request> convert(
-            final CollectdSample sample, final Iterable<Map.Entry<String, String>> tags
+            final CollectdSample sample, final Iterable<Map.Entry<String, String>> tags,
+            final SeriesCache seriesCache
         );
     }
 
@@ -217,7 +221,7 @@ public class CollectdTypes {
         }
 
         public Mapper setup(CollectdTypes types) {
-            return (sample, tags) -> {
+            return (sample, tags, seriesCache) -> {
                 final long time = sample.getTime() * 1000;
 
                 final Iterator<Field> fields = this.fields.iterator();
@@ -235,9 +239,8 @@ public class CollectdTypes {
                     final Field field = fields.next();
                     final CollectdValue value = values.next();
 
-                    final Series series = Series.of(types.key, Iterables
-                        .concat(tags, base.entrySet(), field.tags(sample, value).entrySet())
-                        .iterator());
+                    final Series series = seriesCache.intern(types.key, Iterables.concat(tags,
+                        base.entrySet(), field.tags(sample, value).entrySet()));
                     final Point point = new Point(time, value.convert(field));
 
                     final MetricCollection data = MetricCollection.points(ImmutableList.of(point));
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.consumer.kafka;
+
+import com.spotify.heroic.consumer.ConsumerSchema;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import com.spotify.heroic.statistics.ConsumerReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.StreamCollector;
+import kafka.consumer.ConsumerIterator;
+import kafka.consumer.ConsumerTimeoutException;
+import kafka.consumer.KafkaStream;
+import kafka.message.MessageAndMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A consumer thread which consumes messages in batches.
+ * <p>
+ * Messages are pulled until the batch is full, or until the stream has been idle for the
+ * configured consumer timeout. Each message is decoded on the async framework, and up to a
+ * bounded number of writes are in flight per partition. Offsets are committed only after the
+ * whole batch has been written.
+ */
+@Slf4j
+public class BatchedConsumerThread extends ConsumerThread {
+    private final OffsetCommitter committer;
+    private final int batchSize;
+    private final int maxInFlightPerPartition;
+
+    /* if the calling thread currently holds unwritten messages in the committer */
+    private boolean holding = false;
+
+    public BatchedConsumerThread(
+        final AsyncFramework async, final String name, final ConsumerReporter reporter,
+        final KafkaStream<byte[], byte[]> stream, final ConsumerSchema.Consumer schema,
+        final AtomicInteger active, final AtomicLong errors, final LongAdder consumed,
+        final OffsetCommitter committer, final int batchSize, final int maxInFlightPerPartition
+    ) {
+        super(async, name, reporter, stream, schema, active, errors, consumed);
+        this.committer = committer;
+        this.batchSize = batchSize;
+        this.maxInFlightPerPartition = maxInFlightPerPartition;
+    }
+
+    @Override
+    protected void guardedRun() throws Exception {
+        final ConsumerIterator<byte[], byte[]> it = stream.iterator();
+
+        while (stopSignal.getCount() > 0) {
+            parkPaused();
+
+            if (stopSignal.getCount() == 0) {
+                break;
+            }
+
+            final List<MessageAndMetadata<byte[], byte[]>> batch = new ArrayList<>(batchSize);
+            final boolean more;
+            boolean written = false;
+
+            try {
+                more = pull(it, batch);
+                written = writeUntilSuccessful(batch);
+            } finally {
+                if (holding) {
+                    if (!written) {
+                        committer.abort();
+                    }
+
+                    holding = false;
+                    committer.end();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                committer.commit();
+            }
+
+            if (!more) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Pull the next batch of messages.
+     *
+     * @return {@code true} if the stream has more messages.
+     */
+    private boolean pull(
+        final ConsumerIterator<byte[], byte[]> it,
+        final List<MessageAndMetadata<byte[], byte[]>> batch
+    ) throws InterruptedException {
+        while (batch.size() < batchSize && stopSignal.getCount() > 0) {
+            try {
+                if (!it.hasNext()) {
+                    return false;
+                }
+            } catch (final ConsumerTimeoutException e) {
+                /* the stream is idle, write what we have */
+                break;
+            }
+
+            if (!holding) {
+                committer.begin();
+                holding = true;
+            }
+
+            batch.add(it.next());
+        }
+
+        return true;
+    }
+
+    /**
+     * Write all messages of the batch, retrying the failed ones until they succeed.
+     *
+     * @return {@code true} if all messages were written, {@code false} if the thread was stopped.
+     */
+    private boolean writeUntilSuccessful(final List<MessageAndMetadata<byte[], byte[]>> batch)
+        throws Exception {
+        Map<Integer, List<byte[]>> partitions = new LinkedHashMap<>();
+
+        for (final MessageAndMetadata<byte[], byte[]> m : batch) {
+            partitions.computeIfAbsent(m.partition(), p -> new ArrayList<>()).add(m.message());
+        }
+
+        long sleep = INITIAL_SLEEP;
+
+        while (!partitions.isEmpty()) {
+            if (stopSignal.getCount() == 0) {
+                return false;
+            }
+
+            partitions = write(partitions);
+
+            if (!partitions.isEmpty()) {
+                handleRetry(sleep);
+                sleep = Math.min(sleep * 2, MAX_SLEEP);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Write the given messages, grouped by partition.
+     *
+     * @return Messages which failed to be written and should be retried, grouped by partition.
+     */
+    private Map<Integer, List<byte[]>> write(final Map<Integer, List<byte[]>> partitions)
+        throws Exception {
+        final Map<Integer, ConcurrentLinkedQueue<byte[]>> failed = new LinkedHashMap<>();
+        final List<AsyncFuture<Void>> futures = new ArrayList<>();
+
+        for (final Map.Entry<Integer, List<byte[]>> e : partitions.entrySet()) {
+            final ConcurrentLinkedQueue<byte[]> retries = new ConcurrentLinkedQueue<>();
+            failed.put(e.getKey(), retries);
+
+            final List<Callable<AsyncFuture<byte[]>>> callables = new ArrayList<>();
+
+            for (final byte[] body : e.getValue()) {
+                callables.add(() -> consumeAsync(body));
+            }
+
+            futures.add(
+                async.eventuallyCollect(callables, new RetryCollector(retries),
+                    maxInFlightPerPartition));
+        }
+
+        async.collectAndDiscard(futures).get();
+
+        final Map<Integer, List<byte[]>> result = new LinkedHashMap<>();
+
+        for (final Map.Entry<Integer, ConcurrentLinkedQueue<byte[]>> e : failed.entrySet()) {
+            if (!e.getValue().isEmpty()) {
+                result.put(e.getKey(), new ArrayList<>(e.getValue()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Decode and write a single message.
+     *
+     * @return A future which is resolved to the message if it should be retried, or {@code null}
+     * if it was written or should be ignored.
+     */
+    private AsyncFuture<byte[]> consumeAsync(final byte[] body) {
+        return async
+            .call(() -> schema.consume(body))
+            .lazyTransform(write -> write)
+            .directTransform(v -> {
+                reporter.reportMessageSize(body.length);
+                consumed.increment();
+                return (byte[]) null;
+            })
+            .catchFailed(e -> {
+                if (e instanceof ConsumerSchemaValidationException) {
+                    /* these messages should be ignored */
+                    reporter.reportConsumerSchemaError();
+                    return null;
+                }
+
+                errors.incrementAndGet();
+                log.error("{}: Failed to consume", name, e);
+                reporter.reportMessageError();
+                return body;
+            });
+    }
+
+    @RequiredArgsConstructor
+    private static class RetryCollector implements StreamCollector<byte[], Void> {
+        private final ConcurrentLinkedQueue<byte[]> retries;
+
+        @Override
+        public void resolved(final byte[] result) throws Exception {
+            if (result != null) {
+                retries.add(result);
+            }
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+        }
+
+        @Override
+        public Void end(final int resolved, final int failed, final int cancelled)
+            throws Exception {
+            return null;
+        }
+    }
+}
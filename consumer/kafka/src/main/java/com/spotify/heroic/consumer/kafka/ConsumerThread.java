@@ -39,22 +39,22 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.LongAdder;
 
 @Slf4j
-public final class ConsumerThread extends Thread {
-    private static final long INITIAL_SLEEP = 5;
-    private static final long MAX_SLEEP = 40;
-
-    private final AsyncFramework async;
-    private final String name;
-    private final ConsumerReporter reporter;
-    private final KafkaStream<byte[], byte[]> stream;
-    private final ConsumerSchema.Consumer schema;
-    private final AtomicInteger active;
-    private final AtomicLong errors;
-    private final LongAdder consumed;
+public class ConsumerThread extends Thread {
+    protected static final long INITIAL_SLEEP = 5;
+    protected static final long MAX_SLEEP = 40;
+
+    protected final AsyncFramework async;
+    protected final String name;
+    protected final ConsumerReporter reporter;
+    protected final KafkaStream<byte[], byte[]> stream;
+    protected final ConsumerSchema.Consumer schema;
+    protected final AtomicInteger active;
+    protected final AtomicLong errors;
+    protected final LongAdder consumed;
     // use a latch as a signal so that we can block on it instead of Thread#sleep (or similar) which
     // would be a pain to
     // interrupt.
-    private final CountDownLatch stopSignal = new CountDownLatch(1);
+    protected final CountDownLatch stopSignal = new CountDownLatch(1);
 
     protected final ResolvableFuture<Void> stopFuture;
 
@@ -136,7 +136,7 @@ public final class ConsumerThread extends Thread {
         return stopFuture;
     }
 
-    private void guardedRun() throws Exception {
+    protected void guardedRun() throws Exception {
         for (final MessageAndMetadata<byte[], byte[]> m : stream) {
             parkPaused();
 
@@ -149,7 +149,7 @@ public final class ConsumerThread extends Thread {
         }
     }
 
-    private void parkPaused() throws InterruptedException {
+    protected void parkPaused() throws InterruptedException {
         CountDownLatch p = paused.get();
 
         if (p == null) {
@@ -202,7 +202,7 @@ public final class ConsumerThread extends Thread {
         }
     }
 
-    private void handleRetry(long sleep) throws InterruptedException {
+    protected void handleRetry(long sleep) throws InterruptedException {
         log.info("{}: Retrying in {} second(s)", name, sleep);
 
         /* decrementing the number of active active consumers indicates an error to the consumer
@@ -69,12 +69,19 @@ import java.util.concurrent.atomic.LongAdder;
 @Data
 public class KafkaConsumerModule implements ConsumerModule {
     public static final int DEFAULT_THREADS_PER_TOPIC = 2;
+    public static final boolean DEFAULT_BATCHED = false;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_MAX_IN_FLIGHT_PER_PARTITION = 100;
+    public static final String DEFAULT_BATCH_TIMEOUT = "100";
 
     private final Optional<String> id;
     private final List<String> topics;
     private final int threads;
     private final Map<String, String> config;
     private final ConsumerSchema schema;
+    private final boolean batched;
+    private final int batchSize;
+    private final int maxInFlightPerPartition;
 
     @Override
     public Exposed module(
@@ -187,6 +194,13 @@ public class KafkaConsumerModule implements ConsumerModule {
                         final Properties properties = new Properties();
                         properties.putAll(config);
 
+                        if (batched) {
+                            /* offsets are committed once batches have been written, and partial
+                             * batches are written when the stream has been idle for a while */
+                            properties.put("auto.commit.enable", "false");
+                            properties.putIfAbsent("consumer.timeout.ms", DEFAULT_BATCH_TIMEOUT);
+                        }
+
                         final ConsumerConfig config = new ConsumerConfig(properties);
                         final ConsumerConnector connector =
                             kafka.consumer.Consumer.createJavaConsumerConnector(config);
@@ -196,9 +210,12 @@ public class KafkaConsumerModule implements ConsumerModule {
                         final Map<String, List<KafkaStream<byte[], byte[]>>> streams =
                             connector.createMessageStreams(streamsMap);
 
+                        final OffsetCommitter committer =
+                            new OffsetCommitter(connector::commitOffsets);
+
                         final List<ConsumerThread> threads =
                             buildThreads(async, reporter, streams, consumer, consuming, errors,
-                                consumed);
+                                consumed, committer);
 
                         for (final ConsumerThread t : threads) {
                             t.start();
@@ -211,14 +228,25 @@ public class KafkaConsumerModule implements ConsumerModule {
 
                 @Override
                 public AsyncFuture<Void> destruct(final Connection value) {
-                    value.getConnector().shutdown();
+                    if (!batched) {
+                        value.getConnector().shutdown();
+                    }
 
                     total.set(0);
 
                     final List<AsyncFuture<Void>> shutdown = ImmutableList.copyOf(
                         value.getThreads().stream().map(ConsumerThread::shutdown).iterator());
 
-                    return async.collectAndDiscard(shutdown);
+                    if (!batched) {
+                        return async.collectAndDiscard(shutdown);
+                    }
+
+                    /* batched threads wake up on the consumer timeout, let them finish writing
+                     * and committing before the connector goes away */
+                    return async.collectAndDiscard(shutdown).lazyTransform(v -> {
+                        value.getConnector().shutdown();
+                        return async.resolved();
+                    });
                 }
 
                 /* private */
@@ -246,7 +274,7 @@ public class KafkaConsumerModule implements ConsumerModule {
         final AsyncFramework async, final ConsumerReporter reporter,
         final Map<String, List<KafkaStream<byte[], byte[]>>> streams,
         ConsumerSchema.Consumer consumer, AtomicInteger consuming, AtomicLong errors,
-        LongAdder consumed
+        LongAdder consumed, OffsetCommitter committer
     ) {
         final List<ConsumerThread> threads = new ArrayList<>();
 
@@ -262,9 +290,16 @@ public class KafkaConsumerModule implements ConsumerModule {
             for (final KafkaStream<byte[], byte[]> stream : list) {
                 final String name = String.format("%s:%d", topic, count++);
 
-                threads.add(
-                    new ConsumerThread(async, name, reporter, stream, consumer, consuming, errors,
-                        consumed));
+                if (batched) {
+                    threads.add(
+                        new BatchedConsumerThread(async, name, reporter, stream, consumer,
+                            consuming, errors, consumed, committer, batchSize,
+                            maxInFlightPerPartition));
+                } else {
+                    threads.add(
+                        new ConsumerThread(async, name, reporter, stream, consumer, consuming,
+                            errors, consumed));
+                }
             }
         }
 
@@ -292,6 +327,9 @@ public class KafkaConsumerModule implements ConsumerModule {
         private Optional<Integer> threads = Optional.empty();
         private Optional<Map<String, String>> config = Optional.empty();
         private Optional<ConsumerSchema> schema = Optional.empty();
+        private Optional<Boolean> batched = Optional.empty();
+        private Optional<Integer> batchSize = Optional.empty();
+        private Optional<Integer> maxInFlightPerPartition = Optional.empty();
 
         @JsonCreator
         public Builder(
@@ -299,12 +337,18 @@ public class KafkaConsumerModule implements ConsumerModule {
             @JsonProperty("schema") Optional<String> schema,
             @JsonProperty("topics") Optional<List<String>> topics,
             @JsonProperty("threadsPerTopic") Optional<Integer> threads,
-            @JsonProperty("config") Optional<Map<String, String>> config
+            @JsonProperty("config") Optional<Map<String, String>> config,
+            @JsonProperty("batched") Optional<Boolean> batched,
+            @JsonProperty("batchSize") Optional<Integer> batchSize,
+            @JsonProperty("maxInFlightPerPartition") Optional<Integer> maxInFlightPerPartition
         ) {
             this.id = id;
             this.threads = threads;
             this.topics = topics;
             this.config = config;
+            this.batched = batched;
+            this.batchSize = batchSize;
+            this.maxInFlightPerPartition = maxInFlightPerPartition;
             this.schema = schema.map(s -> ReflectionUtils.buildInstance(s, ConsumerSchema.class));
         }
 
@@ -328,6 +372,24 @@ public class KafkaConsumerModule implements ConsumerModule {
             return this;
         }
 
+        /**
+         * Consume messages in batches, and commit offsets once a batch has been written.
+         */
+        public Builder batched(boolean batched) {
+            this.batched = Optional.of(batched);
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            this.batchSize = Optional.of(batchSize);
+            return this;
+        }
+
+        public Builder maxInFlightPerPartition(int maxInFlightPerPartition) {
+            this.maxInFlightPerPartition = Optional.of(maxInFlightPerPartition);
+            return this;
+        }
+
         public Builder schema(Class<ConsumerSchema> schemaClass) {
             this.schema = Optional.of(ReflectionUtils.buildInstance(schemaClass));
             return this;
@@ -349,13 +411,24 @@ public class KafkaConsumerModule implements ConsumerModule {
                 throw new RuntimeException("Schema is not defined");
             }
 
+            if (batchSize.orElse(DEFAULT_BATCH_SIZE) <= 0) {
+                throw new RuntimeException("Batch size must be positive");
+            }
+
+            if (maxInFlightPerPartition.orElse(DEFAULT_MAX_IN_FLIGHT_PER_PARTITION) <= 0) {
+                throw new RuntimeException("Max in-flight writes per partition must be positive");
+            }
+
             // @formatter:off
             return new KafkaConsumerModule(
                 id,
                 topics.get(),
                 threads.orElse(DEFAULT_THREADS_PER_TOPIC),
                 config.orElseGet(ImmutableMap::of),
-                schema.get()
+                schema.get(),
+                batched.orElse(DEFAULT_BATCHED),
+                batchSize.orElse(DEFAULT_BATCH_SIZE),
+                maxInFlightPerPartition.orElse(DEFAULT_MAX_IN_FLIGHT_PER_PARTITION)
             );
             // @formatter:on
         }
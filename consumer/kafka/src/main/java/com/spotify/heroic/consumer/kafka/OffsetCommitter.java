@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.consumer.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coordinates offset commits between batched consumer threads.
+ * <p>
+ * The high-level consumer commits the consumed offsets of all streams of a connector at once, so
+ * a commit must only happen when no thread holds messages that have been consumed but not yet
+ * written. Threads are counted as holders from when they start pulling a batch until it has been
+ * written.
+ * <p>
+ * Commits never wait for holders, since a thread which is retrying a write might hold its batch
+ * for a long time. A commit which can't be performed right away is left pending, and is performed
+ * by the last holder to finish its batch. While a commit is pending, threads wait before starting
+ * a new batch, so that steady consumption on other streams can't put the commit off forever.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OffsetCommitter {
+    private final Runnable commit;
+
+    private final Object lock = new Object();
+
+    /* number of threads holding unwritten messages */
+    private int holders = 0;
+    private boolean pending = false;
+    private boolean aborted = false;
+
+    /**
+     * Mark that the calling thread is about to consume messages which have not been written.
+     * <p>
+     * Waits for a pending commit to be performed first.
+     *
+     * @throws InterruptedException if interrupted while waiting for a pending commit.
+     */
+    public void begin() throws InterruptedException {
+        synchronized (lock) {
+            while (pending && !aborted) {
+                lock.wait();
+            }
+
+            holders++;
+        }
+    }
+
+    /**
+     * Mark that all messages consumed by the calling thread since {@link #begin()} are written, or
+     * that the thread has given up on them and called {@link #abort()}.
+     * <p>
+     * Performs a pending commit if no other thread holds unwritten messages.
+     */
+    public void end() {
+        synchronized (lock) {
+            holders--;
+            tryCommit();
+        }
+    }
+
+    /**
+     * Commit consumed offsets, or leave the commit pending if another thread holds unwritten
+     * messages.
+     */
+    public void commit() {
+        synchronized (lock) {
+            pending = true;
+            tryCommit();
+        }
+    }
+
+    /**
+     * Prevent any further commits, since some consumed messages will never be written.
+     */
+    public void abort() {
+        synchronized (lock) {
+            aborted = true;
+            lock.notifyAll();
+        }
+    }
+
+    private void tryCommit() {
+        if (!pending || aborted || holders > 0) {
+            return;
+        }
+
+        pending = false;
+
+        try {
+            commit.run();
+        } catch (final Exception e) {
+            log.error("Failed to commit offsets", e);
+        } finally {
+            lock.notifyAll();
+        }
+    }
+}
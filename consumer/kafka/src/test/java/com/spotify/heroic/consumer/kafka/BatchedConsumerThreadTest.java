@@ -0,0 +1,162 @@
+package com.spotify.heroic.consumer.kafka;
+
+import com.spotify.heroic.consumer.ConsumerSchema;
+import com.spotify.heroic.statistics.ConsumerReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.TinyAsync;
+import kafka.consumer.ConsumerIterator;
+import kafka.consumer.KafkaStream;
+import kafka.message.MessageAndMetadata;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BatchedConsumerThreadTest {
+    private static final byte[] A = new byte[]{'a'};
+    private static final byte[] B = new byte[]{'b'};
+    private static final byte[] C = new byte[]{'c'};
+
+    @Mock
+    private ConsumerReporter reporter;
+    @Mock
+    private KafkaStream<byte[], byte[]> stream;
+    @Mock
+    private ConsumerIterator<byte[], byte[]> iterator;
+    @Mock
+    private ConsumerSchema.Consumer schema;
+    @Mock
+    private Runnable commit;
+
+    private final AsyncFramework async = TinyAsync.builder().build();
+    private final AtomicLong errors = new AtomicLong();
+    private final LongAdder consumed = new LongAdder();
+
+    private OffsetCommitter committer;
+
+    @Before
+    public void setup() throws Exception {
+        committer = new OffsetCommitter(commit);
+        doReturn(iterator).when(stream).iterator();
+        doReturn(async.resolved()).when(schema).consume(any());
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        messages(message(0, A), message(0, B), message(1, C));
+
+        thread(2).guardedRun();
+
+        verify(schema).consume(A);
+        verify(schema).consume(B);
+        verify(schema).consume(C);
+        assertEquals(3, consumed.sum());
+
+        /* one commit for each batch */
+        verify(commit, times(2)).run();
+    }
+
+    @Test
+    public void testCommitAfterWrite() throws Exception {
+        messages(message(0, A), message(1, B));
+
+        thread(2).guardedRun();
+
+        final InOrder order = inOrder(schema, commit);
+        order.verify(schema).consume(A);
+        order.verify(schema).consume(B);
+        order.verify(commit).run();
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        messages(message(0, A), message(0, B));
+
+        doReturn(async.failed(new RuntimeException("failed")))
+            .doReturn(async.resolved())
+            .when(schema)
+            .consume(B);
+
+        thread(2).guardedRun();
+
+        /* only the failed message is retried */
+        verify(schema, times(1)).consume(A);
+        verify(schema, times(2)).consume(B);
+        assertEquals(1, errors.get());
+        assertEquals(2, consumed.sum());
+        verify(commit).run();
+    }
+
+    @Test
+    public void testAbortOnStop() throws Exception {
+        messages(message(0, A));
+        doReturn(async.failed(new RuntimeException("failed"))).when(schema).consume(A);
+
+        final BatchedConsumerThread thread =
+            new BatchedConsumerThread(async, "test", reporter, stream, schema, new AtomicInteger(),
+                errors, consumed, committer, 2, 1) {
+                @Override
+                protected void handleRetry(final long sleep) {
+                    /* stop while the batch is being retried */
+                    shutdown();
+                }
+            };
+
+        thread.guardedRun();
+
+        /* the unwritten batch must never be committed */
+        verify(commit, never()).run();
+        committer.commit();
+        verify(commit, never()).run();
+    }
+
+    private BatchedConsumerThread thread(final int batchSize) {
+        return new BatchedConsumerThread(async, "test", reporter, stream, schema,
+            new AtomicInteger(), errors, consumed, committer, batchSize, 1) {
+            @Override
+            protected void handleRetry(final long sleep) {
+            }
+        };
+    }
+
+    @SafeVarargs
+    private final void messages(final MessageAndMetadata<byte[], byte[]>... messages) {
+        final Boolean[] more = new Boolean[messages.length];
+
+        for (int i = 0; i < messages.length; i++) {
+            more[i] = i + 1 < messages.length;
+        }
+
+        when(iterator.hasNext()).thenReturn(true, more);
+        when(iterator.next()).thenReturn(messages[0],
+            Arrays.copyOfRange(messages, 1, messages.length));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MessageAndMetadata<byte[], byte[]> message(
+        final int partition, final byte[] body
+    ) {
+        final MessageAndMetadata<byte[], byte[]> m = mock(MessageAndMetadata.class);
+        doReturn(body).when(m).message();
+        doReturn(partition).when(m).partition();
+        return m;
+    }
+}
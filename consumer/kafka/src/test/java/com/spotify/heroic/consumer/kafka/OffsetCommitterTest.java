@@ -0,0 +1,163 @@
+package com.spotify.heroic.consumer.kafka;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OffsetCommitterTest {
+    @Mock
+    private Runnable commit;
+
+    private OffsetCommitter committer;
+
+    @Before
+    public void setup() {
+        committer = new OffsetCommitter(commit);
+    }
+
+    @Test
+    public void testCommit() throws Exception {
+        committer.begin();
+        committer.end();
+        committer.commit();
+
+        verify(commit).run();
+    }
+
+    @Test
+    public void testCommitIsDeferredWhileHeld() throws Exception {
+        final CountDownLatch holding = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Thread other = new Thread(() -> {
+            try {
+                committer.begin();
+                holding.countDown();
+                release.await();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+
+            committer.end();
+        });
+
+        other.start();
+        assertTrue(holding.await(10, TimeUnit.SECONDS));
+
+        /* does not wait for the other thread */
+        committer.commit();
+        verify(commit, never()).run();
+
+        /* the pending commit is performed once the other thread is done */
+        release.countDown();
+        other.join(10000);
+
+        verify(commit).run();
+    }
+
+    @Test
+    public void testCommitIsNotStarved() throws Exception {
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final List<Thread> threads = new ArrayList<>();
+
+        /* keep the committer held at all times, with the holds of the threads overlapping */
+        for (int i = 0; i < 4; i++) {
+            final Thread thread = new Thread(() -> {
+                try {
+                    while (!stopped.get()) {
+                        committer.begin();
+                        Thread.sleep(2);
+                        committer.end();
+                    }
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            thread.start();
+            threads.add(thread);
+        }
+
+        try {
+            committer.commit();
+            verify(commit, timeout(10000)).run();
+        } finally {
+            stopped.set(true);
+
+            for (final Thread thread : threads) {
+                thread.join(10000);
+            }
+        }
+    }
+
+    @Test
+    public void testAbortReleasesWaiters() throws Exception {
+        committer.begin();
+        committer.commit();
+
+        final Thread other = new Thread(() -> {
+            try {
+                committer.begin();
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+
+            committer.end();
+        });
+
+        other.start();
+        committer.abort();
+        other.join(10000);
+
+        assertFalse(other.isAlive());
+        committer.end();
+        verify(commit, never()).run();
+    }
+
+    @Test
+    public void testCommitsAreCoalesced() throws Exception {
+        committer.begin();
+        committer.commit();
+        committer.commit();
+        committer.end();
+
+        verify(commit, times(1)).run();
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        committer.begin();
+        committer.abort();
+        committer.end();
+        committer.commit();
+
+        verify(commit, never()).run();
+    }
+
+    @Test
+    public void testFailedCommit() {
+        doThrow(new RuntimeException("failed")).doNothing().when(commit).run();
+
+        committer.commit();
+        committer.commit();
+
+        verify(commit, times(2)).run();
+    }
+}
@@ -54,6 +54,7 @@ public class MemoryProfile extends HeroicProfileBase {
 
         final boolean elasticsearch = params.getBoolean("elasticsearch").orElse(false);
         final boolean synchronizedStorage = params.getBoolean("synchronizedStorage").orElse(false);
+        final boolean chunked = params.getBoolean("chunked").orElse(false);
 
         final ImmutableList.Builder<SuggestModule> suggest = ImmutableList.builder();
         final ImmutableList.Builder<MetadataModule> metadata = ImmutableList.builder();
@@ -93,6 +94,7 @@ public class MemoryProfile extends HeroicProfileBase {
                     .backends(ImmutableList.<MetricModule>of(
                         MemoryMetricModule.builder()
                             .synchronizedStorage(synchronizedStorage)
+                            .chunked(chunked)
                             .build()
                     ))
             )
@@ -120,7 +122,8 @@ public class MemoryProfile extends HeroicProfileBase {
         return ImmutableList.of(
             parameter("elasticsearch", "If set, use real elasticsearch backends"),
             parameter("synchronized", "If set, synchronized storage for happens-before " +
-                    "behavior")
+                    "behavior"),
+            parameter("chunked", "If set, store points in append-only chunks")
         );
         // @formatter:on
     }
@@ -55,11 +55,34 @@ public interface AggregationInstance {
      */
     long cadence();
 
+    /**
+     * Get how far back in time data contributes to each sample produced by this aggregation.
+     * <p>
+     * A sample at timestamp {@code t} only depends on data in the range {@code (t - extent, t]}.
+     *
+     * @return The extent of the resulting aggregation in milliseconds, or {@code -1} if this is
+     * unknown.
+     */
+    default long extent() {
+        return -1;
+    }
+
     /**
      * Traverse the possible aggregations and build the necessary graph out of them.
      */
     AggregationSession session(DateRange range);
 
+    /**
+     * Build a session which is only ever updated by one thread at a time.
+     * <p>
+     * Used for the partial sessions of a {@link #mergeable()} aggregation, which are fed by a
+     * single thread each and merged once all of them are done. Implementations may use plain,
+     * non-atomic state in these sessions.
+     */
+    default AggregationSession partialSession(DateRange range) {
+        return session(range);
+    }
+
     /**
      * Get the distributed aggregation that is relevant for this aggregation.
      * <p>
@@ -109,4 +132,17 @@ public interface AggregationInstance {
     default boolean distributable() {
         return true;
     }
+
+    /**
+     * Indicates if sessions of this aggregation can be merged.
+     * <p>
+     * If this is {@code true}, a caller may create several sessions over the same range, feed each
+     * of them independently (e.g. one per thread), and combine them using {@link
+     * AggregationSession#merge(AggregationSession)} before reading the result.
+     *
+     * @return {@code true} if sessions of this aggregation support merging.
+     */
+    default boolean mergeable() {
+        return false;
+    }
 }
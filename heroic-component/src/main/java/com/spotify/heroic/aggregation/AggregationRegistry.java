@@ -36,6 +36,17 @@ public interface AggregationRegistry {
         String id, Class<A> type, Class<I> instanceType, AggregationDSL dsl
     );
 
+    /**
+     * Register an aggregation instance which is not built from an aggregation of its own.
+     * <p>
+     * This is used for instances which are only derived from other instances, like distributed
+     * instances, that still need to be serialized when sent to other nodes.
+     *
+     * @param id The id of the instance, will be used in the type field.
+     * @param instanceType The type of the instance.
+     */
+    <I extends AggregationInstance> void registerInstance(String id, Class<I> instanceType);
+
     Module module();
 
     AggregationFactory newAggregationFactory();
@@ -26,6 +26,7 @@ import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 
 import java.util.List;
@@ -35,6 +36,16 @@ import java.util.Set;
 public interface AggregationSession {
     void updatePoints(Map<String, String> key, Set<Series> series, List<Point> values);
 
+    /**
+     * Update the session with a primitive chunk of points.
+     * <p>
+     * The default implementation materializes the points in the chunk, sessions which are capable
+     * of consuming primitive values directly should override this.
+     */
+    default void updatePoints(Map<String, String> key, Set<Series> series, PointChunk values) {
+        updatePoints(key, series, values.asList());
+    }
+
     void updateEvents(Map<String, String> key, Set<Series> series, List<Event> values);
 
     void updateSpreads(Map<String, String> key, Set<Series> series, List<Spread> values);
@@ -43,6 +54,20 @@ public interface AggregationSession {
 
     void updatePayload(Map<String, String> key, Set<Series> series, List<Payload> values);
 
+    /**
+     * Merge the state of another session into this one.
+     * <p>
+     * The other session must have been created by the same aggregation instance over the same
+     * range, and must not be updated after it has been merged. Merging is only supported if
+     * {@link AggregationInstance#mergeable()} is {@code true} for the instance that created the
+     * sessions.
+     *
+     * @param other The session to merge into this one.
+     */
+    default void merge(AggregationSession other) {
+        throw new UnsupportedOperationException("session does not support merging: " + this);
+    }
+
     /**
      * Get the result of this aggregator.
      */
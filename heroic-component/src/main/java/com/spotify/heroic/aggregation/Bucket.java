@@ -25,6 +25,7 @@ import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 
 import java.util.Map;
@@ -32,6 +33,28 @@ import java.util.Map;
 public interface Bucket {
     void updatePoint(Map<String, String> key, Point sample);
 
+    /**
+     * Update the bucket with a point, without requiring a {@link Point} instance.
+     * <p>
+     * Buckets on the hot path should override this to avoid allocating a point per sample.
+     */
+    default void updatePoint(Map<String, String> key, long timestamp, double value) {
+        updatePoint(key, new Point(timestamp, value));
+    }
+
+    /**
+     * Update the bucket with a contiguous run of points in the given chunk.
+     * <p>
+     * All points in the range {@code [from, to)} belong to this bucket and have finite values.
+     * Buckets should override this to fold the whole run locally, and publish the result with a
+     * single (atomic) update.
+     */
+    default void updatePoints(Map<String, String> key, PointChunk points, int from, int to) {
+        for (int i = from; i < to; i++) {
+            updatePoint(key, points.timestamp(i), points.value(i));
+        }
+    }
+
     void updateEvent(Map<String, String> key, Event sample);
 
     void updateSpread(Map<String, String> key, Spread sample);
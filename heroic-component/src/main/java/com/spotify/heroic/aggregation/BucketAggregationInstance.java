@@ -35,6 +35,7 @@ import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.AccessLevel;
 import lombok.Data;
@@ -42,13 +43,14 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongFunction;
 
 /**
  * A base aggregation that collects data in 'buckets', one for each sampled data point.
@@ -82,12 +84,14 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
     protected final MetricType out;
 
     @Data
-    private final class Session implements AggregationSession {
+    private final class Session<T extends Bucket> implements AggregationSession {
         private final ConcurrentLinkedQueue<Set<Series>> series = new ConcurrentLinkedQueue<>();
         private final LongAdder sampleSize = new LongAdder();
 
-        private final List<B> buckets;
+        private final List<T> buckets;
         private final long offset;
+        private final Function<T, Metric> build;
+        private final BiConsumer<T, T> merge;
 
         @Override
         public void updatePoints(
@@ -97,6 +101,89 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             feed(MetricType.POINT, values, (bucket, m) -> bucket.updatePoint(key, m));
         }
 
+        @Override
+        public void updatePoints(
+            Map<String, String> key, Set<Series> s, PointChunk values
+        ) {
+            series.add(s);
+
+            if (!input.contains(MetricType.POINT)) {
+                return;
+            }
+
+            if (extent == size) {
+                feedRuns(key, values);
+                return;
+            }
+
+            int sampleSize = 0;
+
+            for (int n = 0; n < values.size(); n++) {
+                final double value = values.value(n);
+
+                if (!Double.isFinite(value)) {
+                    continue;
+                }
+
+                final long timestamp = values.timestamp(n);
+                final int first = firstBucket(timestamp);
+
+                for (int i = lastBucket(timestamp); i >= first; i--) {
+                    buckets.get(i).updatePoint(key, timestamp, value);
+                }
+
+                sampleSize += 1;
+            }
+
+            this.sampleSize.add(sampleSize);
+        }
+
+        /**
+         * Feed non-overlapping buckets with runs of consecutive points.
+         * <p>
+         * Backends return time-sorted data, so consecutive points typically belong to the same
+         * bucket. Each run is handed to its bucket in one call, which lets the bucket fold it
+         * locally instead of performing one atomic update per sample.
+         */
+        private void feedRuns(final Map<String, String> key, final PointChunk values) {
+            int sampleSize = 0;
+
+            int runStart = 0;
+            int runIndex = -1;
+
+            for (int n = 0; n < values.size(); n++) {
+                if (!Double.isFinite(values.value(n))) {
+                    feedRun(key, values, runIndex, runStart, n);
+                    runIndex = -1;
+                    continue;
+                }
+
+                final int index = alignedBucket(values.timestamp(n));
+
+                if (index != runIndex) {
+                    feedRun(key, values, runIndex, runStart, n);
+                    runIndex = index;
+                    runStart = n;
+                }
+
+                sampleSize += 1;
+            }
+
+            feedRun(key, values, runIndex, runStart, values.size());
+            this.sampleSize.add(sampleSize);
+        }
+
+        private void feedRun(
+            final Map<String, String> key, final PointChunk values, final int index,
+            final int from, final int to
+        ) {
+            if (index < 0 || from >= to) {
+                return;
+            }
+
+            buckets.get(index).updatePoints(key, values, from, to);
+        }
+
         @Override
         public void updateEvents(
             Map<String, String> key, Set<Series> s, List<Event> values
@@ -129,24 +216,35 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             feed(MetricType.CARDINALITY, values, (bucket, m) -> bucket.updatePayload(key, m));
         }
 
-        private <T extends Metric> void feed(
-            final MetricType type, List<T> values, final BucketConsumer<B, T> consumer
+        private <M extends Metric> void feed(
+            final MetricType type, List<M> values, final BucketConsumer<T, M> consumer
         ) {
             if (!input.contains(type)) {
                 return;
             }
 
+            final boolean aligned = extent == size;
             int sampleSize = 0;
 
-            for (final T m : values) {
+            for (final M m : values) {
                 if (!m.valid()) {
                     continue;
                 }
 
-                final Iterator<B> buckets = matching(m);
+                final long timestamp = m.getTimestamp();
 
-                while (buckets.hasNext()) {
-                    consumer.apply(buckets.next(), m);
+                if (aligned) {
+                    final int index = alignedBucket(timestamp);
+
+                    if (index >= 0) {
+                        consumer.apply(buckets.get(index), m);
+                    }
+                } else {
+                    final int first = firstBucket(timestamp);
+
+                    for (int i = lastBucket(timestamp); i >= first; i--) {
+                        consumer.apply(buckets.get(i), m);
+                    }
                 }
 
                 sampleSize += 1;
@@ -155,44 +253,78 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             this.sampleSize.add(sampleSize);
         }
 
-        private Iterator<B> matching(final Metric m) {
-            final long ts = m.getTimestamp() - offset - 1;
-            final long te = ts + extent;
+        /**
+         * Find the only bucket matching the given timestamp, when buckets do not overlap
+         * (extent == size).
+         *
+         * @return The index of the matching bucket, or {@code -1} if no bucket matches.
+         */
+        private int alignedBucket(final long timestamp) {
+            final long te = timestamp - offset - 1 + size;
 
             if (te < 0) {
-                return Collections.emptyIterator();
+                return -1;
             }
 
-            // iterator that iterates from the largest to the smallest matching bucket for _this_
-            // metric.
-            return new Iterator<B>() {
-                long current = te;
+            final long index = te / size;
+            return index < buckets.size() ? (int) index : -1;
+        }
 
-                @Override
-                public boolean hasNext() {
-                    while ((current / size) >= buckets.size()) {
-                        current -= size;
-                    }
+        /**
+         * Find the largest bucket index matching the given timestamp.
+         * <p>
+         * All buckets matching a single sample form a contiguous range of indexes, from {@link
+         * #firstBucket(long)} up to and including this one.
+         *
+         * @return The index of the last matching bucket, or {@code -1} if no bucket matches.
+         */
+        private int lastBucket(final long timestamp) {
+            final long te = timestamp - offset - 1 + extent;
+
+            if (te < 0 || te % size >= extent) {
+                return -1;
+            }
 
-                    final long m = current % size;
-                    return (current >= 0 && current > ts) && (m >= 0 && m < extent);
-                }
+            return (int) Math.min(te / size, buckets.size() - 1);
+        }
 
-                @Override
-                public B next() {
-                    final int index = (int) (current / size);
-                    current -= size;
-                    return buckets.get(index);
-                }
-            };
+        /**
+         * Find the smallest bucket index matching the given timestamp.
+         * <p>
+         * Only meaningful if {@link #lastBucket(long)} matches.
+         */
+        private int firstBucket(final long timestamp) {
+            final long te = timestamp - offset - 1 + extent;
+            return (int) Math.min(Math.max(0L, te / size - (extent - 1) / size), buckets.size());
+        }
+
+        @Override
+        public void merge(final AggregationSession other) {
+            if (!(other instanceof BucketAggregationInstance.Session)) {
+                throw new IllegalArgumentException("cannot merge with session: " + other);
+            }
+
+            @SuppressWarnings("unchecked")
+            final Session<T> o = (Session<T>) other;
+
+            if (o.offset != offset || o.buckets.size() != buckets.size()) {
+                throw new IllegalArgumentException("cannot merge session over a different range");
+            }
+
+            series.addAll(o.series);
+            sampleSize.add(o.sampleSize.sum());
+
+            for (int i = 0; i < buckets.size(); i++) {
+                merge.accept(buckets.get(i), o.buckets.get(i));
+            }
         }
 
         @Override
         public AggregationResult result() {
             final List<Metric> result = new ArrayList<>(buckets.size());
 
-            for (final B bucket : buckets) {
-                final Metric d = build(bucket);
+            for (final T bucket : buckets) {
+                final Metric d = build.apply(bucket);
 
                 if (!d.valid()) {
                     continue;
@@ -223,8 +355,25 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
 
     @Override
     public AggregationSession session(DateRange range) {
-        final List<B> buckets = buildBuckets(range, size);
-        return new Session(buckets, range.start());
+        return session(range, this::buildBucket, this::build, this::mergeBucket);
+    }
+
+    /**
+     * Build a session over buckets of any type.
+     * <p>
+     * This allows {@link #partialSession(DateRange)} to use buckets which are not safe for
+     * concurrent updates.
+     *
+     * @param range The range of the session.
+     * @param bucket Function building a bucket for the given timestamp.
+     * @param build Function building the resulting metric of a bucket.
+     * @param merge Function merging the second bucket into the first.
+     */
+    protected <T extends Bucket> AggregationSession session(
+        final DateRange range, final LongFunction<T> bucket, final Function<T, Metric> build,
+        final BiConsumer<T, T> merge
+    ) {
+        return new Session<>(buildBuckets(range, bucket), range.start(), build, merge);
     }
 
     @Override
@@ -237,12 +386,19 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
         return size;
     }
 
+    @Override
+    public long extent() {
+        return extent;
+    }
+
     @Override
     public String toString() {
         return String.format("%s(size=%d, extent=%d)", getClass().getSimpleName(), size, extent);
     }
 
-    private List<B> buildBuckets(final DateRange range, long size) {
+    private <T extends Bucket> List<T> buildBuckets(
+        final DateRange range, final LongFunction<T> bucket
+    ) {
         final long start = range.start();
         final long count = (range.diff() + size) / size;
 
@@ -250,10 +406,10 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
             throw new IllegalArgumentException(String.format("range %s, size %d", range, size));
         }
 
-        final List<B> buckets = new ArrayList<>((int) count);
+        final List<T> buckets = new ArrayList<>((int) count);
 
         for (int i = 0; i < count; i++) {
-            buckets.add(buildBucket(start + size * i));
+            buckets.add(bucket.apply(start + size * i));
         }
 
         return buckets;
@@ -263,6 +419,19 @@ public abstract class BucketAggregationInstance<B extends Bucket> implements Agg
 
     protected abstract Metric build(B bucket);
 
+    /**
+     * Merge the state of one bucket into another.
+     * <p>
+     * Both buckets cover the same timestamp, and the merged bucket is no longer being updated.
+     * Aggregations which override this must also declare that they are {@link #mergeable()}.
+     *
+     * @param bucket The bucket to merge into.
+     * @param other The bucket to merge.
+     */
+    protected void mergeBucket(B bucket, B other) {
+        throw new UnsupportedOperationException("buckets cannot be merged: " + this);
+    }
+
     private interface BucketConsumer<B extends Bucket, M extends Metric> {
         void apply(B bucket, M metric);
     }
@@ -32,6 +32,7 @@ import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.AccessLevel;
 import lombok.Data;
@@ -78,6 +79,26 @@ public class ChainInstance implements AggregationInstance {
         return chain.get(chain.size() - 1).cadence();
     }
 
+    /**
+     * Every aggregation in the chain widens the window of data that a sample depends on.
+     */
+    @Override
+    public long extent() {
+        long extent = 0;
+
+        for (final AggregationInstance a : chain) {
+            final long e = a.extent();
+
+            if (e < 0) {
+                return -1;
+            }
+
+            extent += e;
+        }
+
+        return extent;
+    }
+
     @Override
     public AggregationInstance distributed() {
         final Iterator<AggregationInstance> it = chain.iterator();
@@ -145,10 +166,21 @@ public class ChainInstance implements AggregationInstance {
 
     @Override
     public AggregationSession session(final DateRange range) {
-        final Iterator<AggregationInstance> it = chain.iterator();
+        return session(range, chain.iterator().next().session(range));
+    }
 
-        final AggregationInstance first = it.next();
-        final AggregationSession head = first.session(range);
+    /**
+     * Only the head of the chain is fed by the caller, the rest of the chain is fed when the
+     * result is built.
+     */
+    @Override
+    public AggregationSession partialSession(final DateRange range) {
+        return session(range, chain.iterator().next().partialSession(range));
+    }
+
+    private AggregationSession session(final DateRange range, final AggregationSession head) {
+        final Iterator<AggregationInstance> it = chain.iterator();
+        it.next();
 
         final List<AggregationSession> tail = new ArrayList<>();
 
@@ -165,6 +197,15 @@ public class ChainInstance implements AggregationInstance {
         return chain.iterator().next().requiredTags();
     }
 
+    /**
+     * Only the head of the chain is fed directly, so merging is supported if the first
+     * aggregation supports it.
+     */
+    @Override
+    public boolean mergeable() {
+        return chain.iterator().next().mergeable();
+    }
+
     private static final Joiner CHAIN_JOINER = Joiner.on(" -> ");
 
     @Override
@@ -212,6 +253,13 @@ public class ChainInstance implements AggregationInstance {
             first.updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            Map<String, String> key, Set<Series> series, PointChunk values
+        ) {
+            first.updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             Map<String, String> key, Set<Series> series, List<Event> values
@@ -240,6 +288,15 @@ public class ChainInstance implements AggregationInstance {
             first.updatePayload(key, series, values);
         }
 
+        @Override
+        public void merge(final AggregationSession other) {
+            if (!(other instanceof Session)) {
+                throw new IllegalArgumentException("cannot merge with session: " + other);
+            }
+
+            first.merge(((Session) other).first);
+        }
+
         @Override
         public AggregationResult result() {
             final AggregationResult firstResult = first.result();
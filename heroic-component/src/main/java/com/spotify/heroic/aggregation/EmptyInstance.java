@@ -73,6 +73,16 @@ public class EmptyInstance implements AggregationInstance {
         return 0;
     }
 
+    @Override
+    public long extent() {
+        return 0;
+    }
+
+    @Override
+    public boolean mergeable() {
+        return true;
+    }
+
     /**
      * A trivial session that collects all values provided to it.
      */
@@ -138,6 +148,19 @@ public class EmptyInstance implements AggregationInstance {
             }
         }
 
+        @Override
+        public void merge(final AggregationSession other) {
+            if (!(other instanceof CollectorSession)) {
+                throw new IllegalArgumentException("cannot merge with session: " + other);
+            }
+
+            final CollectorSession o = (CollectorSession) other;
+
+            for (final Map.Entry<Map<String, String>, SubSession> e : o.sessions.entrySet()) {
+                session(e.getKey()).merge(e.getValue());
+            }
+        }
+
         @Override
         public AggregationResult result() {
             final ImmutableList.Builder<AggregationOutput> groups = ImmutableList.builder();
@@ -204,6 +227,11 @@ public class EmptyInstance implements AggregationInstance {
         public boolean isEmpty() {
             return data.isEmpty();
         }
+
+        public void merge(final SessionPair<T> other) {
+            series.addAll(other.series);
+            data.addAll(other.data);
+        }
     }
 
     static class SubSession {
@@ -212,5 +240,13 @@ public class EmptyInstance implements AggregationInstance {
         private final SessionPair<Spread> spreads = new SessionPair<>();
         private final SessionPair<MetricGroup> groups = new SessionPair<>();
         private final SessionPair<Payload> cardinality = new SessionPair<>();
+
+        public void merge(final SubSession other) {
+            points.merge(other.points);
+            events.merge(other.events);
+            spreads.merge(other.spreads);
+            groups.merge(other.groups);
+            cardinality.merge(other.cardinality);
+        }
     }
 }
@@ -30,6 +30,7 @@ import com.spotify.heroic.metric.Payload;
 import com.spotify.heroic.metric.Event;
 import com.spotify.heroic.metric.MetricGroup;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.Spread;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -73,13 +74,23 @@ public abstract class GroupingAggregation implements AggregationInstance {
 
     @Override
     public AggregationSession session(DateRange range) {
-        return new GroupSession(range);
+        return new GroupSession(range, false);
+    }
+
+    @Override
+    public AggregationSession partialSession(DateRange range) {
+        return new GroupSession(range, true);
     }
 
     public Set<String> requiredTags() {
         return of.map(ImmutableSet::copyOf).orElseGet(ImmutableSet::of);
     }
 
+    @Override
+    public boolean mergeable() {
+        return each.mergeable();
+    }
+
     @Override
     public long estimate(DateRange range) {
         return each.estimate(range);
@@ -90,6 +101,11 @@ public abstract class GroupingAggregation implements AggregationInstance {
         return each.cadence();
     }
 
+    @Override
+    public long extent() {
+        return each.extent();
+    }
+
     @Override
     public AggregationInstance distributed() {
         return newInstance(of, each.distributed());
@@ -113,6 +129,7 @@ public abstract class GroupingAggregation implements AggregationInstance {
         private final Object lock = new Object();
 
         private final DateRange range;
+        private final boolean partial;
 
         @Override
         public void updatePoints(
@@ -122,6 +139,14 @@ public abstract class GroupingAggregation implements AggregationInstance {
             session(key).updatePoints(key, series, values);
         }
 
+        @Override
+        public void updatePoints(
+            Map<String, String> group, Set<Series> series, PointChunk values
+        ) {
+            final Map<String, String> key = key(group);
+            session(key).updatePoints(key, series, values);
+        }
+
         @Override
         public void updateEvents(
             Map<String, String> group, Set<Series> series, List<Event> values
@@ -168,12 +193,34 @@ public abstract class GroupingAggregation implements AggregationInstance {
                     return checkSession;
                 }
 
-                final AggregationSession newSession = each.session(range);
+                final AggregationSession newSession =
+                    partial ? each.partialSession(range) : each.session(range);
                 sessions.put(key, newSession);
                 return newSession;
             }
         }
 
+        @Override
+        public void merge(final AggregationSession other) {
+            if (!(other instanceof GroupingAggregation.GroupSession)) {
+                throw new IllegalArgumentException("cannot merge with session: " + other);
+            }
+
+            final GroupSession o = (GroupSession) other;
+
+            o.sessions.forEach((key, session) -> {
+                final AggregationSession existing;
+
+                synchronized (lock) {
+                    existing = sessions.putIfAbsent(key, session);
+                }
+
+                if (existing != null) {
+                    existing.merge(session);
+                }
+            });
+        }
+
         @Override
         public AggregationResult result() {
             final ImmutableList.Builder<AggregationOutput> result = ImmutableList.builder();
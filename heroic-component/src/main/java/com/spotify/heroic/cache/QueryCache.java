@@ -25,10 +25,18 @@ import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.QueryResult;
 import eu.toolchain.async.AsyncFuture;
 
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 public interface QueryCache {
+    /**
+     * Load the result of the given request, possibly from cache.
+     *
+     * @param request Request to load.
+     * @param loader Performs a request against the backends. Caches may use this to load only
+     * part of the request, for example a narrower range.
+     * @return A future resolving to the result of the request.
+     */
     AsyncFuture<QueryResult> load(
-        FullQuery.Request request, Supplier<AsyncFuture<QueryResult>> loader
+        FullQuery.Request request, Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
     );
 }
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.common;
+
+import com.spotify.heroic.statistics.SeriesCacheReporter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded cache of canonical {@link Series} instances.
+ * <p>
+ * Building a series copies its tags into a sorted map and hashes all of them. Since the same
+ * series are ingested over and over, this cache returns a previously built instance for the same
+ * key and tags instead.
+ * <p>
+ * The cache is a set-associative table, indexed by a cheap fingerprint of the key and tags which
+ * only relies on the (cached) hash codes of the strings. Each set holds {@link #WAYS} series, so
+ * series which map to the same set do not evict each other until the set is full. New series are
+ * inserted first in their set, pushing out the last one, and a hit moves a series one step
+ * forward, which keeps frequently written series in the cache. Lookups are always verified
+ * against the tags of the cached series, so a collision can only cause a miss, never return the
+ * wrong series.
+ * <p>
+ * The table is allocated on first use, so nodes which never ingest don't pay for it.
+ */
+public class SeriesCache {
+    /**
+     * Number of series in each set.
+     */
+    public static final int WAYS = 4;
+
+    /**
+     * Largest supported number of series in the cache.
+     */
+    public static final int MAX_SIZE = 1 << 30;
+
+    private static final int MAX_TAGS = Long.SIZE;
+
+    private final SeriesCacheReporter reporter;
+    private final int capacity;
+    private final int mask;
+
+    private volatile AtomicReferenceArray<Entry> slots;
+
+    /**
+     * @param reporter Reporter for cache hits and misses.
+     * @param size Number of series in the cache, rounded up to a power of two of at least {@link
+     * #WAYS}. 0 disables caching.
+     */
+    public SeriesCache(final SeriesCacheReporter reporter, final int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative");
+        }
+
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("size must not be larger than " + MAX_SIZE);
+        }
+
+        this.reporter = reporter;
+
+        if (size == 0) {
+            this.capacity = 0;
+            this.mask = 0;
+        } else {
+            this.capacity = Math.max(WAYS, Integer.highestOneBit(size - 1) << 1);
+            this.mask = capacity / WAYS - 1;
+        }
+    }
+
+    /**
+     * Get the canonical series for the given key and tags.
+     *
+     * @param key Key of the series.
+     * @param tags Tags of the series.
+     * @return The canonical series.
+     */
+    public Series intern(final String key, final Map<String, String> tags) {
+        return intern(key, tags.entrySet());
+    }
+
+    /**
+     * Get the canonical series for the given key and tags.
+     * <p>
+     * Like {@link Series#of(String, java.util.Iterator)}, later tags override earlier tags with
+     * the same name.
+     *
+     * @param key Key of the series.
+     * @param tags Tags of the series, must be possible to iterate more than once.
+     * @return The canonical series.
+     */
+    public Series intern(final String key, final Iterable<Map.Entry<String, String>> tags) {
+        if (capacity == 0) {
+            return Series.of(key, tags.iterator());
+        }
+
+        final AtomicReferenceArray<Entry> slots = slots();
+
+        final long fingerprint = fingerprint(key, tags);
+        final int set = ((int) fingerprint & mask) * WAYS;
+
+        for (int way = 0; way < WAYS; way++) {
+            final Entry entry = slots.get(set + way);
+
+            if (entry == null) {
+                break;
+            }
+
+            if (entry.fingerprint == fingerprint && entry.matches(key, tags)) {
+                reporter.reportHit();
+                promote(slots, set, way, entry);
+                return entry.series;
+            }
+        }
+
+        reporter.reportMiss();
+        final Series series = Series.of(key, tags.iterator());
+        insert(slots, set, new Entry(fingerprint, series));
+        return series;
+    }
+
+    /**
+     * Get the canonical instance of the given series.
+     *
+     * @param series Series to look up.
+     * @return The canonical series, which is the given series if it was not already cached.
+     */
+    public Series intern(final Series series) {
+        if (capacity == 0) {
+            return series;
+        }
+
+        final AtomicReferenceArray<Entry> slots = slots();
+
+        final long fingerprint = fingerprint(series.getKey(), series.getTags().entrySet());
+        final int set = ((int) fingerprint & mask) * WAYS;
+
+        for (int way = 0; way < WAYS; way++) {
+            final Entry entry = slots.get(set + way);
+
+            if (entry == null) {
+                break;
+            }
+
+            if (entry.fingerprint == fingerprint && entry.series.equals(series)) {
+                reporter.reportHit();
+                promote(slots, set, way, entry);
+                return entry.series;
+            }
+        }
+
+        reporter.reportMiss();
+        insert(slots, set, new Entry(fingerprint, series));
+        return series;
+    }
+
+    /**
+     * Move a hit one step towards the front of its set.
+     * <p>
+     * Concurrent updates of the same set might duplicate or drop an entry, which only costs a
+     * later miss.
+     */
+    private static void promote(
+        final AtomicReferenceArray<Entry> slots, final int set, final int way, final Entry entry
+    ) {
+        if (way == 0) {
+            return;
+        }
+
+        slots.set(set + way, slots.get(set + way - 1));
+        slots.set(set + way - 1, entry);
+    }
+
+    /**
+     * Insert an entry first in its set, evicting the last entry.
+     */
+    private static void insert(
+        final AtomicReferenceArray<Entry> slots, final int set, final Entry entry
+    ) {
+        for (int way = WAYS - 1; way > 0; way--) {
+            slots.set(set + way, slots.get(set + way - 1));
+        }
+
+        slots.set(set, entry);
+    }
+
+    private AtomicReferenceArray<Entry> slots() {
+        AtomicReferenceArray<Entry> slots = this.slots;
+
+        if (slots != null) {
+            return slots;
+        }
+
+        synchronized (this) {
+            if (this.slots == null) {
+                this.slots = new AtomicReferenceArray<>(capacity);
+            }
+
+            return this.slots;
+        }
+    }
+
+    static long fingerprint(final String key, final Iterable<Map.Entry<String, String>> tags) {
+        long hash = mix(Objects.hashCode(key));
+
+        /* sum the tags, since the order in which they are provided does not matter */
+        for (final Map.Entry<String, String> tag : tags) {
+            final long k = Objects.hashCode(tag.getKey());
+            final long v = Objects.hashCode(tag.getValue()) & 0xffffffffL;
+            hash += mix((k << Integer.SIZE) | v);
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * Finalization mix of murmur3.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Entry {
+        private final long fingerprint;
+        private final Series series;
+        private final String[] keys;
+        private final String[] values;
+
+        Entry(final long fingerprint, final Series series) {
+            final SortedMap<String, String> tags = series.getTags();
+
+            this.fingerprint = fingerprint;
+            this.series = series;
+            this.keys = new String[tags.size()];
+            this.values = new String[tags.size()];
+
+            int i = 0;
+
+            for (final Map.Entry<String, String> tag : tags.entrySet()) {
+                keys[i] = tag.getKey();
+                values[i] = tag.getValue();
+                i++;
+            }
+        }
+
+        /**
+         * Check if the given key and tags build the cached series.
+         * <p>
+         * Every tag must be part of the cached series, and every tag of the cached series must
+         * have been seen. Tags are allowed to repeat, as long as they have the same value.
+         */
+        boolean matches(final String key, final Iterable<Map.Entry<String, String>> tags) {
+            if (!Objects.equals(series.getKey(), key) || keys.length > MAX_TAGS) {
+                return false;
+            }
+
+            long seen = 0L;
+
+            for (final Map.Entry<String, String> tag : tags) {
+                final int i = Arrays.binarySearch(keys, tag.getKey());
+
+                if (i < 0 || !Objects.equals(values[i], tag.getValue())) {
+                    return false;
+                }
+
+                seen |= 1L << i;
+            }
+
+            return Long.bitCount(seen) == keys.length;
+        }
+    }
+}
@@ -27,13 +27,21 @@ import com.spotify.heroic.lifecycle.LifeCycle;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFuture;
 import lombok.RequiredArgsConstructor;
 
 public interface ConsumerSchema {
     Exposed setup(Depends depends);
 
     interface Consumer {
-        void consume(byte[] message) throws ConsumerSchemaException;
+        /**
+         * Consume a single message.
+         *
+         * @param message Message to consume.
+         * @return A future that is resolved when the message has been written.
+         * @throws ConsumerSchemaException if the message could not be decoded.
+         */
+        AsyncFuture<Void> consume(byte[] message) throws ConsumerSchemaException;
     }
 
     @ConsumerSchemaScope
@@ -26,6 +26,7 @@ import com.spotify.heroic.HeroicContext;
 import com.spotify.heroic.HeroicCoreInstance;
 import com.spotify.heroic.ShellTasks;
 import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.SeriesCache;
 import com.spotify.heroic.grammar.QueryParser;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.statistics.HeroicReporter;
@@ -53,4 +54,6 @@ public interface PrimaryComponent extends EarlyComponent {
     LifeCycleManager lifeCycleManager();
 
     HeroicContext context();
+
+    SeriesCache seriesCache();
 }
@@ -29,6 +29,7 @@ import eu.toolchain.async.AsyncFuture;
 public interface IngestionManager extends UsableGroupManager<IngestionGroup> {
     String INGESTED = "ingested";
     String AVAILABLE_WRITE_PERMITS = "available-write-permits";
+    String PENDING_WRITES = "pending-writes";
 
     Statistics getStatistics();
 
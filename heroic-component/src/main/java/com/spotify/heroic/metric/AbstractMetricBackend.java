@@ -33,6 +33,7 @@ import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor
 public abstract class AbstractMetricBackend implements MetricBackend {
@@ -43,6 +44,22 @@ public abstract class AbstractMetricBackend implements MetricBackend {
         return Statistics.empty();
     }
 
+    /**
+     * Fetch all data, and pass it to the consumer once the fetch has completed.
+     * <p>
+     * Backends which can stream fetched data should override this.
+     */
+    @Override
+    public AsyncFuture<FetchData> fetch(
+        final FetchData.Request request, final FetchQuotaWatcher watcher,
+        final Consumer<MetricCollection> consumer
+    ) {
+        return fetch(request, watcher).directTransform(d -> {
+            d.getGroups().forEach(consumer);
+            return new FetchData(d.getTrace(), d.getErrors(), d.getTimes(), ImmutableList.of());
+        });
+    }
+
     @Override
     public AsyncFuture<List<String>> serializeKeyToHex(BackendKey key) {
         return async.resolved(ImmutableList.of());
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+/**
+ * Describes if the start and end of a fetched range are part of the range.
+ * <p>
+ * Backends differ in how they treat the ends of a range, so the bounds are needed when a fetch is
+ * split over several backends, to avoid reading the points at the split twice or not at all.
+ */
+public enum FetchBounds {
+    // @formatter:off
+    /* [start, end) */
+    CLOSED_OPEN(true, false),
+    /* (start, end] */
+    OPEN_CLOSED(false, true),
+    /* [start, end] */
+    CLOSED(true, true);
+    // @formatter:on
+
+    private final boolean startInclusive;
+    private final boolean endInclusive;
+
+    FetchBounds(final boolean startInclusive, final boolean endInclusive) {
+        this.startInclusive = startInclusive;
+        this.endInclusive = endInclusive;
+    }
+
+    public boolean startInclusive() {
+        return startInclusive;
+    }
+
+    public boolean endInclusive() {
+        return endInclusive;
+    }
+}
@@ -22,6 +22,7 @@
 package com.spotify.heroic.metric;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Ordering;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.common.DateRange;
@@ -29,6 +30,7 @@ import com.spotify.heroic.common.Series;
 import eu.toolchain.async.Collector;
 import lombok.Data;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -59,36 +61,63 @@ public class FetchData {
 
         return results -> {
             final ImmutableList.Builder<Long> times = ImmutableList.builder();
-            final Map<MetricType, ImmutableList.Builder<Metric>> fetchGroups = new HashMap<>();
+            final Map<MetricType, List<List<? extends Metric>>> fetchGroups = new HashMap<>();
             final ImmutableList.Builder<QueryTrace> traces = ImmutableList.builder();
 
+            /* points are collected as primitive chunks to avoid materializing them */
+            final List<PointChunk> points = new ArrayList<>();
+            boolean hasPoints = false;
+
             for (final FetchData fetch : results) {
                 times.addAll(fetch.times);
                 traces.add(fetch.trace);
 
                 for (final MetricCollection g : fetch.groups) {
-                    ImmutableList.Builder<Metric> data = fetchGroups.get(g.getType());
-
-                    if (data == null) {
-                        data = new ImmutableList.Builder<>();
-                        fetchGroups.put(g.getType(), data);
+                    if (g.getType() == MetricType.POINT) {
+                        points.add(g.asPointChunk());
+                        hasPoints = true;
+                        continue;
                     }
 
-                    data.addAll(g.data);
+                    fetchGroups.computeIfAbsent(g.getType(), t -> new ArrayList<>()).add(g.data);
                 }
             }
 
             final List<MetricCollection> groups = fetchGroups
                 .entrySet()
                 .stream()
-                .map((e) -> MetricCollection.build(e.getKey(),
-                    Ordering.from(Metric.comparator()).immutableSortedCopy(e.getValue().build())))
+                .map(e -> mergeGroups(e.getKey(), e.getValue()))
                 .collect(Collectors.toList());
 
+            if (hasPoints) {
+                groups.add(MetricCollection.points(PointChunk.mergeSorted(points)));
+            }
+
             return new FetchData(w.end(traces.build()), ImmutableList.of(), times.build(), groups);
         };
     }
 
+    /**
+     * Merge the data of several groups of the same type into one sorted collection.
+     * <p>
+     * Backends return each group sorted, in which case the groups are merged instead of sorting
+     * all data again.
+     */
+    private static MetricCollection mergeGroups(
+        final MetricType type, final List<List<? extends Metric>> data
+    ) {
+        final Ordering<Metric> ordering = Ordering.from(Metric.comparator());
+
+        for (final List<? extends Metric> d : data) {
+            if (!ordering.isOrdered(d)) {
+                return MetricCollection.build(type,
+                    ordering.immutableSortedCopy(Iterables.concat(data)));
+            }
+        }
+
+        return MetricCollection.mergeSorted(type, data);
+    }
+
     @Data
     public static class Request {
         private final MetricType type;
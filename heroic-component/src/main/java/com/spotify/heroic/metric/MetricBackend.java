@@ -30,6 +30,7 @@ import com.spotify.heroic.common.Statistics;
 import eu.toolchain.async.AsyncFuture;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface MetricBackend extends Initializing, Grouped, Collected {
     Statistics getStatistics();
@@ -61,6 +62,32 @@ public interface MetricBackend extends Initializing, Grouped, Collected {
      */
     AsyncFuture<FetchData> fetch(FetchData.Request request, FetchQuotaWatcher watcher);
 
+    /**
+     * Query for data points, streaming fetched data to the given consumer as it becomes available.
+     * <p>
+     * Backends which support streaming pass each fetched page of data to the consumer as soon as
+     * it has been decoded, so that the memory used by a fetch is bounded by the size of a page
+     * rather than by the size of the result.
+     *
+     * @param request Fetch request to use.
+     * @param watcher The watcher implementation to use when fetching metrics.
+     * @param consumer Consumer of fetched data, which might be called concurrently.
+     * @return A future containing the trace, errors and timings of the fetch, data which has been
+     * passed to the consumer is not part of its groups.
+     */
+    AsyncFuture<FetchData> fetch(
+        FetchData.Request request, FetchQuotaWatcher watcher, Consumer<MetricCollection> consumer
+    );
+
+    /**
+     * Get how the start and end of the range of a fetch are treated by this backend.
+     *
+     * @return The bounds of fetched ranges.
+     */
+    default FetchBounds fetchBounds() {
+        return FetchBounds.CLOSED_OPEN;
+    }
+
     /**
      * List all series directly from the database.
      * <p>
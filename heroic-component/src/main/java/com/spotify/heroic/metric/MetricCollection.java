@@ -96,6 +96,18 @@ public abstract class MetricCollection {
         AggregationSession session, Map<String, String> tags, Set<Series> series
     );
 
+    /**
+     * Access the points of this collection as a primitive chunk.
+     * <p>
+     * Collections which are already backed by a chunk return it directly, others are copied.
+     *
+     * @return A chunk containing all points in this collection.
+     * @throws IllegalArgumentException if this is not a collection of points.
+     */
+    public PointChunk asPointChunk() {
+        return PointChunk.copyOf(getDataAs(Point.class));
+    }
+
     public int size() {
         return data.size();
     }
@@ -129,6 +141,10 @@ public abstract class MetricCollection {
         return new PointCollection(metrics);
     }
 
+    public static MetricCollection points(PointChunk points) {
+        return new PointChunkCollection(points);
+    }
+
     public static MetricCollection events(List<Event> metrics) {
         return new EventCollection(metrics);
     }
@@ -176,6 +192,42 @@ public abstract class MetricCollection {
         }
     }
 
+    /**
+     * A collection of points backed by a primitive chunk.
+     * <p>
+     * Aggregations are fed directly from the chunk without materializing any points.
+     */
+    private static class PointChunkCollection extends MetricCollection {
+        private final PointChunk points;
+
+        PointChunkCollection(PointChunk points) {
+            super(MetricType.POINT, points.asList());
+            this.points = points;
+        }
+
+        @Override
+        public void updateAggregation(
+            AggregationSession session, Map<String, String> tags, Set<Series> series
+        ) {
+            session.updatePoints(tags, series, points);
+        }
+
+        @Override
+        public PointChunk asPointChunk() {
+            return points;
+        }
+
+        @Override
+        public int size() {
+            return points.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return points.isEmpty();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     private static class EventCollection extends MetricCollection {
         EventCollection(List<? extends Metric> events) {
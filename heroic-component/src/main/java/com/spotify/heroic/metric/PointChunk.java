@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A columnar, primitive-backed sequence of points.
+ * <p>
+ * Timestamps and values are stored in parallel arrays, which avoids allocating one {@link Point}
+ * per sample on the fetch and aggregation paths. A chunk is immutable once built, use {@link
+ * #builder()} to construct one.
+ * <p>
+ * Code which expects a list of points can use {@link #asList()}, which materializes {@link Point}
+ * instances lazily on access.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PointChunk {
+    private static final long[] EMPTY_TIMESTAMPS = new long[0];
+    private static final double[] EMPTY_VALUES = new double[0];
+
+    private static final PointChunk EMPTY = new PointChunk(EMPTY_TIMESTAMPS, EMPTY_VALUES, 0, true);
+
+    private final long[] timestamps;
+    private final double[] values;
+    private final int size;
+    private final boolean sorted;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * If the points in this chunk are known to be sorted by timestamp.
+     */
+    public boolean isSorted() {
+        return sorted;
+    }
+
+    public long timestamp(final int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    public double value(final int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Get a chunk with the same content as this one, but sorted by timestamp.
+     * <p>
+     * The sort is stable, points with the same timestamp retain their relative order.
+     *
+     * @return A sorted chunk, or this chunk if it is already sorted.
+     */
+    public PointChunk sorted() {
+        if (sorted) {
+            return this;
+        }
+
+        final long[] t = Arrays.copyOf(timestamps, size);
+        final double[] v = Arrays.copyOf(values, size);
+        mergeSort(t.clone(), v.clone(), t, v, 0, size);
+        return new PointChunk(t, v, size, true);
+    }
+
+    /**
+     * Get a view of this chunk as a list of points.
+     * <p>
+     * Points are materialized on access, prefer the primitive accessors where possible.
+     */
+    public List<Point> asList() {
+        return new PointList();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (!(o instanceof PointChunk)) {
+            return false;
+        }
+
+        final PointChunk other = (PointChunk) o;
+
+        if (size != other.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (timestamps[i] != other.timestamps[i] ||
+                Double.compare(values[i], other.values[i]) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Long.hashCode(timestamps[i]);
+            result = 31 * result + Double.hashCode(values[i]);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PointChunk(size=" + size + ", sorted=" + sorted + ")";
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+    }
+
+    public static PointChunk empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a chunk from the given list of points.
+     */
+    public static PointChunk copyOf(final List<Point> points) {
+        final Builder builder = new Builder(points.size());
+
+        for (final Point p : points) {
+            builder.add(p.getTimestamp(), p.getValue());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Merge the given chunks into a single, sorted chunk.
+     * <p>
+     * Chunks which are not sorted are sorted individually first. If the chunks cover disjoint
+     * ranges of time they are concatenated in order, otherwise they are combined using a k-way
+     * merge. Points with the same timestamp are ordered by the position of their chunk in the
+     * given list.
+     */
+    public static PointChunk mergeSorted(final List<PointChunk> chunks) {
+        final List<PointChunk> sorted = new ArrayList<>(chunks.size());
+        int size = 0;
+
+        for (final PointChunk c : chunks) {
+            if (c.size > 0) {
+                sorted.add(c.sorted());
+                size += c.size;
+            }
+        }
+
+        if (sorted.isEmpty()) {
+            return EMPTY;
+        }
+
+        if (sorted.size() == 1) {
+            return sorted.get(0);
+        }
+
+        final PointChunk[] input = sorted.toArray(new PointChunk[sorted.size()]);
+        final long[] t = new long[size];
+        final double[] v = new double[size];
+
+        if (!concatDisjoint(input, t, v)) {
+            kWayMerge(input, t, v);
+        }
+
+        return new PointChunk(t, v, size, true);
+    }
+
+    public static Builder builder() {
+        return new Builder(Builder.DEFAULT_CAPACITY);
+    }
+
+    public static Builder builder(final int capacity) {
+        return new Builder(capacity);
+    }
+
+    /**
+     * Stable top-down merge sort of the range [from, to) in the parallel arrays.
+     * <p>
+     * Source and destination arrays must contain the same data when called.
+     */
+    private static void mergeSort(
+        final long[] srcT, final double[] srcV, final long[] dstT, final double[] dstV,
+        final int from, final int to
+    ) {
+        if (to - from < 2) {
+            return;
+        }
+
+        final int mid = (from + to) >>> 1;
+
+        mergeSort(dstT, dstV, srcT, srcV, from, mid);
+        mergeSort(dstT, dstV, srcT, srcV, mid, to);
+
+        int l = from;
+        int r = mid;
+
+        for (int i = from; i < to; i++) {
+            if (l < mid && (r >= to || srcT[l] <= srcT[r])) {
+                dstT[i] = srcT[l];
+                dstV[i] = srcV[l++];
+            } else {
+                dstT[i] = srcT[r];
+                dstV[i] = srcV[r++];
+            }
+        }
+    }
+
+    /**
+     * Concatenate sorted chunks, if they cover strictly disjoint ranges of time.
+     *
+     * @return {@code true} if the chunks were concatenated into the destination arrays.
+     */
+    private static boolean concatDisjoint(
+        final PointChunk[] chunks, final long[] dstT, final double[] dstV
+    ) {
+        /* order chunks by their first timestamp, there are typically few of them */
+        final int[] order = new int[chunks.length];
+
+        for (int i = 0; i < chunks.length; i++) {
+            int j = i;
+
+            while (j > 0 && chunks[order[j - 1]].timestamps[0] > chunks[i].timestamps[0]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+
+            order[j] = i;
+        }
+
+        for (int i = 1; i < order.length; i++) {
+            final PointChunk prev = chunks[order[i - 1]];
+
+            if (prev.timestamps[prev.size - 1] >= chunks[order[i]].timestamps[0]) {
+                return false;
+            }
+        }
+
+        int n = 0;
+
+        for (final int i : order) {
+            final PointChunk c = chunks[i];
+            System.arraycopy(c.timestamps, 0, dstT, n, c.size);
+            System.arraycopy(c.values, 0, dstV, n, c.size);
+            n += c.size;
+        }
+
+        return true;
+    }
+
+    /**
+     * Heap-based k-way merge of sorted chunks.
+     * <p>
+     * Ties are broken by chunk index, which keeps the merge stable. Consecutive points from the
+     * same chunk are copied in runs for as long as they precede the head of every other chunk.
+     */
+    private static void kWayMerge(
+        final PointChunk[] chunks, final long[] dstT, final double[] dstV
+    ) {
+        final int[] heap = new int[chunks.length];
+        final int[] pos = new int[chunks.length];
+
+        for (int i = 0; i < chunks.length; i++) {
+            heap[i] = i;
+        }
+
+        int heapSize = chunks.length;
+
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(chunks, pos, heap, heapSize, i);
+        }
+
+        int n = 0;
+
+        while (heapSize > 0) {
+            final int c = heap[0];
+            final PointChunk chunk = chunks[c];
+
+            /* the next smallest head is one of the children of the root */
+            int next = -1;
+
+            if (heapSize > 1) {
+                next = heap[1];
+
+                if (heapSize > 2 && before(chunks, pos, heap[2], next)) {
+                    next = heap[2];
+                }
+            }
+
+            int p = pos[c];
+
+            do {
+                dstT[n] = chunk.timestamps[p];
+                dstV[n] = chunk.values[p];
+                n++;
+                p++;
+                pos[c] = p;
+            } while (p < chunk.size && (next < 0 || before(chunks, pos, c, next)));
+
+            if (p == chunk.size) {
+                heap[0] = heap[--heapSize];
+            }
+
+            siftDown(chunks, pos, heap, heapSize, 0);
+        }
+    }
+
+    private static void siftDown(
+        final PointChunk[] chunks, final int[] pos, final int[] heap, final int heapSize, int i
+    ) {
+        while (true) {
+            final int left = 2 * i + 1;
+
+            if (left >= heapSize) {
+                return;
+            }
+
+            int smallest = left;
+
+            if (left + 1 < heapSize && before(chunks, pos, heap[left + 1], heap[left])) {
+                smallest = left + 1;
+            }
+
+            if (!before(chunks, pos, heap[smallest], heap[i])) {
+                return;
+            }
+
+            final int tmp = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = tmp;
+            i = smallest;
+        }
+    }
+
+    /**
+     * If the head of chunk {@code a} should be ordered before the head of chunk {@code b}.
+     */
+    private static boolean before(
+        final PointChunk[] chunks, final int[] pos, final int a, final int b
+    ) {
+        final long ta = chunks[a].timestamps[pos[a]];
+        final long tb = chunks[b].timestamps[pos[b]];
+        return ta < tb || (ta == tb && a < b);
+    }
+
+    private final class PointList extends AbstractList<Point> implements RandomAccess {
+        @Override
+        public Point get(final int index) {
+            checkIndex(index);
+            return new Point(timestamps[index], values[index]);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Builder for point chunks which grows its backing arrays as needed.
+     * <p>
+     * The builder keeps track of whether points have been added in timestamp order, which
+     * allows consumers to skip sorting entirely in the common case.
+     */
+    public static final class Builder {
+        static final int DEFAULT_CAPACITY = 16;
+
+        private long[] timestamps;
+        private double[] values;
+        private int size = 0;
+        private boolean sorted = true;
+
+        Builder(final int capacity) {
+            this.timestamps = capacity == 0 ? EMPTY_TIMESTAMPS : new long[capacity];
+            this.values = capacity == 0 ? EMPTY_VALUES : new double[capacity];
+        }
+
+        public Builder add(final long timestamp, final double value) {
+            ensureCapacity(size + 1);
+
+            if (size > 0 && timestamps[size - 1] > timestamp) {
+                sorted = false;
+            }
+
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public Builder addAll(final PointChunk chunk) {
+            if (chunk.size == 0) {
+                return this;
+            }
+
+            ensureCapacity(size + chunk.size);
+
+            if (!chunk.sorted || (size > 0 && timestamps[size - 1] > chunk.timestamps[0])) {
+                sorted = false;
+            }
+
+            System.arraycopy(chunk.timestamps, 0, timestamps, size, chunk.size);
+            System.arraycopy(chunk.values, 0, values, size, chunk.size);
+            size += chunk.size;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Build a chunk from the points added so far.
+         * <p>
+         * The builder is reset after this call, and can be re-used.
+         */
+        public PointChunk build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+
+            final PointChunk chunk = new PointChunk(timestamps, values, size, sorted);
+            this.timestamps = EMPTY_TIMESTAMPS;
+            this.values = EMPTY_VALUES;
+            this.size = 0;
+            this.sorted = true;
+            return chunk;
+        }
+
+        private void ensureCapacity(final int capacity) {
+            if (capacity <= timestamps.length) {
+                return;
+            }
+
+            final int newCapacity =
+                Math.max(capacity, Math.max(DEFAULT_CAPACITY, timestamps.length * 2));
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            values = Arrays.copyOf(values, newCapacity);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import lombok.Data;
+
+import java.io.IOException;
+
+/**
+ * A bounded cache of serialized row keys, shared by the read and write paths of a backend.
+ * <p>
+ * Entries are keyed on the series and the base of the row. Since series compare their hashes
+ * first, a lookup for a series that is written continuously is cheap compared to serializing it
+ * again.
+ *
+ * @param <T> The type of the serialized row key, which is expected to be immutable.
+ */
+public class RowKeyCache<T> {
+    public static final long DEFAULT_SIZE = 100000;
+
+    private final Cache<Key, T> cache;
+    private final MetricBackendReporter reporter;
+
+    public RowKeyCache(final long maximumSize, final MetricBackendReporter reporter) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+        this.reporter = reporter;
+    }
+
+    /**
+     * Get the serialized row key for the given series and base, serializing it if it is not
+     * cached.
+     */
+    public T get(final Series series, final long base, final Loader<T> loader)
+        throws IOException {
+        final Key key = new Key(series, base);
+        final T cached = cache.getIfPresent(key);
+
+        if (cached != null) {
+            reporter.reportRowKeyCacheHit();
+            return cached;
+        }
+
+        reporter.reportRowKeyCacheMiss();
+
+        final T value = loader.load();
+        cache.put(key, value);
+        return value;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    @Data
+    private static class Key {
+        private final Series series;
+        private final long base;
+    }
+}
@@ -37,5 +37,9 @@ public interface HeroicReporter {
 
     MetricBackendReporter newMetricBackend();
 
+    QueryCacheReporter newQueryCache();
+
+    SeriesCacheReporter newSeriesCache();
+
     void registerShards(Set<Map<String, String>> knownShards);
 }
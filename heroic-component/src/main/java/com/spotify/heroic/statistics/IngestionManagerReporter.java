@@ -27,4 +27,12 @@ public interface IngestionManagerReporter {
     void incrementConcurrentWrites();
 
     void decrementConcurrentWrites();
+
+    void incrementPendingWrites();
+
+    void decrementPendingWrites();
+
+    void reportWriteWait(long millis);
+
+    void reportWriteRejected();
 }
@@ -29,4 +29,14 @@ public interface MetricBackendReporter {
     FutureReporter.Context reportFindSeries();
 
     FutureReporter.Context reportQueryMetrics();
+
+    /**
+     * Report that a serialized row key was found in the row key cache.
+     */
+    void reportRowKeyCacheHit();
+
+    /**
+     * Report that a row key had to be serialized, since it was not in the row key cache.
+     */
+    void reportRowKeyCacheMiss();
 }
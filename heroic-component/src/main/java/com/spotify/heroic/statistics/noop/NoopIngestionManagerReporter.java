@@ -43,6 +43,26 @@ public class NoopIngestionManagerReporter implements IngestionManagerReporter {
 
     }
 
+    @Override
+    public void incrementPendingWrites() {
+
+    }
+
+    @Override
+    public void decrementPendingWrites() {
+
+    }
+
+    @Override
+    public void reportWriteWait(long millis) {
+
+    }
+
+    @Override
+    public void reportWriteRejected() {
+
+    }
+
     private static final NoopIngestionManagerReporter instance = new NoopIngestionManagerReporter();
 
     public static NoopIngestionManagerReporter get() {
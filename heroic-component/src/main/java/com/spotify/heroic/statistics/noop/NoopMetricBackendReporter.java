@@ -44,6 +44,14 @@ public class NoopMetricBackendReporter implements MetricBackendReporter {
         return NoopFutureReporterContext.get();
     }
 
+    @Override
+    public void reportRowKeyCacheHit() {
+    }
+
+    @Override
+    public void reportRowKeyCacheMiss() {
+    }
+
     private static final NoopMetricBackendReporter instance = new NoopMetricBackendReporter();
 
     public static NoopMetricBackendReporter get() {
@@ -6,6 +6,7 @@ import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.junit.Assert;
@@ -73,6 +74,16 @@ public class BucketAggregationTest {
             public AggregationInstance reducer() {
                 return Mockito.mock(AggregationInstance.class);
             }
+
+            @Override
+            public boolean mergeable() {
+                return true;
+            }
+
+            @Override
+            protected void mergeBucket(final TestBucket bucket, final TestBucket other) {
+                bucket.sum += other.sum;
+            }
         };
     }
 
@@ -102,6 +113,23 @@ public class BucketAggregationTest {
         checkBucketAggregation(input, expected, 500);
     }
 
+    @Test
+    public void testOverlappingExtent() {
+        final List<Point> input =
+            build().add(-2000, 1.0).add(500, 1.0).add(1000, 1.0).add(2500, 1.0).add(3001, 1.0)
+                .result();
+        final List<Point> expected = build().add(1000, 2.0).add(2000, 2.0).add(3000, 3.0).result();
+        checkBucketAggregation(input, expected, 3000);
+    }
+
+    @Test
+    public void testOutOfRange() {
+        final List<Point> input =
+            build().add(-1000, 1.0).add(0, 1.0).add(1, 1.0).add(3000, 1.0).add(3001, 1.0).result();
+        final List<Point> expected = build().add(1000, 1.0).add(2000, 0.0).add(3000, 1.0).result();
+        checkBucketAggregation(input, expected, 1000);
+    }
+
     private void checkBucketAggregation(
         List<Point> input, List<Point> expected, final long extent
     ) {
@@ -112,6 +140,22 @@ public class BucketAggregationTest {
         final AggregationResult result = session.result();
 
         Assert.assertEquals(expected, result.getResult().get(0).getMetrics().getData());
+
+        final AggregationSession chunked = a.session(new DateRange(1000, 3000));
+        chunked.updatePoints(group, series, PointChunk.copyOf(input));
+
+        Assert.assertEquals(expected,
+            chunked.result().getResult().get(0).getMetrics().getData());
+
+        final int half = input.size() / 2;
+        final AggregationSession merged = a.session(new DateRange(1000, 3000));
+        final AggregationSession partial = a.session(new DateRange(1000, 3000));
+        merged.updatePoints(group, series, input.subList(0, half));
+        partial.updatePoints(group, series, input.subList(half, input.size()));
+        merged.merge(partial);
+
+        Assert.assertEquals(expected,
+            merged.result().getResult().get(0).getMetrics().getData());
     }
 
     @Test
@@ -20,6 +20,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -100,6 +101,42 @@ public class GroupingAggregationTest {
         }
     }
 
+    @Test
+    public void testMergedSessions() {
+        final GroupingAggregation g =
+            new GroupInstance(Optional.of(ImmutableList.of("site")), EmptyInstance.INSTANCE);
+        final ChainInstance chain = new ChainInstance(ImmutableList.of(g, EmptyInstance.INSTANCE));
+
+        assertTrue(chain.mergeable());
+
+        final Series s1 = Series.of("foo", ImmutableMap.of("site", "sto", "host", "a"));
+        final Series s2 = Series.of("foo", ImmutableMap.of("site", "sto", "host", "b"));
+        final Series s3 = Series.of("foo", ImmutableMap.of("site", "lon", "host", "b"));
+
+        final AggregationSession a = chain.session(new DateRange(0, 10000));
+        final AggregationSession b = chain.session(new DateRange(0, 10000));
+
+        a.updatePoints(s1.getTags(), ImmutableSet.of(s1), ImmutableList.of(new Point(1, 1.0)));
+        b.updatePoints(s2.getTags(), ImmutableSet.of(s2), ImmutableList.of(new Point(2, 2.0)));
+        b.updatePoints(s3.getTags(), ImmutableSet.of(s3), ImmutableList.of(new Point(3, 3.0)));
+
+        a.merge(b);
+
+        final Map<Map<String, String>, AggregationOutput> result = a
+            .result()
+            .getResult()
+            .stream()
+            .collect(Collectors.toMap(AggregationOutput::getKey, o -> o));
+
+        assertEquals(2, result.size());
+        assertEquals(ImmutableList.of(new Point(1, 1.0), new Point(2, 2.0)),
+            result.get(ImmutableMap.of("site", "sto")).getMetrics().getData());
+        assertEquals(ImmutableSet.of(s1, s2),
+            result.get(ImmutableMap.of("site", "sto")).getSeries());
+        assertEquals(ImmutableList.of(new Point(3, 3.0)),
+            result.get(ImmutableMap.of("site", "lon")).getMetrics().getData());
+    }
+
     /**
      * Checks that the distribute aggregation for Grouping aggregations are composed out of the
      * distributed aggregation for the child clause.
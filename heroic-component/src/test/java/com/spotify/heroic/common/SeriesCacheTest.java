@@ -0,0 +1,171 @@
+package com.spotify.heroic.common;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.statistics.SeriesCacheReporter;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SeriesCacheTest {
+    @Mock
+    private SeriesCacheReporter reporter;
+
+    @Test
+    public void testHit() {
+        final SeriesCache cache = new SeriesCache(reporter, 16);
+
+        final Series a = cache.intern("a", ImmutableMap.of("foo", "1", "bar", "2"));
+        final Series b = cache.intern("a", ImmutableMap.of("bar", "2", "foo", "1"));
+
+        assertEquals(Series.of("a", ImmutableMap.of("foo", "1", "bar", "2")), a);
+        assertSame(a, b);
+        verify(reporter).reportMiss();
+        verify(reporter).reportHit();
+    }
+
+    @Test
+    public void testMiss() {
+        final SeriesCache cache = new SeriesCache(reporter, 16);
+
+        final Series a = cache.intern("a", ImmutableMap.of("foo", "1"));
+
+        assertEquals(Series.of("a", ImmutableMap.of("foo", "2")),
+            cache.intern("a", ImmutableMap.of("foo", "2")));
+        assertEquals(Series.of("b", ImmutableMap.of("foo", "1")),
+            cache.intern("b", ImmutableMap.of("foo", "1")));
+        assertEquals(Series.of("a", ImmutableMap.of("foo", "1", "bar", "2")),
+            cache.intern("a", ImmutableMap.of("foo", "1", "bar", "2")));
+        assertEquals(Series.of("a"), cache.intern("a", ImmutableMap.of()));
+
+        assertEquals(a, cache.intern("a", ImmutableMap.of("foo", "1")));
+    }
+
+    @Test
+    public void testRepeatedTags() {
+        final SeriesCache cache = new SeriesCache(reporter, 16);
+
+        final List<Map.Entry<String, String>> tags =
+            ImmutableList.of(Pair.of("foo", "1"), Pair.of("bar", "2"), Pair.of("foo", "1"));
+
+        final Series a = cache.intern("a", tags);
+        assertEquals(Series.of("a", ImmutableMap.of("foo", "1", "bar", "2")), a);
+        assertSame(a, cache.intern("a", tags));
+        assertSame(a, cache.intern("a", ImmutableMap.of("foo", "1", "bar", "2")));
+    }
+
+    @Test
+    public void testOverriddenTags() {
+        final SeriesCache cache = new SeriesCache(reporter, 16);
+
+        final List<Map.Entry<String, String>> tags =
+            ImmutableList.of(Pair.of("host", "foo"), Pair.of("host", "bar"));
+
+        final Series expected = Series.of("a", ImmutableMap.of("host", "bar"));
+
+        assertEquals(expected, cache.intern("a", tags));
+        assertEquals(expected, cache.intern("a", tags));
+        assertEquals(Series.of("a", ImmutableMap.of("host", "foo")),
+            cache.intern("a", ImmutableList.of(Pair.of("host", "bar"), Pair.of("host", "foo"))));
+    }
+
+    @Test
+    public void testInternSeries() {
+        final SeriesCache cache = new SeriesCache(reporter, 16);
+
+        final Series a = Series.of("a", ImmutableMap.of("foo", "1"));
+        final Series b = Series.of("a", ImmutableMap.of("foo", "1"));
+
+        assertSame(a, cache.intern(a));
+        assertSame(a, cache.intern(b));
+        assertSame(a, cache.intern("a", ImmutableMap.of("foo", "1")));
+        verify(reporter, times(2)).reportHit();
+    }
+
+    @Test
+    public void testCollidingSeriesAreRetained() {
+        /* a single set, so every series collides */
+        final SeriesCache cache = new SeriesCache(reporter, SeriesCache.WAYS);
+        final List<Series> series = new ArrayList<>();
+
+        for (int i = 0; i < SeriesCache.WAYS; i++) {
+            series.add(cache.intern("a", ImmutableMap.of("foo", Integer.toString(i))));
+        }
+
+        for (int i = 0; i < SeriesCache.WAYS; i++) {
+            assertSame(series.get(i),
+                cache.intern("a", ImmutableMap.of("foo", Integer.toString(i))));
+        }
+
+        verify(reporter, times(SeriesCache.WAYS)).reportMiss();
+        verify(reporter, times(SeriesCache.WAYS)).reportHit();
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyHit() {
+        final SeriesCache cache = new SeriesCache(reporter, SeriesCache.WAYS);
+        final List<Series> series = new ArrayList<>();
+
+        /* the first series is pushed to the end of the set */
+        final Series first = cache.intern("first", ImmutableMap.of());
+
+        for (int i = 1; i < SeriesCache.WAYS; i++) {
+            series.add(cache.intern("a", ImmutableMap.of("foo", Integer.toString(i))));
+        }
+
+        /* a hit moves it away from the end */
+        assertSame(first, cache.intern("first", ImmutableMap.of()));
+
+        /* so the oldest of the other series is evicted instead */
+        cache.intern("b", ImmutableMap.of());
+
+        assertSame(first, cache.intern("first", ImmutableMap.of()));
+        assertNotSame(series.get(0), cache.intern("a", ImmutableMap.of("foo", "1")));
+    }
+
+    @Test
+    public void testDisabled() {
+        final SeriesCache cache = new SeriesCache(reporter, 0);
+
+        final Series a = cache.intern("a", ImmutableMap.of("foo", "1"));
+        final Series b = cache.intern("a", ImmutableMap.of("foo", "1"));
+
+        assertEquals(a, b);
+        assertNotSame(a, b);
+        verifyZeroInteractions(reporter);
+    }
+
+    @Test
+    public void testTableIsAllocatedLazily() {
+        /* would not fit in the heap of the test if it was allocated up front */
+        new SeriesCache(reporter, SeriesCache.MAX_SIZE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        new SeriesCache(reporter, SeriesCache.MAX_SIZE + 1);
+    }
+
+    @Test
+    public void testFingerprintIgnoresOrder() {
+        final Map<String, String> a = ImmutableMap.of("foo", "1", "bar", "2");
+        final Map<String, String> b = ImmutableMap.of("bar", "2", "foo", "1");
+
+        assertEquals(SeriesCache.fingerprint("a", a.entrySet()),
+            SeriesCache.fingerprint("a", b.entrySet()));
+    }
+}
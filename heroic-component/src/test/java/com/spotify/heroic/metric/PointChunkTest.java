@@ -0,0 +1,126 @@
+package com.spotify.heroic.metric;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PointChunkTest {
+    @Test
+    public void testBuilder() {
+        final PointChunk.Builder builder = PointChunk.builder(1);
+
+        for (int i = 0; i < 100; i++) {
+            builder.add(i, i * 2.0);
+        }
+
+        final PointChunk chunk = builder.build();
+
+        assertEquals(100, chunk.size());
+        assertTrue(chunk.isSorted());
+        assertEquals(42L, chunk.timestamp(42));
+        assertEquals(84.0, chunk.value(42), 0.0);
+        assertEquals(0, builder.size());
+    }
+
+    @Test
+    public void testSorted() {
+        final List<Point> points =
+            ImmutableList.of(new Point(3, 1.0), new Point(1, 2.0), new Point(3, 3.0),
+                new Point(2, 4.0), new Point(1, 5.0));
+
+        final PointChunk chunk = PointChunk.copyOf(points);
+        assertFalse(chunk.isSorted());
+
+        final List<Point> expected =
+            ImmutableList.of(new Point(1, 2.0), new Point(1, 5.0), new Point(2, 4.0),
+                new Point(3, 1.0), new Point(3, 3.0));
+
+        final PointChunk sorted = chunk.sorted();
+        assertTrue(sorted.isSorted());
+        assertEquals(expected, sorted.asList());
+        assertSame(sorted, sorted.sorted());
+    }
+
+    @Test
+    public void testAddAll() {
+        final PointChunk a = PointChunk.builder().add(1, 1.0).add(2, 2.0).build();
+        final PointChunk b = PointChunk.builder().add(0, 0.0).build();
+
+        final PointChunk c = PointChunk.builder().addAll(a).addAll(b).build();
+        assertEquals(3, c.size());
+        assertFalse(c.isSorted());
+
+        final PointChunk d = PointChunk.builder().addAll(b).addAll(a).build();
+        assertTrue(d.isSorted());
+        assertEquals(c.sorted(), d);
+    }
+
+    @Test
+    public void testCollection() {
+        final List<Point> points = ImmutableList.of(new Point(1, 1.0), new Point(2, 2.0));
+        final MetricCollection chunked = MetricCollection.points(PointChunk.copyOf(points));
+
+        assertEquals(MetricCollection.points(points), chunked);
+        assertEquals(points, chunked.getDataAs(Point.class));
+        assertEquals(2, chunked.size());
+    }
+
+    @Test
+    public void testMergeSortedDisjoint() {
+        final PointChunk a = PointChunk.builder().add(3, 3.0).add(4, 4.0).build();
+        final PointChunk b = PointChunk.builder().add(1, 1.0).add(2, 2.0).build();
+
+        final PointChunk merged = PointChunk.mergeSorted(ImmutableList.of(a, b));
+
+        assertTrue(merged.isSorted());
+        assertEquals(PointChunk.builder().addAll(b).addAll(a).build(), merged);
+    }
+
+    @Test
+    public void testMergeSortedOverlapping() {
+        final PointChunk a = PointChunk.builder().add(1, 1.0).add(3, 3.0).add(5, 5.0).build();
+        final PointChunk b = PointChunk.builder().add(4, 4.0).add(2, 2.0).build();
+        final PointChunk c = PointChunk.builder().add(3, 30.0).add(6, 6.0).build();
+
+        final PointChunk merged =
+            PointChunk.mergeSorted(ImmutableList.of(a, PointChunk.empty(), b, c));
+
+        final PointChunk expected =
+            PointChunk.builder().addAll(a).addAll(b).addAll(c).build().sorted();
+
+        assertTrue(merged.isSorted());
+        assertEquals(expected, merged);
+        assertEquals(30.0, merged.value(3), 0.0);
+    }
+
+    @Test
+    public void testMergeSortedRandom() {
+        final Random random = new Random(0x5eed);
+        final List<PointChunk> chunks = new ArrayList<>();
+        final PointChunk.Builder all = PointChunk.builder();
+
+        for (int i = 0; i < 10; i++) {
+            final PointChunk.Builder builder = PointChunk.builder();
+            long t = random.nextInt(100);
+
+            for (int n = random.nextInt(100); n > 0; n--) {
+                builder.add(t, random.nextDouble());
+                t += random.nextInt(10);
+            }
+
+            final PointChunk chunk = builder.build();
+            all.addAll(chunk);
+            chunks.add(chunk);
+        }
+
+        assertEquals(all.build().sorted(), PointChunk.mergeSorted(chunks));
+    }
+}
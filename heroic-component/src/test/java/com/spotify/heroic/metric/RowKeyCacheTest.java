@@ -0,0 +1,71 @@
+package com.spotify.heroic.metric;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RowKeyCacheTest {
+    private final Series a = Series.of("a", ImmutableMap.of("host", "a"));
+    private final Series b = Series.of("a", ImmutableMap.of("host", "b"));
+
+    @Mock
+    private MetricBackendReporter reporter;
+
+    private RowKeyCache<String> cache;
+    private AtomicInteger loads;
+
+    @Before
+    public void setup() {
+        cache = new RowKeyCache<>(2, reporter);
+        loads = new AtomicInteger();
+    }
+
+    private String get(final Series series, final long base) throws Exception {
+        return cache.get(series, base, () -> {
+            loads.incrementAndGet();
+            return series.getTags().get("host") + ":" + base;
+        });
+    }
+
+    @Test
+    public void testHitAndMiss() throws Exception {
+        assertEquals("a:0", get(a, 0L));
+        assertEquals("a:0", get(a, 0L));
+        assertEquals("a:0", get(Series.of("a", ImmutableMap.of("host", "a")), 0L));
+
+        assertEquals(1, loads.get());
+        verify(reporter, times(1)).reportRowKeyCacheMiss();
+        verify(reporter, times(2)).reportRowKeyCacheHit();
+    }
+
+    @Test
+    public void testKeyedOnSeriesAndBase() throws Exception {
+        assertEquals("a:0", get(a, 0L));
+        assertEquals("a:1", get(a, 1L));
+        assertEquals("b:0", get(b, 0L));
+
+        assertEquals(3, loads.get());
+        verify(reporter, times(3)).reportRowKeyCacheMiss();
+    }
+
+    @Test
+    public void testBounded() throws Exception {
+        for (long base = 0; base < 10; base++) {
+            get(a, base);
+        }
+
+        assertEquals(2, cache.size());
+    }
+}
@@ -181,8 +181,6 @@ public class CoreQueryManager implements QueryManager {
 
         @Override
         public AsyncFuture<QueryResult> query(Query q) {
-            final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
-
             final MetricType source = q.getSource().orElse(MetricType.POINT);
 
             final QueryOptions options = q.getOptions().orElseGet(QueryOptions::defaults);
@@ -200,26 +198,31 @@ public class CoreQueryManager implements QueryManager {
             final AggregationContext context = new DefaultAggregationContext(cadence);
             final AggregationInstance root = aggregation.apply(context);
 
-            final AggregationInstance aggregationInstance;
-            final AggregationCombiner combiner;
-
             final Features features = CoreQueryManager.this.features.combine(q.getFeatures());
+            final boolean distributed = features.hasFeature(Feature.DISTRIBUTED_AGGREGATIONS);
 
-            if (features.hasFeature(Feature.DISTRIBUTED_AGGREGATIONS)) {
-                aggregationInstance = root.distributed();
-                combiner = new DistributedAggregationCombiner(root.reducer(), range);
-            } else {
-                aggregationInstance = root;
-                combiner = AggregationCombiner.DEFAULT;
-            }
+            final AggregationInstance aggregationInstance =
+                distributed ? root.distributed() : root;
 
             final FullQuery.Request request =
                 new FullQuery.Request(source, filter, range, aggregationInstance, options);
 
-            return queryCache.load(request, () -> {
+            /* the cache might only load part of the range, so everything which depends on the
+             * range is set up by the loader */
+            return queryCache.load(request, r -> {
+                final AggregationCombiner combiner;
+
+                if (distributed) {
+                    combiner = new DistributedAggregationCombiner(root.reducer(), r.getRange());
+                } else {
+                    combiner = AggregationCombiner.DEFAULT;
+                }
+
+                final List<AsyncFuture<QueryResultPart>> futures = new ArrayList<>();
+
                 for (final ClusterShard shard : shards) {
                     final AsyncFuture<QueryResultPart> queryPart = shard
-                        .apply(g -> g.query(request))
+                        .apply(g -> g.query(r))
                         .catchFailed(FullQuery.shardError(QUERY_NODE, shard))
                         .directTransform(QueryResultPart.fromResultGroup(shard));
 
@@ -229,7 +232,7 @@ public class CoreQueryManager implements QueryManager {
                 final OptionalLimit limit = options.getGroupLimit().orElse(groupLimit);
 
                 return async.collect(futures,
-                    QueryResult.collectParts(QUERY, range, combiner, limit));
+                    QueryResult.collectParts(QUERY, r.getRange(), combiner, limit));
             });
         }
 
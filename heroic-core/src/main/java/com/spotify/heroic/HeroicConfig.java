@@ -75,6 +75,7 @@ public class HeroicConfig {
     public static final boolean DEFAULT_ENABLE_CORS = true;
     public static final Duration DEFAULT_START_TIMEOUT = Duration.of(5, TimeUnit.MINUTES);
     public static final Duration DEFAULT_STOP_TIMEOUT = Duration.of(1, TimeUnit.MINUTES);
+    public static final int DEFAULT_SERIES_CACHE_SIZE = 1 << 16;
 
     public static final String DEFAULT_VERSION = "HEAD";
     public static final String DEFAULT_SERVICE = "The Heroic Time Series Database";
@@ -116,6 +117,14 @@ public class HeroicConfig {
     private final String version;
     private final String service;
 
+    /**
+     * Number of series in the cache of canonical series used when ingesting, 0 disables it.
+     * <p>
+     * Cached series are kept alive, so nodes which ingest many series should raise this to the
+     * number of series actively written to them, while keeping the heap cost in mind.
+     */
+    private final int seriesCacheSize;
+
     public static Builder builder() {
         return new Builder();
     }
@@ -194,6 +203,7 @@ public class HeroicConfig {
 
         private Optional<String> version = empty();
         private Optional<String> service = empty();
+        private Optional<Integer> seriesCacheSize = empty();
 
         public Builder enableCors(boolean enableCors) {
             this.enableCors = of(enableCors);
@@ -281,6 +291,11 @@ public class HeroicConfig {
             return this;
         }
 
+        public Builder seriesCacheSize(int seriesCacheSize) {
+            this.seriesCacheSize = of(seriesCacheSize);
+            return this;
+        }
+
         public Builder merge(Builder o) {
             // @formatter:off
             return new Builder(
@@ -306,7 +321,8 @@ public class HeroicConfig {
                 mergeOptional(generator, o.generator, CoreGeneratorModule.Builder::merge),
                 pickOptional(statistics, o.statistics),
                 pickOptional(service, o.service),
-                pickOptional(version, o.version)
+                pickOptional(version, o.version),
+                pickOptional(seriesCacheSize, o.seriesCacheSize)
             );
             // @formatter:on
         }
@@ -345,7 +361,8 @@ public class HeroicConfig {
                 generator.orElseGet(CoreGeneratorModule::builder).build(),
                 statistics.orElseGet(NoopStatisticsModule::new),
                 version.orElse(defaultVersion),
-                service.orElse(DEFAULT_SERVICE)
+                service.orElse(DEFAULT_SERVICE),
+                seriesCacheSize.orElse(DEFAULT_SERIES_CACHE_SIZE)
             );
             // @formatter:on
         }
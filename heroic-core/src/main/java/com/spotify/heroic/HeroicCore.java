@@ -356,7 +356,8 @@ public class HeroicCore implements HeroicConfiguration {
         final CorePrimaryComponent primary = DaggerCorePrimaryComponent
             .builder()
             .coreEarlyComponent(early)
-            .primaryModule(new PrimaryModule(instance, config.getFeatures(), reporter))
+            .primaryModule(new PrimaryModule(instance, config.getFeatures(), reporter,
+                config.getSeriesCacheSize()))
             .build();
 
         final Optional<HttpServer> server;
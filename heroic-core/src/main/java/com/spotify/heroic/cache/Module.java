@@ -23,6 +23,7 @@ package com.spotify.heroic.cache;
 
 import com.spotify.heroic.HeroicConfigurationContext;
 import com.spotify.heroic.HeroicModule;
+import com.spotify.heroic.cache.incremental.IncrementalCacheModule;
 import com.spotify.heroic.cache.memcached.MemcachedCacheModule;
 import com.spotify.heroic.cache.memory.MemoryCacheModule;
 import com.spotify.heroic.cache.noop.NoopCacheModule;
@@ -55,6 +56,7 @@ public class Module implements HeroicModule {
             config.registerType("noop", NoopCacheModule.Builder.class);
             config.registerType("memory", MemoryCacheModule.Builder.class);
             config.registerType("memcached", MemcachedCacheModule.Builder.class);
+            config.registerType("incremental", IncrementalCacheModule.Builder.class);
         }
     }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.incremental;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.heroic.cache.CacheComponent;
+import com.spotify.heroic.cache.CacheModule;
+import com.spotify.heroic.cache.CacheScope;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.dagger.PrimaryComponent;
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+import javax.inject.Named;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cache which keeps closed buckets of previous query results, and only queries the backends for
+ * the part of a range that has not been cached.
+ */
+@RequiredArgsConstructor
+public class IncrementalCacheModule implements CacheModule {
+    public static final Duration DEFAULT_SETTLE = Duration.of(1, TimeUnit.MINUTES);
+    public static final Duration DEFAULT_EXPIRE = Duration.of(1, TimeUnit.HOURS);
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    /**
+     * How long it takes for data to settle, buckets younger than this are never cached.
+     */
+    private final Duration settle;
+
+    /**
+     * How long an entry is kept after it was last accessed.
+     */
+    private final Duration expire;
+
+    /**
+     * The maximum number of queries to keep results for.
+     */
+    private final int maxEntries;
+
+    @Override
+    public CacheComponent module(PrimaryComponent primary) {
+        return DaggerIncrementalCacheModule_C
+            .builder()
+            .primaryComponent(primary)
+            .m(new M())
+            .build();
+    }
+
+    @CacheScope
+    @Component(modules = M.class, dependencies = PrimaryComponent.class)
+    interface C extends CacheComponent {
+        @Override
+        IncrementalQueryCache queryCache();
+    }
+
+    @Module
+    class M {
+        @Provides
+        @CacheScope
+        @Named("settle")
+        public Duration settle() {
+            return settle;
+        }
+
+        @Provides
+        @CacheScope
+        @Named("expire")
+        public Duration expire() {
+            return expire;
+        }
+
+        @Provides
+        @CacheScope
+        @Named("maxEntries")
+        public int maxEntries() {
+            return maxEntries;
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @NoArgsConstructor
+    public static class Builder implements CacheModule.Builder {
+        private Optional<Duration> settle = Optional.empty();
+        private Optional<Duration> expire = Optional.empty();
+        private Optional<Integer> maxEntries = Optional.empty();
+
+        @JsonCreator
+        public Builder(
+            @JsonProperty("settle") Optional<Duration> settle,
+            @JsonProperty("expire") Optional<Duration> expire,
+            @JsonProperty("maxEntries") Optional<Integer> maxEntries
+        ) {
+            this.settle = settle;
+            this.expire = expire;
+            this.maxEntries = maxEntries;
+        }
+
+        public Builder settle(Duration settle) {
+            this.settle = Optional.of(settle);
+            return this;
+        }
+
+        public Builder expire(Duration expire) {
+            this.expire = Optional.of(expire);
+            return this;
+        }
+
+        public Builder maxEntries(int maxEntries) {
+            this.maxEntries = Optional.of(maxEntries);
+            return this;
+        }
+
+        @Override
+        public CacheModule build() {
+            return new IncrementalCacheModule(settle.orElse(DEFAULT_SETTLE),
+                expire.orElse(DEFAULT_EXPIRE), maxEntries.orElse(DEFAULT_MAX_ENTRIES));
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.cache.incremental;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.cache.CacheScope;
+import com.spotify.heroic.cache.QueryCache;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import lombok.Data;
+import net.jodah.expiringmap.ExpirationPolicy;
+import net.jodah.expiringmap.ExpiringMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A query cache which reuses closed buckets of earlier results.
+ * <p>
+ * Results are cached per query, ignoring the range. A bucket is considered closed once its
+ * timestamp is older than the settle period, at which point it is not expected to change. When a
+ * query is repeated over a range starting within a cached result, closed buckets are taken from
+ * the cache and only the open tail of the range is loaded from the backends.
+ * <p>
+ * This only applies to aggregations with a known cadence and extent, which are queried over a
+ * range aligned with their cadence. Everything else passes through to the backends.
+ */
+@CacheScope
+public class IncrementalQueryCache implements QueryCache {
+    private static final QueryTrace.Identifier CACHED =
+        QueryTrace.identifier(IncrementalQueryCache.class, "cached");
+
+    private final AsyncFramework async;
+    private final long settle;
+    private final LongSupplier clock;
+    private final ExpiringMap<Key, Entry> cache;
+
+    @Inject
+    public IncrementalQueryCache(
+        final AsyncFramework async, @Named("settle") final Duration settle,
+        @Named("expire") final Duration expire, @Named("maxEntries") final int maxEntries
+    ) {
+        this(async, settle, expire, maxEntries, System::currentTimeMillis);
+    }
+
+    IncrementalQueryCache(
+        final AsyncFramework async, final Duration settle, final Duration expire,
+        final int maxEntries, final LongSupplier clock
+    ) {
+        this.async = async;
+        this.settle = settle.toMilliseconds();
+        this.clock = clock;
+        this.cache = ExpiringMap
+            .builder()
+            .maxSize(maxEntries)
+            .expirationPolicy(ExpirationPolicy.ACCESSED)
+            .expiration(expire.toMilliseconds(), TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    @Override
+    public AsyncFuture<QueryResult> load(
+        final FullQuery.Request request,
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
+    ) {
+        final AggregationInstance aggregation = request.getAggregation();
+        final DateRange range = request.getRange();
+
+        final long cadence = aggregation.cadence();
+        final long extent = aggregation.extent();
+
+        /* buckets can only be reused if they are at the same place in every result */
+        if (cadence <= 0 || extent < 0 || range.start() % cadence != 0) {
+            return loader.apply(request);
+        }
+
+        final Key key = new Key(request.getSource(), request.getFilter(), aggregation,
+            request.getOptions());
+
+        /* everything before this is closed, and safe to cache */
+        final long closed =
+            Math.min(Math.floorDiv(clock.getAsLong() - settle, cadence) * cadence,
+                range.end() + 1);
+
+        final Entry entry = cache.get(key);
+
+        if (entry == null || !entry.covers(range)) {
+            return loader.apply(request).directTransform(result -> store(key, result, closed));
+        }
+
+        if (range.end() < entry.getClosed()) {
+            return async.resolved(
+                new QueryResult(range, entry.slice(range), ImmutableList.of(),
+                    QueryTrace.of(CACHED), ResultLimits.of()));
+        }
+
+        /* load the open tail, starting early enough that its first needed bucket is complete */
+        final long tailStart = Math.floorDiv(entry.getClosed() - extent, cadence) * cadence;
+
+        final FullQuery.Request tail =
+            new FullQuery.Request(request.getSource(), request.getFilter(),
+                range.start(tailStart), aggregation, request.getOptions());
+
+        return loader.apply(tail).directTransform(result -> {
+            final QueryResult stitched =
+                new QueryResult(range, entry.stitch(range, result.getGroups()),
+                    result.getErrors(), result.getTrace(), result.getLimits());
+            return store(key, stitched, closed);
+        });
+    }
+
+    /**
+     * Store the closed part of the given result.
+     * <p>
+     * Results that are incomplete in any way are not stored.
+     */
+    private QueryResult store(final Key key, final QueryResult result, final long closed) {
+        final DateRange range = result.getRange();
+
+        if (!result.getErrors().isEmpty() || !result.getLimits().getLimits().isEmpty() ||
+            closed <= range.start()) {
+            return result;
+        }
+
+        final List<ShardedResultGroup> groups = new ArrayList<>();
+
+        for (final ShardedResultGroup g : result.getGroups()) {
+            groups.add(slice(g, range.start(), closed));
+        }
+
+        cache.put(key, new Entry(range.start(), closed, groups));
+        return result;
+    }
+
+    /**
+     * Get a copy of the given group, only containing samples in the range {@code [start, end)}.
+     */
+    static ShardedResultGroup slice(
+        final ShardedResultGroup group, final long start, final long end
+    ) {
+        final MetricCollection metrics = group.getMetrics();
+        final List<Metric> data = new ArrayList<>();
+
+        for (final Metric m : metrics.getData()) {
+            if (m.getTimestamp() >= start && m.getTimestamp() < end) {
+                data.add(m);
+            }
+        }
+
+        return new ShardedResultGroup(group.getShard(), group.getKey(), group.getSeries(),
+            MetricCollection.build(metrics.getType(), data), group.getCadence());
+    }
+
+    /**
+     * Identifies a query, regardless of range.
+     */
+    @Data
+    static class Key {
+        private final MetricType source;
+        private final Filter filter;
+        private final AggregationInstance aggregation;
+        private final QueryOptions options;
+    }
+
+    @Data
+    static class GroupKey {
+        private final Map<String, String> shard;
+        private final Map<String, String> key;
+    }
+
+    /**
+     * Closed buckets of an earlier result.
+     */
+    @Data
+    static class Entry {
+        /**
+         * Start of the range that the cached groups cover.
+         */
+        private final long start;
+
+        /**
+         * All samples before this timestamp are closed.
+         */
+        private final long closed;
+
+        /**
+         * Groups, only containing closed samples.
+         */
+        private final List<ShardedResultGroup> groups;
+
+        boolean covers(final DateRange range) {
+            return start <= range.start() && range.start() < closed;
+        }
+
+        /**
+         * Get the cached groups for the given range.
+         */
+        List<ShardedResultGroup> slice(final DateRange range) {
+            final List<ShardedResultGroup> result = new ArrayList<>();
+
+            for (final ShardedResultGroup g : groups) {
+                final ShardedResultGroup s =
+                    IncrementalQueryCache.slice(g, range.start(), range.end() + 1);
+
+                if (!s.isEmpty()) {
+                    result.add(s);
+                }
+            }
+
+            return result;
+        }
+
+        /**
+         * Combine cached groups with the groups of a result loaded for the tail of the range.
+         * <p>
+         * Cached samples are used up until the first open bucket, and loaded samples from there on.
+         */
+        List<ShardedResultGroup> stitch(
+            final DateRange range, final List<ShardedResultGroup> loaded
+        ) {
+            final Map<GroupKey, ShardedResultGroup> head = new LinkedHashMap<>();
+
+            for (final ShardedResultGroup g : slice(range.end(closed - 1))) {
+                head.put(new GroupKey(g.getShard(), g.getKey()), g);
+            }
+
+            final List<ShardedResultGroup> result = new ArrayList<>();
+
+            for (final ShardedResultGroup g : loaded) {
+                final ShardedResultGroup tail =
+                    IncrementalQueryCache.slice(g, closed, range.end() + 1);
+                final ShardedResultGroup h = head.remove(new GroupKey(g.getShard(), g.getKey()));
+
+                if (h == null) {
+                    if (!tail.isEmpty()) {
+                        result.add(tail);
+                    }
+
+                    continue;
+                }
+
+                final List<Metric> data = new ArrayList<>(h.getMetrics().getData());
+                data.addAll(tail.getMetrics().getData());
+
+                result.add(new ShardedResultGroup(g.getShard(), g.getKey(),
+                    ImmutableSet.copyOf(Iterables.concat(h.getSeries(), g.getSeries())),
+                    MetricCollection.build(g.getMetrics().getType(), data), g.getCadence()));
+            }
+
+            /* groups which have no data in the tail */
+            result.addAll(head.values());
+            return result;
+        }
+    }
+}
@@ -24,6 +24,7 @@ package com.spotify.heroic.cache.memcached;
 import com.spotify.heroic.cache.CacheComponent;
 import com.spotify.heroic.cache.CacheModule;
 import com.spotify.heroic.cache.CacheScope;
+import com.spotify.heroic.cache.memory.MemoryCacheModule;
 import com.spotify.heroic.cache.memory.MemoryQueryCache;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import dagger.Component;
@@ -31,11 +32,15 @@ import dagger.Component;
 public class MemcachedCacheModule implements CacheModule {
     @Override
     public CacheComponent module(PrimaryComponent primary) {
-        return DaggerMemcachedCacheModule_C.builder().primaryComponent(primary).build();
+        return DaggerMemcachedCacheModule_C
+            .builder()
+            .primaryComponent(primary)
+            .m(new MemoryCacheModule.M(MemoryCacheModule.DEFAULT_MAX_WEIGHT))
+            .build();
     }
 
     @CacheScope
-    @Component(dependencies = PrimaryComponent.class)
+    @Component(modules = MemoryCacheModule.M.class, dependencies = PrimaryComponent.class)
     interface C extends CacheComponent {
         @Override
         MemoryQueryCache queryCache();
@@ -21,33 +21,89 @@
 
 package com.spotify.heroic.cache.memory;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.cache.CacheComponent;
 import com.spotify.heroic.cache.CacheModule;
 import com.spotify.heroic.cache.CacheScope;
 import com.spotify.heroic.dagger.PrimaryComponent;
+import com.spotify.heroic.statistics.HeroicReporter;
+import com.spotify.heroic.statistics.QueryCacheReporter;
 import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 
+import javax.inject.Named;
+import java.util.Optional;
+
+@RequiredArgsConstructor
 public class MemoryCacheModule implements CacheModule {
+    public static final long DEFAULT_MAX_WEIGHT = 10_000_000L;
+
+    /**
+     * The maximum total weight of all cached results, where the weight of a result is the number
+     * of groups and samples in it.
+     */
+    private final long maxWeight;
+
     @Override
     public CacheComponent module(PrimaryComponent primary) {
-        return DaggerMemoryCacheModule_C.builder().primaryComponent(primary).build();
+        return DaggerMemoryCacheModule_C
+            .builder()
+            .primaryComponent(primary)
+            .m(new M(maxWeight))
+            .build();
     }
 
     @CacheScope
-    @Component(dependencies = PrimaryComponent.class)
+    @Component(modules = M.class, dependencies = PrimaryComponent.class)
     interface C extends CacheComponent {
         @Override
         MemoryQueryCache queryCache();
     }
 
+    @RequiredArgsConstructor
+    @Module
+    public static class M {
+        private final long maxWeight;
+
+        @Provides
+        @CacheScope
+        public QueryCacheReporter reporter(final HeroicReporter reporter) {
+            return reporter.newQueryCache();
+        }
+
+        @Provides
+        @CacheScope
+        @Named("maxWeight")
+        public long maxWeight() {
+            return maxWeight;
+        }
+    }
+
     public static Builder builder() {
         return new Builder();
     }
 
+    @NoArgsConstructor
     public static class Builder implements CacheModule.Builder {
+        private Optional<Long> maxWeight = Optional.empty();
+
+        @JsonCreator
+        public Builder(@JsonProperty("maxWeight") Optional<Long> maxWeight) {
+            this.maxWeight = maxWeight;
+        }
+
+        public Builder maxWeight(long maxWeight) {
+            this.maxWeight = Optional.of(maxWeight);
+            return this;
+        }
+
         @Override
         public CacheModule build() {
-            return new MemoryCacheModule();
+            return new MemoryCacheModule(maxWeight.orElse(DEFAULT_MAX_WEIGHT));
         }
     }
 }
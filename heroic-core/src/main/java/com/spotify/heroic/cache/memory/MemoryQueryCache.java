@@ -21,58 +21,210 @@
 
 package com.spotify.heroic.cache.memory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.spotify.heroic.aggregation.AggregationInstance;
 import com.spotify.heroic.cache.CacheScope;
 import com.spotify.heroic.cache.QueryCache;
 import com.spotify.heroic.metric.FullQuery;
 import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.statistics.QueryCacheReporter;
+import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
-import net.jodah.expiringmap.ExpirationPolicy;
-import net.jodah.expiringmap.ExpiringMap;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 
 import javax.inject.Inject;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Supplier;
+import javax.inject.Named;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
+/**
+ * Caches complete query results in memory.
+ * <p>
+ * The cache is bounded by the total weight of all results, where the weight of a result is the
+ * number of groups and samples in it. Entries are evicted in least-recently-used order when the
+ * bound is reached, and expire once they have not been accessed for the cadence of the query.
+ * <p>
+ * Concurrent loads of the same request share a single load. Every caller gets its own future,
+ * so a caller which gives up does not cancel the load for the others.
+ */
 @CacheScope
 public class MemoryQueryCache implements QueryCache {
-    private final ExpiringMap<FullQuery.Request, AsyncFuture<QueryResult>> cache;
+    private final AsyncFramework async;
+    private final QueryCacheReporter reporter;
+    private final LongSupplier clock;
 
-    private final Object lock = new Object();
+    private final Cache<FullQuery.Request, Entry> cache;
+    private final ConcurrentMap<FullQuery.Request, AsyncFuture<QueryResult>> loading =
+        new ConcurrentHashMap<>();
 
     @Inject
-    public MemoryQueryCache() {
-        this.cache = ExpiringMap.builder().variableExpiration().build();
+    public MemoryQueryCache(
+        final AsyncFramework async, final QueryCacheReporter reporter,
+        @Named("maxWeight") final long maxWeight
+    ) {
+        this(async, reporter, maxWeight, System::currentTimeMillis);
+    }
+
+    MemoryQueryCache(
+        final AsyncFramework async, final QueryCacheReporter reporter, final long maxWeight,
+        final LongSupplier clock
+    ) {
+        this.async = async;
+        this.reporter = reporter;
+        this.clock = clock;
+        this.cache = CacheBuilder
+            .newBuilder()
+            .maximumWeight(maxWeight)
+            .<FullQuery.Request, Entry>weigher((request, entry) -> entry.getWeight())
+            .removalListener(this::removed)
+            .build();
     }
 
     @Override
     public AsyncFuture<QueryResult> load(
-        FullQuery.Request request, Supplier<AsyncFuture<QueryResult>> loader
+        final FullQuery.Request request,
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader
     ) {
         final AggregationInstance aggregation = request.getAggregation();
 
         /* can't be cached :( */
         if (aggregation.cadence() <= 0) {
-            return loader.get();
+            return loader.apply(request);
         }
 
-        final AsyncFuture<QueryResult> result = cache.get(request);
+        final Entry entry = cache.getIfPresent(request);
 
-        if (result != null) {
-            return result;
+        if (entry != null) {
+            if (entry.access(clock.getAsLong(), aggregation.cadence())) {
+                reporter.reportHit();
+                return async.resolved(entry.getResult());
+            }
+
+            cache.asMap().remove(request, entry);
         }
 
-        synchronized (lock) {
-            final AsyncFuture<QueryResult> candidate = cache.get(request);
+        final ResolvableFuture<QueryResult> future = async.future();
+        final AsyncFuture<QueryResult> current = loading.putIfAbsent(request, future);
+
+        if (current != null) {
+            reporter.reportCoalesced();
+            return join(current);
+        }
+
+        reporter.reportMiss();
+
+        final AsyncFuture<QueryResult> load;
+
+        try {
+            load = loader.apply(request);
+        } catch (final Exception e) {
+            loading.remove(request, future);
+            future.fail(e);
+            return async.failed(e);
+        }
+
+        load.onDone(new FutureDone<QueryResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                loading.remove(request, future);
+                future.fail(cause);
+            }
+
+            @Override
+            public void resolved(final QueryResult result) throws Exception {
+                /* store before removing the load, so that no request misses both */
+                if (result.getErrors().isEmpty()) {
+                    cache.put(request, new Entry(result, weigh(result),
+                        clock.getAsLong() + aggregation.cadence()));
+                }
+
+                loading.remove(request, future);
+                future.resolve(result);
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                loading.remove(request, future);
+                future.cancel();
+            }
+        });
+
+        return join(future);
+    }
+
+    /**
+     * Build a future for a single caller, which is completed by the given shared load.
+     */
+    private AsyncFuture<QueryResult> join(final AsyncFuture<QueryResult> shared) {
+        final ResolvableFuture<QueryResult> future = async.future();
+
+        shared.onDone(new FutureDone<QueryResult>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                future.fail(cause);
+            }
+
+            @Override
+            public void resolved(final QueryResult result) throws Exception {
+                future.resolve(result);
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                future.cancel();
+            }
+        });
+
+        return future;
+    }
+
+    private void removed(final RemovalNotification<FullQuery.Request, Entry> notification) {
+        reporter.reportWeight(-notification.getValue().getWeight());
+
+        if (notification.wasEvicted()) {
+            reporter.reportEviction();
+        }
+    }
+
+    private int weigh(final QueryResult result) {
+        long weight = 0;
+
+        for (final ShardedResultGroup g : result.getGroups()) {
+            weight += 1 + g.getMetrics().size();
+        }
+
+        final int w = (int) Math.min(weight, Integer.MAX_VALUE);
+        reporter.reportWeight(w);
+        return w;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Entry {
+        private final QueryResult result;
+        private final int weight;
+        private volatile long expires;
 
-            if (candidate != null) {
-                return candidate;
+        /**
+         * Access the entry, extending its lifetime.
+         *
+         * @return {@code true} if the entry had not expired.
+         */
+        boolean access(final long now, final long cadence) {
+            if (now >= expires) {
+                return false;
             }
 
-            final AsyncFuture<QueryResult> next = loader.get();
-            cache.put(request, next, ExpirationPolicy.ACCESSED, aggregation.cadence(),
-                TimeUnit.MILLISECONDS);
-            return next;
+            expires = now + cadence;
+            return true;
         }
     }
 }
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.consumer.schemas;
+
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesCache;
+import com.spotify.heroic.consumer.ConsumerSchema;
+import com.spotify.heroic.consumer.ConsumerSchemaException;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import com.spotify.heroic.consumer.SchemaScope;
+import com.spotify.heroic.ingestion.Ingestion;
+import com.spotify.heroic.ingestion.IngestionGroup;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.statistics.ConsumerReporter;
+import dagger.Component;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import lombok.ToString;
+
+import javax.inject.Inject;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary schema which carries many series, each with many points, in a single message.
+ * <p>
+ * All numbers are big-endian, and strings are encoded as an int length followed by that many
+ * bytes of UTF-8.
+ * <pre>
+ * byte     version (1)
+ * int      number of series
+ * for each series:
+ *   string   key
+ *   int      number of tags
+ *   string[] tag keys and values, interleaved
+ *   int      number of points
+ *   long[]   timestamps
+ *   double[] values
+ * </pre>
+ * Timestamps and values are stored as separate columns, and are decoded directly into a {@link
+ * PointChunk} for each series. Points for a series which occurs more than once in a message are
+ * written together.
+ */
+@ToString
+public class Batch100 implements ConsumerSchema {
+    public static final byte SCHEMA_VERSION = 1;
+
+    private static final int POINT_BYTES = Long.BYTES + Double.BYTES;
+
+    @SchemaScope
+    public static class Consumer implements ConsumerSchema.Consumer {
+        private final AsyncFramework async;
+        private final IngestionGroup ingestion;
+        private final ConsumerReporter reporter;
+        private final SeriesCache seriesCache;
+
+        @Inject
+        public Consumer(
+            AsyncFramework async, IngestionGroup ingestion, ConsumerReporter reporter,
+            SeriesCache seriesCache
+        ) {
+            this.async = async;
+            this.ingestion = ingestion;
+            this.reporter = reporter;
+            this.seriesCache = seriesCache;
+        }
+
+        @Override
+        public AsyncFuture<Void> consume(final byte[] message) throws ConsumerSchemaException {
+            final Map<Series, PointChunk> series;
+
+            try {
+                series = decode(ByteBuffer.wrap(message), seriesCache);
+            } catch (final BufferUnderflowException e) {
+                throw new ConsumerSchemaValidationException("Received truncated message", e);
+            }
+
+            final List<AsyncFuture<Ingestion>> writes = new ArrayList<>(series.size());
+            long latest = Long.MIN_VALUE;
+
+            for (final Map.Entry<Series, PointChunk> e : series.entrySet()) {
+                final PointChunk points = e.getValue();
+
+                for (int i = 0; i < points.size(); i++) {
+                    latest = Math.max(latest, points.timestamp(i));
+                }
+
+                writes.add(ingestion.write(
+                    new Ingestion.Request(e.getKey(), MetricCollection.points(points))));
+            }
+
+            if (!writes.isEmpty()) {
+                reporter.reportMessageDrift(System.currentTimeMillis() - latest);
+            }
+
+            return async.collectAndDiscard(writes);
+        }
+    }
+
+    /**
+     * Decode a message into the points of each series.
+     * <p>
+     * Series are interned through the given cache, so that series which are written repeatedly
+     * are only built once.
+     *
+     * @throws ConsumerSchemaValidationException if the message is not valid.
+     * @throws BufferUnderflowException if the message is truncated.
+     */
+    static Map<Series, PointChunk> decode(
+        final ByteBuffer buffer, final SeriesCache seriesCache
+    ) throws ConsumerSchemaValidationException {
+        final byte version = buffer.get();
+
+        if (version != SCHEMA_VERSION) {
+            throw new ConsumerSchemaValidationException(
+                String.format("Invalid version %d, expected %d", version, SCHEMA_VERSION));
+        }
+
+        final int count = count(buffer, "series", 3 * Integer.BYTES);
+        final Map<Series, PointChunk.Builder> builders = new LinkedHashMap<>();
+
+        for (int s = 0; s < count; s++) {
+            final String key = string(buffer);
+            final int tagCount = count(buffer, "tags", 2 * Integer.BYTES);
+            final List<Map.Entry<String, String>> tags = new ArrayList<>(tagCount);
+
+            for (int t = 0; t < tagCount; t++) {
+                tags.add(new AbstractMap.SimpleImmutableEntry<>(string(buffer), string(buffer)));
+            }
+
+            final int points = count(buffer, "points", POINT_BYTES);
+            final Series series = seriesCache.intern(key, tags);
+
+            final PointChunk.Builder builder =
+                builders.computeIfAbsent(series, k -> PointChunk.builder(points));
+
+            /* values are stored after all timestamps */
+            final int timestamps = buffer.position();
+            final int values = timestamps + points * Long.BYTES;
+
+            for (int i = 0; i < points; i++) {
+                builder.add(buffer.getLong(timestamps + i * Long.BYTES),
+                    buffer.getDouble(values + i * Double.BYTES));
+            }
+
+            buffer.position(values + points * Double.BYTES);
+        }
+
+        final Map<Series, PointChunk> result = new LinkedHashMap<>();
+
+        for (final Map.Entry<Series, PointChunk.Builder> e : builders.entrySet()) {
+            if (e.getValue().size() > 0) {
+                result.put(e.getKey(), e.getValue().build());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Encode the given series and points into a message.
+     */
+    public static byte[] encode(final Map<Series, PointChunk> series) {
+        int size = 1 + Integer.BYTES;
+
+        final List<byte[]> strings = new ArrayList<>();
+
+        for (final Map.Entry<Series, PointChunk> e : series.entrySet()) {
+            final Series s = e.getKey();
+            strings.add(s.getKey().getBytes(StandardCharsets.UTF_8));
+
+            for (final Map.Entry<String, String> tag : s.getTags().entrySet()) {
+                strings.add(tag.getKey().getBytes(StandardCharsets.UTF_8));
+                strings.add(tag.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+
+            size += 2 * Integer.BYTES + e.getValue().size() * POINT_BYTES;
+        }
+
+        for (final byte[] string : strings) {
+            size += Integer.BYTES + string.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(SCHEMA_VERSION);
+        buffer.putInt(series.size());
+
+        int next = 0;
+
+        for (final Map.Entry<Series, PointChunk> e : series.entrySet()) {
+            final Map<String, String> tags = e.getKey().getTags();
+            final PointChunk points = e.getValue();
+
+            putString(buffer, strings.get(next++));
+            buffer.putInt(tags.size());
+
+            for (int t = 0; t < tags.size() * 2; t++) {
+                putString(buffer, strings.get(next++));
+            }
+
+            buffer.putInt(points.size());
+
+            for (int i = 0; i < points.size(); i++) {
+                buffer.putLong(points.timestamp(i));
+            }
+
+            for (int i = 0; i < points.size(); i++) {
+                buffer.putDouble(points.value(i));
+            }
+        }
+
+        return buffer.array();
+    }
+
+    /**
+     * Read a count, and check that the remaining message could hold that many entries of the
+     * given minimum size.
+     */
+    private static int count(final ByteBuffer buffer, final String what, final int entryBytes)
+        throws ConsumerSchemaValidationException {
+        final int count = buffer.getInt();
+
+        if (count < 0 || (long) count * entryBytes > buffer.remaining()) {
+            throw new ConsumerSchemaValidationException(
+                String.format("Invalid number of %s (%d)", what, count));
+        }
+
+        return count;
+    }
+
+    private static String string(final ByteBuffer buffer)
+        throws ConsumerSchemaValidationException {
+        final int length = count(buffer, "bytes in string", 1);
+        final String value =
+            new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private static void putString(final ByteBuffer buffer, final byte[] string) {
+        buffer.putInt(string.length);
+        buffer.put(string);
+    }
+
+    @Override
+    public Exposed setup(final ConsumerSchema.Depends depends) {
+        return DaggerBatch100_C.builder().depends(depends).build();
+    }
+
+    @SchemaScope
+    @Component(dependencies = ConsumerSchema.Depends.class)
+    interface C extends ConsumerSchema.Exposed {
+        @Override
+        Consumer consumer();
+    }
+}
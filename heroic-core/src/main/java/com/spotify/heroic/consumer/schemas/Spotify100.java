@@ -33,7 +33,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesCache;
 import com.spotify.heroic.consumer.ConsumerSchema;
 import com.spotify.heroic.consumer.ConsumerSchemaException;
 import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
@@ -44,12 +46,14 @@ import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.Point;
 import com.spotify.heroic.statistics.ConsumerReporter;
 import dagger.Component;
+import eu.toolchain.async.AsyncFuture;
 import lombok.Data;
 import lombok.ToString;
 
 import javax.inject.Inject;
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -123,15 +127,19 @@ public class Spotify100 implements ConsumerSchema {
     public static class Consumer implements ConsumerSchema.Consumer {
         private final IngestionGroup ingestion;
         private final ConsumerReporter reporter;
+        private final SeriesCache seriesCache;
 
         @Inject
-        public Consumer(IngestionGroup ingestion, ConsumerReporter reporter) {
+        public Consumer(
+            IngestionGroup ingestion, ConsumerReporter reporter, SeriesCache seriesCache
+        ) {
             this.ingestion = ingestion;
             this.reporter = reporter;
+            this.seriesCache = seriesCache;
         }
 
         @Override
-        public void consume(final byte[] message) throws ConsumerSchemaException {
+        public AsyncFuture<Void> consume(final byte[] message) throws ConsumerSchemaException {
             final JsonMetric metric;
 
             try {
@@ -161,15 +169,20 @@ public class Spotify100 implements ConsumerSchema {
                     "'" + KEY + "' field must be defined: " + message);
             }
 
-            final Map<String, String> tags = new HashMap<String, String>(metric.getAttributes());
-            tags.put(HOST, metric.getHost());
+            /* the host tag overrides any host attribute */
+            final Map.Entry<String, String> host =
+                new AbstractMap.SimpleImmutableEntry<>(HOST, metric.getHost());
+            final Iterable<Map.Entry<String, String>> tags =
+                Iterables.concat(metric.getAttributes().entrySet(), Collections.singleton(host));
 
-            final Series series = Series.of(metric.getKey(), tags);
+            final Series series = seriesCache.intern(metric.getKey(), tags);
             final Point p = new Point(metric.getTime(), metric.getValue());
             final List<Point> points = ImmutableList.of(p);
 
             reporter.reportMessageDrift(System.currentTimeMillis() - p.getTimestamp());
-            ingestion.write(new Ingestion.Request(series, MetricCollection.points(points)));
+            return ingestion
+                .write(new Ingestion.Request(series, MetricCollection.points(points)))
+                .directTransform(result -> null);
         }
     }
 
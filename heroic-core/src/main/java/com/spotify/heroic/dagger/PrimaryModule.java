@@ -33,6 +33,7 @@ import com.spotify.heroic.QueryManager;
 import com.spotify.heroic.ShellTasks;
 import com.spotify.heroic.aggregation.AggregationRegistry;
 import com.spotify.heroic.common.Features;
+import com.spotify.heroic.common.SeriesCache;
 import com.spotify.heroic.grammar.CoreQueryParser;
 import com.spotify.heroic.grammar.QueryParser;
 import com.spotify.heroic.lifecycle.CoreLifeCycleManager;
@@ -57,6 +58,7 @@ public class PrimaryModule {
     private final HeroicCoreInstance instance;
     private final Features features;
     private final HeroicReporter reporter;
+    private final int seriesCacheSize;
 
     @Provides
     @PrimaryScope
@@ -134,6 +136,12 @@ public class PrimaryModule {
         return context;
     }
 
+    @Provides
+    @PrimaryScope
+    SeriesCache seriesCache() {
+        return new SeriesCache(reporter.newSeriesCache(), seriesCacheSize);
+    }
+
     private SortedMap<String, ShellTask> setupTasks(
         final List<ShellTaskDefinition> commands, final HeroicCoreInstance injector
     ) throws Exception {
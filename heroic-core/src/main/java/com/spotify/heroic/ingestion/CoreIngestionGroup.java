@@ -43,7 +43,6 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
@@ -51,7 +50,7 @@ import java.util.function.Supplier;
 public class CoreIngestionGroup implements IngestionGroup {
     private final AsyncFramework async;
     private final Supplier<Filter> filter;
-    private final Semaphore writePermits;
+    private final WriteAdmission.Permits writePermits;
     private final IngestionManagerReporter reporter;
     private final LongAdder ingested;
 
@@ -59,6 +58,8 @@ public class CoreIngestionGroup implements IngestionGroup {
     private final Optional<MetadataBackend> metadata;
     private final Optional<SuggestBackend> suggest;
 
+    private final Optional<IngestionBatcher.Group> batcher;
+
     @Override
     public Groups groups() {
         return Groups.combine(metric.map(Grouped::groups).orElseGet(Groups::empty),
@@ -85,18 +86,25 @@ public class CoreIngestionGroup implements IngestionGroup {
             return async.resolved(Ingestion.of(ImmutableList.of()));
         }
 
-        try {
-            writePermits.acquire();
-        } catch (final InterruptedException e) {
-            return async.failed(
-                new Exception("Failed to acquire semaphore for bounded request", e));
-        }
+        return writePermits.acquire().lazyTransform(v -> {
+            reporter.incrementConcurrentWrites();
 
-        reporter.incrementConcurrentWrites();
+            final AsyncFuture<Ingestion> write;
+
+            try {
+                write = batcher
+                    .map(b -> b.write(request, this::doWrite))
+                    .orElseGet(() -> doWrite(request));
+            } catch (final Exception e) {
+                writePermits.release();
+                reporter.decrementConcurrentWrites();
+                throw e;
+            }
 
-        return doWrite(request).onFinished(() -> {
-            writePermits.release();
-            reporter.decrementConcurrentWrites();
+            return write.onFinished(() -> {
+                writePermits.release();
+                reporter.decrementConcurrentWrites();
+            });
         });
     }
 
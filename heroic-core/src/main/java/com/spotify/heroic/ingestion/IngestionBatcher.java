@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.ingestion;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Metric;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Coalesces ingestion requests for the same series, so that they are written together.
+ * <p>
+ * Requests are collected into one batch per group and series. A batch is written once it holds
+ * the configured number of metrics, or once the batch interval has passed since it was created.
+ * <p>
+ * The future returned for each request is completed with the result of writing its batch.
+ * <p>
+ * Batches are kept in a concurrent map and only updated atomically per series, so writers of
+ * different series, and the periodic flush, do not contend on a shared lock.
+ */
+@RequiredArgsConstructor
+public class IngestionBatcher {
+    private final AsyncFramework async;
+    private final Scheduler scheduler;
+    private final int batchSize;
+    private final long batchInterval;
+
+    private final ConcurrentMap<Key, Batch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * Flush batches which have been open for longer than the batch interval, periodically.
+     */
+    public void start() {
+        scheduler.periodically("ingestion-batch-flush", batchInterval, TimeUnit.MILLISECONDS,
+            () -> flushOlderThan(System.currentTimeMillis() - batchInterval));
+    }
+
+    /**
+     * Flush all batches.
+     */
+    public void flush() {
+        flushOlderThan(Long.MAX_VALUE);
+    }
+
+    /**
+     * Get a view of this batcher which adds requests to the given group.
+     */
+    public Group group(final Object group) {
+        return (request, writer) -> write(group, request, writer);
+    }
+
+    /**
+     * Add a request to the batch of its series.
+     *
+     * @param group Group that the request is written to.
+     * @param request Request to add.
+     * @param writer Function used to write the batch, if this request starts a new one.
+     * @return A future that is completed once the batch of the request has been written.
+     */
+    public AsyncFuture<Ingestion> write(
+        final Object group, final Ingestion.Request request,
+        final Function<Ingestion.Request, AsyncFuture<Ingestion>> writer
+    ) {
+        final Key key = new Key(group, request.getSeries());
+        final MetricCollection data = request.getData();
+
+        final ResolvableFuture<Ingestion> future = async.future();
+        final List<Batch> flushed = new ArrayList<>(2);
+
+        batches.compute(key, (k, current) -> {
+            Batch batch = current;
+
+            /* collections of different types can not be merged */
+            if (batch != null && batch.type != data.getType()) {
+                flushed.add(batch);
+                batch = null;
+            }
+
+            if (batch == null) {
+                batch = new Batch(request.getSeries(), data.getType(), writer,
+                    System.currentTimeMillis());
+            }
+
+            batch.add(data, future);
+
+            if (batch.size >= batchSize) {
+                flushed.add(batch);
+                return null;
+            }
+
+            return batch;
+        });
+
+        flushed.forEach(this::send);
+        return future;
+    }
+
+    void flushOlderThan(final long created) {
+        final List<Batch> flushed = new ArrayList<>();
+
+        for (final Map.Entry<Key, Batch> e : batches.entrySet()) {
+            final Batch batch = e.getValue();
+
+            /* only flush the batch if it has not been replaced or flushed by a writer */
+            if (batch.created <= created && batches.remove(e.getKey(), batch)) {
+                flushed.add(batch);
+            }
+        }
+
+        flushed.forEach(this::send);
+    }
+
+    private void send(final Batch batch) {
+        final AsyncFuture<Ingestion> write;
+
+        try {
+            write = batch.writer.apply(new Ingestion.Request(batch.series, batch.merge()));
+        } catch (final Exception e) {
+            batch.futures.forEach(f -> f.fail(e));
+            return;
+        }
+
+        write.onDone(new FutureDone<Ingestion>() {
+            @Override
+            public void failed(final Throwable cause) throws Exception {
+                batch.futures.forEach(f -> f.fail(cause));
+            }
+
+            @Override
+            public void resolved(final Ingestion result) throws Exception {
+                batch.futures.forEach(f -> f.resolve(result));
+            }
+
+            @Override
+            public void cancelled() throws Exception {
+                batch.futures.forEach(ResolvableFuture::cancel);
+            }
+        });
+    }
+
+    public interface Group {
+        AsyncFuture<Ingestion> write(
+            Ingestion.Request request, Function<Ingestion.Request, AsyncFuture<Ingestion>> writer
+        );
+    }
+
+    @Data
+    private static class Key {
+        private final Object group;
+        private final Series series;
+    }
+
+    @RequiredArgsConstructor
+    private static class Batch {
+        private final Series series;
+        private final MetricType type;
+        private final Function<Ingestion.Request, AsyncFuture<Ingestion>> writer;
+        private final long created;
+
+        private final List<MetricCollection> data = new ArrayList<>();
+        private final List<ResolvableFuture<Ingestion>> futures = new ArrayList<>();
+        private int size = 0;
+
+        void add(final MetricCollection collection, final ResolvableFuture<Ingestion> future) {
+            data.add(collection);
+            futures.add(future);
+            size += collection.size();
+        }
+
+        MetricCollection merge() {
+            if (data.size() == 1) {
+                return data.get(0);
+            }
+
+            if (type == MetricType.POINT) {
+                final PointChunk.Builder points = PointChunk.builder(size);
+                data.forEach(d -> points.addAll(d.asPointChunk()));
+                return MetricCollection.points(points.build());
+            }
+
+            final ImmutableList.Builder<Metric> metrics = ImmutableList.builder();
+            data.forEach(d -> metrics.addAll(d.getData()));
+            return MetricCollection.build(type, metrics.build());
+        }
+    }
+}
@@ -23,6 +23,8 @@ package com.spotify.heroic.ingestion;
 
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataManager;
 import com.spotify.heroic.metric.MetricBackend;
@@ -36,14 +38,13 @@ import eu.toolchain.async.AsyncFuture;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.Optional;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-public class IngestionManagerImpl implements IngestionManager {
+public class IngestionManagerImpl implements IngestionManager, LifeCycles {
     final AsyncFramework async;
     final MetadataManager metadata;
     final MetricManager metric;
@@ -56,7 +57,8 @@ public class IngestionManagerImpl implements IngestionManager {
 
     private volatile Filter filter;
 
-    private final Semaphore writePermits;
+    private final WriteAdmission admission;
+    private final Optional<IngestionBatcher> batcher;
 
     private final LongAdder ingested = new LongAdder();
 
@@ -64,7 +66,8 @@ public class IngestionManagerImpl implements IngestionManager {
      * @param updateMetrics Ingested metrics will update metric backends.
      * @param updateMetadata Ingested metrics will update metadata backends.
      * @param updateSuggestions Ingested metrics will update suggest backends.
-     * @param maxConcurrentWrites Limit the number of concurrent writes, 0 means no limit at all
+     * @param admission Admission control for writes.
+     * @param batcher Coalesce writes to the same series, if present.
      */
     @Inject
     public IngestionManagerImpl(
@@ -73,7 +76,8 @@ public class IngestionManagerImpl implements IngestionManager {
         @Named("updateMetrics") final boolean updateMetrics,
         @Named("updateMetadata") final boolean updateMetadata,
         @Named("updateSuggestions") final boolean updateSuggestions,
-        @Named("maxConcurrentWrites") final int maxConcurrentWrites, final Filter filter
+        final WriteAdmission admission, final Filter filter,
+        final Optional<IngestionBatcher> batcher
     ) {
         this.async = async;
         this.metadata = metadata;
@@ -86,7 +90,21 @@ public class IngestionManagerImpl implements IngestionManager {
         this.updateSuggestions = updateSuggestions;
         this.filter = filter;
 
-        this.writePermits = new Semaphore(maxConcurrentWrites);
+        this.admission = admission;
+        this.batcher = batcher;
+    }
+
+    @Override
+    public void register(final LifeCycleRegistry registry) {
+        registry.start(() -> {
+            batcher.ifPresent(IngestionBatcher::start);
+            return async.resolved();
+        });
+
+        registry.stop(() -> {
+            batcher.ifPresent(IngestionBatcher::flush);
+            return async.resolved();
+        });
     }
 
     @Override
@@ -109,7 +127,7 @@ public class IngestionManagerImpl implements IngestionManager {
     @Override
     public Statistics getStatistics() {
         return Statistics.of(INGESTED, ingested.sum(), AVAILABLE_WRITE_PERMITS,
-            writePermits.availablePermits());
+            admission.available(), PENDING_WRITES, admission.pending());
     }
 
     private <I> IngestionGroup buildGroup(
@@ -120,13 +138,15 @@ public class IngestionManagerImpl implements IngestionManager {
         return new CoreIngestionGroup(
             async,
             () -> filter,
-            writePermits,
+            admission.group(input),
             reporter,
             ingested,
 
             optionally(updateMetrics, () -> metric.apply(input)),
             optionally(updateMetadata, () -> metadata.apply(input)),
-            optionally(updateSuggestions, () -> suggest.apply(input))
+            optionally(updateSuggestions, () -> suggest.apply(input)),
+
+            batcher.map(b -> b.group(input))
         );
         // @formatter:on
     }
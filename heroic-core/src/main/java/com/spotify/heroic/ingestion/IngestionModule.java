@@ -22,19 +22,24 @@
 package com.spotify.heroic.ingestion;
 
 import com.spotify.heroic.ExtraParameters;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.common.Optionals;
 import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.filter.Filter;
 import com.spotify.heroic.filter.TrueFilter;
 import com.spotify.heroic.grammar.QueryParser;
+import com.spotify.heroic.lifecycle.LifeCycle;
+import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metadata.MetadataComponent;
 import com.spotify.heroic.metric.MetricComponent;
+import com.spotify.heroic.scheduler.Scheduler;
 import com.spotify.heroic.statistics.HeroicReporter;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
 import com.spotify.heroic.suggest.SuggestComponent;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
@@ -42,6 +47,7 @@ import lombok.RequiredArgsConstructor;
 
 import javax.inject.Named;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static com.spotify.heroic.common.Optionals.pickOptional;
 import static java.util.Optional.empty;
@@ -55,12 +61,22 @@ public class IngestionModule {
     public static final boolean DEFAULT_UPDATE_METADATA = true;
     public static final boolean DEFAULT_UPDATE_SUGGESTIONS = true;
     public static final int DEFAULT_MAX_CONCURRENT_WRITES = 50000;
+    public static final int DEFAULT_MAX_PENDING_WRITES = 50000;
+    public static final int DEFAULT_MAX_CONCURRENT_GROUP_WRITES = 0;
+    public static final boolean DEFAULT_BATCH_WRITES = false;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final Duration DEFAULT_BATCH_INTERVAL = Duration.of(10, TimeUnit.MILLISECONDS);
 
     private final boolean updateMetrics;
     private final boolean updateMetadata;
     private final boolean updateSuggestions;
     private final int maxConcurrentWrites;
     private final Optional<String> filter;
+    private final int maxPendingWrites;
+    private final int maxConcurrentGroupWrites;
+    private final boolean batchWrites;
+    private final int batchSize;
+    private final Duration batchInterval;
 
     public IngestionComponent module(
         PrimaryComponent primary, SuggestComponent suggest, MetadataComponent metadata,
@@ -85,6 +101,10 @@ public class IngestionModule {
     interface C extends IngestionComponent {
         @Override
         IngestionManagerImpl ingestionManager();
+
+        @Override
+        @Named("ingestion")
+        LifeCycle ingestionLife();
     }
 
     @Module
@@ -117,10 +137,34 @@ public class IngestionModule {
         }
 
         @Provides
-        @Named("maxConcurrentWrites")
         @IngestionScope
-        public int maxConcurrentWrites() {
-            return maxConcurrentWrites;
+        public WriteAdmission admission(
+            final AsyncFramework async, final IngestionManagerReporter reporter
+        ) {
+            return new WriteAdmission(async, reporter, maxConcurrentWrites, maxPendingWrites,
+                maxConcurrentGroupWrites);
+        }
+
+        @Provides
+        @IngestionScope
+        public Optional<IngestionBatcher> batcher(
+            final AsyncFramework async, final Scheduler scheduler
+        ) {
+            if (!batchWrites) {
+                return empty();
+            }
+
+            return of(
+                new IngestionBatcher(async, scheduler, batchSize, batchInterval.toMilliseconds()));
+        }
+
+        @Provides
+        @IngestionScope
+        @Named("ingestion")
+        public LifeCycle ingestionLife(
+            final LifeCycleManager manager, final IngestionManagerImpl ingestion
+        ) {
+            return manager.build(ingestion);
         }
 
         @Provides
@@ -147,6 +191,11 @@ public class IngestionModule {
         private Optional<Boolean> updateSuggestions = empty();
         private Optional<Integer> maxConcurrentWrites = empty();
         private Optional<String> filter = empty();
+        private Optional<Integer> maxPendingWrites = empty();
+        private Optional<Integer> maxConcurrentGroupWrites = empty();
+        private Optional<Boolean> batchWrites = empty();
+        private Optional<Integer> batchSize = empty();
+        private Optional<Duration> batchInterval = empty();
 
         public Builder updateAll() {
             this.updateMetrics = of(true);
@@ -175,6 +224,46 @@ public class IngestionModule {
             return this;
         }
 
+        /**
+         * Number of writes that may wait for a permit before new writes are rejected.
+         */
+        public Builder maxPendingWrites(int maxPendingWrites) {
+            this.maxPendingWrites = of(maxPendingWrites);
+            return this;
+        }
+
+        /**
+         * Number of concurrent writes permitted for each ingestion group, 0 means no limit.
+         */
+        public Builder maxConcurrentGroupWrites(int maxConcurrentGroupWrites) {
+            this.maxConcurrentGroupWrites = of(maxConcurrentGroupWrites);
+            return this;
+        }
+
+        /**
+         * Coalesce writes to the same series into batches.
+         */
+        public Builder batchWrites(boolean batchWrites) {
+            this.batchWrites = of(batchWrites);
+            return this;
+        }
+
+        /**
+         * Number of metrics at which a batch is written.
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = of(batchSize);
+            return this;
+        }
+
+        /**
+         * Maximum time that a batch waits for more writes.
+         */
+        public Builder batchInterval(Duration batchInterval) {
+            this.batchInterval = of(batchInterval);
+            return this;
+        }
+
         public Builder merge(final Builder o) {
             // @formatter:off
             return new Builder(
@@ -182,19 +271,35 @@ public class IngestionModule {
                 pickOptional(updateMetadata, o.updateMetadata),
                 pickOptional(updateSuggestions, o.updateSuggestions),
                 pickOptional(maxConcurrentWrites, o.maxConcurrentWrites),
-                pickOptional(filter, o.filter)
+                pickOptional(filter, o.filter),
+                pickOptional(maxPendingWrites, o.maxPendingWrites),
+                pickOptional(maxConcurrentGroupWrites, o.maxConcurrentGroupWrites),
+                pickOptional(batchWrites, o.batchWrites),
+                pickOptional(batchSize, o.batchSize),
+                pickOptional(batchInterval, o.batchInterval)
             );
             // @formatter:on
         }
 
         public IngestionModule build() {
+            final int batchSize = this.batchSize.orElse(DEFAULT_BATCH_SIZE);
+
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+
             // @formatter:off
             return new IngestionModule(
                 updateMetrics.orElse(DEFAULT_UPDATE_METRICS),
                 updateMetadata.orElse(DEFAULT_UPDATE_METADATA),
                 updateSuggestions.orElse(DEFAULT_UPDATE_SUGGESTIONS),
                 maxConcurrentWrites.orElse(DEFAULT_MAX_CONCURRENT_WRITES),
-                filter
+                filter,
+                maxPendingWrites.orElse(DEFAULT_MAX_PENDING_WRITES),
+                maxConcurrentGroupWrites.orElse(DEFAULT_MAX_CONCURRENT_GROUP_WRITES),
+                batchWrites.orElse(DEFAULT_BATCH_WRITES),
+                batchSize,
+                batchInterval.orElse(DEFAULT_BATCH_INTERVAL)
             );
             // @formatter:on
         }
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.ingestion;
+
+import com.spotify.heroic.statistics.IngestionManagerReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous admission control for writes.
+ * <p>
+ * Instead of parking the calling thread while waiting for a permit, acquiring returns a future
+ * that is resolved once a permit is available. Permits are handed to waiters in the order they
+ * arrived. If too many writes are already waiting, new writes are rejected immediately with a
+ * {@link RejectedExecutionException} so that overload is shed instead of queued without bounds.
+ * <p>
+ * Every write needs a permit from the global limit, and from the limit of its group if one is
+ * configured.
+ */
+public class WriteAdmission {
+    private final AsyncFramework async;
+    private final IngestionManagerReporter reporter;
+    private final int maxPendingWrites;
+    private final int maxConcurrentGroupWrites;
+
+    private final Permits global;
+    private final Optional<Limiter> globalLimiter;
+    private final ConcurrentMap<Object, Permits> groups = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * @param maxConcurrentWrites Limit the number of concurrent writes, 0 means no limit at all.
+     * @param maxPendingWrites Limit the number of writes waiting for a permit, 0 means that writes
+     * are rejected as soon as no permit is available.
+     * @param maxConcurrentGroupWrites Limit the number of concurrent writes per group, 0 means no
+     * limit at all.
+     */
+    public WriteAdmission(
+        final AsyncFramework async, final IngestionManagerReporter reporter,
+        final int maxConcurrentWrites, final int maxPendingWrites,
+        final int maxConcurrentGroupWrites
+    ) {
+        this.async = async;
+        this.reporter = reporter;
+        this.maxPendingWrites = maxPendingWrites;
+        this.maxConcurrentGroupWrites = maxConcurrentGroupWrites;
+
+        if (maxConcurrentWrites > 0) {
+            final Limiter limiter = new Limiter(maxConcurrentWrites);
+            this.globalLimiter = Optional.of(limiter);
+            this.global = limiter;
+        } else {
+            this.globalLimiter = Optional.empty();
+            this.global = new Unlimited();
+        }
+    }
+
+    /**
+     * Get the permits used for writes to the given group.
+     */
+    public Permits group(final Object group) {
+        if (maxConcurrentGroupWrites <= 0) {
+            return global;
+        }
+
+        return groups.computeIfAbsent(group,
+            g -> new Chained(new Limiter(maxConcurrentGroupWrites), global));
+    }
+
+    /**
+     * Number of globally available permits.
+     */
+    public int available() {
+        return globalLimiter.map(Limiter::available).orElse(0);
+    }
+
+    /**
+     * Number of writes waiting for a permit.
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    public interface Permits {
+        /**
+         * Acquire a permit.
+         *
+         * @return A future that is resolved when a permit has been acquired, or failed if the
+         * write was rejected.
+         */
+        AsyncFuture<Void> acquire();
+
+        /**
+         * Release a permit which has previously been acquired.
+         */
+        void release();
+    }
+
+    /**
+     * A limited number of permits, with a queue of writes waiting for one.
+     * <p>
+     * Handing a permit to a waiter runs its continuation, which might complete synchronously and
+     * release the permit again on the same thread. To not recurse through the whole queue,
+     * released permits are counted, and only one thread at a time hands them out in a loop.
+     * Releases which happen while that is going on are picked up by the loop.
+     */
+    private class Limiter implements Permits {
+        /* insertion ordered, so that waiters are served in the order they arrived */
+        private final LinkedHashSet<Waiter> waiters = new LinkedHashSet<>();
+        private int available;
+        private int released = 0;
+        private boolean releasing = false;
+
+        Limiter(final int permits) {
+            this.available = permits;
+        }
+
+        @Override
+        public AsyncFuture<Void> acquire() {
+            final ResolvableFuture<Void> future;
+            final Waiter waiter;
+
+            synchronized (this) {
+                if (available > 0 && waiters.isEmpty()) {
+                    available--;
+                    return async.resolved();
+                }
+
+                if (waiters.size() >= maxPendingWrites) {
+                    reporter.reportWriteRejected();
+                    return async.failed(new RejectedExecutionException(
+                        "Too many pending writes (" + waiters.size() + ")"));
+                }
+
+                future = async.future();
+                waiter = new Waiter(future, System.currentTimeMillis());
+                waiters.add(waiter);
+            }
+
+            pending.incrementAndGet();
+            reporter.incrementPendingWrites();
+            future.onCancelled(() -> cancel(waiter));
+            return future;
+        }
+
+        @Override
+        public void release() {
+            synchronized (this) {
+                released++;
+
+                if (releasing) {
+                    return;
+                }
+
+                releasing = true;
+            }
+
+            while (true) {
+                final Waiter waiter;
+
+                synchronized (this) {
+                    if (released == 0) {
+                        releasing = false;
+                        return;
+                    }
+
+                    released--;
+                    waiter = poll();
+
+                    if (waiter == null) {
+                        available++;
+                        continue;
+                    }
+                }
+
+                pending.decrementAndGet();
+                reporter.decrementPendingWrites();
+
+                /* the permit is handed over directly, unless the waiter has just given up */
+                if (waiter.future.resolve(null)) {
+                    reporter.reportWriteWait(System.currentTimeMillis() - waiter.queued);
+                } else {
+                    synchronized (this) {
+                        released++;
+                    }
+                }
+            }
+        }
+
+        synchronized int available() {
+            return available;
+        }
+
+        private Waiter poll() {
+            final Iterator<Waiter> it = waiters.iterator();
+
+            if (!it.hasNext()) {
+                return null;
+            }
+
+            final Waiter waiter = it.next();
+            it.remove();
+            return waiter;
+        }
+
+        private void cancel(final Waiter waiter) {
+            synchronized (this) {
+                if (!waiters.remove(waiter)) {
+                    return;
+                }
+            }
+
+            pending.decrementAndGet();
+            reporter.decrementPendingWrites();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Chained implements Permits {
+        private final Permits first;
+        private final Permits second;
+
+        @Override
+        public AsyncFuture<Void> acquire() {
+            return first.acquire().lazyTransform(v -> second.acquire().onFailed(e -> {
+                first.release();
+            }).onCancelled(first::release));
+        }
+
+        @Override
+        public void release() {
+            second.release();
+            first.release();
+        }
+    }
+
+    private class Unlimited implements Permits {
+        @Override
+        public AsyncFuture<Void> acquire() {
+            return async.resolved();
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Waiter {
+        private final ResolvableFuture<Void> future;
+        private final long queued;
+    }
+}
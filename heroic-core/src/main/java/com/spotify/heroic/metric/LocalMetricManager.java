@@ -30,6 +30,7 @@ import com.spotify.heroic.aggregation.AggregationOutput;
 import com.spotify.heroic.aggregation.AggregationResult;
 import com.spotify.heroic.aggregation.AggregationSession;
 import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.async.AsyncObserver;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.GroupSet;
 import com.spotify.heroic.common.Groups;
@@ -39,12 +40,15 @@ import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.filter.Filter;
 import com.spotify.heroic.metadata.FindSeries;
+import com.spotify.heroic.metadata.FindSeriesStream;
 import com.spotify.heroic.metadata.MetadataBackend;
 import com.spotify.heroic.metadata.MetadataManager;
 import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
 import eu.toolchain.async.LazyTransform;
+import eu.toolchain.async.ResolvableFuture;
 import eu.toolchain.async.StreamCollector;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
@@ -54,14 +58,21 @@ import org.apache.commons.lang3.tuple.Pair;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 @Slf4j
 @ToString(of = {})
@@ -77,6 +88,8 @@ public class LocalMetricManager implements MetricManager {
     private final OptionalLimit aggregationLimit;
     private final OptionalLimit dataLimit;
     private final int fetchParallelism;
+    private final boolean partialAggregation;
+    private final boolean pipelinedQuery;
 
     private final AsyncFramework async;
     private final GroupSet<MetricBackend> groupSet;
@@ -90,6 +103,10 @@ public class LocalMetricManager implements MetricManager {
      * may produce.
      * @param dataLimit The maximum number of samples a single query is allowed to fetch.
      * @param fetchParallelism How many fetches that are allowed to be performed in parallel.
+     * @param partialAggregation Feed fetched data into private partial sessions that are merged
+     * when the query completes, instead of into a single shared session.
+     * @param pipelinedQuery Schedule fetches as pages of series arrive from the metadata stream,
+     * instead of waiting for all matching series to be found.
      */
     @Inject
     public LocalMetricManager(
@@ -97,7 +114,9 @@ public class LocalMetricManager implements MetricManager {
         @Named("seriesLimit") final OptionalLimit seriesLimit,
         @Named("aggregationLimit") final OptionalLimit aggregationLimit,
         @Named("dataLimit") final OptionalLimit dataLimit,
-        @Named("fetchParallelism") final int fetchParallelism, final AsyncFramework async,
+        @Named("fetchParallelism") final int fetchParallelism,
+        @Named("partialAggregation") final boolean partialAggregation,
+        @Named("pipelinedQuery") final boolean pipelinedQuery, final AsyncFramework async,
         final GroupSet<MetricBackend> groupSet, final MetadataManager metadata,
         final MetricBackendReporter reporter
     ) {
@@ -106,6 +125,8 @@ public class LocalMetricManager implements MetricManager {
         this.aggregationLimit = aggregationLimit;
         this.dataLimit = dataLimit;
         this.fetchParallelism = fetchParallelism;
+        this.partialAggregation = partialAggregation;
+        this.pipelinedQuery = pipelinedQuery;
         this.async = async;
         this.groupSet = groupSet;
         this.metadata = metadata;
@@ -148,31 +169,48 @@ public class LocalMetricManager implements MetricManager {
             final QueryTrace.NamedWatch w = QueryTrace.watch(QUERY);
 
             final Filter filter = request.getFilter();
-            final MetricType source = request.getSource();
             final QueryOptions options = request.getOptions();
-            final AggregationInstance aggregation = request.getAggregation();
             final DateRange range = request.getRange();
 
             final FetchQuotaWatcher watcher =
                 options.getDataLimit().orElse(dataLimit).asLong().<FetchQuotaWatcher>map(
                     LimitedFetchQuotaWatcher::new).orElse(FetchQuotaWatcher.NO_QUOTA);
 
+            final OptionalLimit limit = options.getSeriesLimit().orElse(seriesLimit);
+
+            if (pipelinedQuery) {
+                final ResolvableFuture<FullQuery> future = async.future();
+
+                /* completed when the metadata stream ends, or when the query stops early */
+                final ResolvableFuture<Void> found = async.future();
+                found.onDone(reporter.reportFindSeries());
+                future.onFinished(found::cancel);
+
+                /* ask for one more series than allowed, to detect if the limit was reached */
+                metadata
+                    .findSeriesStream(new FindSeries.Request(filter, range, limit.add(1)))
+                    .observe(new PipelinedQuery(future, found, w, request, watcher, limit));
+
+                return future.onDone(reporter.reportQueryMetrics());
+            }
+
             final LazyTransform<FindSeries, FullQuery> transform = (final FindSeries result) -> {
                 /* if empty, there are not time series on this shard */
                 if (result.isEmpty()) {
                     return async.resolved(FullQuery.empty(w.end()));
                 }
 
-                final long estimate = aggregation.estimate(range);
+                final Optional<QueryError> error = checkAggregationLimit(request);
 
-                if (estimate >= 0 && aggregationLimit.isGreater(estimate)) {
-                    return async.resolved(FullQuery.error(w.end(), QueryError.fromMessage(
-                        String.format(
-                            "aggregation is estimated more points [%d/%d] than what is allowed",
-                            estimate, aggregationLimit.asLong().get()))));
+                if (error.isPresent()) {
+                    return async.resolved(FullQuery.error(w.end(), error.get()));
                 }
 
-                final AggregationSession session = aggregation.session(range);
+                final ResultCollector collector = newCollector(w, request, watcher);
+
+                if (result.isLimited()) {
+                    collector.seriesLimited.set(true);
+                }
 
                 final List<Callable<AsyncFuture<Pair<Series, FetchData>>>> fetches =
                     new ArrayList<>();
@@ -180,58 +218,13 @@ public class LocalMetricManager implements MetricManager {
                 /* setup fetches */
                 accept(b -> {
                     for (final Series s : result.getSeries()) {
-                        fetches.add(() -> b
-                            .fetch(new FetchData.Request(source, s, range, options), watcher)
-                            .directTransform(d -> Pair.of(s, d)));
+                        fetches.add(fetch(b, s, request, watcher, g -> collector.accept(s, g)));
                     }
                 });
 
-                final ResultLimits limits;
-
-                if (result.isLimited()) {
-                    limits = ResultLimits.of(ResultLimit.SERIES);
-                } else {
-                    limits = ResultLimits.of();
-                }
-
-                /* setup collector */
-
-                final ResultCollector collector;
-
-                if (options.isTracing()) {
-                    // tracing enabled, keeps track of each individual FetchData trace.
-                    collector = new ResultCollector(watcher, aggregation, session, limits,
-                        options.getGroupLimit().orElse(groupLimit)) {
-                        final ConcurrentLinkedQueue<QueryTrace> traces =
-                            new ConcurrentLinkedQueue<>();
-
-                        @Override
-                        public void resolved(Pair<Series, FetchData> result) throws Exception {
-                            traces.add(result.getRight().getTrace());
-                            super.resolved(result);
-                        }
-
-                        @Override
-                        public QueryTrace buildTrace() {
-                            return w.end(ImmutableList.copyOf(traces));
-                        }
-                    };
-                } else {
-                    // very limited tracing, does not collected each individual FetchData trace.
-                    collector = new ResultCollector(watcher, aggregation, session, limits,
-                        options.getGroupLimit().orElse(groupLimit)) {
-                        @Override
-                        public QueryTrace buildTrace() {
-                            return w.end();
-                        }
-                    };
-                }
-
                 return async.eventuallyCollect(fetches, collector, fetchParallelism);
             };
 
-            final OptionalLimit limit = options.getSeriesLimit().orElse(seriesLimit);
-
             return metadata
                 .findSeries(new FindSeries.Request(filter, range, limit))
                 .onDone(reporter.reportFindSeries())
@@ -258,6 +251,16 @@ public class LocalMetricManager implements MetricManager {
             return async.collect(callbacks, FetchData.collect(FETCH));
         }
 
+        @Override
+        public AsyncFuture<FetchData> fetch(
+            final FetchData.Request request, final FetchQuotaWatcher watcher,
+            final Consumer<MetricCollection> consumer
+        ) {
+            final List<AsyncFuture<FetchData>> callbacks =
+                map(b -> b.fetch(request, watcher, consumer));
+            return async.collect(callbacks, FetchData.collect(FETCH));
+        }
+
         @Override
         public AsyncFuture<FetchData> fetch(final FetchData.Request request) {
             return fetch(request, FetchQuotaWatcher.NO_QUOTA);
@@ -348,6 +351,80 @@ public class LocalMetricManager implements MetricManager {
             return AsyncObservable.chain(map(b -> b.streamRow(key)));
         }
 
+        private Optional<QueryError> checkAggregationLimit(final FullQuery.Request request) {
+            final long estimate = request.getAggregation().estimate(request.getRange());
+
+            if (estimate >= 0 && aggregationLimit.isGreater(estimate)) {
+                return Optional.of(QueryError.fromMessage(String.format(
+                    "aggregation is estimated more points [%d/%d] than what is allowed", estimate,
+                    aggregationLimit.asLong().get())));
+            }
+
+            return Optional.empty();
+        }
+
+        private ResultCollector newCollector(
+            final QueryTrace.NamedWatch w, final FullQuery.Request request,
+            final FetchQuotaWatcher watcher
+        ) {
+            final QueryOptions options = request.getOptions();
+            final AggregationInstance aggregation = request.getAggregation();
+            final DateRange range = request.getRange();
+
+            final Sessions sessions;
+
+            if (partialAggregation && aggregation.mergeable()) {
+                sessions = new PartialSessions(() -> aggregation.partialSession(range));
+            } else {
+                sessions = new SharedSession(aggregation.session(range));
+            }
+
+            final OptionalLimit groupLimit = options.getGroupLimit().orElse(
+                LocalMetricManager.this.groupLimit);
+
+            if (options.isTracing()) {
+                // tracing enabled, keeps track of each individual FetchData trace.
+                return new ResultCollector(watcher, aggregation, sessions, groupLimit) {
+                    final ConcurrentLinkedQueue<QueryTrace> traces = new ConcurrentLinkedQueue<>();
+
+                    @Override
+                    public void resolved(Pair<Series, FetchData> result) throws Exception {
+                        traces.add(result.getRight().getTrace());
+                        super.resolved(result);
+                    }
+
+                    @Override
+                    public QueryTrace buildTrace() {
+                        return w.end(ImmutableList.copyOf(traces));
+                    }
+                };
+            }
+
+            // very limited tracing, does not collected each individual FetchData trace.
+            return new ResultCollector(watcher, aggregation, sessions, groupLimit) {
+                @Override
+                public QueryTrace buildTrace() {
+                    return w.end();
+                }
+            };
+        }
+
+        /**
+         * Setup a fetch for the given series, which streams fetched data into the aggregation
+         * through the given consumer.
+         */
+        private Callable<AsyncFuture<Pair<Series, FetchData>>> fetch(
+            final MetricBackend backend, final Series series, final FullQuery.Request request,
+            final FetchQuotaWatcher watcher, final Consumer<MetricCollection> consumer
+        ) {
+            final FetchData.Request fetch = new FetchData.Request(request.getSource(), series,
+                request.getRange(), request.getOptions());
+
+            return () -> backend
+                .fetch(fetch, watcher, consumer)
+                .directTransform(d -> Pair.of(series, d));
+        }
+
         private void accept(final Consumer<MetricBackend> op) {
             backends.stream().forEach(op::accept);
         }
@@ -355,6 +432,258 @@ public class LocalMetricManager implements MetricManager {
         private <T> List<T> map(final Function<MetricBackend, T> op) {
             return ImmutableList.copyOf(backends.stream().map(op).iterator());
         }
+
+        /**
+         * Schedules fetches as soon as each page of series arrives from the metadata stream,
+         * instead of waiting for every matching series to be known.
+         * <p>
+         * The {@code fetchParallelism} window is applied across the whole stream. Fetches which
+         * do not fit in the window are queued, and the next page is not requested until the queue
+         * has drained below the size of the window.
+         */
+        private class PipelinedQuery implements AsyncObserver<FindSeriesStream> {
+            private final Object lock = new Object();
+            private final Deque<Callable<AsyncFuture<Pair<Series, FetchData>>>> pending =
+                new ArrayDeque<>();
+            private final Set<Series> seen = new HashSet<>();
+
+            private final AtomicInteger resolvedCount = new AtomicInteger();
+            private final AtomicInteger failedCount = new AtomicInteger();
+            private final AtomicInteger cancelledCount = new AtomicInteger();
+
+            private final ResolvableFuture<FullQuery> future;
+            private final ResolvableFuture<Void> found;
+            private final QueryTrace.NamedWatch w;
+            private final FullQuery.Request request;
+            private final FetchQuotaWatcher watcher;
+            private final OptionalLimit limit;
+
+            /* created when the first series arrives */
+            private volatile ResultCollector collector;
+
+            /* guarded by lock */
+            private ResolvableFuture<Void> backPressure;
+            private int active = 0;
+            private boolean scheduling = false;
+            private boolean limited = false;
+            private boolean ended = false;
+            private boolean done = false;
+
+            public PipelinedQuery(
+                final ResolvableFuture<FullQuery> future, final ResolvableFuture<Void> found,
+                final QueryTrace.NamedWatch w, final FullQuery.Request request,
+                final FetchQuotaWatcher watcher, final OptionalLimit limit
+            ) {
+                this.future = future;
+                this.found = found;
+                this.w = w;
+                this.request = request;
+                this.watcher = watcher;
+                this.limit = limit;
+            }
+
+            @Override
+            public AsyncFuture<Void> observe(final FindSeriesStream value) {
+                synchronized (lock) {
+                    if (future.isDone()) {
+                        return async.cancelled();
+                    }
+
+                    for (final Series s : value.getSeries()) {
+                        if (seen.contains(s)) {
+                            continue;
+                        }
+
+                        if (limit.isGreaterOrEqual(seen.size())) {
+                            limited = true;
+                            break;
+                        }
+
+                        seen.add(s);
+                        /* collector is created below, before any fetch is started */
+                        accept(b -> pending.add(
+                            fetch(b, s, request, watcher, g -> collector.accept(s, g))));
+                    }
+
+                    if (collector == null && !seen.isEmpty()) {
+                        final Optional<QueryError> error = checkAggregationLimit(request);
+
+                        if (error.isPresent()) {
+                            future.resolve(FullQuery.error(w.end(), error.get()));
+                            return async.cancelled();
+                        }
+
+                        try {
+                            collector = newCollector(w, request, watcher);
+                        } catch (final Exception e) {
+                            future.fail(e);
+                            return async.cancelled();
+                        }
+                    }
+                }
+
+                schedule();
+
+                synchronized (lock) {
+                    if (future.isDone()) {
+                        return async.cancelled();
+                    }
+
+                    if (pending.size() < fetchParallelism) {
+                        return async.resolved();
+                    }
+
+                    backPressure = async.future();
+                    return backPressure;
+                }
+            }
+
+            @Override
+            public void cancel() {
+                found.cancel();
+                future.cancel();
+            }
+
+            @Override
+            public void fail(final Throwable cause) {
+                found.fail(cause);
+                future.fail(cause);
+            }
+
+            @Override
+            public void end() {
+                found.resolve(null);
+
+                synchronized (lock) {
+                    ended = true;
+                }
+
+                checkDone();
+            }
+
+            /**
+             * Start pending fetches until the window is full.
+             * <p>
+             * Only one thread schedules at a time, fetches that complete while another thread is
+             * scheduling leave it to that thread to fill the slot they freed up. This keeps
+             * fetches that complete immediately from recursing.
+             */
+            private void schedule() {
+                synchronized (lock) {
+                    if (scheduling) {
+                        return;
+                    }
+
+                    scheduling = true;
+                }
+
+                while (true) {
+                    final Callable<AsyncFuture<Pair<Series, FetchData>>> next;
+
+                    synchronized (lock) {
+                        if (future.isDone() || active >= fetchParallelism || pending.isEmpty()) {
+                            scheduling = false;
+                            break;
+                        }
+
+                        next = pending.poll();
+                        active += 1;
+                    }
+
+                    AsyncFuture<Pair<Series, FetchData>> fetch;
+
+                    try {
+                        fetch = next.call();
+                    } catch (final Exception e) {
+                        fetch = async.failed(e);
+                    }
+
+                    fetch.onDone(new FutureDone<Pair<Series, FetchData>>() {
+                        @Override
+                        public void failed(final Throwable cause) throws Exception {
+                            failedCount.incrementAndGet();
+                            collector.failed(cause);
+                            fetchDone();
+                        }
+
+                        @Override
+                        public void resolved(final Pair<Series, FetchData> result)
+                            throws Exception {
+                            try {
+                                collector.resolved(result);
+                                resolvedCount.incrementAndGet();
+                            } catch (final Exception e) {
+                                failedCount.incrementAndGet();
+                                collector.failed(e);
+                            }
+
+                            fetchDone();
+                        }
+
+                        @Override
+                        public void cancelled() throws Exception {
+                            cancelledCount.incrementAndGet();
+                            collector.cancelled();
+                            fetchDone();
+                        }
+                    });
+                }
+            }
+
+            private void fetchDone() {
+                final ResolvableFuture<Void> release;
+
+                synchronized (lock) {
+                    active -= 1;
+
+                    if (backPressure != null &&
+                        (future.isDone() || pending.size() < fetchParallelism)) {
+                        release = backPressure;
+                        backPressure = null;
+                    } else {
+                        release = null;
+                    }
+                }
+
+                schedule();
+
+                if (release != null) {
+                    release.resolve(null);
+                }
+
+                checkDone();
+            }
+
+            private void checkDone() {
+                synchronized (lock) {
+                    if (done || !ended || active > 0 || !pending.isEmpty()) {
+                        return;
+                    }
+
+                    done = true;
+                }
+
+                if (collector == null) {
+                    /* no time series on this shard */
+                    future.resolve(FullQuery.empty(w.end()));
+                    return;
+                }
+
+                if (limited) {
+                    collector.seriesLimited.set(true);
+                }
+
+                final int resolved = resolvedCount.get();
+                final int failed = failedCount.get();
+                final int cancelled = cancelledCount.get();
+
+                try {
+                    future.resolve(collector.end(resolved, failed, cancelled));
+                } catch (final Exception e) {
+                    future.fail(e);
+                }
+            }
+        }
     }
 
     @RequiredArgsConstructor
@@ -362,20 +691,33 @@ public class LocalMetricManager implements MetricManager {
         implements StreamCollector<Pair<Series, FetchData>, FullQuery> {
         final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
         final AtomicBoolean quotaViolated = new AtomicBoolean();
+        final AtomicBoolean seriesLimited = new AtomicBoolean();
 
         final FetchQuotaWatcher watcher;
         final AggregationInstance aggregation;
-        final AggregationSession session;
-        final ResultLimits limits;
+        final Sessions sessions;
         final OptionalLimit groupLimit;
 
         @Override
         public void resolved(final Pair<Series, FetchData> result) throws Exception {
-            final FetchData f = result.getRight();
+            for (final MetricCollection g : result.getRight().getGroups()) {
+                accept(result.getLeft(), g);
+            }
+        }
 
-            for (final MetricCollection g : f.getGroups()) {
-                g.updateAggregation(session, result.getLeft().getTags(),
-                    ImmutableSet.of(result.getLeft()));
+        /**
+         * Update the aggregation with data fetched for the given series.
+         * <p>
+         * This is called both for data streamed by backends while fetching, and for the groups of
+         * completed fetches.
+         */
+        public void accept(final Series series, final MetricCollection g) {
+            final AggregationSession session = sessions.acquire();
+
+            try {
+                g.updateAggregation(session, series.getTags(), ImmutableSet.of(series));
+            } finally {
+                sessions.release(session);
             }
         }
 
@@ -398,6 +740,14 @@ public class LocalMetricManager implements MetricManager {
         public FullQuery end(int resolved, int failed, int cancelled) throws Exception {
             final QueryTrace trace = buildTrace();
 
+            final ResultLimits limits;
+
+            if (seriesLimited.get()) {
+                limits = ResultLimits.of(ResultLimit.SERIES);
+            } else {
+                limits = ResultLimits.of();
+            }
+
             if (quotaViolated.get()) {
                 final List<RequestError> errors = checkIssues(failed, cancelled)
                     .map(QueryError::fromMessage)
@@ -416,16 +766,16 @@ public class LocalMetricManager implements MetricManager {
                 throw e;
             });
 
-            final AggregationResult result = session.result();
+            final AggregationResult result = sessions.complete().result();
 
             final List<ResultGroup> groups = new ArrayList<>();
 
-            final ImmutableSet.Builder<ResultLimit> limits =
-                ImmutableSet.<ResultLimit>builder().addAll(this.limits.getLimits());
+            final ImmutableSet.Builder<ResultLimit> resultLimits =
+                ImmutableSet.<ResultLimit>builder().addAll(limits.getLimits());
 
             for (final AggregationOutput group : result.getResult()) {
                 if (groupLimit.isGreaterOrEqual(groups.size())) {
-                    limits.add(ResultLimit.GROUP);
+                    resultLimits.add(ResultLimit.GROUP);
                     break;
                 }
 
@@ -434,7 +784,7 @@ public class LocalMetricManager implements MetricManager {
             }
 
             return new FullQuery(trace, ImmutableList.of(), groups, result.getStatistics(),
-                new ResultLimits(limits.build()));
+                new ResultLimits(resultLimits.build()));
         }
 
         private Optional<String> checkIssues(final int failed, final int cancelled) {
@@ -447,4 +797,103 @@ public class LocalMetricManager implements MetricManager {
             return Optional.empty();
         }
     }
+
+    /**
+     * Decides which aggregation session fetched data is fed into.
+     */
+    private interface Sessions {
+        /**
+         * Acquire a session to update.
+         */
+        AggregationSession acquire();
+
+        /**
+         * Release a session previously acquired through {@link #acquire()}.
+         */
+        void release(AggregationSession session);
+
+        /**
+         * Get the session containing all updates, once no more sessions will be acquired.
+         */
+        AggregationSession complete();
+    }
+
+    /**
+     * All updates go to a single session, which is shared by all threads.
+     */
+    @RequiredArgsConstructor
+    private static class SharedSession implements Sessions {
+        private final AggregationSession session;
+
+        @Override
+        public AggregationSession acquire() {
+            return session;
+        }
+
+        @Override
+        public void release(final AggregationSession session) {
+        }
+
+        @Override
+        public AggregationSession complete() {
+            return session;
+        }
+    }
+
+    /**
+     * Each session is only used by one thread at a time, which removes contention between threads
+     * updating the same buckets. Sessions are built with {@link
+     * AggregationInstance#partialSession(DateRange)}, so they may use plain, non-atomic buckets.
+     * <p>
+     * Sessions are pooled, so at most one session per concurrently resolving fetch is created. All
+     * sessions are merged into one on completion.
+     */
+    private static class PartialSessions implements Sessions {
+        private final ConcurrentLinkedQueue<AggregationSession> idle =
+            new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<AggregationSession> all = new ConcurrentLinkedQueue<>();
+
+        private final Supplier<AggregationSession> supplier;
+
+        public PartialSessions(final Supplier<AggregationSession> supplier) {
+            this.supplier = supplier;
+
+            /* build the first session eagerly, so that errors are raised before fetching */
+            release(newSession());
+        }
+
+        @Override
+        public AggregationSession acquire() {
+            final AggregationSession session = idle.poll();
+
+            if (session != null) {
+                return session;
+            }
+
+            return newSession();
+        }
+
+        @Override
+        public void release(final AggregationSession session) {
+            idle.add(session);
+        }
+
+        @Override
+        public AggregationSession complete() {
+            final Iterator<AggregationSession> it = all.iterator();
+            final AggregationSession result = it.next();
+
+            while (it.hasNext()) {
+                result.merge(it.next());
+            }
+
+            return result;
+        }
+
+        private AggregationSession newSession() {
+            final AggregationSession session = supplier.get();
+            all.add(session);
+            return session;
+        }
+    }
 }
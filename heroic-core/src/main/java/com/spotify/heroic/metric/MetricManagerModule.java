@@ -56,6 +56,8 @@ import static java.util.Optional.of;
 @Data
 public class MetricManagerModule {
     public static final int DEFAULT_FETCH_PARALLELISM = 100;
+    public static final boolean DEFAULT_PARTIAL_AGGREGATION = false;
+    public static final boolean DEFAULT_PIPELINED_QUERY = false;
 
     private final List<MetricModule> backends;
     private final Optional<List<String>> defaultBackends;
@@ -85,6 +87,19 @@ public class MetricManagerModule {
      */
     private final int fetchParallelism;
 
+    /**
+     * If fetched data should be aggregated into per-thread partial sessions which are merged when
+     * the query completes. Only applies to aggregations that support merging.
+     */
+    private final boolean partialAggregation;
+
+    /**
+     * If fetches should be scheduled as pages of series are streamed from the metadata backend,
+     * instead of after all matching series have been found. Requires a metadata backend that
+     * supports streaming series.
+     */
+    private final boolean pipelinedQuery;
+
     public MetricComponent module(
         final CorePrimaryComponent primary, final MetadataComponent metadata,
         final AnalyticsComponent analytics
@@ -203,6 +218,20 @@ public class MetricManagerModule {
         public int fetchParallelism() {
             return fetchParallelism;
         }
+
+        @Provides
+        @MetricScope
+        @Named("partialAggregation")
+        public boolean partialAggregation() {
+            return partialAggregation;
+        }
+
+        @Provides
+        @MetricScope
+        @Named("pipelinedQuery")
+        public boolean pipelinedQuery() {
+            return pipelinedQuery;
+        }
     }
 
     public static Builder builder() {
@@ -219,6 +248,8 @@ public class MetricManagerModule {
         private OptionalLimit aggregationLimit = OptionalLimit.empty();
         private OptionalLimit dataLimit = OptionalLimit.empty();
         private Optional<Integer> fetchParallelism = empty();
+        private Optional<Boolean> partialAggregation = empty();
+        private Optional<Boolean> pipelinedQuery = empty();
 
         public Builder backends(List<MetricModule> backends) {
             this.backends = of(backends);
@@ -255,6 +286,16 @@ public class MetricManagerModule {
             return this;
         }
 
+        public Builder partialAggregation(boolean partialAggregation) {
+            this.partialAggregation = of(partialAggregation);
+            return this;
+        }
+
+        public Builder pipelinedQuery(boolean pipelinedQuery) {
+            this.pipelinedQuery = of(pipelinedQuery);
+            return this;
+        }
+
         public Builder merge(final Builder o) {
             // @formatter:off
             return new Builder(
@@ -264,7 +305,9 @@ public class MetricManagerModule {
                 seriesLimit.orElse(o.seriesLimit),
                 aggregationLimit.orElse(o.aggregationLimit),
                 dataLimit.orElse(o.dataLimit),
-                pickOptional(fetchParallelism, o.fetchParallelism)
+                pickOptional(fetchParallelism, o.fetchParallelism),
+                pickOptional(partialAggregation, o.partialAggregation),
+                pickOptional(pipelinedQuery, o.pipelinedQuery)
             );
             // @formatter:on
         }
@@ -278,7 +321,9 @@ public class MetricManagerModule {
                 seriesLimit,
                 aggregationLimit,
                 dataLimit,
-                fetchParallelism.orElse(DEFAULT_FETCH_PARALLELISM)
+                fetchParallelism.orElse(DEFAULT_FETCH_PARALLELISM),
+                partialAggregation.orElse(DEFAULT_PARTIAL_AGGREGATION),
+                pipelinedQuery.orElse(DEFAULT_PIPELINED_QUERY)
             );
             // @formatter:on
         }
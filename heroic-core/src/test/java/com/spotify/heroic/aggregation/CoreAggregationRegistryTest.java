@@ -8,6 +8,7 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CoreAggregationRegistryTest {
@@ -39,6 +40,21 @@ public class CoreAggregationRegistryTest {
         assertEquals(dsl, registry.builderMap.get("foo"));
     }
 
+    @Test
+    public void testRegisterInstance() {
+        registry.register("foo", A.class, AI.class, dsl);
+        registry.registerInstance("bar", BI.class);
+
+        assertEquals("bar", registry.instanceMap.get(BI.class));
+        assertFalse(registry.builderMap.containsKey("bar"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterInstanceSameId() {
+        registry.register("foo", A.class, AI.class, dsl);
+        registry.registerInstance("foo", BI.class);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testRegisterSameId() {
         registry.register("foo", A.class, AI.class, dsl);
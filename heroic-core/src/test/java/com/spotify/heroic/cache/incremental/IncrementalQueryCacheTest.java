@@ -0,0 +1,182 @@
+package com.spotify.heroic.cache.incremental;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.RequestError;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.doReturn;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IncrementalQueryCacheTest {
+    private static final long CADENCE = 10L;
+    private static final Map<String, String> SHARD = ImmutableMap.of("site", "a");
+    private static final Map<String, String> KEY = ImmutableMap.of("host", "b");
+    private static final Series SERIES = Series.of("key", KEY);
+    private static final QueryTrace TRACE = QueryTrace.of(QueryTrace.identifier("test"));
+
+    @Mock
+    private AggregationInstance aggregation;
+    @Mock
+    private Filter filter;
+
+    private final List<DateRange> loaded = new ArrayList<>();
+
+    private long now;
+    private List<RequestError> errors;
+
+    private ExecutorService executor;
+    private AsyncFramework async;
+    private IncrementalQueryCache cache;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        async = TinyAsync.builder().executor(executor).build();
+
+        cache = new IncrementalQueryCache(async, Duration.of(100, TimeUnit.MILLISECONDS),
+            Duration.of(1, TimeUnit.HOURS), 100, () -> now);
+
+        errors = ImmutableList.of();
+
+        doReturn(CADENCE).when(aggregation).cadence();
+        doReturn(2 * CADENCE).when(aggregation).extent();
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testTailIsLoaded() throws Exception {
+        now = 2000L;
+        assertEquals(expected(0L, 1000L), load(0L, 1000L));
+
+        now = 2100L;
+        assertEquals(expected(100L, 1100L), load(100L, 1100L));
+
+        /* the tail starts one extent before the first bucket which was not cached */
+        assertEquals(ImmutableList.of(new DateRange(0L, 1000L), new DateRange(980L, 1100L)),
+            loaded);
+    }
+
+    @Test
+    public void testOpenBucketsAreReloaded() throws Exception {
+        now = 1000L;
+        assertEquals(expected(0L, 1000L), load(0L, 1000L));
+
+        now = 1050L;
+        assertEquals(expected(10L, 1010L), load(10L, 1010L));
+
+        /* buckets within the settle period of the first query were not cached */
+        assertEquals(ImmutableList.of(new DateRange(0L, 1000L), new DateRange(880L, 1010L)),
+            loaded);
+    }
+
+    @Test
+    public void testFullyCached() throws Exception {
+        now = 2000L;
+        load(0L, 1000L);
+
+        assertEquals(expected(100L, 900L), load(100L, 900L));
+        assertEquals(ImmutableList.of(new DateRange(0L, 1000L)), loaded);
+    }
+
+    @Test
+    public void testRangeBeforeCached() throws Exception {
+        now = 2000L;
+        load(100L, 1000L);
+        load(0L, 1000L);
+
+        assertEquals(ImmutableList.of(new DateRange(100L, 1000L), new DateRange(0L, 1000L)),
+            loaded);
+    }
+
+    @Test
+    public void testUnknownExtent() throws Exception {
+        doReturn(-1L).when(aggregation).extent();
+
+        now = 2000L;
+        load(0L, 1000L);
+        load(0L, 1000L);
+
+        assertEquals(ImmutableList.of(new DateRange(0L, 1000L), new DateRange(0L, 1000L)),
+            loaded);
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        errors = ImmutableList.of(QueryError.fromMessage("error"));
+
+        now = 2000L;
+        load(0L, 1000L);
+        load(0L, 1000L);
+
+        assertEquals(ImmutableList.of(new DateRange(0L, 1000L), new DateRange(0L, 1000L)),
+            loaded);
+    }
+
+    private List<ShardedResultGroup> load(final long start, final long end) throws Exception {
+        final FullQuery.Request request =
+            new FullQuery.Request(MetricType.POINT, filter, new DateRange(start, end),
+                aggregation, QueryOptions.defaults());
+
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader = r -> {
+            loaded.add(r.getRange());
+            return async.resolved(new QueryResult(r.getRange(),
+                expected(r.getRange().start(), r.getRange().end()), errors, TRACE,
+                ResultLimits.of()));
+        };
+
+        return cache.load(request, loader).get().getGroups();
+    }
+
+    /**
+     * Build the result of a query over the given range, where each bucket is its timestamp.
+     */
+    private List<ShardedResultGroup> expected(final long start, final long end) {
+        final List<Point> points = new ArrayList<>();
+
+        for (long t = start; t <= end; t += CADENCE) {
+            points.add(new Point(t, t));
+        }
+
+        return ImmutableList.of(
+            new ShardedResultGroup(SHARD, KEY, ImmutableSet.of(SERIES),
+                MetricCollection.points(points), CADENCE));
+    }
+}
@@ -0,0 +1,224 @@
+package com.spotify.heroic.cache.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.AggregationInstance;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metric.FullQuery;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.QueryError;
+import com.spotify.heroic.metric.QueryResult;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.RequestError;
+import com.spotify.heroic.metric.ResultLimits;
+import com.spotify.heroic.metric.ShardedResultGroup;
+import com.spotify.heroic.statistics.QueryCacheReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MemoryQueryCacheTest {
+    private static final long CADENCE = 10L;
+    private static final QueryTrace TRACE = QueryTrace.of(QueryTrace.identifier("test"));
+
+    @Mock
+    private AggregationInstance aggregation;
+    @Mock
+    private Filter filter;
+    @Mock
+    private QueryCacheReporter reporter;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private long now = 0L;
+    private ExecutorService executor;
+    private AsyncFramework async;
+    private FullQuery.Request request;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        async = TinyAsync.builder().executor(executor).build();
+
+        doReturn(CADENCE).when(aggregation).cadence();
+
+        request = new FullQuery.Request(MetricType.POINT, filter, new DateRange(0L, 100L),
+            aggregation, QueryOptions.defaults());
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        final MemoryQueryCache cache = new MemoryQueryCache(async, reporter, 1000L, () -> now);
+        final ResolvableFuture<QueryResult> pending = async.future();
+
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader = r -> {
+            loads.incrementAndGet();
+            return pending;
+        };
+
+        final AsyncFuture<QueryResult> a = cache.load(request, loader);
+        final AsyncFuture<QueryResult> b = cache.load(request, loader);
+
+        assertFalse(a.isDone());
+        assertEquals(1, loads.get());
+
+        final QueryResult result = result(10, ImmutableList.of());
+        pending.resolve(result);
+
+        assertSame(result, a.get());
+        assertSame(result, b.get());
+
+        verify(reporter).reportMiss();
+        verify(reporter).reportCoalesced();
+        verify(reporter, never()).reportHit();
+        verify(reporter).reportWeight(11L);
+    }
+
+    @Test
+    public void testCancelledCallerDoesNotCancelOthers() throws Exception {
+        final MemoryQueryCache cache = new MemoryQueryCache(async, reporter, 1000L, () -> now);
+        final ResolvableFuture<QueryResult> pending = async.future();
+
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader = r -> {
+            loads.incrementAndGet();
+            return pending;
+        };
+
+        final AsyncFuture<QueryResult> a = cache.load(request, loader);
+        final AsyncFuture<QueryResult> b = cache.load(request, loader);
+
+        a.cancel();
+        assertFalse(b.isDone());
+
+        /* later requests join the load which is still in flight */
+        final AsyncFuture<QueryResult> c = cache.load(request, loader);
+        assertFalse(c.isDone());
+        assertEquals(1, loads.get());
+
+        final QueryResult result = result(10, ImmutableList.of());
+        pending.resolve(result);
+
+        assertTrue(a.isCancelled());
+        assertSame(result, b.get());
+        assertSame(result, c.get());
+    }
+
+    @Test
+    public void testExpiresAfterCadence() throws Exception {
+        final MemoryQueryCache cache = new MemoryQueryCache(async, reporter, 1000L, () -> now);
+
+        cache.load(request, this::load).get();
+
+        now = CADENCE - 1;
+        cache.load(request, this::load).get();
+        assertEquals(1, loads.get());
+
+        /* the previous access extended the lifetime of the entry */
+        now = 2 * CADENCE - 2;
+        cache.load(request, this::load).get();
+        assertEquals(1, loads.get());
+
+        now = 4 * CADENCE;
+        cache.load(request, this::load).get();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testEvictedByWeight() throws Exception {
+        final MemoryQueryCache cache = new MemoryQueryCache(async, reporter, 10L, () -> now);
+
+        cache.load(request, this::load).get();
+        cache.load(request, this::load).get();
+
+        assertEquals(2, loads.get());
+        verify(reporter, times(2)).reportEviction();
+        verify(reporter, times(2)).reportWeight(11L);
+        verify(reporter, times(2)).reportWeight(-11L);
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        final MemoryQueryCache cache = new MemoryQueryCache(async, reporter, 1000L, () -> now);
+
+        final Function<FullQuery.Request, AsyncFuture<QueryResult>> loader = r -> {
+            loads.incrementAndGet();
+            return async.resolved(
+                result(10, ImmutableList.of(QueryError.fromMessage("error"))));
+        };
+
+        cache.load(request, loader).get();
+        cache.load(request, loader).get();
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testLoaderThrows() throws Exception {
+        final MemoryQueryCache cache = new MemoryQueryCache(async, reporter, 1000L, () -> now);
+
+        final AsyncFuture<QueryResult> failed = cache.load(request, r -> {
+            throw new IllegalStateException("broken");
+        });
+
+        assertTrue(failed.isFailed());
+
+        /* the failed load must not be left behind for later requests to wait on */
+        cache.load(request, this::load).get(1, TimeUnit.SECONDS);
+        assertEquals(1, loads.get());
+    }
+
+    private AsyncFuture<QueryResult> load(final FullQuery.Request r) {
+        loads.incrementAndGet();
+        return async.resolved(result(10, ImmutableList.of()));
+    }
+
+    private QueryResult result(final int samples, final List<RequestError> errors) {
+        final List<Point> points = new ArrayList<>();
+
+        for (int i = 0; i < samples; i++) {
+            points.add(new Point(i * CADENCE, i));
+        }
+
+        final ShardedResultGroup group =
+            new ShardedResultGroup(ImmutableMap.of(), ImmutableMap.of(), ImmutableSet.of(),
+                MetricCollection.points(points), CADENCE);
+
+        return new QueryResult(request.getRange(), ImmutableList.of(group), errors, TRACE,
+            ResultLimits.of());
+    }
+}
@@ -0,0 +1,170 @@
+package com.spotify.heroic.consumer.schemas;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.SeriesCache;
+import com.spotify.heroic.consumer.ConsumerSchemaValidationException;
+import com.spotify.heroic.ingestion.Ingestion;
+import com.spotify.heroic.ingestion.IngestionGroup;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.statistics.ConsumerReporter;
+import com.spotify.heroic.statistics.noop.NoopSeriesCacheReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class Batch100Test {
+    private static final Series A = Series.of("a", ImmutableMap.of("host", "foo", "role", "bar"));
+    private static final Series B = Series.of("b");
+
+    @Mock
+    private AsyncFramework async;
+    @Mock
+    private IngestionGroup ingestion;
+    @Mock
+    private ConsumerReporter reporter;
+    @Mock
+    private AsyncFuture<Ingestion> write;
+    @Mock
+    private AsyncFuture<Void> written;
+
+    private final SeriesCache seriesCache = new SeriesCache(NoopSeriesCacheReporter.get(), 16);
+
+    private Batch100.Consumer consumer;
+
+    @Before
+    public void setup() {
+        consumer = new Batch100.Consumer(async, ingestion, reporter, seriesCache);
+        doReturn(write).when(ingestion).write(any(Ingestion.Request.class));
+        doReturn(written).when(async).collectAndDiscard(any(List.class));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final Map<Series, PointChunk> series = ImmutableMap.of(
+            A, chunk(new long[]{1L, 2L, 3L}, new double[]{1D, 2D, 3D}),
+            B, chunk(new long[]{4L}, new double[]{Double.NaN}));
+
+        final Map<Series, PointChunk> decoded =
+            Batch100.decode(ByteBuffer.wrap(Batch100.encode(series)), seriesCache);
+
+        assertEquals(series, decoded);
+    }
+
+    @Test
+    public void testSeriesAreInterned() throws Exception {
+        final byte[] message =
+            Batch100.encode(ImmutableMap.of(A, chunk(new long[]{1L}, new double[]{1D})));
+
+        final Series first =
+            Batch100.decode(ByteBuffer.wrap(message), seriesCache).keySet().iterator().next();
+        final Series second =
+            Batch100.decode(ByteBuffer.wrap(message), seriesCache).keySet().iterator().next();
+
+        assertEquals(A, first);
+        assertSame(first, second);
+    }
+
+    @Test
+    public void testConsume() throws Exception {
+        final Map<Series, PointChunk> series = ImmutableMap.of(
+            A, chunk(new long[]{1L, 2L}, new double[]{1D, 2D}),
+            B, chunk(new long[]{3L}, new double[]{3D}));
+
+        assertSame(written, consumer.consume(Batch100.encode(series)));
+
+        final ArgumentCaptor<Ingestion.Request> requests =
+            ArgumentCaptor.forClass(Ingestion.Request.class);
+        verify(ingestion, times(2)).write(requests.capture());
+
+        final Ingestion.Request a = requests.getAllValues().get(0);
+        assertEquals(A, a.getSeries());
+        assertEquals(series.get(A), a.getData().asPointChunk());
+
+        final Ingestion.Request b = requests.getAllValues().get(1);
+        assertEquals(B, b.getSeries());
+        assertEquals(series.get(B), b.getData().asPointChunk());
+
+        verify(reporter).reportMessageDrift(anyLong());
+    }
+
+    @Test
+    public void testMergeRepeatedSeries() throws Exception {
+        final byte[] first =
+            Batch100.encode(ImmutableMap.of(A, chunk(new long[]{1L}, new double[]{1D})));
+        final byte[] second =
+            Batch100.encode(ImmutableMap.of(A, chunk(new long[]{2L}, new double[]{2D})));
+
+        /* splice the series of the second message into the first */
+        final ByteBuffer message = ByteBuffer.allocate(first.length + second.length - 5);
+        message.put(first[0]).putInt(2);
+        message.put(first, 5, first.length - 5);
+        message.put(second, 5, second.length - 5);
+
+        final Map<Series, PointChunk> decoded =
+            Batch100.decode(ByteBuffer.wrap(message.array()), seriesCache);
+
+        assertEquals(ImmutableMap.of(A, chunk(new long[]{1L, 2L}, new double[]{1D, 2D})),
+            decoded);
+    }
+
+    @Test(expected = ConsumerSchemaValidationException.class)
+    public void testInvalidVersion() throws Exception {
+        final byte[] message = Batch100.encode(ImmutableMap.of(B, PointChunk.empty()));
+        message[0] = 2;
+        consumer.consume(message);
+    }
+
+    @Test(expected = ConsumerSchemaValidationException.class)
+    public void testInvalidCount() throws Exception {
+        consumer.consume(ByteBuffer.allocate(5).put((byte) 1).putInt(1000).array());
+    }
+
+    @Test
+    public void testTruncated() throws Exception {
+        final byte[] message = Batch100.encode(
+            ImmutableMap.of(A, chunk(new long[]{1L, 2L}, new double[]{1D, 2D})));
+
+        for (int length = 0; length < message.length; length++) {
+            try {
+                consumer.consume(Arrays.copyOf(message, length));
+            } catch (final ConsumerSchemaValidationException e) {
+                continue;
+            }
+
+            throw new AssertionError("expected truncated message to be rejected: " + length);
+        }
+
+        verify(ingestion, never()).write(any(Ingestion.Request.class));
+    }
+
+    private static PointChunk chunk(final long[] timestamps, final double[] values) {
+        final PointChunk.Builder builder = PointChunk.builder(timestamps.length);
+
+        for (int i = 0; i < timestamps.length; i++) {
+            builder.add(timestamps[i], values[i]);
+        }
+
+        return builder.build();
+    }
+}
@@ -11,6 +11,7 @@ import com.spotify.heroic.suggest.SuggestBackend;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.FutureFinished;
+import eu.toolchain.async.LazyTransform;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -19,13 +20,14 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
@@ -47,7 +49,7 @@ public class CoreIngestionGroupTest {
     @Mock
     private Filter filter;
     @Mock
-    private Semaphore writePermits;
+    private WriteAdmission.Permits writePermits;
     @Mock
     private IngestionManagerReporter reporter;
     @Mock
@@ -69,6 +71,10 @@ public class CoreIngestionGroupTest {
     @Mock
     private AsyncFuture<Ingestion> other;
     @Mock
+    private AsyncFuture<Void> acquired;
+    @Mock
+    private AsyncFuture<Void> rejected;
+    @Mock
     private Series series;
     @Mock
     private DateRange range;
@@ -85,6 +91,10 @@ public class CoreIngestionGroupTest {
         doReturn(other).when(other).onFinished(any(FutureFinished.class));
 
         doReturn(range).when(rangeSupplier).get();
+
+        doAnswer(invocation -> {
+            return ((LazyTransform) invocation.getArguments()[0]).transform(null);
+        }).when(acquired).lazyTransform(any(LazyTransform.class));
     }
 
     private CoreIngestionGroup setupIngestionGroup(
@@ -94,7 +104,7 @@ public class CoreIngestionGroupTest {
         // @formatter:off
         final CoreIngestionGroup group = new CoreIngestionGroup(
             async, filterSupplier, writePermits, reporter, ingested,
-            metric, metadata, suggest
+            metric, metadata, suggest, empty()
         );
         // @formatter:on
 
@@ -123,7 +133,7 @@ public class CoreIngestionGroupTest {
         doReturn(failed).when(async).failed(any(Throwable.class));
         doReturn(resolved).when(async).resolved(any(Ingestion.class));
         doReturn(true).when(filter).apply(series);
-        doNothing().when(writePermits).acquire();
+        doReturn(acquired).when(writePermits).acquire();
         doNothing().when(writePermits).release();
         doReturn(expected).when(group).doWrite(request);
 
@@ -147,7 +157,7 @@ public class CoreIngestionGroupTest {
         doReturn(other).when(async).failed(any(Throwable.class));
         doReturn(expected).when(async).resolved(any(Ingestion.class));
         doReturn(false).when(filter).apply(series);
-        doNothing().when(writePermits).acquire();
+        doReturn(acquired).when(writePermits).acquire();
         doNothing().when(writePermits).release();
 
         doReturn(other).when(expected).onFinished(any(FutureFinished.class));
@@ -166,25 +176,23 @@ public class CoreIngestionGroupTest {
     }
 
     @Test
-    public void testSyncWriteAcquireThrows() throws Exception {
+    public void testSyncWriteRejected() throws Exception {
         final CoreIngestionGroup group = setupIngestionGroup(empty(), empty(), empty());
 
-        final InterruptedException e = new InterruptedException();
-
         doReturn(filter).when(filterSupplier).get();
-        doReturn(expected).when(async).failed(any(Throwable.class));
+        doReturn(failed).when(async).failed(any(Throwable.class));
         doReturn(resolved).when(async).resolved(any(Ingestion.class));
         doReturn(true).when(filter).apply(series);
-        doThrow(e).when(writePermits).acquire();
+        doReturn(rejected).when(writePermits).acquire();
+        doReturn(expected).when(rejected).lazyTransform(any(LazyTransform.class));
         doNothing().when(writePermits).release();
 
-        doReturn(other).when(expected).onFinished(any(FutureFinished.class));
         doReturn(other).when(group).doWrite(request);
 
         assertEquals(expected, group.syncWrite(request));
 
         verify(async, never()).resolved(any(Ingestion.class));
-        verify(async).failed(any(Throwable.class));
+        verify(async, never()).failed(any(Throwable.class));
         verify(writePermits).acquire();
         verify(writePermits, never()).release();
         verify(reporter, never()).incrementConcurrentWrites();
@@ -193,6 +201,31 @@ public class CoreIngestionGroupTest {
         verify(other, never()).onFinished(any(FutureFinished.class));
     }
 
+    @Test
+    public void testSyncWriteThrows() throws Exception {
+        final CoreIngestionGroup group = setupIngestionGroup(empty(), empty(), empty());
+
+        final IllegalArgumentException e = new IllegalArgumentException();
+
+        doReturn(filter).when(filterSupplier).get();
+        doReturn(true).when(filter).apply(series);
+        doReturn(acquired).when(writePermits).acquire();
+        doNothing().when(writePermits).release();
+        doThrow(e).when(group).doWrite(request);
+
+        try {
+            group.syncWrite(request);
+            fail("expected exception");
+        } catch (final IllegalArgumentException thrown) {
+            assertSame(e, thrown);
+        }
+
+        verify(writePermits).acquire();
+        verify(writePermits).release();
+        verify(reporter).incrementConcurrentWrites();
+        verify(reporter).decrementConcurrentWrites();
+    }
+
     @Test
     public void testDoWrite() {
         final CoreIngestionGroup group = setupIngestionGroup(of(metric), of(metadata), of(suggest));
@@ -0,0 +1,249 @@
+package com.spotify.heroic.ingestion;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.Event;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IngestionBatcherTest {
+    private static final Series A = Series.of("a");
+    private static final Series B = Series.of("b");
+
+    @Mock
+    private Scheduler scheduler;
+
+    private ExecutorService executor;
+    private AsyncFramework async;
+
+    private final List<Ingestion.Request> written = new ArrayList<>();
+    private final List<ResolvableFuture<Ingestion>> pending = new ArrayList<>();
+    private Function<Ingestion.Request, AsyncFuture<Ingestion>> writer;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        async = TinyAsync.builder().executor(executor).build();
+
+        writer = request -> {
+            final ResolvableFuture<Ingestion> future = async.future();
+            written.add(request);
+            pending.add(future);
+            return future;
+        };
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCoalesceSeries() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 100, 10L);
+
+        final AsyncFuture<Ingestion> a = batcher.write("g", points(A, 1L, 2L), writer);
+        final AsyncFuture<Ingestion> b = batcher.write("g", points(A, 3L), writer);
+        final AsyncFuture<Ingestion> c = batcher.write("g", points(B, 1L), writer);
+
+        assertTrue(written.isEmpty());
+
+        batcher.flush();
+
+        assertEquals(2, written.size());
+
+        final Ingestion.Request first = find(A);
+        assertEquals(points(A, 1L, 2L, 3L).getData(), first.getData().getData());
+        assertEquals(points(B, 1L).getData(), find(B).getData().getData());
+
+        final Ingestion result = Ingestion.of(ImmutableList.of(1L));
+        pending.forEach(f -> f.resolve(result));
+
+        assertSame(result, a.get());
+        assertSame(result, b.get());
+        assertSame(result, c.get());
+    }
+
+    @Test
+    public void testSeparateGroups() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 100, 10L);
+
+        batcher.group("g1").write(points(A, 1L), writer);
+        batcher.group("g2").write(points(A, 2L), writer);
+        batcher.flush();
+
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    public void testFlushOnSize() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 3, 10L);
+
+        batcher.write("g", points(A, 1L, 2L), writer);
+        assertTrue(written.isEmpty());
+
+        batcher.write("g", points(A, 3L), writer);
+        assertEquals(1, written.size());
+        assertEquals(3, written.get(0).getData().size());
+
+        batcher.flush();
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void testFlushOnTypeChange() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 100, 10L);
+
+        batcher.write("g", points(A, 1L), writer);
+        batcher.write("g", new Ingestion.Request(A,
+            MetricCollection.events(ImmutableList.of(new Event(2L)))), writer);
+
+        assertEquals(1, written.size());
+
+        batcher.flush();
+        assertEquals(2, written.size());
+    }
+
+    @Test
+    public void testFlushOlderThan() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 100, 10L);
+
+        batcher.write("g", points(A, 1L), writer);
+
+        batcher.flushOlderThan(System.currentTimeMillis() - 60000L);
+        assertTrue(written.isEmpty());
+
+        batcher.flushOlderThan(System.currentTimeMillis());
+        assertEquals(1, written.size());
+    }
+
+    @Test
+    public void testConcurrentWritesAndFlushes() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 10, 10L);
+        final AtomicLong points = new AtomicLong();
+        final AtomicBoolean stopped = new AtomicBoolean();
+
+        final Function<Ingestion.Request, AsyncFuture<Ingestion>> counting = request -> {
+            points.addAndGet(request.getData().size());
+            return async.resolved(Ingestion.of(ImmutableList.of()));
+        };
+
+        final Thread flusher = new Thread(() -> {
+            while (!stopped.get()) {
+                batcher.flushOlderThan(Long.MAX_VALUE);
+            }
+        });
+
+        final List<Thread> writers = new ArrayList<>();
+        final List<AsyncFuture<Ingestion>> futures = new CopyOnWriteArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 10000; i++) {
+                    final Series series = Series.of("s" + (i % 16));
+                    futures.add(batcher.write("g", points(series, i), counting));
+                }
+            }));
+        }
+
+        flusher.start();
+        writers.forEach(Thread::start);
+
+        for (final Thread writer : writers) {
+            writer.join();
+        }
+
+        stopped.set(true);
+        flusher.join();
+        batcher.flush();
+
+        /* every point is written exactly once, and every request is completed */
+        assertEquals(40000L, points.get());
+
+        for (final AsyncFuture<Ingestion> future : futures) {
+            assertTrue(future.isResolved());
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 100, 10L);
+
+        final AsyncFuture<Ingestion> a = batcher.write("g", points(A, 1L), writer);
+        final AsyncFuture<Ingestion> b = batcher.write("g", points(A, 2L), writer);
+        batcher.flush();
+
+        final RuntimeException error = new RuntimeException("failed");
+        pending.get(0).fail(error);
+
+        for (final AsyncFuture<Ingestion> future : ImmutableList.of(a, b)) {
+            assertTrue(future.isFailed());
+
+            try {
+                future.get();
+                fail("expected failure");
+            } catch (final ExecutionException e) {
+                assertSame(error, e.getCause());
+            }
+        }
+    }
+
+    @Test
+    public void testWriterThrows() throws Exception {
+        final IngestionBatcher batcher = new IngestionBatcher(async, scheduler, 100, 10L);
+
+        final AsyncFuture<Ingestion> a = batcher.write("g", points(A, 1L), request -> {
+            throw new IllegalStateException("broken");
+        });
+
+        assertFalse(a.isDone());
+        batcher.flush();
+        assertTrue(a.isFailed());
+    }
+
+    private Ingestion.Request find(final Series series) {
+        return written
+            .stream()
+            .filter(r -> r.getSeries().equals(series))
+            .findFirst()
+            .orElseThrow(IllegalStateException::new);
+    }
+
+    private static Ingestion.Request points(final Series series, final long... timestamps) {
+        final List<Point> points = new ArrayList<>();
+
+        for (final long timestamp : timestamps) {
+            points.add(new Point(timestamp, 42D));
+        }
+
+        return new Ingestion.Request(series, MetricCollection.points(points));
+    }
+}
@@ -0,0 +1,215 @@
+package com.spotify.heroic.ingestion;
+
+import com.spotify.heroic.statistics.IngestionManagerReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WriteAdmissionTest {
+    @Mock
+    private IngestionManagerReporter reporter;
+
+    private ExecutorService executor;
+    private AsyncFramework async;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        async = TinyAsync.builder().executor(executor).build();
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testAcquireRelease() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 2, 10, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        assertTrue(permits.acquire().isDone());
+        assertTrue(permits.acquire().isDone());
+        assertEquals(0, admission.available());
+
+        final AsyncFuture<Void> waiting = permits.acquire();
+        assertFalse(waiting.isDone());
+        assertEquals(1, admission.pending());
+
+        permits.release();
+        assertTrue(waiting.isResolved());
+        assertEquals(0, admission.pending());
+        assertEquals(0, admission.available());
+
+        permits.release();
+        permits.release();
+        assertEquals(2, admission.available());
+
+        verify(reporter).incrementPendingWrites();
+        verify(reporter).decrementPendingWrites();
+        verify(reporter).reportWriteWait(anyLong());
+    }
+
+    @Test
+    public void testWaitersInOrder() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 1, 10, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        permits.acquire();
+        final AsyncFuture<Void> first = permits.acquire();
+        final AsyncFuture<Void> second = permits.acquire();
+
+        permits.release();
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+
+        permits.release();
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    public void testSkipCancelledWaiter() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 1, 10, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        permits.acquire();
+        final AsyncFuture<Void> cancelled = permits.acquire();
+        final AsyncFuture<Void> waiting = permits.acquire();
+
+        cancelled.cancel();
+        permits.release();
+
+        assertTrue(waiting.isResolved());
+        assertEquals(0, admission.pending());
+    }
+
+    @Test
+    public void testCancelledWaiterIsRemoved() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 1, 1, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        permits.acquire();
+        permits.acquire().cancel();
+
+        /* no longer counted as pending, and does not take up room in the queue */
+        assertEquals(0, admission.pending());
+        assertFalse(permits.acquire().isDone());
+        verify(reporter, times(1)).decrementPendingWrites();
+    }
+
+    @Test
+    public void testSynchronousReleaseDoesNotRecurse() throws Exception {
+        final int count = 100000;
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 1, count, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        permits.acquire();
+
+        /* every waiter completes its write right away, and releases its permit */
+        for (int i = 0; i < count; i++) {
+            permits.acquire().onResolved(v -> permits.release());
+        }
+
+        permits.release();
+
+        assertEquals(0, admission.pending());
+        assertEquals(1, admission.available());
+        verify(reporter, times(count)).reportWriteWait(anyLong());
+    }
+
+    @Test
+    public void testRejectWhenPendingIsFull() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 1, 1, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        permits.acquire();
+        assertFalse(permits.acquire().isDone());
+
+        assertRejected(permits.acquire());
+        verify(reporter).reportWriteRejected();
+    }
+
+    @Test
+    public void testFastFail() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 1, 0, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        assertTrue(permits.acquire().isResolved());
+        assertRejected(permits.acquire());
+    }
+
+    @Test
+    public void testGroupLimit() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 10, 10, 1);
+        final WriteAdmission.Permits a = admission.group("a");
+        final WriteAdmission.Permits b = admission.group("b");
+
+        assertTrue(a.acquire().isResolved());
+        assertTrue(b.acquire().isResolved());
+
+        final AsyncFuture<Void> waiting = a.acquire();
+        assertFalse(waiting.isDone());
+        assertEquals(8, admission.available());
+
+        a.release();
+        assertTrue(waiting.isResolved());
+        assertEquals(8, admission.available());
+    }
+
+    @Test
+    public void testGroupReleasedWhenGlobalRejects() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 1, 0, 1);
+        final WriteAdmission.Permits a = admission.group("a");
+        final WriteAdmission.Permits b = admission.group("b");
+
+        assertTrue(a.acquire().isResolved());
+        assertRejected(b.acquire());
+
+        a.release();
+
+        /* the group permit of b must have been returned */
+        assertTrue(b.acquire().isResolved());
+        verify(reporter, times(1)).reportWriteRejected();
+    }
+
+    @Test
+    public void testUnlimited() throws Exception {
+        final WriteAdmission admission = new WriteAdmission(async, reporter, 0, 0, 0);
+        final WriteAdmission.Permits permits = admission.group("g");
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(permits.acquire().isResolved());
+        }
+    }
+
+    private void assertRejected(final AsyncFuture<Void> future) throws Exception {
+        assertTrue(future.isFailed());
+
+        try {
+            future.get();
+            fail("expected rejection");
+        } catch (final ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+}
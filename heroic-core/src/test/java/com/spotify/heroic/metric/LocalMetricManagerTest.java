@@ -0,0 +1,240 @@
+package com.spotify.heroic.metric;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.aggregation.EmptyInstance;
+import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.async.AsyncObserver;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.GroupSet;
+import com.spotify.heroic.common.OptionalLimit;
+import com.spotify.heroic.common.SelectedGroup;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.filter.Filter;
+import com.spotify.heroic.metadata.FindSeries;
+import com.spotify.heroic.metadata.FindSeriesStream;
+import com.spotify.heroic.metadata.MetadataBackend;
+import com.spotify.heroic.metadata.MetadataManager;
+import com.spotify.heroic.statistics.FutureReporter;
+import com.spotify.heroic.statistics.MetricBackendReporter;
+import com.spotify.heroic.statistics.noop.NoopMetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalMetricManagerTest {
+    private static final int FETCH_PARALLELISM = 8;
+    private static final QueryTrace TRACE = QueryTrace.of(QueryTrace.identifier("test"));
+
+    @Mock
+    private GroupSet<MetricBackend> groupSet;
+    @Mock
+    private MetadataManager metadataManager;
+    @Mock
+    private MetadataBackend metadata;
+    @Mock
+    private MetricBackend backend;
+    @Mock
+    private Filter filter;
+    @Mock
+    private MetricBackendReporter reporter;
+    @Mock
+    private FutureReporter.Context findSeries;
+    @Mock
+    private FutureReporter.Context queryMetrics;
+
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    private ExecutorService executor;
+    private AsyncFramework async;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+        async = TinyAsync.builder().executor(executor).build();
+
+        doReturn(new SelectedGroup<>(ImmutableSet.of(backend)))
+            .when(groupSet)
+            .useOptionalGroup(Optional.empty());
+        doReturn(metadata).when(metadataManager).useDefaultGroup();
+
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            final Consumer<MetricCollection> consumer =
+                (Consumer<MetricCollection>) invocation.getArguments()[2];
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+
+            return async.call(() -> {
+                active.decrementAndGet();
+                consumer.accept(MetricCollection.points(ImmutableList.of(new Point(0, 1.0))));
+                return FetchData.of(TRACE, ImmutableList.of(), ImmutableList.of());
+            });
+        })
+            .when(backend)
+            .fetch(any(FetchData.Request.class), any(FetchQuotaWatcher.class),
+                any(Consumer.class));
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testPipelinedQuery() throws Exception {
+        final List<Set<Series>> pages = pages(0, 250, 30);
+        doReturn(stream(pages)).when(metadata).findSeriesStream(any(FindSeries.Request.class));
+
+        final FullQuery result = query(OptionalLimit.empty());
+
+        assertEquals(250, series(result).size());
+        assertEquals(ResultLimits.of(), result.getLimits());
+        assertTrue(maxActive.get() <= FETCH_PARALLELISM);
+        verify(backend, times(250)).fetch(any(FetchData.Request.class),
+            any(FetchQuotaWatcher.class), any(Consumer.class));
+    }
+
+    @Test
+    public void testPipelinedQueryDuplicates() throws Exception {
+        final List<Set<Series>> pages = new ArrayList<>(pages(0, 20, 10));
+        pages.addAll(pages(10, 20, 10));
+        doReturn(stream(pages)).when(metadata).findSeriesStream(any(FindSeries.Request.class));
+
+        final FullQuery result = query(OptionalLimit.empty());
+
+        assertEquals(30, series(result).size());
+        verify(backend, times(30)).fetch(any(FetchData.Request.class),
+            any(FetchQuotaWatcher.class), any(Consumer.class));
+    }
+
+    @Test
+    public void testPipelinedQuerySeriesLimit() throws Exception {
+        final List<Set<Series>> pages = pages(0, 100, 30);
+        doReturn(stream(pages)).when(metadata).findSeriesStream(any(FindSeries.Request.class));
+
+        final FullQuery result = query(OptionalLimit.of(50));
+
+        assertEquals(50, series(result).size());
+        assertEquals(ResultLimits.of(ResultLimit.SERIES), result.getLimits());
+    }
+
+    @Test
+    public void testPipelinedQueryEmpty() throws Exception {
+        doReturn(stream(ImmutableList.of())).when(metadata).findSeriesStream(
+            any(FindSeries.Request.class));
+
+        final FullQuery result = query(OptionalLimit.empty());
+
+        assertEquals(ImmutableList.of(), result.getGroups());
+    }
+
+    @Test
+    public void testPipelinedQueryReportsFindSeries() throws Exception {
+        doReturn(stream(pages(0, 20, 10))).when(metadata).findSeriesStream(
+            any(FindSeries.Request.class));
+        doReturn(findSeries).when(reporter).reportFindSeries();
+        doReturn(queryMetrics).when(reporter).reportQueryMetrics();
+
+        query(OptionalLimit.empty(), reporter);
+
+        /* the stream ends before the query completes */
+        verify(findSeries).resolved(anyObject());
+    }
+
+    private FullQuery query(final OptionalLimit seriesLimit) throws Exception {
+        return query(seriesLimit, NoopMetricBackendReporter.get());
+    }
+
+    private FullQuery query(
+        final OptionalLimit seriesLimit, final MetricBackendReporter reporter
+    ) throws Exception {
+        final LocalMetricManager manager =
+            new LocalMetricManager(OptionalLimit.empty(), seriesLimit, OptionalLimit.empty(),
+                OptionalLimit.empty(), FETCH_PARALLELISM, false, true, async, groupSet,
+                metadataManager, reporter);
+
+        final FullQuery.Request request =
+            new FullQuery.Request(MetricType.POINT, filter, DateRange.create(0L, 1000L),
+                EmptyInstance.INSTANCE, QueryOptions.defaults());
+
+        return manager.useOptionalGroup(Optional.empty()).query(request).get(10, TimeUnit.SECONDS);
+    }
+
+    private Set<Series> series(final FullQuery result) {
+        final Set<Series> series = new HashSet<>();
+
+        for (final ResultGroup g : result.getGroups()) {
+            series.addAll(g.getSeries());
+        }
+
+        return series;
+    }
+
+    private List<Set<Series>> pages(final int offset, final int count, final int pageSize) {
+        final List<Set<Series>> pages = new ArrayList<>();
+
+        for (int start = offset; start < offset + count; start += pageSize) {
+            final Set<Series> page = new HashSet<>();
+
+            for (int i = start; i < Math.min(start + pageSize, offset + count); i++) {
+                page.add(Series.of("key", ImmutableMap.of("id", Integer.toString(i))));
+            }
+
+            pages.add(page);
+        }
+
+        return pages;
+    }
+
+    /**
+     * Build a stream that only emits the next page once the previous page has been consumed.
+     */
+    private AsyncObservable<FindSeriesStream> stream(final List<Set<Series>> pages) {
+        return observer -> next(observer, pages.iterator());
+    }
+
+    private void next(
+        final AsyncObserver<FindSeriesStream> observer, final Iterator<Set<Series>> pages
+    ) {
+        if (!pages.hasNext()) {
+            observer.end();
+            return;
+        }
+
+        observer
+            .observe(FindSeriesStream.of(pages.next()))
+            .onResolved(v -> next(observer, pages))
+            .onFailed(observer::fail)
+            .onCancelled(observer::cancel);
+    }
+}
@@ -29,6 +29,7 @@ import com.spotify.heroic.metric.BackendEntry;
 import com.spotify.heroic.metric.BackendKey;
 import com.spotify.heroic.metric.BackendKeyFilter;
 import com.spotify.heroic.metric.BackendKeySet;
+import com.spotify.heroic.metric.FetchBounds;
 import com.spotify.heroic.metric.FetchData;
 import com.spotify.heroic.metric.FetchQuotaWatcher;
 import com.spotify.heroic.metric.MetricBackend;
@@ -40,6 +41,7 @@ import lombok.ToString;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 @ToString
 @RequiredArgsConstructor
@@ -80,6 +82,20 @@ class BigtableAnalyticsMetricBackend implements MetricBackend {
         return backend.fetch(request, watcher);
     }
 
+    @Override
+    public AsyncFuture<FetchData> fetch(
+        final FetchData.Request request, final FetchQuotaWatcher watcher,
+        final Consumer<MetricCollection> consumer
+    ) {
+        analytics.reportFetchSeries(LocalDate.now(), request.getSeries());
+        return backend.fetch(request, watcher, consumer);
+    }
+
+    @Override
+    public FetchBounds fetchBounds() {
+        return backend.fetchBounds();
+    }
+
     @Override
     public Iterable<BackendEntry> listEntries() {
         return backend.listEntries();
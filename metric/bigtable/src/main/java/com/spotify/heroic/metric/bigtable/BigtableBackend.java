@@ -26,8 +26,12 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
 import com.google.protobuf.ByteString;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.async.AsyncObserver;
 import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.RequestTimer;
@@ -37,13 +41,18 @@ import com.spotify.heroic.lifecycle.LifeCycleRegistry;
 import com.spotify.heroic.lifecycle.LifeCycles;
 import com.spotify.heroic.metric.AbstractMetricBackend;
 import com.spotify.heroic.metric.BackendEntry;
+import com.spotify.heroic.metric.BackendKey;
+import com.spotify.heroic.metric.BackendKeyFilter;
+import com.spotify.heroic.metric.BackendKeySet;
 import com.spotify.heroic.metric.Event;
+import com.spotify.heroic.metric.FetchBounds;
 import com.spotify.heroic.metric.FetchData;
 import com.spotify.heroic.metric.FetchQuotaWatcher;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.QueryError;
 import com.spotify.heroic.metric.QueryTrace;
 import com.spotify.heroic.metric.WriteMetric;
@@ -55,17 +64,21 @@ import com.spotify.heroic.metric.bigtable.api.Mutations;
 import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
 import com.spotify.heroic.metric.bigtable.api.Row;
 import com.spotify.heroic.metric.bigtable.api.RowFilter;
+import com.spotify.heroic.metric.bigtable.api.RowRange;
+import com.spotify.heroic.metric.bigtable.api.RowSet;
 import com.spotify.heroic.metric.bigtable.api.Table;
 import com.spotify.heroic.metrics.Meter;
+import com.spotify.heroic.scheduler.Scheduler;
 import com.spotify.heroic.statistics.MetricBackendReporter;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Borrowed;
+import eu.toolchain.async.FutureDone;
 import eu.toolchain.async.Managed;
 import eu.toolchain.async.RetryPolicy;
 import eu.toolchain.async.RetryResult;
-import eu.toolchain.serializer.BytesSerialWriter;
-import eu.toolchain.serializer.Serializer;
-import eu.toolchain.serializer.SerializerFramework;
+import eu.toolchain.async.StreamCollector;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
@@ -77,8 +90,16 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
 
 @ToString(of = {"connection"})
@@ -94,17 +115,35 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
     public static final String POINTS = "points";
     public static final String EVENTS = "events";
+    public static final String BLOCKS = "blocks";
     public static final long PERIOD = 0x100000000L;
 
+    /* number of row keys decoded at a time when streaming keys */
+    public static final int KEYS_PAGE_SIZE = 1000;
+
+    /* number of rows compacted at the same time */
+    public static final int COMPACTION_PARALLELISM = 16;
+
+    /* number of times a window is compacted again right away after losing a race */
+    public static final int COMPACTION_ATTEMPTS = 3;
+
+    private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
+
     private final AsyncFramework async;
-    private final SerializerFramework serializer;
-    private final Serializer<RowKey> rowKeySerializer;
+    private final RowKeyEncoding rowKeyEncoding;
     private final Managed<BigtableConnection> connection;
     private final Groups groups;
     private final String table;
     private final boolean configure;
     private final MetricBackendReporter reporter;
     private final ObjectMapper mapper;
+    private final Optional<BlockStorage> blockStorage;
+    private final Scheduler scheduler;
+    private final Optional<MutationBatcher> batcher;
+
+    /* windows which might have hot cells that should be compacted */
+    private final Set<DirtyWindow> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean compacting = new AtomicBoolean();
 
     private static final TypeReference<Map<String, String>> PAYLOAD_TYPE =
         new TypeReference<Map<String, String>>() {
@@ -114,22 +153,27 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
     @Inject
     public BigtableBackend(
-        final AsyncFramework async, @Named("common") final SerializerFramework serializer,
-        final Serializer<RowKey> rowKeySerializer, final Managed<BigtableConnection> connection,
+        final AsyncFramework async, final RowKeyEncoding rowKeyEncoding,
+        final Managed<BigtableConnection> connection,
         final Groups groups, @Named("table") final String table,
         @Named("configure") final boolean configure, MetricBackendReporter reporter,
-        @Named("application/json") ObjectMapper mapper
+        @Named("application/json") ObjectMapper mapper,
+        final Optional<BlockStorage> blockStorage, final Scheduler scheduler,
+        final Optional<WriteBatching> writeBatching
     ) {
         super(async);
         this.async = async;
-        this.serializer = serializer;
-        this.rowKeySerializer = rowKeySerializer;
+        this.rowKeyEncoding = rowKeyEncoding;
         this.connection = connection;
         this.groups = groups;
         this.table = table;
         this.configure = configure;
         this.reporter = reporter;
         this.mapper = mapper;
+        this.blockStorage = blockStorage;
+        this.scheduler = scheduler;
+        this.batcher = writeBatching.map(
+            config -> new MutationBatcher(async, scheduler, connection, table, config));
     }
 
     @Override
@@ -140,16 +184,31 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
     @Override
     public AsyncFuture<Void> configure() {
-        return connection.doto(c -> configureMetricsTable(c.tableAdminClient()));
+        return connection.doto(c -> {
+            final BigtableTableAdminClient admin = c.tableAdminClient();
+            final List<AsyncFuture<Void>> tables = new ArrayList<>();
+
+            final List<String> families = new ArrayList<>(ImmutableList.of(POINTS, EVENTS));
+            blockStorage.ifPresent(b -> families.add(BLOCKS));
+            tables.add(configureTable(admin, table, families));
+
+            rowKeyEncoding
+                .sideTable()
+                .ifPresent(side -> tables.add(configureTable(admin, side.getTable(),
+                    ImmutableList.of(side.getColumnFamily()))));
+
+            return async.collectAndDiscard(tables);
+        });
     }
 
-    private AsyncFuture<Void> configureMetricsTable(final BigtableTableAdminClient admin)
-        throws IOException {
+    private AsyncFuture<Void> configureTable(
+        final BigtableTableAdminClient admin, final String name, final List<String> families
+    ) {
         return async
-            .call(() -> admin.getTable(table))
+            .call(() -> admin.getTable(name))
             .lazyTransform(tableCheck -> tableCheck.map(async::resolved).orElseGet(() -> {
-                log.info("Creating missing table: " + table);
-                final Table createdTable = admin.createTable(table);
+                log.info("Creating missing table: " + name);
+                final Table createdTable = admin.createTable(name);
 
                 // check until table exists
                 return async
@@ -163,20 +222,18 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
                     }, RetryPolicy.timed(10000, RetryPolicy.linear(1000)))
                     .directTransform(RetryResult::getResult);
             }))
-            .lazyTransform(metrics -> {
-                final List<AsyncFuture<ColumnFamily>> families = new ArrayList<>();
-
-                families.add(async.call(() -> metrics.getColumnFamily(POINTS).orElseGet(() -> {
-                    log.info("Creating missing column family: " + POINTS);
-                    return admin.createColumnFamily(metrics, POINTS);
-                })));
-
-                families.add(async.call(() -> metrics.getColumnFamily(EVENTS).orElseGet(() -> {
-                    log.info("Creating missing column family: " + EVENTS);
-                    return admin.createColumnFamily(metrics, EVENTS);
-                })));
+            .lazyTransform(created -> {
+                final List<AsyncFuture<ColumnFamily>> columnFamilies = new ArrayList<>();
+
+                for (final String family : families) {
+                    columnFamilies.add(
+                        async.call(() -> created.getColumnFamily(family).orElseGet(() -> {
+                            log.info("Creating missing column family: " + family);
+                            return admin.createColumnFamily(created, family);
+                        })));
+                }
 
-                return async.collectAndDiscard(families);
+                return async.collectAndDiscard(columnFamilies);
             });
     }
 
@@ -199,7 +256,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             final BigtableDataClient client = c.dataClient();
 
             final MetricCollection g = request.getData();
-            results.add(writeTyped(series, client, g));
+
+            /* the series is registered first, so that all written rows can be decoded */
+            results.add(rowKeyEncoding
+                .register(series)
+                .lazyTransform(v -> writeTyped(series, client, g)));
             return async.collect(results, WriteMetric.reduce());
         });
     }
@@ -212,7 +273,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             final MetricType type = request.getType();
 
             final List<PreparedQuery> prepared =
-                ranges(request.getSeries(), request.getRange(), rowKeySerializer);
+                ranges(request.getSeries(), request.getRange());
 
             if (!watcher.mayReadData()) {
                 throw new IllegalArgumentException("query violated data limit");
@@ -220,21 +281,30 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
 
             switch (type) {
                 case POINT:
-                    return fetchBatch(watcher, type, POINTS, prepared, c, (t, d) -> {
-                        final double value = deserializeValue(d);
-                        return new Point(t, value);
+                    if (blockStorage.isPresent()) {
+                        return fetchBlocks(watcher, blockStorage.get(), prepared, c);
+                    }
+
+                    return fetchBatch(watcher, POINTS, prepared, c, (p, cells) -> {
+                        final PointChunk.Builder points = PointChunk.builder();
+
+                        for (final Family.LatestCellValueColumn cell : cells) {
+                            final long timestamp = p.base + deserializeOffset(cell.getQualifier());
+                            points.add(timestamp, deserializeValue(cell.getValue()));
+                        }
+
+                        return MetricCollection.points(points.build());
                     });
                 case EVENT:
-                    return fetchBatch(watcher, type, EVENTS, prepared, c, (t, d) -> {
-                        final Map<String, String> payload;
+                    return fetchBatch(watcher, EVENTS, prepared, c, (p, cells) -> {
+                        final List<Event> events = new ArrayList<>();
 
-                        try {
-                            payload = mapper.readValue(d.toByteArray(), PAYLOAD_TYPE);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
+                        for (final Family.LatestCellValueColumn cell : cells) {
+                            final long timestamp = p.base + deserializeOffset(cell.getQualifier());
+                            events.add(deserializeEvent(timestamp, cell.getValue()));
                         }
 
-                        return new Event(t, payload);
+                        return MetricCollection.events(events);
                     });
                 default:
                     return async.resolved(FetchData.error(QueryTrace.of(FETCH),
@@ -243,11 +313,113 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         });
     }
 
+    @Override
+    public FetchBounds fetchBounds() {
+        return FetchBounds.OPEN_CLOSED;
+    }
+
     @Override
     public Iterable<BackendEntry> listEntries() {
         return ImmutableList.of();
     }
 
+    @Override
+    public AsyncObservable<BackendKeySet> streamKeys(
+        final BackendKeyFilter filter, final QueryOptions options
+    ) {
+        return observer -> {
+            final ReadRowsRequest.Builder request =
+                ReadRowsRequest.builder().filter(RowFilter.keysOnly());
+
+            try {
+                rowRange(filter).ifPresent(request::range);
+            } catch (final Exception e) {
+                observer.fail(e);
+                return;
+            }
+
+            filter.getLimit().asLong().ifPresent(request::numRowsLimit);
+
+            final Borrowed<BigtableConnection> b = connection.borrow();
+
+            if (!b.isValid()) {
+                observer.fail(new RuntimeException("failed to borrow connection"));
+                return;
+            }
+
+            b
+                .get()
+                .dataClient()
+                .readRowsObserved(table, request.build())
+                .observe(new KeyObserver(observer, b::release));
+        };
+    }
+
+    @Override
+    public AsyncFuture<List<String>> serializeKeyToHex(final BackendKey key) {
+        try {
+            return async.resolved(ImmutableList.of(HEX.encode(encodeKey(key).toByteArray())));
+        } catch (final IOException e) {
+            return async.failed(e);
+        }
+    }
+
+    @Override
+    public AsyncFuture<List<BackendKey>> deserializeKeyFromHex(final String key) {
+        final ByteString rowKey;
+
+        try {
+            rowKey = ByteString.copyFrom(HEX.decode(key.toLowerCase()));
+        } catch (final IllegalArgumentException e) {
+            return async.failed(e);
+        }
+
+        return rowKeyEncoding.decode(ImmutableList.of(rowKey)).directTransform(decoded -> {
+            final List<BackendKey> keys = new ArrayList<>();
+
+            for (final Optional<RowKey> k : decoded) {
+                k.ifPresent(r -> keys.add(new BackendKey(r.getSeries(), r.getBase())));
+            }
+
+            return keys;
+        });
+    }
+
+    @Override
+    public AsyncObservable<MetricCollection> streamRow(final BackendKey key) {
+        return observer -> {
+            final ByteString rowKey;
+
+            try {
+                rowKey = encodeKey(key);
+            } catch (final IOException e) {
+                observer.fail(e);
+                return;
+            }
+
+            connection
+                .doto(c -> c
+                    .dataClient()
+                    .readRows(table, ReadRowsRequest.builder().rowKey(rowKey).build()))
+                .onDone(new FutureDone<List<Row>>() {
+                    @Override
+                    public void failed(final Throwable cause) throws Exception {
+                        observer.fail(cause);
+                    }
+
+                    @Override
+                    public void resolved(final List<Row> rows) throws Exception {
+                        observeAll(observer, decodeRows(key.getBase(), rows).iterator());
+                    }
+
+                    @Override
+                    public void cancelled() throws Exception {
+                        observer.cancel();
+                    }
+                });
+        };
+    }
+
     @Override
     public Statistics getStatistics() {
         final long written = this.written.getCount();
@@ -258,6 +430,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     private AsyncFuture<Void> start() {
         final AsyncFuture<Void> future = connection.start();
 
+        blockStorage.ifPresent(storage -> {
+            scheduler.periodically("bigtable-compaction", 1, TimeUnit.MINUTES,
+                () -> compactDirty(storage));
+        });
+
         if (!configure) {
             return future;
         }
@@ -266,7 +443,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     private AsyncFuture<Void> stop() {
-        return connection.stop();
+        /* pending writes must reach bigtable before the connection goes away */
+        final AsyncFuture<Void> flushed =
+            batcher.map(MutationBatcher::flush).orElseGet(async::resolved);
+
+        return flushed.lazyTransform(v -> connection.stop());
     }
 
     private AsyncFuture<WriteMetric> writeTyped(
@@ -274,6 +455,16 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     ) throws IOException {
         switch (g.getType()) {
             case POINT:
+                if (blockStorage.isPresent()) {
+                    final BlockStorage storage = blockStorage.get();
+
+                    for (final Point p : g.getDataAs(Point.class)) {
+                        final long timestamp = p.getTimestamp();
+                        dirty.add(new DirtyWindow(new RowKey(series, base(timestamp)),
+                            storage.window(offset(timestamp))));
+                    }
+                }
+
                 return writeBatch(POINTS, series, client, g.getDataAs(Point.class),
                     d -> serializeValue(d.getValue()));
             case EVENT:
@@ -315,7 +506,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
                 building.put(rowKey, builder);
             }
 
-            builder.setCell(columnFamily, offsetBytes, valueBytes);
+            builder.setCell(columnFamily, offsetBytes, valueBytes, cellTimestamp(columnFamily));
 
             if (builder.size() >= MAX_BATCH_SIZE) {
                 saved.add(Pair.of(rowKey, builder.build()));
@@ -328,17 +519,15 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final RequestTimer<WriteMetric> timer = WriteMetric.timer();
 
         for (final Pair<RowKey, Mutations> e : saved) {
-            final ByteString rowKeyBytes = serialize(e.getKey(), rowKeySerializer);
-            writes.add(client
-                .mutateRow(table, rowKeyBytes, e.getValue())
-                .directTransform(result -> timer.end()));
+            final ByteString rowKeyBytes = rowKeyEncoding.encode(e.getKey());
+            writes.add(mutateRow(client, rowKeyBytes, e.getValue()).directTransform(
+                result -> timer.end()));
         }
 
         for (final Map.Entry<RowKey, Mutations.Builder> e : building.entrySet()) {
-            final ByteString rowKeyBytes = serialize(e.getKey(), rowKeySerializer);
-            writes.add(client
-                .mutateRow(table, rowKeyBytes, e.getValue().build())
-                .directTransform(result -> timer.end()));
+            final ByteString rowKeyBytes = rowKeyEncoding.encode(e.getKey());
+            writes.add(mutateRow(client, rowKeyBytes, e.getValue().build()).directTransform(
+                result -> timer.end()));
         }
 
         return async.collect(writes.build(), WriteMetric.reduce());
@@ -359,73 +548,534 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         final ByteString offsetBytes = serializeOffset(offset);
         final ByteString valueBytes = serializer.apply(p);
 
-        builder.setCell(columnFamily, offsetBytes, valueBytes);
+        builder.setCell(columnFamily, offsetBytes, valueBytes, cellTimestamp(columnFamily));
 
         final RequestTimer<WriteMetric> timer = WriteMetric.timer();
 
-        final ByteString rowKeyBytes = serialize(rowKey, rowKeySerializer);
-        return client
-            .mutateRow(table, rowKeyBytes, builder.build())
-            .directTransform(result -> timer.end());
+        final ByteString rowKeyBytes = rowKeyEncoding.encode(rowKey);
+        return mutateRow(client, rowKeyBytes, builder.build()).directTransform(
+            result -> timer.end());
+    }
+
+    /**
+     * Get the timestamp to write cells of the given family with.
+     * <p>
+     * Hot cells are written with the time of the server when blocks are enabled, so that
+     * compaction can delete exactly the versions it has read and leave any rewrite in place.
+     */
+    private long cellTimestamp(final String columnFamily) {
+        if (blockStorage.isPresent() && POINTS.equals(columnFamily)) {
+            return Mutations.SERVER_TIMESTAMP;
+        }
+
+        return 0L;
     }
 
-    private <T extends Metric> AsyncFuture<FetchData> fetchBatch(
-        final FetchQuotaWatcher watcher, final MetricType type, final String columnFamily,
+    /**
+     * Write the mutations of a single row, through the batcher if writes are batched.
+     */
+    private AsyncFuture<Void> mutateRow(
+        final BigtableDataClient client, final ByteString rowKey, final Mutations mutations
+    ) {
+        if (batcher.isPresent()) {
+            return batcher.get().mutateRow(rowKey, mutations);
+        }
+
+        return client.mutateRow(table, rowKey, mutations);
+    }
+
+    private AsyncFuture<FetchData> fetchBatch(
+        final FetchQuotaWatcher watcher, final String columnFamily,
         final List<PreparedQuery> prepared, final BigtableConnection c,
-        final BiFunction<Long, ByteString, T> deserializer
+        final BiFunction<PreparedQuery, Iterable<Family.LatestCellValueColumn>, MetricCollection>
+            deserializer
     ) {
-        final BigtableDataClient client = c.dataClient();
+        final AsyncFuture<Map<ByteString, Row>> readRows =
+            readRows(c.dataClient(), prepared, p -> RowFilter
+                .newColumnRangeBuilder(columnFamily)
+                .startQualifierExclusive(p.startKey)
+                .endQualifierInclusive(p.endKey)
+                .build());
+
+        final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH_SEGMENT);
 
-        final List<AsyncFuture<FetchData>> fetches = new ArrayList<>(prepared.size());
+        final AsyncFuture<FetchData> fetch = readRows.directTransform(rows -> {
+            watcher.readData(rows.size());
+
+            final List<MetricCollection> data = new ArrayList<>(rows.size());
+
+            for (final PreparedQuery p : prepared) {
+                final Row row = rows.get(p.keyBlob);
+
+                if (row == null) {
+                    continue;
+                }
+
+                /* cells are decoded straight into the collection, without intermediate objects */
+                row
+                    .getFamily(columnFamily)
+                    .ifPresent(f -> data.add(deserializer.apply(p, f.latestCellValue())));
+            }
+
+            final QueryTrace trace = w.end();
+            final ImmutableList<Long> times = ImmutableList.of(trace.getElapsed());
+            return FetchData.of(trace, times, data);
+        });
 
-        for (final PreparedQuery p : prepared) {
-            final AsyncFuture<List<Row>> readRows = client.readRows(table, ReadRowsRequest
-                .builder()
-                .rowKey(p.keyBlob)
-                .filter(RowFilter
-                    .newColumnRangeBuilder(columnFamily)
+        return async.collect(ImmutableList.of(fetch), FetchData.collect(FETCH));
+    }
+
+    /**
+     * Fetch points stored in blocks, overlaying any hot cells which have not been compacted yet.
+     */
+    private AsyncFuture<FetchData> fetchBlocks(
+        final FetchQuotaWatcher watcher, final BlockStorage storage,
+        final List<PreparedQuery> prepared, final BigtableConnection c
+    ) {
+        final AsyncFuture<Map<ByteString, Row>> readRows =
+            readRows(c.dataClient(), prepared, p -> {
+                final ByteString startBlock =
+                    serializeOffset(storage.window(offset(p.range.start())));
+                final ByteString endBlock =
+                    serializeOffset(storage.window(offset(p.range.end())));
+
+                return RowFilter.interleave(ImmutableList.of(RowFilter
+                    .newColumnRangeBuilder(POINTS)
                     .startQualifierExclusive(p.startKey)
                     .endQualifierInclusive(p.endKey)
-                    .build())
-                .build());
+                    .build(), RowFilter
+                    .newColumnRangeBuilder(BLOCKS)
+                    .startQualifierInclusive(startBlock)
+                    .endQualifierInclusive(endBlock)
+                    .build()));
+            });
 
-            final Function<Family.LatestCellValueColumn, T> transform = cell -> {
-                final long timestamp = p.base + deserializeOffset(cell.getQualifier());
-                return deserializer.apply(timestamp, cell.getValue());
-            };
+        final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH_SEGMENT);
 
-            final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH_SEGMENT);
+        final AsyncFuture<FetchData> fetch = readRows.directTransform(rows -> {
+            watcher.readData(rows.size());
 
-            fetches.add(readRows.directTransform(result -> {
-                watcher.readData(result.size());
+            final PointChunk.Builder cold = PointChunk.builder();
+            final PointChunk.Builder hot = PointChunk.builder();
 
-                final List<Iterable<T>> points = new ArrayList<>();
+            /* rows are decoded in the order of their bases, which keeps both builders sorted */
+            for (final PreparedQuery p : prepared) {
+                final Row row = rows.get(p.keyBlob);
 
-                for (final Row row : result) {
-                    row.getFamily(columnFamily).ifPresent(f -> {
-                        points.add(Iterables.transform(f.latestCellValue(), transform));
-                    });
+                if (row == null) {
+                    continue;
+                }
+
+                final Optional<Family> blocks = row.getFamily(BLOCKS);
+
+                if (blocks.isPresent()) {
+                    for (final Family.LatestCellValueColumn cell : blocks
+                        .get()
+                        .latestCellValue()) {
+                        PointBlock.decode(cell.getValue(), p.range.start(), p.range.end(), cold);
+                    }
+                }
+
+                final Optional<Family> points = row.getFamily(POINTS);
+
+                if (points.isPresent()) {
+                    for (final Family.LatestCellValueColumn cell : points
+                        .get()
+                        .latestCellValue()) {
+                        final long timestamp = p.base + deserializeOffset(cell.getQualifier());
+                        hot.add(timestamp, deserializeValue(cell.getValue()));
+                    }
+                }
+            }
+
+            final MetricCollection data =
+                MetricCollection.points(PointBlock.overlay(cold.build(), hot.build()));
+
+            final QueryTrace trace = w.end();
+            final ImmutableList<Long> times = ImmutableList.of(trace.getElapsed());
+            return FetchData.of(trace, times, ImmutableList.of(data));
+        });
+
+        return async.collect(ImmutableList.of(fetch), FetchData.collect(FETCH));
+    }
+
+    /**
+     * Read all prepared rows of a series with a single request.
+     * <p>
+     * Each row needs its own column filter, so when more than one row is read the request
+     * interleaves one chain per row which first matches the exact row key, and then its columns.
+     *
+     * @param client Client to read rows with.
+     * @param prepared Prepared queries for the rows to read.
+     * @param columns Builds the column filter to use for each row.
+     * @return A future resolved to the rows that were read, keyed by their row key.
+     */
+    private AsyncFuture<Map<ByteString, Row>> readRows(
+        final BigtableDataClient client, final List<PreparedQuery> prepared,
+        final Function<PreparedQuery, RowFilter> columns
+    ) {
+        if (prepared.isEmpty()) {
+            return async.<Map<ByteString, Row>>resolved(ImmutableMap.of());
+        }
+
+        final ReadRowsRequest.Builder request = ReadRowsRequest.builder();
+
+        if (prepared.size() == 1) {
+            final PreparedQuery p = prepared.get(0);
+            request.rowKey(p.keyBlob).filter(columns.apply(p));
+        } else {
+            final List<ByteString> keys = new ArrayList<>(prepared.size());
+            final List<RowFilter> filters = new ArrayList<>(prepared.size());
+
+            for (final PreparedQuery p : prepared) {
+                keys.add(p.keyBlob);
+                filters.add(RowFilter.chain(
+                    ImmutableList.of(RowFilter.exactRowKey(p.keyBlob), columns.apply(p))));
+            }
+
+            request.rowSet(RowSet.rowKeys(keys)).filter(RowFilter.interleave(filters));
+        }
+
+        return client.readRows(table, request.build()).directTransform(result -> {
+            final Map<ByteString, Row> rows = new HashMap<>(result.size());
+
+            for (final Row row : result) {
+                rows.put(row.getKey(), row);
+            }
+
+            return rows;
+        });
+    }
+
+    /**
+     * Compact all windows which have been written to and are now closed.
+     * <p>
+     * Windows that are still open are left for a later round, and are not read until then.
+     */
+    private void compactDirty(final BlockStorage storage) {
+        if (dirty.isEmpty() || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final Map<RowKey, List<DirtyWindow>> closed = new HashMap<>();
+
+        for (final DirtyWindow d : dirty) {
+            if (d.rowKey.getBase() + d.window + storage.getSize() + storage.getSettle() <= now) {
+                closed.computeIfAbsent(d.rowKey, k -> new ArrayList<>()).add(d);
+            }
+        }
+
+        if (closed.isEmpty()) {
+            compacting.set(false);
+            return;
+        }
+
+        /* removed before reading, so that writes from now on mark their windows again */
+        closed.values().forEach(dirty::removeAll);
+
+        connection.doto(c -> {
+            final List<Callable<AsyncFuture<Void>>> compactions = new ArrayList<>(closed.size());
+
+            for (final Map.Entry<RowKey, List<DirtyWindow>> e : closed.entrySet()) {
+                final RowKey rowKey = e.getKey();
+                final List<DirtyWindow> windows = e.getValue();
+
+                long first = Long.MAX_VALUE;
+                long last = Long.MIN_VALUE;
+
+                for (final DirtyWindow d : windows) {
+                    first = Math.min(first, d.window);
+                    last = Math.max(last, d.window);
+                }
+
+                final long from = first;
+                final long to = last;
+
+                compactions.add(() -> compact(c.dataClient(), storage, rowKey, from, to)
+                    .catchFailed(error -> {
+                        log.error("Failed to compact row: {}", rowKey, error);
+                        dirty.addAll(windows);
+                        return null;
+                    }));
+            }
+
+            return async.eventuallyCollect(compactions, new StreamCollector<Void, Void>() {
+                @Override
+                public void resolved(final Void result) throws Exception {
+                }
+
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                }
+
+                @Override
+                public Void end(final int resolved, final int failed, final int cancelled)
+                    throws Exception {
+                    return null;
                 }
+            }, COMPACTION_PARALLELISM);
+        }).onFinished(() -> compacting.set(false));
+    }
+
+    /**
+     * Fold the hot cells of the given range of closed windows in a row into blocks.
+     * <p>
+     * Each window is compacted with a single row mutation which writes the new block and deletes
+     * the versions of the hot cells that were folded into it. Versions written after the row was
+     * read have a later timestamp, so they are left in place and picked up by the next compaction.
+     * If a window has more hot cells than fit in one mutation, the rest is left for the next
+     * compaction.
+     * <p>
+     * Since writes for a series can end up on any node, several nodes might compact the same
+     * window at once. The timestamp of a block cell is used as its version, and the mutation is
+     * only applied if the block is still at the version that was read. A window which lost the
+     * race is read and compacted again.
+     *
+     * @param first Offset of the first window to compact.
+     * @param last Offset of the last window to compact.
+     */
+    AsyncFuture<Void> compact(
+        final BigtableDataClient client, final BlockStorage storage, final RowKey rowKey,
+        final long first, final long last
+    ) throws IOException {
+        return compact(client, storage, rowKey, first, last, 1);
+    }
+
+    private AsyncFuture<Void> compact(
+        final BigtableDataClient client, final BlockStorage storage, final RowKey rowKey,
+        final long first, final long last, final int attempt
+    ) throws IOException {
+        final ByteString keyBlob = rowKeyEncoding.encode(rowKey);
+        final long base = rowKey.getBase();
+        final long end = Math.min(last + storage.getSize(), PERIOD) - 1;
+
+        final AsyncFuture<List<Row>> readRows = client.readRows(table, ReadRowsRequest
+            .builder()
+            .rowKey(keyBlob)
+            .filter(RowFilter.interleave(ImmutableList.of(RowFilter
+                .newColumnRangeBuilder(POINTS)
+                .startQualifierInclusive(serializeOffset(first))
+                .endQualifierInclusive(serializeOffset(end))
+                .build(), RowFilter
+                .newColumnRangeBuilder(BLOCKS)
+                .startQualifierInclusive(serializeOffset(first))
+                .endQualifierInclusive(serializeOffset(last))
+                .build())))
+            .build());
+
+        return readRows.lazyTransform(result -> {
+            final Map<Long, List<Family.LatestCellValueColumn>> hot = new TreeMap<>();
+            final Map<Long, Family.LatestCellValueColumn> blocks = new HashMap<>();
+
+            for (final Row row : result) {
+                final Optional<Family> points = row.getFamily(POINTS);
+
+                if (points.isPresent()) {
+                    for (final Family.LatestCellValueColumn cell : points
+                        .get()
+                        .latestCellValue()) {
+                        final long window = storage.window(deserializeOffset(cell.getQualifier()));
+                        hot.computeIfAbsent(window, w -> new ArrayList<>()).add(cell);
+                    }
+                }
+
+                final Optional<Family> existing = row.getFamily(BLOCKS);
+
+                if (existing.isPresent()) {
+                    for (final Family.LatestCellValueColumn cell : existing
+                        .get()
+                        .latestCellValue()) {
+                        blocks.put(deserializeOffset(cell.getQualifier()), cell);
+                    }
+                }
+            }
 
-                final QueryTrace trace = w.end();
-                final ImmutableList<Long> times = ImmutableList.of(trace.getElapsed());
-                final List<T> data =
-                    ImmutableList.copyOf(Iterables.mergeSorted(points, Metric.comparator()));
-                final List<MetricCollection> groups =
-                    ImmutableList.of(MetricCollection.build(type, data));
+            final List<AsyncFuture<Void>> writes = new ArrayList<>(hot.size());
 
-                return FetchData.of(trace, times, groups);
-            }));
+            for (final Map.Entry<Long, List<Family.LatestCellValueColumn>> e : hot.entrySet()) {
+                final long window = e.getKey();
+                final List<Family.LatestCellValueColumn> cells = e.getValue();
+
+                /* two mutations are used for the block, the rest for deleting hot cells */
+                final int folded = Math.min(cells.size(), MutationBatcher.MAX_MUTATIONS - 2);
+
+                if (folded < cells.size()) {
+                    dirty.add(new DirtyWindow(rowKey, window));
+                }
+
+                final PointChunk.Builder points = PointChunk.builder(folded);
+
+                for (final Family.LatestCellValueColumn cell : cells.subList(0, folded)) {
+                    points.add(base + deserializeOffset(cell.getQualifier()),
+                        deserializeValue(cell.getValue()));
+                }
+
+                final ByteString qualifier = serializeOffset(window);
+                final PointChunk.Builder cold = PointChunk.builder();
+                final Family.LatestCellValueColumn block = blocks.get(window);
+                final Mutations.Builder mutations = Mutations.builder();
+
+                /* the block column, at the version which was read if any */
+                final List<RowFilter> predicate = new ArrayList<>();
+                predicate.add(RowFilter
+                    .newColumnRangeBuilder(BLOCKS)
+                    .startQualifierInclusive(qualifier)
+                    .endQualifierInclusive(qualifier)
+                    .build());
+
+                long version = 0L;
+
+                if (block != null) {
+                    PointBlock.decode(block.getValue(), Long.MIN_VALUE, Long.MAX_VALUE, cold);
+                    predicate.add(RowFilter.timestampRange(block.getTimestampMicros(),
+                        block.getTimestampMicros() + 1));
+                    version = block.getTimestampMicros() + 1;
+                }
+
+                mutations.setCell(BLOCKS, qualifier,
+                    PointBlock.encode(PointBlock.overlay(cold.build(), points.build())), version);
+
+                if (block != null) {
+                    /* drop the version which was read */
+                    mutations.deleteFromColumn(BLOCKS, qualifier, 0L, version);
+                }
+
+                for (final Family.LatestCellValueColumn cell : cells.subList(0, folded)) {
+                    mutations.deleteFromColumn(POINTS, cell.getQualifier(), 0L,
+                        cell.getTimestampMicros() + 1);
+                }
+
+                /* if there was a block, it must still be there, otherwise there must be none */
+                final Mutations empty = Mutations.builder().build();
+                final AsyncFuture<Boolean> write = block != null ?
+                    client.checkAndMutateRow(table, keyBlob, RowFilter.chain(predicate),
+                        mutations.build(), empty) :
+                    client.checkAndMutateRow(table, keyBlob, RowFilter.chain(predicate), empty,
+                        mutations.build());
+
+                writes.add(write.lazyTransform(matched -> {
+                    if (matched == (block != null)) {
+                        return async.resolved();
+                    }
+
+                    /* another node compacted the window since it was read */
+                    if (attempt < COMPACTION_ATTEMPTS) {
+                        return compact(client, storage, rowKey, window, window, attempt + 1);
+                    }
+
+                    dirty.add(new DirtyWindow(rowKey, window));
+                    return async.resolved();
+                }));
+            }
+
+            return async.collectAndDiscard(writes);
+        });
+    }
+
+    private ByteString encodeKey(final BackendKey key) throws IOException {
+        return rowKeyEncoding.encode(new RowKey(key.getSeries(), key.getBase()));
+    }
+
+    /**
+     * Build the range of rows to scan for the given key filter.
+     * <p>
+     * Rows are ordered by their encoded keys, so ranges by percentage or token are not supported.
+     */
+    private Optional<RowRange> rowRange(final BackendKeyFilter filter) throws IOException {
+        if (!filter.getStart().isPresent() && !filter.getEnd().isPresent()) {
+            return Optional.empty();
+        }
+
+        Optional<ByteString> start = Optional.empty();
+        Optional<ByteString> end = Optional.empty();
+
+        if (filter.getStart().isPresent()) {
+            final BackendKeyFilter.Start s = filter.getStart().get();
+
+            if (s instanceof BackendKeyFilter.GTE) {
+                start = Optional.of(encodeKey(((BackendKeyFilter.GTE) s).getKey()));
+            } else if (s instanceof BackendKeyFilter.GT) {
+                /* the smallest key which sorts after the given key */
+                start = Optional.of(encodeKey(((BackendKeyFilter.GT) s).getKey()).concat(
+                    ByteString.copyFrom(new byte[]{0})));
+            } else {
+                throw new IllegalArgumentException("Unsupported start: " + s);
+            }
         }
 
-        return async.collect(fetches, FetchData.collect(FETCH));
+        if (filter.getEnd().isPresent()) {
+            final BackendKeyFilter.End e = filter.getEnd().get();
+
+            if (!(e instanceof BackendKeyFilter.LT)) {
+                throw new IllegalArgumentException("Unsupported end: " + e);
+            }
+
+            end = Optional.of(encodeKey(((BackendKeyFilter.LT) e).getKey()));
+        }
+
+        return Optional.of(RowRange.rowRange(start, end));
     }
 
-    <T> ByteString serialize(T rowKey, Serializer<T> serializer) throws IOException {
-        try (final BytesSerialWriter writer = this.serializer.writeBytes()) {
-            serializer.serialize(writer, rowKey);
-            return ByteString.copyFrom(writer.toByteArray());
+    /**
+     * Decode all data in the given rows, as read from a single row key.
+     */
+    private List<MetricCollection> decodeRows(final long base, final List<Row> rows) {
+        final PointChunk.Builder cold = PointChunk.builder();
+        final PointChunk.Builder hot = PointChunk.builder();
+        final List<Event> events = new ArrayList<>();
+
+        for (final Row row : rows) {
+            row.getFamily(BLOCKS).ifPresent(f -> {
+                for (final Family.LatestCellValueColumn cell : f.latestCellValue()) {
+                    PointBlock.decode(cell.getValue(), Long.MIN_VALUE, Long.MAX_VALUE, cold);
+                }
+            });
+
+            row.getFamily(POINTS).ifPresent(f -> {
+                for (final Family.LatestCellValueColumn cell : f.latestCellValue()) {
+                    final long timestamp = base + deserializeOffset(cell.getQualifier());
+                    hot.add(timestamp, deserializeValue(cell.getValue()));
+                }
+            });
+
+            row.getFamily(EVENTS).ifPresent(f -> {
+                for (final Family.LatestCellValueColumn cell : f.latestCellValue()) {
+                    final long timestamp = base + deserializeOffset(cell.getQualifier());
+                    events.add(deserializeEvent(timestamp, cell.getValue()));
+                }
+            });
+        }
+
+        final List<MetricCollection> data = new ArrayList<>();
+        final PointChunk points = PointBlock.overlay(cold.build(), hot.build());
+
+        if (!points.isEmpty()) {
+            data.add(MetricCollection.points(points));
+        }
+
+        if (!events.isEmpty()) {
+            data.add(MetricCollection.events(events));
         }
+
+        return data;
+    }
+
+    private <T> void observeAll(final AsyncObserver<T> observer, final Iterator<T> values) {
+        if (!values.hasNext()) {
+            observer.end();
+            return;
+        }
+
+        observer
+            .observe(values.next())
+            .onResolved(v -> observeAll(observer, values))
+            .onFailed(observer::fail)
+            .onCancelled(observer::cancel);
     }
 
     static long base(long timestamp) {
@@ -437,7 +1087,7 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
     }
 
     List<PreparedQuery> ranges(
-        final Series series, final DateRange range, final Serializer<RowKey> rowKeySerializer
+        final Series series, final DateRange range
     ) throws IOException {
         final List<PreparedQuery> bases = new ArrayList<>();
 
@@ -452,11 +1102,11 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
             }
 
             final RowKey key = new RowKey(series, base);
-            final ByteString keyBlob = serialize(key, rowKeySerializer);
+            final ByteString keyBlob = rowKeyEncoding.encode(key);
             final ByteString startKey = serializeOffset(offset(modified.start()));
             final ByteString endKey = serializeOffset(offset(modified.end()));
 
-            bases.add(new PreparedQuery(keyBlob, startKey, endKey, base));
+            bases.add(new PreparedQuery(keyBlob, startKey, endKey, base, modified));
         }
 
         return bases;
@@ -476,6 +1126,18 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         }
     }
 
+    Event deserializeEvent(final long timestamp, final ByteString value) {
+        final Map<String, String> payload;
+
+        try {
+            payload = mapper.readValue(value.toByteArray(), PAYLOAD_TYPE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return new Event(timestamp, payload);
+    }
+
     static double deserializeValue(ByteString value) {
         return Double.longBitsToDouble(ByteBuffer.wrap(value.toByteArray()).getLong());
     }
@@ -519,11 +1181,113 @@ public class BigtableBackend extends AbstractMetricBackend implements LifeCycles
         // @formatter:on
     }
 
+    /**
+     * Decodes streamed row keys a page at a time, and emits them as backend keys.
+     */
+    @RequiredArgsConstructor
+    private class KeyObserver implements AsyncObserver<Row> {
+        private final AsyncObserver<BackendKeySet> observer;
+        private final Runnable release;
+
+        private final List<ByteString> page = new ArrayList<>();
+        private long failedKeys = 0;
+
+        @Override
+        public AsyncFuture<Void> observe(final Row row) {
+            page.add(row.getKey());
+
+            if (page.size() < KEYS_PAGE_SIZE) {
+                return async.resolved();
+            }
+
+            return flush();
+        }
+
+        @Override
+        public void cancel() {
+            try {
+                observer.cancel();
+            } finally {
+                release.run();
+            }
+        }
+
+        @Override
+        public void fail(final Throwable cause) {
+            try {
+                observer.fail(cause);
+            } finally {
+                release.run();
+            }
+        }
+
+        @Override
+        public void end() {
+            flush().onDone(new FutureDone<Void>() {
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                    fail(cause);
+                }
+
+                @Override
+                public void resolved(final Void result) throws Exception {
+                    try {
+                        observer.end();
+                    } finally {
+                        release.run();
+                    }
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                    cancel();
+                }
+            });
+        }
+
+        private AsyncFuture<Void> flush() {
+            if (page.isEmpty()) {
+                return async.resolved();
+            }
+
+            final List<ByteString> keys = new ArrayList<>(page);
+            page.clear();
+
+            return rowKeyEncoding.decode(keys).lazyTransform(decoded -> {
+                final List<BackendKey> backendKeys = new ArrayList<>(decoded.size());
+
+                for (final Optional<RowKey> k : decoded) {
+                    if (k.isPresent()) {
+                        backendKeys.add(new BackendKey(k.get().getSeries(), k.get().getBase()));
+                    } else {
+                        failedKeys++;
+                    }
+                }
+
+                /* key sets must not be empty, failed keys are reported with the next set */
+                if (backendKeys.isEmpty()) {
+                    return async.resolved();
+                }
+
+                final BackendKeySet set = new BackendKeySet(backendKeys, failedKeys);
+                failedKeys = 0;
+                return observer.observe(set);
+            });
+        }
+    }
+
+    @Data
+    static final class DirtyWindow {
+        private final RowKey rowKey;
+        private final long window;
+    }
+
     @RequiredArgsConstructor
     private static final class PreparedQuery {
         private final ByteString keyBlob;
         private final ByteString startKey;
         private final ByteString endKey;
         private final long base;
+        private final DateRange range;
     }
 }
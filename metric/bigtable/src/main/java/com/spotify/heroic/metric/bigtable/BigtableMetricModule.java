@@ -24,6 +24,7 @@ package com.spotify.heroic.metric.bigtable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.spotify.heroic.ExtraParameters;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
@@ -32,7 +33,9 @@ import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metric.MetricModule;
+import com.spotify.heroic.metric.RowKeyCache;
 import com.spotify.heroic.metric.bigtable.credentials.ComputeEngineCredentialsBuilder;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
@@ -47,6 +50,7 @@ import lombok.Data;
 import javax.inject.Named;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
@@ -62,6 +66,17 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
     public static final CredentialsBuilder DEFAULT_CREDENTIALS =
         new ComputeEngineCredentialsBuilder();
     public static final boolean DEFAULT_CONFIGURE = false;
+    public static final boolean DEFAULT_BLOCK_STORAGE = false;
+    public static final Duration DEFAULT_BLOCK_SIZE = Duration.of(2, TimeUnit.HOURS);
+    public static final Duration DEFAULT_BLOCK_SETTLE = Duration.of(10, TimeUnit.MINUTES);
+    public static final boolean DEFAULT_WRITE_BATCHING = false;
+    public static final Duration DEFAULT_WRITE_FLUSH_INTERVAL =
+        Duration.of(10, TimeUnit.MILLISECONDS);
+    public static final long DEFAULT_WRITE_MAX_BATCH_BYTES = 4 * 1024 * 1024;
+    public static final int DEFAULT_WRITE_MAX_IN_FLIGHT = 16;
+    public static final String ROW_KEYS_SERIES = "series";
+    public static final String ROW_KEYS_HASH = "hash";
+    public static final String DEFAULT_ROW_KEYS = ROW_KEYS_SERIES;
 
     private final Optional<String> id;
     private final Groups groups;
@@ -71,6 +86,11 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
     private final String table;
     private final CredentialsBuilder credentials;
     private final boolean configure;
+    private final Optional<BlockStorage> blockStorage;
+    private final Optional<WriteBatching> writeBatching;
+    private final String rowKeys;
+    private final Optional<String> seriesTable;
+    private final long rowKeyCacheSize;
 
     @JsonCreator
     public BigtableMetricModule(
@@ -80,7 +100,17 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("cluster") Optional<String> cluster,
         @JsonProperty("table") Optional<String> table,
         @JsonProperty("credentials") Optional<CredentialsBuilder> credentials,
-        @JsonProperty("configure") Optional<Boolean> configure
+        @JsonProperty("configure") Optional<Boolean> configure,
+        @JsonProperty("blockStorage") Optional<Boolean> blockStorage,
+        @JsonProperty("blockSize") Optional<Duration> blockSize,
+        @JsonProperty("blockSettle") Optional<Duration> blockSettle,
+        @JsonProperty("writeBatching") Optional<Boolean> writeBatching,
+        @JsonProperty("writeFlushInterval") Optional<Duration> writeFlushInterval,
+        @JsonProperty("writeMaxBatchBytes") Optional<Long> writeMaxBatchBytes,
+        @JsonProperty("writeMaxInFlight") Optional<Integer> writeMaxInFlight,
+        @JsonProperty("rowKeys") Optional<String> rowKeys,
+        @JsonProperty("seriesTable") Optional<String> seriesTable,
+        @JsonProperty("rowKeyCacheSize") Optional<Long> rowKeyCacheSize
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
@@ -90,6 +120,32 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         this.table = table.orElse(DEFAULT_TABLE);
         this.credentials = credentials.orElse(DEFAULT_CREDENTIALS);
         this.configure = configure.orElse(DEFAULT_CONFIGURE);
+
+        if (blockStorage.orElse(DEFAULT_BLOCK_STORAGE)) {
+            this.blockStorage = of(
+                new BlockStorage(blockSize.orElse(DEFAULT_BLOCK_SIZE).toMilliseconds(),
+                    blockSettle.orElse(DEFAULT_BLOCK_SETTLE).toMilliseconds()));
+        } else {
+            this.blockStorage = empty();
+        }
+
+        if (writeBatching.orElse(DEFAULT_WRITE_BATCHING)) {
+            this.writeBatching = of(new WriteBatching(
+                writeFlushInterval.orElse(DEFAULT_WRITE_FLUSH_INTERVAL).toMilliseconds(),
+                writeMaxBatchBytes.orElse(DEFAULT_WRITE_MAX_BATCH_BYTES),
+                writeMaxInFlight.orElse(DEFAULT_WRITE_MAX_IN_FLIGHT)));
+        } else {
+            this.writeBatching = empty();
+        }
+
+        this.rowKeys = rowKeys.orElse(DEFAULT_ROW_KEYS);
+
+        if (!ROW_KEYS_SERIES.equals(this.rowKeys) && !ROW_KEYS_HASH.equals(this.rowKeys)) {
+            throw new IllegalArgumentException("rowKeys: unsupported encoding: " + this.rowKeys);
+        }
+
+        this.seriesTable = seriesTable;
+        this.rowKeyCacheSize = rowKeyCacheSize.orElse(RowKeyCache.DEFAULT_SIZE);
     }
 
     @Override
@@ -154,10 +210,33 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
 
         @Provides
         @BigtableScope
-        public Serializer<RowKey> rowKeySerializer(
-            Serializer<Series> series, @Named("common") SerializerFramework s
+        public Optional<BlockStorage> blockStorage() {
+            return blockStorage;
+        }
+
+        @Provides
+        @BigtableScope
+        public Optional<WriteBatching> writeBatching() {
+            return writeBatching;
+        }
+
+        @Provides
+        @BigtableScope
+        public RowKeyEncoding rowKeyEncoding(
+            final AsyncFramework async, final Serializer<Series> series,
+            @Named("common") final SerializerFramework s,
+            final Managed<BigtableConnection> connection, final MetricBackendReporter reporter
         ) {
-            return new RowKey_Serializer(s);
+            final RowKeyEncoding encoding;
+
+            if (ROW_KEYS_HASH.equals(rowKeys)) {
+                encoding = new HashRowKeyEncoding(async, s, series, connection, seriesTable);
+            } else {
+                encoding = new SeriesRowKeyEncoding(async, s, new RowKey_Serializer(s));
+            }
+
+            return new CachedRowKeyEncoding(encoding,
+                new RowKeyCache<>(rowKeyCacheSize, reporter));
         }
 
         @Provides
@@ -191,6 +270,16 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
         private Optional<String> table = empty();
         private Optional<CredentialsBuilder> credentials = empty();
         private Optional<Boolean> configure = empty();
+        private Optional<Boolean> blockStorage = empty();
+        private Optional<Duration> blockSize = empty();
+        private Optional<Duration> blockSettle = empty();
+        private Optional<Boolean> writeBatching = empty();
+        private Optional<Duration> writeFlushInterval = empty();
+        private Optional<Long> writeMaxBatchBytes = empty();
+        private Optional<Integer> writeMaxInFlight = empty();
+        private Optional<String> rowKeys = empty();
+        private Optional<String> seriesTable = empty();
+        private Optional<Long> rowKeyCacheSize = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -232,9 +321,60 @@ public final class BigtableMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder blockStorage(final boolean blockStorage) {
+            this.blockStorage = of(blockStorage);
+            return this;
+        }
+
+        public Builder blockSize(final Duration blockSize) {
+            this.blockSize = of(blockSize);
+            return this;
+        }
+
+        public Builder blockSettle(final Duration blockSettle) {
+            this.blockSettle = of(blockSettle);
+            return this;
+        }
+
+        public Builder writeBatching(final boolean writeBatching) {
+            this.writeBatching = of(writeBatching);
+            return this;
+        }
+
+        public Builder writeFlushInterval(final Duration writeFlushInterval) {
+            this.writeFlushInterval = of(writeFlushInterval);
+            return this;
+        }
+
+        public Builder writeMaxBatchBytes(final long writeMaxBatchBytes) {
+            this.writeMaxBatchBytes = of(writeMaxBatchBytes);
+            return this;
+        }
+
+        public Builder writeMaxInFlight(final int writeMaxInFlight) {
+            this.writeMaxInFlight = of(writeMaxInFlight);
+            return this;
+        }
+
+        public Builder rowKeys(final String rowKeys) {
+            this.rowKeys = of(rowKeys);
+            return this;
+        }
+
+        public Builder seriesTable(final String seriesTable) {
+            this.seriesTable = of(seriesTable);
+            return this;
+        }
+
+        public Builder rowKeyCacheSize(final long rowKeyCacheSize) {
+            this.rowKeyCacheSize = of(rowKeyCacheSize);
+            return this;
+        }
+
         public BigtableMetricModule build() {
             return new BigtableMetricModule(id, groups, project, zone, cluster, table, credentials,
-                configure);
+                configure, blockStorage, blockSize, blockSettle, writeBatching, writeFlushInterval,
+                writeMaxBatchBytes, writeMaxInFlight, rowKeys, seriesTable, rowKeyCacheSize);
         }
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import lombok.Data;
+
+/**
+ * Configuration for storing points in compressed blocks.
+ * <p>
+ * Points are always written as individual hot cells, and once the window they belong to has been
+ * closed for longer than the settle period they are compacted into a single block cell.
+ */
+@Data
+public class BlockStorage {
+    /**
+     * Size of the window covered by each block, in milliseconds.
+     */
+    private final long size;
+
+    /**
+     * How long after a window has closed until it is compacted, in milliseconds.
+     */
+    private final long settle;
+
+    /**
+     * Get the offset of the window that the given offset belongs to.
+     */
+    public long window(final long offset) {
+        return offset - offset % size;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.RowKeyCache;
+import eu.toolchain.async.AsyncFuture;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Row key encoding which caches encoded row keys, since the same rows are encoded over and over
+ * again when written to and read from.
+ */
+@RequiredArgsConstructor
+public class CachedRowKeyEncoding implements RowKeyEncoding {
+    private final RowKeyEncoding delegate;
+    private final RowKeyCache<ByteString> cache;
+
+    @Override
+    public ByteString encode(final RowKey rowKey) throws IOException {
+        return cache.get(rowKey.getSeries(), rowKey.getBase(), () -> delegate.encode(rowKey));
+    }
+
+    @Override
+    public AsyncFuture<List<Optional<RowKey>>> decode(final List<ByteString> keys) {
+        return delegate.decode(keys);
+    }
+
+    @Override
+    public AsyncFuture<Void> register(final Series series) {
+        return delegate.register(series);
+    }
+
+    @Override
+    public Optional<SideTable> sideTable() {
+        return delegate.sideTable();
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.bigtable.api.Family;
+import com.spotify.heroic.metric.bigtable.api.Mutations;
+import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
+import com.spotify.heroic.metric.bigtable.api.Row;
+import com.spotify.heroic.metric.bigtable.api.RowSet;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.serializer.BytesSerialWriter;
+import eu.toolchain.serializer.SerialReader;
+import eu.toolchain.serializer.Serializer;
+import eu.toolchain.serializer.SerializerFramework;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Row keys containing the 128-bit hash of the series, followed by the base of the row.
+ * <p>
+ * Since the series can't be recovered from its hash, keys can only be decoded if a series table
+ * is configured. Every written series is then stored in it, keyed by its hash.
+ */
+@RequiredArgsConstructor
+public class HashRowKeyEncoding implements RowKeyEncoding {
+    public static final String SERIES = "series";
+    public static final ByteString SERIES_QUALIFIER = ByteString.copyFromUtf8("s");
+
+    /* number of series remembered as registered, to avoid writing them to the series table again */
+    public static final long REGISTERED_SIZE = 1000000;
+
+    private static final int HASH_BYTES = 16;
+    private static final int KEY_BYTES = HASH_BYTES + Long.BYTES;
+
+    private final AsyncFramework async;
+    private final SerializerFramework serializer;
+    private final Serializer<Series> seriesSerializer;
+    private final Managed<BigtableConnection> connection;
+    private final Optional<String> seriesTable;
+
+    private final Cache<HashCode, Boolean> registered =
+        CacheBuilder.newBuilder().maximumSize(REGISTERED_SIZE).build();
+
+    @Override
+    public ByteString encode(final RowKey rowKey) {
+        final byte[] bytes = new byte[KEY_BYTES];
+        rowKey.getSeries().getHashCode().writeBytesTo(bytes, 0, HASH_BYTES);
+        ByteBuffer.wrap(bytes, HASH_BYTES, Long.BYTES).putLong(rowKey.getBase());
+        return ByteString.copyFrom(bytes);
+    }
+
+    @Override
+    public AsyncFuture<List<Optional<RowKey>>> decode(final List<ByteString> keys) {
+        if (!seriesTable.isPresent()) {
+            final List<Optional<RowKey>> results = new ArrayList<>(keys.size());
+            keys.forEach(k -> results.add(Optional.empty()));
+            return async.resolved(results);
+        }
+
+        final Set<ByteString> hashes = new LinkedHashSet<>();
+
+        for (final ByteString key : keys) {
+            if (key.size() == KEY_BYTES) {
+                hashes.add(key.substring(0, HASH_BYTES));
+            }
+        }
+
+        final ReadRowsRequest request =
+            ReadRowsRequest.builder().rowSet(RowSet.rowKeys(new ArrayList<>(hashes))).build();
+
+        return connection
+            .doto(c -> c.dataClient().readRows(seriesTable.get(), request))
+            .directTransform(rows -> {
+                final Map<ByteString, Series> series = new HashMap<>(rows.size());
+
+                for (final Row row : rows) {
+                    final Optional<Family> family = row.getFamily(SERIES);
+
+                    if (!family.isPresent()) {
+                        continue;
+                    }
+
+                    for (final Family.LatestCellValueColumn cell : family
+                        .get()
+                        .latestCellValue()) {
+                        series.put(row.getKey(), deserializeSeries(cell.getValue()));
+                    }
+                }
+
+                final List<Optional<RowKey>> results = new ArrayList<>(keys.size());
+
+                for (final ByteString key : keys) {
+                    if (key.size() != KEY_BYTES) {
+                        results.add(Optional.empty());
+                        continue;
+                    }
+
+                    final long base = key.substring(HASH_BYTES).asReadOnlyByteBuffer().getLong();
+
+                    results.add(Optional
+                        .ofNullable(series.get(key.substring(0, HASH_BYTES)))
+                        .map(s -> new RowKey(s, base)));
+                }
+
+                return results;
+            });
+    }
+
+    @Override
+    public AsyncFuture<Void> register(final Series series) {
+        if (!seriesTable.isPresent()) {
+            return async.resolved();
+        }
+
+        final HashCode hash = series.getHashCode();
+
+        if (registered.getIfPresent(hash) != null) {
+            return async.resolved();
+        }
+
+        final ByteString key = ByteString.copyFrom(hash.asBytes());
+
+        return connection.doto(c -> {
+            final Mutations mutations = Mutations
+                .builder()
+                .setCell(SERIES, SERIES_QUALIFIER, serializeSeries(series))
+                .build();
+
+            return c.dataClient().mutateRow(seriesTable.get(), key, mutations);
+        }).directTransform(v -> {
+            registered.put(hash, true);
+            return null;
+        });
+    }
+
+    @Override
+    public Optional<SideTable> sideTable() {
+        return seriesTable.map(table -> new SideTable(table, SERIES));
+    }
+
+    private ByteString serializeSeries(final Series series) throws IOException {
+        try (final BytesSerialWriter writer = serializer.writeBytes()) {
+            seriesSerializer.serialize(writer, series);
+            return ByteString.copyFrom(writer.toByteArray());
+        }
+    }
+
+    private Series deserializeSeries(final ByteString value) throws IOException {
+        try (final SerialReader reader = serializer.readByteBuffer(value.asReadOnlyByteBuffer())) {
+            return seriesSerializer.deserialize(reader);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.bigtable.api.Mutations;
+import com.spotify.heroic.metric.bigtable.api.RowMutation;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.FutureDone;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ResolvableFuture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates row mutations from concurrent writes, and flushes them as bulk mutations.
+ * <p>
+ * A batch is flushed when it reaches the configured size, or when the flush interval has passed
+ * since its first mutation was added. At most {@code maxInFlight} batches are written at the same
+ * time, and any further batches are queued until a write completes.
+ * <p>
+ * The future returned for each mutation is only completed once its batch has been written, which
+ * keeps the write permits of the ingestion path held while data is queued here.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MutationBatcher {
+    /* maximum number of mutations supported in a single bulk mutation */
+    public static final int MAX_MUTATIONS = 100000;
+
+    private final AsyncFramework async;
+    private final Scheduler scheduler;
+    private final Managed<BigtableConnection> connection;
+    private final String table;
+    private final WriteBatching config;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Batch> queued = new ArrayDeque<>();
+    private final List<ResolvableFuture<Void>> drained = new ArrayList<>();
+
+    private Batch current = null;
+    private int inFlight = 0;
+
+    /**
+     * Add a mutation of a single row to the current batch.
+     *
+     * @param rowKey Key of the row to mutate.
+     * @param mutations Mutations to apply to the row.
+     * @return A future that is resolved when the mutation has been written.
+     */
+    public AsyncFuture<Void> mutateRow(final ByteString rowKey, final Mutations mutations) {
+        final ResolvableFuture<Void> future = async.future();
+        final List<Batch> flushed = new ArrayList<>(2);
+
+        synchronized (lock) {
+            if (current != null && current.mutations + mutations.size() > MAX_MUTATIONS) {
+                flushed.add(current);
+                current = null;
+            }
+
+            if (current == null) {
+                current = newBatch();
+            }
+
+            current.add(new Entry(new RowMutation(rowKey, mutations), future));
+
+            if (current.isFull()) {
+                flushed.add(current);
+                current = null;
+            }
+        }
+
+        flushed.forEach(this::send);
+        return future;
+    }
+
+    /**
+     * Flush the current batch, if any.
+     *
+     * @return A future that is resolved when all batches that were queued or being written at the
+     * time of the flush have been written.
+     */
+    public AsyncFuture<Void> flush() {
+        final Batch batch;
+
+        synchronized (lock) {
+            batch = current;
+            current = null;
+        }
+
+        if (batch != null) {
+            send(batch);
+        }
+
+        synchronized (lock) {
+            if (inFlight == 0) {
+                return async.resolved();
+            }
+
+            final ResolvableFuture<Void> future = async.future();
+            drained.add(future);
+            return future;
+        }
+    }
+
+    private Batch newBatch() {
+        final Batch batch = new Batch();
+
+        scheduler.schedule("bigtable-write-flush", config.getFlushInterval(),
+            TimeUnit.MILLISECONDS, () -> flushIfCurrent(batch));
+
+        return batch;
+    }
+
+    private void flushIfCurrent(final Batch batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                return;
+            }
+
+            current = null;
+        }
+
+        send(batch);
+    }
+
+    private void send(final Batch batch) {
+        synchronized (lock) {
+            if (inFlight >= config.getMaxInFlight()) {
+                queued.add(batch);
+                return;
+            }
+
+            inFlight += 1;
+        }
+
+        write(batch);
+    }
+
+    private void next() {
+        final Batch batch;
+        final List<ResolvableFuture<Void>> waiters;
+
+        synchronized (lock) {
+            batch = queued.poll();
+
+            if (batch != null) {
+                waiters = null;
+            } else {
+                inFlight -= 1;
+
+                if (inFlight > 0 || drained.isEmpty()) {
+                    return;
+                }
+
+                waiters = new ArrayList<>(drained);
+                drained.clear();
+            }
+        }
+
+        if (batch != null) {
+            write(batch);
+            return;
+        }
+
+        waiters.forEach(w -> w.resolve(null));
+    }
+
+    private void write(final Batch batch) {
+        final List<RowMutation> rows = new ArrayList<>(batch.entries.size());
+
+        for (final Entry e : batch.entries) {
+            rows.add(e.row);
+        }
+
+        connection
+            .doto(c -> c.dataClient().mutateRows(table, rows))
+            .onDone(new FutureDone<List<Optional<Exception>>>() {
+                @Override
+                public void failed(final Throwable cause) throws Exception {
+                    for (final Entry e : batch.entries) {
+                        e.future.fail(cause);
+                    }
+                }
+
+                @Override
+                public void resolved(final List<Optional<Exception>> results) throws Exception {
+                    if (results.size() != batch.entries.size()) {
+                        failed(new IllegalStateException(
+                            "Expected " + batch.entries.size() + " results, but got " +
+                                results.size()));
+                        return;
+                    }
+
+                    for (int i = 0; i < results.size(); i++) {
+                        final Optional<Exception> error = results.get(i);
+                        final Entry e = batch.entries.get(i);
+
+                        if (error.isPresent()) {
+                            e.future.fail(error.get());
+                        } else {
+                            e.future.resolve(null);
+                        }
+                    }
+                }
+
+                @Override
+                public void cancelled() throws Exception {
+                    for (final Entry e : batch.entries) {
+                        e.future.cancel();
+                    }
+                }
+            })
+            .onFinished(this::next);
+    }
+
+    private class Batch {
+        private final List<Entry> entries = new ArrayList<>();
+        private long bytes = 0;
+        private int mutations = 0;
+
+        void add(final Entry entry) {
+            entries.add(entry);
+            bytes += entry.row.getRowKey().size() + entry.row.getMutations().getSerializedSize();
+            mutations += entry.row.getMutations().size();
+        }
+
+        boolean isFull() {
+            return bytes >= config.getMaxBatchBytes() || mutations >= MAX_MUTATIONS;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        private final RowMutation row;
+        private final ResolvableFuture<Void> future;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.PointChunk;
+
+import java.util.Arrays;
+
+/**
+ * A block of points compressed with delta-of-delta encoded timestamps and XOR encoded values.
+ * <p>
+ * The encoding follows the one described in <em>Gorilla: A Fast, Scalable, In-Memory Time Series
+ * Database</em>, except that the header carries the number of points instead of relying on an
+ * end-of-stream marker. Points must be sorted by timestamp when encoded.
+ */
+public final class PointBlock {
+    private PointBlock() {
+    }
+
+    /**
+     * Encode the given sorted, non-empty, chunk of points.
+     *
+     * @param points Points to encode.
+     * @return The encoded block.
+     */
+    public static ByteString encode(final PointChunk points) {
+        final int size = points.size();
+
+        if (size == 0) {
+            throw new IllegalArgumentException("cannot encode an empty block");
+        }
+
+        final BitWriter out = new BitWriter(20 + size * 2);
+
+        long timestamp = points.timestamp(0);
+        long bits = Double.doubleToRawLongBits(points.value(0));
+
+        out.write(size, 32);
+        out.write(timestamp, 64);
+        out.write(bits, 64);
+
+        long delta = 0;
+        int leading = Integer.MAX_VALUE;
+        int trailing = 0;
+
+        for (int i = 1; i < size; i++) {
+            final long t = points.timestamp(i);
+
+            if (t < timestamp) {
+                throw new IllegalArgumentException("points are not sorted");
+            }
+
+            final long d = t - timestamp;
+            writeDeltaOfDelta(out, d - delta);
+            delta = d;
+            timestamp = t;
+
+            final long next = Double.doubleToRawLongBits(points.value(i));
+            final long xor = bits ^ next;
+            bits = next;
+
+            if (xor == 0) {
+                out.write(0, 1);
+                continue;
+            }
+
+            /* leading zeros are stored in five bits */
+            final int l = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            final int r = Long.numberOfTrailingZeros(xor);
+
+            if (l >= leading && r >= trailing) {
+                /* meaningful bits fit in the previous window */
+                out.write(0b10, 2);
+                out.write(xor >>> trailing, 64 - leading - trailing);
+                continue;
+            }
+
+            leading = l;
+            trailing = r;
+
+            final int meaningful = 64 - leading - trailing;
+
+            out.write(0b11, 2);
+            out.write(leading, 5);
+            out.write(meaningful - 1, 6);
+            out.write(xor >>> trailing, meaningful);
+        }
+
+        return out.toByteString();
+    }
+
+    /**
+     * Decode the points of the given block that are within {@code (start, end]}.
+     *
+     * @param block Block to decode.
+     * @param start Exclusive start of the range to decode.
+     * @param end Inclusive end of the range to decode.
+     * @param out Builder to add decoded points to.
+     */
+    public static void decode(
+        final ByteString block, final long start, final long end, final PointChunk.Builder out
+    ) {
+        final BitReader in = new BitReader(block.toByteArray());
+
+        final int size = (int) in.read(32);
+        long timestamp = in.read(64);
+        long bits = in.read(64);
+
+        if (timestamp > end) {
+            return;
+        }
+
+        if (timestamp > start) {
+            out.add(timestamp, Double.longBitsToDouble(bits));
+        }
+
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+
+        for (int i = 1; i < size; i++) {
+            delta += readDeltaOfDelta(in);
+            timestamp += delta;
+
+            if (in.read(1) != 0) {
+                if (in.read(1) != 0) {
+                    leading = (int) in.read(5);
+                    trailing = 64 - leading - ((int) in.read(6) + 1);
+                }
+
+                bits ^= in.read(64 - leading - trailing) << trailing;
+            }
+
+            if (timestamp > end) {
+                return;
+            }
+
+            if (timestamp > start) {
+                out.add(timestamp, Double.longBitsToDouble(bits));
+            }
+        }
+    }
+
+    /**
+     * Overlay hot points on top of sorted points decoded from blocks.
+     * <p>
+     * Where both contain a point for the same timestamp, the hot point wins since it was written
+     * after the block was compacted.
+     *
+     * @param cold Sorted points decoded from blocks.
+     * @param hot Sorted hot points.
+     * @return A sorted chunk with the points of both.
+     */
+    public static PointChunk overlay(final PointChunk cold, final PointChunk hot) {
+        if (hot.isEmpty()) {
+            return cold;
+        }
+
+        if (cold.isEmpty()) {
+            return hot;
+        }
+
+        final PointChunk.Builder builder = PointChunk.builder(cold.size() + hot.size());
+
+        int c = 0;
+        int h = 0;
+
+        while (c < cold.size() && h < hot.size()) {
+            final long ct = cold.timestamp(c);
+            final long ht = hot.timestamp(h);
+
+            if (ct < ht) {
+                builder.add(ct, cold.value(c++));
+                continue;
+            }
+
+            if (ct == ht) {
+                c++;
+            }
+
+            builder.add(ht, hot.value(h++));
+        }
+
+        for (; c < cold.size(); c++) {
+            builder.add(cold.timestamp(c), cold.value(c));
+        }
+
+        for (; h < hot.size(); h++) {
+            builder.add(hot.timestamp(h), hot.value(h));
+        }
+
+        return builder.build();
+    }
+
+    private static void writeDeltaOfDelta(final BitWriter out, final long dod) {
+        if (dod == 0) {
+            out.write(0, 1);
+        } else if (fits(dod, 7)) {
+            out.write(0b10, 2);
+            out.write(dod, 7);
+        } else if (fits(dod, 9)) {
+            out.write(0b110, 3);
+            out.write(dod, 9);
+        } else if (fits(dod, 12)) {
+            out.write(0b1110, 4);
+            out.write(dod, 12);
+        } else {
+            out.write(0b1111, 4);
+            out.write(dod, 64);
+        }
+    }
+
+    private static long readDeltaOfDelta(final BitReader in) {
+        if (in.read(1) == 0) {
+            return 0;
+        }
+
+        if (in.read(1) == 0) {
+            return signed(in.read(7), 7);
+        }
+
+        if (in.read(1) == 0) {
+            return signed(in.read(9), 9);
+        }
+
+        if (in.read(1) == 0) {
+            return signed(in.read(12), 12);
+        }
+
+        return in.read(64);
+    }
+
+    private static boolean fits(final long value, final int bits) {
+        return value >= -(1L << (bits - 1)) && value < (1L << (bits - 1));
+    }
+
+    private static long signed(final long value, final int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+
+    /**
+     * Writes bits most significant first.
+     */
+    static final class BitWriter {
+        private byte[] buffer;
+        private int position = 0;
+
+        BitWriter(final int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void write(final long value, int bits) {
+            while (bits > 0) {
+                final int index = position >>> 3;
+
+                if (index >= buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+
+                final int free = 8 - (position & 7);
+                final int n = Math.min(free, bits);
+                final int chunk = (int) ((value >>> (bits - n)) & ((1 << n) - 1));
+
+                buffer[index] |= (byte) (chunk << (free - n));
+
+                position += n;
+                bits -= n;
+            }
+        }
+
+        ByteString toByteString() {
+            return ByteString.copyFrom(buffer, 0, (position + 7) >>> 3);
+        }
+    }
+
+    /**
+     * Reads bits most significant first.
+     */
+    static final class BitReader {
+        private final byte[] buffer;
+        private int position = 0;
+
+        BitReader(final byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        long read(int bits) {
+            long value = 0;
+
+            while (bits > 0) {
+                final int available = 8 - (position & 7);
+                final int n = Math.min(available, bits);
+                final int b = buffer[position >>> 3] & 0xff;
+
+                value = (value << n) | ((b >>> (available - n)) & ((1 << n) - 1));
+
+                position += n;
+                bits -= n;
+            }
+
+            return value;
+        }
+    }
+}
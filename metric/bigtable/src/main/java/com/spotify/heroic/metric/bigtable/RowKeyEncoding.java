@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.common.Series;
+import eu.toolchain.async.AsyncFuture;
+import lombok.Data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Encodes the keys of rows in the metrics table.
+ */
+public interface RowKeyEncoding {
+    /**
+     * Encode the given row key.
+     *
+     * @param rowKey Row key to encode.
+     * @return The encoded row key.
+     */
+    ByteString encode(RowKey rowKey) throws IOException;
+
+    /**
+     * Decode the given encoded row keys.
+     *
+     * @param keys Encoded row keys to decode.
+     * @return A future resolved to the decoded row keys, in the same order as the given keys. Keys
+     * which could not be decoded are empty.
+     */
+    AsyncFuture<List<Optional<RowKey>>> decode(List<ByteString> keys);
+
+    /**
+     * Make sure that the keys of rows for the given series can be decoded.
+     * <p>
+     * This is called for every write, and is expected to be cheap for series that have already
+     * been registered.
+     *
+     * @param series Series to register.
+     * @return A future resolved when the series has been registered.
+     */
+    AsyncFuture<Void> register(Series series);
+
+    /**
+     * Side table that is required by this encoding, if any.
+     *
+     * @return The name of the side table, and the column family it uses.
+     */
+    Optional<SideTable> sideTable();
+
+    @Data
+    class SideTable {
+        private final String table;
+        private final String columnFamily;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.common.Series;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.serializer.BytesSerialWriter;
+import eu.toolchain.serializer.SerialReader;
+import eu.toolchain.serializer.Serializer;
+import eu.toolchain.serializer.SerializerFramework;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Row keys containing the full serialized series, followed by the base of the row.
+ * <p>
+ * This is the original row key format, and it can be decoded without any side tables.
+ */
+@RequiredArgsConstructor
+public class SeriesRowKeyEncoding implements RowKeyEncoding {
+    private final AsyncFramework async;
+    private final SerializerFramework serializer;
+    private final Serializer<RowKey> rowKeySerializer;
+
+    @Override
+    public ByteString encode(final RowKey rowKey) throws IOException {
+        try (final BytesSerialWriter writer = serializer.writeBytes()) {
+            rowKeySerializer.serialize(writer, rowKey);
+            return ByteString.copyFrom(writer.toByteArray());
+        }
+    }
+
+    @Override
+    public AsyncFuture<List<Optional<RowKey>>> decode(final List<ByteString> keys) {
+        final List<Optional<RowKey>> results = new ArrayList<>(keys.size());
+
+        for (final ByteString key : keys) {
+            try (final SerialReader reader = serializer.readByteBuffer(
+                key.asReadOnlyByteBuffer())) {
+                results.add(Optional.of(rowKeySerializer.deserialize(reader)));
+            } catch (final Exception e) {
+                results.add(Optional.empty());
+            }
+        }
+
+        return async.resolved(results);
+    }
+
+    @Override
+    public AsyncFuture<Void> register(final Series series) {
+        return async.resolved();
+    }
+
+    @Override
+    public Optional<SideTable> sideTable() {
+        return Optional.empty();
+    }
+}
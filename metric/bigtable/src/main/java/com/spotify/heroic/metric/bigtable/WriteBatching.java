@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.bigtable;
+
+import lombok.Data;
+
+/**
+ * Configuration for batching writes from many requests into bulk mutations.
+ */
+@Data
+public class WriteBatching {
+    /**
+     * Maximum time that a mutation waits for its batch to fill up, in milliseconds.
+     */
+    private final long flushInterval;
+
+    /**
+     * Size of the serialized mutations at which a batch is flushed, in bytes.
+     */
+    private final long maxBatchBytes;
+
+    /**
+     * Maximum number of batches being written at the same time.
+     */
+    private final int maxInFlight;
+}
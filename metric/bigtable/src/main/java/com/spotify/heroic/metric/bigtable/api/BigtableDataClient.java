@@ -26,10 +26,23 @@ import com.spotify.heroic.async.AsyncObservable;
 import eu.toolchain.async.AsyncFuture;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface BigtableDataClient {
     AsyncFuture<Void> mutateRow(String tableName, ByteString rowKey, Mutations mutations);
 
+    /**
+     * Apply mutations to several rows with a single request.
+     * <p>
+     * Mutations are applied atomically for each row, but not across rows.
+     *
+     * @param tableName Table to mutate rows in.
+     * @param rows Rows to mutate.
+     * @return A future that will be resolved with the outcome of each row, in the same order as
+     * the given rows. A present error indicates that the mutation of that row failed.
+     */
+    AsyncFuture<List<Optional<Exception>>> mutateRows(String tableName, List<RowMutation> rows);
+
     /**
      * Read the given set of rows, only resolving when all rows are available.
      *
@@ -51,4 +64,20 @@ public interface BigtableDataClient {
     AsyncFuture<Row> readModifyWriteRow(
         String tableName, ByteString rowKey, ReadModifyWriteRules rules
     );
+
+    /**
+     * Atomically apply one of two sets of mutations to a row, depending on whether the row has
+     * any cells matching the given predicate.
+     *
+     * @param tableName Table to mutate the row in.
+     * @param rowKey Key of the row to mutate.
+     * @param predicate Filter to check the row against.
+     * @param trueMutations Mutations to apply if the predicate matches any cell.
+     * @param falseMutations Mutations to apply if the predicate does not match any cell.
+     * @return A future that will be resolved with {@code true} if the predicate matched.
+     */
+    AsyncFuture<Boolean> checkAndMutateRow(
+        String tableName, ByteString rowKey, RowFilter predicate, Mutations trueMutations,
+        Mutations falseMutations
+    );
 }
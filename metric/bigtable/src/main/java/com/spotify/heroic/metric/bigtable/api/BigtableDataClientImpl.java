@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.metric.bigtable.api;
 
+import com.google.bigtable.v1.CheckAndMutateRowRequest;
 import com.google.bigtable.v1.ReadModifyWriteRowRequest;
 import com.google.cloud.bigtable.grpc.scanner.ResultScanner;
 import com.google.common.collect.ImmutableMap;
@@ -40,6 +41,7 @@ import lombok.ToString;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RequiredArgsConstructor
 @ToString
@@ -69,6 +71,39 @@ public class BigtableDataClientImpl implements BigtableDataClient {
             .build()));
     }
 
+    @Override
+    public AsyncFuture<List<Optional<Exception>>> mutateRows(
+        final String tableName, final List<RowMutation> rows
+    ) {
+        final com.google.bigtable.v1.MutateRowsRequest.Builder request =
+            com.google.bigtable.v1.MutateRowsRequest
+                .newBuilder()
+                .setTableName(Table.toURI(clusterUri, tableName));
+
+        for (final RowMutation row : rows) {
+            request.addEntries(com.google.bigtable.v1.MutateRowsRequest.Entry
+                .newBuilder()
+                .setRowKey(row.getRowKey())
+                .addAllMutations(row.getMutations().getMutations()));
+        }
+
+        return convert(client.mutateRowsAsync(request.build())).directTransform(response -> {
+            final List<Optional<Exception>> results = new ArrayList<>(rows.size());
+
+            for (final com.google.rpc.Status status : response.getStatusesList()) {
+                if (status.getCode() == com.google.rpc.Code.OK_VALUE) {
+                    results.add(Optional.empty());
+                    continue;
+                }
+
+                results.add(Optional.of(new RuntimeException(
+                    "Mutation failed (" + status.getCode() + "): " + status.getMessage())));
+            }
+
+            return results;
+        });
+    }
+
     @Override
     public AsyncFuture<List<Row>> readRows(
         final String tableName, final ReadRowsRequest request
@@ -88,6 +123,21 @@ public class BigtableDataClientImpl implements BigtableDataClient {
             .build())).directTransform(r -> convertRow(r));
     }
 
+    @Override
+    public AsyncFuture<Boolean> checkAndMutateRow(
+        final String tableName, final ByteString rowKey, final RowFilter predicate,
+        final Mutations trueMutations, final Mutations falseMutations
+    ) {
+        return convert(client.checkAndMutateRowAsync(CheckAndMutateRowRequest
+            .newBuilder()
+            .setTableName(Table.toURI(clusterUri, tableName))
+            .setRowKey(rowKey)
+            .setPredicateFilter(predicate.toPb())
+            .addAllTrueMutations(trueMutations.getMutations())
+            .addAllFalseMutations(falseMutations.getMutations())
+            .build())).directTransform(r -> r.getPredicateMatched());
+    }
+
     @Override
     public AsyncObservable<Row> readRowsObserved(
         final String tableName, final ReadRowsRequest request
@@ -55,9 +55,10 @@ public class Family {
                     }
 
                     final ByteString qualifier = next.getQualifier();
-                    final ByteString value = next.getCells(0).getValue();
+                    final com.google.bigtable.v1.Cell cell = next.getCells(0);
 
-                    return new LatestCellValueColumn(qualifier, value);
+                    return new LatestCellValueColumn(qualifier, cell.getValue(),
+                        cell.getTimestampMicros());
                 }
 
                 @Override
@@ -72,5 +73,6 @@ public class Family {
     public static class LatestCellValueColumn {
         final ByteString qualifier;
         final ByteString value;
+        final long timestampMicros;
     }
 }
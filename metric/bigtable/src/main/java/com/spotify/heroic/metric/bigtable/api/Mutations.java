@@ -31,6 +31,9 @@ import java.util.List;
 
 @RequiredArgsConstructor
 public class Mutations {
+    /* timestamp which makes bigtable assign its own time to a written cell */
+    public static final long SERVER_TIMESTAMP = -1L;
+
     private final List<com.google.bigtable.v1.Mutation> mutations;
 
     /**
@@ -46,6 +49,34 @@ public class Mutations {
         return mutations;
     }
 
+    public List<com.google.bigtable.v1.Mutation> toPb() {
+        return mutations;
+    }
+
+    /**
+     * Get the number of mutations.
+     *
+     * @return The number of mutations.
+     */
+    public int size() {
+        return mutations.size();
+    }
+
+    /**
+     * Get the size of all mutations when serialized.
+     *
+     * @return The serialized size, in bytes.
+     */
+    public long getSerializedSize() {
+        long size = 0;
+
+        for (final com.google.bigtable.v1.Mutation m : mutations) {
+            size += m.getSerializedSize();
+        }
+
+        return size;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -56,18 +87,71 @@ public class Mutations {
 
         public Builder setCell(
             String family, ByteString columnQualifier, ByteString value
+        ) {
+            return setCell(family, columnQualifier, value, 0L);
+        }
+
+        /**
+         * Set a cell with the given timestamp.
+         *
+         * @param timestampMicros Timestamp of the cell in microseconds, or
+         * {@link #SERVER_TIMESTAMP} to use the time of the server.
+         */
+        public Builder setCell(
+            String family, ByteString columnQualifier, ByteString value, long timestampMicros
         ) {
             final com.google.bigtable.v1.Mutation.SetCell.Builder setCell =
                 com.google.bigtable.v1.Mutation.SetCell
                     .newBuilder()
                     .setFamilyName(family)
                     .setColumnQualifier(columnQualifier)
+                    .setTimestampMicros(timestampMicros)
                     .setValue(value);
 
             mutations.add(com.google.bigtable.v1.Mutation.newBuilder().setSetCell(setCell).build());
             return this;
         }
 
+        public Builder deleteFromColumn(String family, ByteString columnQualifier) {
+            final com.google.bigtable.v1.Mutation.DeleteFromColumn.Builder deleteFromColumn =
+                com.google.bigtable.v1.Mutation.DeleteFromColumn
+                    .newBuilder()
+                    .setFamilyName(family)
+                    .setColumnQualifier(columnQualifier);
+
+            mutations.add(com.google.bigtable.v1.Mutation
+                .newBuilder()
+                .setDeleteFromColumn(deleteFromColumn)
+                .build());
+            return this;
+        }
+
+        /**
+         * Delete the versions of a column which have a timestamp in the given range.
+         *
+         * @param startMicros Start of the range in microseconds, inclusive.
+         * @param endMicros End of the range in microseconds, exclusive.
+         */
+        public Builder deleteFromColumn(
+            String family, ByteString columnQualifier, long startMicros, long endMicros
+        ) {
+            final com.google.bigtable.v1.Mutation.DeleteFromColumn.Builder deleteFromColumn =
+                com.google.bigtable.v1.Mutation.DeleteFromColumn
+                    .newBuilder()
+                    .setFamilyName(family)
+                    .setColumnQualifier(columnQualifier)
+                    .setTimeRange(com.google.bigtable.v1.TimestampRange
+                        .newBuilder()
+                        .setStartTimestampMicros(startMicros)
+                        .setEndTimestampMicros(endMicros));
+
+            mutations.add(com.google.bigtable.v1.Mutation
+                .newBuilder()
+                .setDeleteFromColumn(deleteFromColumn)
+                .build());
+            return this;
+        }
+
         public Mutations build() {
             return new Mutations(ImmutableList.copyOf(mutations));
         }
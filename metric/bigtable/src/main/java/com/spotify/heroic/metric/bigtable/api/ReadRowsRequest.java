@@ -32,6 +32,8 @@ public class ReadRowsRequest {
     private final Optional<RowRange> range;
     private final Optional<RowFilter> filter;
     private final Optional<ByteString> rowKey;
+    private final Optional<RowSet> rowSet;
+    private final Optional<Long> numRowsLimit;
 
     public com.google.bigtable.v1.ReadRowsRequest toPb(final String tableUri) {
         final com.google.bigtable.v1.ReadRowsRequest.Builder builder =
@@ -41,6 +43,8 @@ public class ReadRowsRequest {
         range.map(RowRange::toPb).ifPresent(builder::setRowRange);
         filter.map(RowFilter::toPb).ifPresent(builder::setFilter);
         rowKey.ifPresent(builder::setRowKey);
+        rowSet.map(RowSet::toPb).ifPresent(builder::setRowSet);
+        numRowsLimit.ifPresent(builder::setNumRowsLimit);
 
         return builder.build();
     }
@@ -54,6 +58,8 @@ public class ReadRowsRequest {
         private Optional<RowRange> range = Optional.empty();
         private Optional<RowFilter> filter = Optional.empty();
         private Optional<ByteString> rowKey = Optional.empty();
+        private Optional<RowSet> rowSet = Optional.empty();
+        private Optional<Long> numRowsLimit = Optional.empty();
 
         public Builder range(final RowRange range) {
             this.range = Optional.of(range);
@@ -70,8 +76,18 @@ public class ReadRowsRequest {
             return this;
         }
 
+        public Builder rowSet(final RowSet rowSet) {
+            this.rowSet = Optional.of(rowSet);
+            return this;
+        }
+
+        public Builder numRowsLimit(final long numRowsLimit) {
+            this.numRowsLimit = Optional.of(numRowsLimit);
+            return this;
+        }
+
         public ReadRowsRequest build() {
-            return new ReadRowsRequest(range, filter, rowKey);
+            return new ReadRowsRequest(range, filter, rowKey, rowSet, numRowsLimit);
         }
     }
 }
@@ -25,6 +25,7 @@ import com.google.protobuf.ByteString;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 public interface RowFilter {
@@ -51,6 +52,48 @@ public interface RowFilter {
         return new Chain(chain);
     }
 
+    /**
+     * Emit the union of the cells matched by all the given row filters.
+     *
+     * @param filters Filters to apply.
+     * @return A filter that interleaves the output of all given row filters.
+     */
+    static RowFilter interleave(final Iterable<? extends RowFilter> filters) {
+        return new Interleave(filters);
+    }
+
+    /**
+     * Build a filter that only keeps the first cell of each row, without its value.
+     * <p>
+     * This is useful when only the keys of rows are of interest.
+     *
+     * @return A filter that strips rows of all their data.
+     */
+    static RowFilter keysOnly() {
+        return new KeysOnly();
+    }
+
+    /**
+     * Build a filter that only matches the row with the exact given key.
+     *
+     * @param rowKey Key of the row to match.
+     * @return A filter matching only the given row.
+     */
+    static RowFilter exactRowKey(final ByteString rowKey) {
+        return new RowKeyRegex(RowKeyRegex.literal(rowKey));
+    }
+
+    /**
+     * Build a filter that only matches cells with a timestamp in the given range.
+     *
+     * @param startMicros Start of the range in microseconds, inclusive.
+     * @param endMicros End of the range in microseconds, exclusive.
+     * @return A filter matching cells in the given range of timestamps.
+     */
+    static RowFilter timestampRange(final long startMicros, final long endMicros) {
+        return new TimestampRange(startMicros, endMicros);
+    }
+
     com.google.bigtable.v1.RowFilter toPb();
 
     @Data
@@ -66,6 +109,69 @@ public interface RowFilter {
         }
     }
 
+    @Data
+    static class Interleave implements RowFilter {
+        private final Iterable<? extends RowFilter> filters;
+
+        @Override
+        public com.google.bigtable.v1.RowFilter toPb() {
+            final com.google.bigtable.v1.RowFilter.Interleave.Builder interleave =
+                com.google.bigtable.v1.RowFilter.Interleave.newBuilder();
+            this.filters.forEach(f -> interleave.addFilters(f.toPb()));
+            return com.google.bigtable.v1.RowFilter
+                .newBuilder()
+                .setInterleave(interleave.build())
+                .build();
+        }
+    }
+
+    @Data
+    static class RowKeyRegex implements RowFilter {
+        private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        private final ByteString regex;
+
+        @Override
+        public com.google.bigtable.v1.RowFilter toPb() {
+            return com.google.bigtable.v1.RowFilter
+                .newBuilder()
+                .setRowKeyRegexFilter(regex)
+                .build();
+        }
+
+        /**
+         * Quote the given bytes into an RE2 expression that matches them literally.
+         * <p>
+         * Row keys are arbitrary bytes, so every byte which is not a word character is written as a
+         * hex escape. Escaping a byte with a backslash is not enough, since RE2 rejects escapes of
+         * bytes which are not punctuation, and bytes which are not valid UTF-8.
+         */
+        static ByteString literal(final ByteString value) {
+            final ByteString.Output out = ByteString.newOutput(value.size() * 4);
+
+            for (final ByteString.ByteIterator it = value.iterator(); it.hasNext(); ) {
+                final byte b = it.nextByte();
+
+                if (isWordCharacter(b)) {
+                    out.write(b);
+                    continue;
+                }
+
+                out.write('\\');
+                out.write('x');
+                out.write(HEX[(b >> 4) & 0xf]);
+                out.write(HEX[b & 0xf]);
+            }
+
+            return out.toByteString();
+        }
+
+        private static boolean isWordCharacter(final byte b) {
+            return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') ||
+                b == '_';
+        }
+    }
+
     @Data
     static class ColumnRange implements RowFilter {
         private final String family;
@@ -127,6 +233,44 @@ public interface RowFilter {
         }
     }
 
+    @Data
+    static class TimestampRange implements RowFilter {
+        private final long startMicros;
+        private final long endMicros;
+
+        @Override
+        public com.google.bigtable.v1.RowFilter toPb() {
+            return com.google.bigtable.v1.RowFilter
+                .newBuilder()
+                .setTimestampRangeFilter(com.google.bigtable.v1.TimestampRange
+                    .newBuilder()
+                    .setStartTimestampMicros(startMicros)
+                    .setEndTimestampMicros(endMicros))
+                .build();
+        }
+    }
+
+    @Data
+    class KeysOnly implements RowFilter {
+        @Override
+        public com.google.bigtable.v1.RowFilter toPb() {
+            final com.google.bigtable.v1.RowFilter.Chain chain =
+                com.google.bigtable.v1.RowFilter.Chain
+                    .newBuilder()
+                    .addFilters(com.google.bigtable.v1.RowFilter
+                        .newBuilder()
+                        .setCellsPerRowLimitFilter(1)
+                        .build())
+                    .addFilters(com.google.bigtable.v1.RowFilter
+                        .newBuilder()
+                        .setStripValueTransformer(true)
+                        .build())
+                    .build();
+
+            return com.google.bigtable.v1.RowFilter.newBuilder().setChain(chain).build();
+        }
+    }
+
     @Data
     public class BlockAll implements RowFilter {
         @Override
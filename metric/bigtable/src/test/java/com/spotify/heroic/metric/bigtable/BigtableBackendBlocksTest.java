@@ -0,0 +1,292 @@
+package com.spotify.heroic.metric.bigtable;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.bigtable.v1.Cell;
+import com.google.bigtable.v1.Column;
+import com.google.bigtable.v1.Mutation;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.FetchData;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
+import com.spotify.heroic.metric.bigtable.api.Family;
+import com.spotify.heroic.metric.bigtable.api.Mutations;
+import com.spotify.heroic.metric.bigtable.api.ReadRowsRequest;
+import com.spotify.heroic.metric.bigtable.api.Row;
+import com.spotify.heroic.metric.bigtable.api.RowFilter;
+import com.spotify.heroic.scheduler.Scheduler;
+import com.spotify.heroic.statistics.noop.NoopMetricBackendReporter;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedAction;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BigtableBackendBlocksTest {
+    private static final String TABLE = "table";
+    private static final Series SERIES = Series.of("key", ImmutableMap.of("host", "a"));
+    private static final ByteString KEY = ByteString.copyFromUtf8("row");
+    private static final BlockStorage STORAGE = new BlockStorage(1000L, 0L);
+
+    @Mock
+    private RowKeyEncoding rowKeyEncoding;
+    @Mock
+    private Managed<BigtableConnection> connection;
+    @Mock
+    private BigtableConnection c;
+    @Mock
+    private BigtableDataClient client;
+    @Mock
+    private Scheduler scheduler;
+
+    private ExecutorService executor;
+    private AsyncFramework async;
+    private BigtableBackend backend;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        executor = Executors.newSingleThreadExecutor();
+        async = TinyAsync.builder().executor(executor).build();
+
+        doReturn(KEY).when(rowKeyEncoding).encode(any(RowKey.class));
+        doReturn(client).when(c).dataClient();
+
+        doAnswer(invocation -> {
+            final ManagedAction<BigtableConnection, Object> action =
+                (ManagedAction<BigtableConnection, Object>) invocation.getArguments()[0];
+            return action.action(c);
+        }).when(connection).doto(any(ManagedAction.class));
+
+        /* the predicate matches if and only if a block was read */
+        doAnswer(invocation -> {
+            final Mutations trueMutations = (Mutations) invocation.getArguments()[3];
+            return async.resolved(trueMutations.size() > 0);
+        }).when(client).checkAndMutateRow(eq(TABLE), any(ByteString.class),
+            any(RowFilter.class), any(Mutations.class), any(Mutations.class));
+
+        backend = new BigtableBackend(async, rowKeyEncoding, connection, Groups.empty(), TABLE,
+            false, NoopMetricBackendReporter.get(), new ObjectMapper(), Optional.of(STORAGE),
+            scheduler, Optional.empty());
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCompact() throws Exception {
+        final Row row =
+            row(ImmutableList.of(hot(10L, 2D, 5L), hot(20L, 3D, 7L), hot(1500L, 4D, 9L)),
+                ImmutableList.of(block(0L, chunk(new long[]{5L, 10L}, new double[]{1D, 1D}))));
+        doReturn(async.resolved(ImmutableList.of(row)))
+            .when(client)
+            .readRows(eq(TABLE), any(ReadRowsRequest.class));
+
+        backend.compact(client, STORAGE, new RowKey(SERIES, 0L), 0L, 1000L).get();
+
+        /* only the compacted windows are read */
+        final ArgumentCaptor<ReadRowsRequest> request =
+            ArgumentCaptor.forClass(ReadRowsRequest.class);
+        verify(client).readRows(eq(TABLE), request.capture());
+
+        final com.google.bigtable.v1.RowFilter.Interleave filters =
+            request.getValue().getFilter().get().toPb().getInterleave();
+        assertEquals(BigtableBackend.serializeOffset(0L),
+            filters.getFilters(0).getColumnRangeFilter().getStartQualifierInclusive());
+        assertEquals(BigtableBackend.serializeOffset(1999L),
+            filters.getFilters(0).getColumnRangeFilter().getEndQualifierInclusive());
+        assertEquals(BigtableBackend.serializeOffset(1000L),
+            filters.getFilters(1).getColumnRangeFilter().getEndQualifierInclusive());
+
+        /* a single conditional row mutation for each window */
+        final ArgumentCaptor<RowFilter> predicates = ArgumentCaptor.forClass(RowFilter.class);
+        final ArgumentCaptor<Mutations> trueMutations = ArgumentCaptor.forClass(Mutations.class);
+        final ArgumentCaptor<Mutations> falseMutations = ArgumentCaptor.forClass(Mutations.class);
+        verify(client, times(2)).checkAndMutateRow(eq(TABLE), eq(KEY), predicates.capture(),
+            trueMutations.capture(), falseMutations.capture());
+
+        /* the existing block is only replaced if it is still at the version that was read */
+        final com.google.bigtable.v1.RowFilter.Chain predicate =
+            predicates.getAllValues().get(0).toPb().getChain();
+        assertEquals(2, predicate.getFiltersCount());
+        assertEquals(BigtableBackend.serializeOffset(0L),
+            predicate.getFilters(0).getColumnRangeFilter().getStartQualifierInclusive());
+        assertEquals(0L,
+            predicate.getFilters(1).getTimestampRangeFilter().getStartTimestampMicros());
+        assertEquals(1L, predicate.getFilters(1).getTimestampRangeFilter().getEndTimestampMicros());
+
+        final List<Mutation> first = trueMutations.getAllValues().get(0).toPb();
+        assertEquals(0, falseMutations.getAllValues().get(0).size());
+        assertEquals(4, first.size());
+        assertBlock(first.get(0), 0L, 1L,
+            chunk(new long[]{5L, 10L, 20L}, new double[]{1D, 2D, 3D}));
+        assertEquals(BigtableBackend.BLOCKS, first.get(1).getDeleteFromColumn().getFamilyName());
+        assertEquals(1L,
+            first.get(1).getDeleteFromColumn().getTimeRange().getEndTimestampMicros());
+        assertDelete(first.get(2), 10L, 5L);
+        assertDelete(first.get(3), 20L, 7L);
+
+        /* a new block is only written if there still is none */
+        assertEquals(1, predicates.getAllValues().get(1).toPb().getChain().getFiltersCount());
+
+        final List<Mutation> second = falseMutations.getAllValues().get(1).toPb();
+        assertEquals(0, trueMutations.getAllValues().get(1).size());
+        assertEquals(2, second.size());
+        assertBlock(second.get(0), 1000L, 0L, chunk(new long[]{1500L}, new double[]{4D}));
+        assertDelete(second.get(1), 1500L, 9L);
+    }
+
+    @Test
+    public void testCompactRetriesWhenBlockChanged() throws Exception {
+        final Row before = row(ImmutableList.of(hot(10L, 2D, 5L)),
+            ImmutableList.of(block(0L, chunk(new long[]{5L}, new double[]{1D}))));
+        /* another node folded a hot cell into the block in the meantime */
+        final Row after = row(ImmutableList.of(hot(10L, 2D, 5L)), ImmutableList.of(
+            block(0L, chunk(new long[]{5L, 20L}, new double[]{1D, 3D}), 1L)));
+
+        doReturn(async.resolved(ImmutableList.of(before)))
+            .doReturn(async.resolved(ImmutableList.of(after)))
+            .when(client)
+            .readRows(eq(TABLE), any(ReadRowsRequest.class));
+
+        doReturn(async.resolved(false)).doReturn(async.resolved(true)).when(client)
+            .checkAndMutateRow(eq(TABLE), any(ByteString.class), any(RowFilter.class),
+                any(Mutations.class), any(Mutations.class));
+
+        backend.compact(client, STORAGE, new RowKey(SERIES, 0L), 0L, 0L).get();
+
+        verify(client, times(2)).readRows(eq(TABLE), any(ReadRowsRequest.class));
+
+        final ArgumentCaptor<Mutations> mutations = ArgumentCaptor.forClass(Mutations.class);
+        verify(client, times(2)).checkAndMutateRow(eq(TABLE), eq(KEY), any(RowFilter.class),
+            mutations.capture(), any(Mutations.class));
+
+        /* the retry builds on the block written by the other node */
+        assertBlock(mutations.getAllValues().get(1).toPb().get(0), 0L, 2L,
+            chunk(new long[]{5L, 10L, 20L}, new double[]{1D, 2D, 3D}));
+    }
+
+    @Test
+    public void testCompactWithoutHotCells() throws Exception {
+        final Row row = row(ImmutableList.of(),
+            ImmutableList.of(block(0L, chunk(new long[]{5L}, new double[]{1D}))));
+        doReturn(async.resolved(ImmutableList.of(row)))
+            .when(client)
+            .readRows(eq(TABLE), any(ReadRowsRequest.class));
+
+        backend.compact(client, STORAGE, new RowKey(SERIES, 0L), 0L, 0L).get();
+
+        verify(client, times(0)).checkAndMutateRow(anyString(), any(ByteString.class),
+            any(RowFilter.class), any(Mutations.class), any(Mutations.class));
+    }
+
+    @Test
+    public void testFetchOverlaysHotCells() throws Exception {
+        final Row row = row(ImmutableList.of(hot(10L, 2D, 5L), hot(1500L, 3D, 5L)),
+            ImmutableList.of(block(0L, chunk(new long[]{5L, 10L}, new double[]{1D, 1D}))));
+        doReturn(async.resolved(ImmutableList.of(row)))
+            .when(client)
+            .readRows(eq(TABLE), any(ReadRowsRequest.class));
+
+        final FetchData data = backend
+            .fetch(new FetchData.Request(MetricType.POINT, SERIES, DateRange.create(0L, 3000L),
+                QueryOptions.defaults()), FetchQuotaWatcher.NO_QUOTA)
+            .get();
+
+        assertEquals(1, data.getGroups().size());
+        assertEquals(chunk(new long[]{5L, 10L, 1500L}, new double[]{1D, 2D, 3D}),
+            data.getGroups().get(0).asPointChunk());
+    }
+
+    private void assertBlock(
+        final Mutation mutation, final long window, final long version, final PointChunk expected
+    ) {
+        assertEquals(BigtableBackend.BLOCKS, mutation.getSetCell().getFamilyName());
+        assertEquals(BigtableBackend.serializeOffset(window),
+            mutation.getSetCell().getColumnQualifier());
+        assertEquals(version, mutation.getSetCell().getTimestampMicros());
+
+        final PointChunk.Builder decoded = PointChunk.builder();
+        PointBlock.decode(mutation.getSetCell().getValue(), Long.MIN_VALUE, Long.MAX_VALUE,
+            decoded);
+        assertEquals(expected, decoded.build());
+    }
+
+    private void assertDelete(final Mutation mutation, final long offset, final long timestamp) {
+        final Mutation.DeleteFromColumn delete = mutation.getDeleteFromColumn();
+        assertEquals(BigtableBackend.POINTS, delete.getFamilyName());
+        assertEquals(BigtableBackend.serializeOffset(offset), delete.getColumnQualifier());
+
+        /* only the version that was read is deleted */
+        assertEquals(0L, delete.getTimeRange().getStartTimestampMicros());
+        assertEquals(timestamp + 1, delete.getTimeRange().getEndTimestampMicros());
+    }
+
+    private Row row(final List<Column> points, final List<Column> blocks) {
+        final Map<String, Family> families = ImmutableMap.of(BigtableBackend.POINTS,
+            new Family(BigtableBackend.POINTS, points), BigtableBackend.BLOCKS,
+            new Family(BigtableBackend.BLOCKS, blocks));
+        return new Row(KEY, families);
+    }
+
+    private Column hot(final long offset, final double value, final long timestampMicros) {
+        return column(offset, backend.serializeValue(value), timestampMicros);
+    }
+
+    private Column block(final long window, final PointChunk points) {
+        return block(window, points, 0L);
+    }
+
+    private Column block(final long window, final PointChunk points, final long version) {
+        return column(window, PointBlock.encode(points), version);
+    }
+
+    private Column column(final long offset, final ByteString value, final long timestampMicros) {
+        return Column
+            .newBuilder()
+            .setQualifier(BigtableBackend.serializeOffset(offset))
+            .addCells(Cell.newBuilder().setValue(value).setTimestampMicros(timestampMicros))
+            .build();
+    }
+
+    private static PointChunk chunk(final long[] timestamps, final double[] values) {
+        final PointChunk.Builder builder = PointChunk.builder(timestamps.length);
+
+        for (int i = 0; i < timestamps.length; i++) {
+            builder.add(timestamps[i], values[i]);
+        }
+
+        return builder.build();
+    }
+}
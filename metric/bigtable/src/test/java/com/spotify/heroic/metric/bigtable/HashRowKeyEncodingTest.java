@@ -0,0 +1,78 @@
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.common.Series;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.TinyAsync;
+import eu.toolchain.serializer.Serializer;
+import eu.toolchain.serializer.SerializerFramework;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HashRowKeyEncodingTest {
+    private static final Series SERIES = Series.of("key", ImmutableMap.of("host", "a"));
+
+    @Mock
+    private SerializerFramework serializer;
+    @Mock
+    private Serializer<Series> seriesSerializer;
+    @Mock
+    private Managed<BigtableConnection> connection;
+
+    private ExecutorService executor;
+    private AsyncFramework async;
+    private HashRowKeyEncoding encoding;
+
+    @Before
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        async = TinyAsync.builder().executor(executor).build();
+        encoding = new HashRowKeyEncoding(async, serializer, seriesSerializer, connection,
+            Optional.empty());
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testEncode() {
+        final ByteString a = encoding.encode(new RowKey(SERIES, 0L));
+        final ByteString b = encoding.encode(new RowKey(SERIES, BigtableBackend.PERIOD));
+
+        assertEquals(24, a.size());
+        assertEquals(a.substring(0, 16), b.substring(0, 16));
+        assertEquals(ByteString.copyFrom(SERIES.getHashCode().asBytes()), a.substring(0, 16));
+        assertNotEquals(a, b);
+    }
+
+    @Test
+    public void testWithoutSeriesTable() throws Exception {
+        final ByteString key = encoding.encode(new RowKey(SERIES, 0L));
+
+        assertEquals(ImmutableList.of(Optional.empty()),
+            encoding.decode(ImmutableList.of(key)).get());
+
+        encoding.register(SERIES).get();
+        assertTrue(!encoding.sideTable().isPresent());
+        verifyZeroInteractions(connection);
+    }
+}
@@ -0,0 +1,208 @@
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.bigtable.api.BigtableDataClient;
+import com.spotify.heroic.metric.bigtable.api.Mutations;
+import com.spotify.heroic.metric.bigtable.api.RowMutation;
+import com.spotify.heroic.scheduler.Scheduler;
+import com.spotify.heroic.scheduler.Task;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.Managed;
+import eu.toolchain.async.ManagedAction;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.async.TinyAsync;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MutationBatcherTest {
+    private static final String TABLE = "table";
+
+    @Mock
+    private Scheduler scheduler;
+    @Mock
+    private Managed<BigtableConnection> connection;
+    @Mock
+    private BigtableConnection c;
+    @Mock
+    private BigtableDataClient client;
+
+    private final List<List<RowMutation>> written = new ArrayList<>();
+    private final List<ResolvableFuture<List<Optional<Exception>>>> pending = new ArrayList<>();
+
+    private ExecutorService executor;
+    private AsyncFramework async;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        async = TinyAsync.builder().executor(executor).build();
+
+        doReturn(client).when(c).dataClient();
+
+        doAnswer(invocation -> {
+            final ManagedAction<BigtableConnection, Object> action =
+                (ManagedAction<BigtableConnection, Object>) invocation.getArguments()[0];
+            return action.action(c);
+        }).when(connection).doto(any(ManagedAction.class));
+
+        doAnswer(invocation -> {
+            final ResolvableFuture<List<Optional<Exception>>> future = async.future();
+            written.add((List<RowMutation>) invocation.getArguments()[1]);
+            pending.add(future);
+            return future;
+        }).when(client).mutateRows(eq(TABLE), anyListOf(RowMutation.class));
+    }
+
+    @After
+    public void teardown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFlushOnSize() throws Exception {
+        /* each row mutation is around 20 bytes when serialized */
+        final MutationBatcher batcher = batcher(30, 4);
+
+        final AsyncFuture<Void> a = batcher.mutateRow(key(1), mutations());
+        assertTrue(written.isEmpty());
+
+        final AsyncFuture<Void> b = batcher.mutateRow(key(2), mutations());
+        assertEquals(1, written.size());
+        assertEquals(2, written.get(0).size());
+
+        pending.get(0).resolve(ImmutableList.of(Optional.empty(), Optional.empty()));
+
+        a.get();
+        b.get();
+    }
+
+    @Test
+    public void testFlushOnInterval() throws Exception {
+        final MutationBatcher batcher = batcher(Long.MAX_VALUE, 4);
+
+        final AsyncFuture<Void> a = batcher.mutateRow(key(1), mutations());
+
+        final ArgumentCaptor<Task> task = ArgumentCaptor.forClass(Task.class);
+        verify(scheduler).schedule(anyString(), eq(10L), eq(TimeUnit.MILLISECONDS),
+            task.capture());
+
+        assertTrue(written.isEmpty());
+        task.getValue().run();
+        assertEquals(1, written.size());
+
+        pending.get(0).resolve(ImmutableList.of(Optional.empty()));
+        a.get();
+    }
+
+    @Test
+    public void testPerEntryFailure() throws Exception {
+        final MutationBatcher batcher = batcher(Long.MAX_VALUE, 4);
+
+        final AsyncFuture<Void> a = batcher.mutateRow(key(1), mutations());
+        final AsyncFuture<Void> b = batcher.mutateRow(key(2), mutations());
+        batcher.flush();
+
+        pending
+            .get(0)
+            .resolve(ImmutableList.of(Optional.empty(), Optional.of(new RuntimeException("b"))));
+
+        a.get();
+        assertTrue(b.isFailed());
+    }
+
+    @Test
+    public void testMaxInFlight() throws Exception {
+        final MutationBatcher batcher = batcher(Long.MAX_VALUE, 1);
+
+        batcher.mutateRow(key(1), mutations());
+        batcher.flush();
+        batcher.mutateRow(key(2), mutations());
+        batcher.flush();
+
+        /* the second batch is queued until the first has been written */
+        assertEquals(1, written.size());
+
+        pending.get(0).resolve(ImmutableList.of(Optional.empty()));
+        assertEquals(2, written.size());
+
+        pending.get(1).resolve(ImmutableList.of(Optional.empty()));
+
+        batcher.mutateRow(key(3), mutations());
+        batcher.flush();
+        assertEquals(3, written.size());
+        assertFalse(pending.get(2).isDone());
+        verify(client, never()).mutateRow(anyString(), any(ByteString.class),
+            any(Mutations.class));
+        verify(scheduler, times(3)).schedule(anyString(), anyLong(),
+            any(TimeUnit.class), any(Task.class));
+    }
+
+    @Test
+    public void testFlushWaitsForWrites() throws Exception {
+        final MutationBatcher batcher = batcher(Long.MAX_VALUE, 1);
+
+        batcher.mutateRow(key(1), mutations());
+        batcher.flush();
+        batcher.mutateRow(key(2), mutations());
+
+        /* the second batch is queued behind the first */
+        final AsyncFuture<Void> flushed = batcher.flush();
+        assertFalse(flushed.isDone());
+
+        pending.get(0).resolve(ImmutableList.of(Optional.empty()));
+        assertFalse(flushed.isDone());
+
+        pending.get(1).resolve(ImmutableList.of(Optional.empty()));
+        assertTrue(flushed.isResolved());
+
+        /* nothing left to write */
+        assertTrue(batcher.flush().isResolved());
+    }
+
+    private MutationBatcher batcher(final long maxBatchBytes, final int maxInFlight) {
+        return new MutationBatcher(async, scheduler, connection, TABLE,
+            new WriteBatching(10L, maxBatchBytes, maxInFlight));
+    }
+
+    private ByteString key(final int id) {
+        return ByteString.copyFromUtf8("row-" + id);
+    }
+
+    private Mutations mutations() {
+        return Mutations
+            .builder()
+            .setCell(BigtableBackend.POINTS, ByteString.copyFromUtf8("q"),
+                ByteString.copyFromUtf8("v"))
+            .build();
+    }
+}
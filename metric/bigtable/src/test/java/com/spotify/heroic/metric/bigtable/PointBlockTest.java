@@ -0,0 +1,92 @@
+package com.spotify.heroic.metric.bigtable;
+
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.metric.PointChunk;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PointBlockTest {
+    @Test
+    public void testRegular() {
+        final PointChunk.Builder builder = PointChunk.builder();
+
+        for (int i = 0; i < 1000; i++) {
+            builder.add(1000000L + i * 10000L, 42.0);
+        }
+
+        final PointChunk points = builder.build();
+        final ByteString block = PointBlock.encode(points);
+
+        assertEquals(points, decode(block));
+        /* after the first delta, each point only costs one bit of timestamp and one of value */
+        assertTrue(block.size() < 300);
+    }
+
+    @Test
+    public void testRandom() {
+        final Random random = new Random(0x5eed);
+        final PointChunk.Builder builder = PointChunk.builder();
+
+        long t = random.nextLong() >>> 1;
+
+        for (int i = 0; i < 1000; i++) {
+            builder.add(t, random.nextInt(10) == 0 ? random.nextDouble() : i / 3.0);
+            t += random.nextInt(3) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(100);
+        }
+
+        final PointChunk points = builder.build();
+        assertEquals(points, decode(PointBlock.encode(points)));
+    }
+
+    @Test
+    public void testSpecialValues() {
+        final PointChunk points = PointChunk
+            .builder()
+            .add(0, Double.NaN)
+            .add(0, Double.POSITIVE_INFINITY)
+            .add(1, -0.0)
+            .add(2, Double.MIN_VALUE)
+            .add(Long.MAX_VALUE, Double.MAX_VALUE)
+            .build();
+
+        assertEquals(points.asList(), decode(PointBlock.encode(points)).asList());
+    }
+
+    @Test
+    public void testDecodeRange() {
+        final PointChunk points =
+            PointChunk.builder().add(1, 1.0).add(2, 2.0).add(3, 3.0).add(4, 4.0).build();
+
+        final PointChunk.Builder out = PointChunk.builder();
+        PointBlock.decode(PointBlock.encode(points), 1, 3, out);
+
+        assertEquals(PointChunk.builder().add(2, 2.0).add(3, 3.0).build(), out.build());
+    }
+
+    @Test
+    public void testOverlay() {
+        final PointChunk cold = PointChunk.builder().add(1, 1.0).add(3, 3.0).add(5, 5.0).build();
+        final PointChunk hot = PointChunk.builder().add(2, 20.0).add(3, 30.0).add(6, 60.0).build();
+
+        final PointChunk expected = PointChunk
+            .builder()
+            .add(1, 1.0)
+            .add(2, 20.0)
+            .add(3, 30.0)
+            .add(5, 5.0)
+            .add(6, 60.0)
+            .build();
+
+        assertEquals(expected, PointBlock.overlay(cold, hot));
+    }
+
+    private PointChunk decode(final ByteString block) {
+        final PointChunk.Builder out = PointChunk.builder();
+        PointBlock.decode(block, Long.MIN_VALUE, Long.MAX_VALUE, out);
+        return out.build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.spotify.heroic.metric.bigtable.api;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.bigtable.HashRowKeyEncoding;
+import com.spotify.heroic.metric.bigtable.RowKey;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RowFilterTest {
+    @Test
+    public void testLiteralRowKey() {
+        final ByteString key = ByteString.copyFrom(new byte[]{'a', 0, '.', (byte) 0xff, '_'});
+        final ByteString expected = ByteString.copyFromUtf8("a\\x00\\x2e\\xff_");
+
+        assertEquals(expected, RowFilter.RowKeyRegex.literal(key));
+    }
+
+    @Test
+    public void testLiteralHashedRowKey() {
+        final ByteString key = hashedKey(Series.of("key", ImmutableMap.of("host", "a")), 0L);
+        final ByteString other = hashedKey(Series.of("key", ImmutableMap.of("host", "b")), 0L);
+        final ByteString regex = RowFilter.RowKeyRegex.literal(key);
+
+        /* the expression must be plain ASCII, regardless of the bytes in the key */
+        for (final ByteString.ByteIterator it = regex.iterator(); it.hasNext(); ) {
+            final byte b = it.nextByte();
+            assertTrue(b > 0x20 && b < 0x7f);
+        }
+
+        /* match byte-for-byte, where each byte is a single latin-1 character */
+        final Pattern pattern = Pattern.compile(regex.toString(StandardCharsets.ISO_8859_1));
+
+        assertTrue(pattern.matcher(key.toString(StandardCharsets.ISO_8859_1)).matches());
+        assertFalse(pattern.matcher(other.toString(StandardCharsets.ISO_8859_1)).matches());
+    }
+
+    private static ByteString hashedKey(final Series series, final long base) {
+        /* encoding keys only depends on the series and base */
+        final HashRowKeyEncoding encoding =
+            new HashRowKeyEncoding(null, null, null, null, Optional.empty());
+        return encoding.encode(new RowKey(series, base));
+    }
+}
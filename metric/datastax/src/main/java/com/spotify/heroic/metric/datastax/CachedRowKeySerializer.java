@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.datastax;
+
+import com.spotify.heroic.metric.RowKeyCache;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Row key serializer which caches serialized row keys, since the same rows are serialized over and
+ * over again when written to and read from.
+ */
+@RequiredArgsConstructor
+public class CachedRowKeySerializer implements TypeSerializer<MetricsRowKey> {
+    private final TypeSerializer<MetricsRowKey> delegate;
+    private final RowKeyCache<ByteBuffer> cache;
+
+    /**
+     * Serialize the given row key.
+     *
+     * @return A duplicate of the cached buffer, so that readers can not affect each other.
+     */
+    @Override
+    public ByteBuffer serialize(final MetricsRowKey value) throws IOException {
+        return cache
+            .get(value.getSeries(), value.getBase(), () -> delegate.serialize(value))
+            .duplicate();
+    }
+
+    @Override
+    public MetricsRowKey deserialize(final ByteBuffer buffer) throws IOException {
+        return delegate.deserialize(buffer);
+    }
+}
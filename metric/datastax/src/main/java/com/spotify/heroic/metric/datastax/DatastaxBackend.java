@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.metric.datastax;
 
+import com.datastax.driver.core.BatchStatement;
 import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.ExecutionInfo;
 import com.datastax.driver.core.PreparedStatement;
@@ -28,7 +29,9 @@ import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Statement;
 import com.datastax.driver.core.utils.Bytes;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.async.AsyncObserver;
@@ -41,11 +44,13 @@ import com.spotify.heroic.metric.BackendEntry;
 import com.spotify.heroic.metric.BackendKey;
 import com.spotify.heroic.metric.BackendKeyFilter;
 import com.spotify.heroic.metric.BackendKeySet;
+import com.spotify.heroic.metric.FetchBounds;
 import com.spotify.heroic.metric.FetchData;
 import com.spotify.heroic.metric.FetchQuotaWatcher;
 import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricType;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.QueryError;
 import com.spotify.heroic.metric.QueryTrace;
 import com.spotify.heroic.metric.WriteMetric;
@@ -68,11 +73,14 @@ import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.Callable;
@@ -98,15 +106,24 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
     private final AsyncFramework async;
     private final Managed<Connection> connection;
     private final Groups groups;
+    private final int writeBatchSize;
+    private final int writeConcurrency;
+    private final int fetchConcurrency;
 
     @Inject
     public DatastaxBackend(
-        final AsyncFramework async, final Managed<Connection> connection, final Groups groups
+        final AsyncFramework async, final Managed<Connection> connection, final Groups groups,
+        @Named("writeBatchSize") final int writeBatchSize,
+        @Named("writeConcurrency") final int writeConcurrency,
+        @Named("fetchConcurrency") final int fetchConcurrency
     ) {
         super(async);
         this.async = async;
         this.connection = connection;
         this.groups = groups;
+        this.writeBatchSize = writeBatchSize;
+        this.writeConcurrency = writeConcurrency;
+        this.fetchConcurrency = fetchConcurrency;
     }
 
     @Override
@@ -155,6 +172,51 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         });
     }
 
+    /**
+     * Fetch points, passing each page of rows to the consumer as a chunk as soon as it has been
+     * decoded.
+     * <p>
+     * At most {@link #fetchConcurrency} partitions are read at the same time, and the quota of
+     * the watcher is charged for each page as it arrives.
+     */
+    @Override
+    public AsyncFuture<FetchData> fetch(
+        final FetchData.Request request, final FetchQuotaWatcher watcher,
+        final Consumer<MetricCollection> consumer
+    ) {
+        if (!watcher.mayReadData()) {
+            throw new IllegalArgumentException("query violated data limit");
+        }
+
+        final int limit = watcher.getReadDataQuota();
+
+        return connection.doto(c -> {
+            final QueryTrace.Watch w = QueryTrace.watch();
+
+            if (request.getType() != MetricType.POINT) {
+                return async.resolved(FetchData.error(w.end(FETCH),
+                    QueryError.fromMessage("unsupported source: " + request.getType())));
+            }
+
+            final List<PreparedFetch> prepared =
+                c.schema.ranges(request.getSeries(), request.getRange());
+
+            final List<Callable<AsyncFuture<FetchData>>> fetches = new ArrayList<>();
+
+            for (final PreparedFetch p : prepared) {
+                fetches.add(() -> streamDataPoints(w, limit, request.getOptions(), p, c, watcher,
+                    consumer));
+            }
+
+            return async.eventuallyCollect(fetches, new FetchCollector(), fetchConcurrency);
+        });
+    }
+
+    @Override
+    public FetchBounds fetchBounds() {
+        return FetchBounds.CLOSED;
+    }
+
     @Override
     public Iterable<BackendEntry> listEntries() {
         throw new IllegalStateException("#listEntries is not supported");
@@ -298,7 +360,7 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
 
             Async
                 .bind(async, c.session.executeAsync(f.fetch(Integer.MAX_VALUE)))
-                .onDone(new RowFetchHelper<>(future, f.converter(),
+                .onDone(new PointFetchHelper<>(future, f,
                     result -> async.resolved(MetricCollection.points(result.getData()))));
 
             return future;
@@ -396,37 +458,51 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         }
     }
 
+    /**
+     * Write the points of the given request.
+     * <p>
+     * Points which belong to the same partition are written in unlogged batches of at most {@link
+     * #writeBatchSize} points. Since every statement in a batch has the same routing key, each
+     * batch is sent directly to a replica owning the partition.
+     */
     private AsyncFuture<WriteMetric> doWrite(
         final Connection c, final SchemaInstance.WriteSession session,
         final WriteMetric.Request request
     ) throws IOException {
-        final List<Callable<AsyncFuture<Long>>> callables = new ArrayList<>();
-
         final MetricCollection g = request.getData();
 
-        if (g.getType() == MetricType.POINT) {
-            for (final Point d : g.getDataAs(Point.class)) {
-                final BoundStatement stmt = session.writePoint(request.getSeries(), d);
+        if (g.getType() != MetricType.POINT) {
+            return async.resolved(WriteMetric.of());
+        }
+
+        final Map<Long, List<BoundStatement>> partitions = new LinkedHashMap<>();
 
-                callables.add(() -> {
-                    final long start = System.nanoTime();
-                    return Async
-                        .bind(async, c.session.executeAsync(stmt))
-                        .directTransform((r) -> System.nanoTime() - start);
-                });
+        for (final Point d : g.getDataAs(Point.class)) {
+            final BoundStatement stmt = session.writePoint(request.getSeries(), d);
+            partitions
+                .computeIfAbsent(session.base(d.getTimestamp()), base -> new ArrayList<>())
+                .add(stmt);
+        }
+
+        final List<Callable<AsyncFuture<WriteMetric>>> callables = new ArrayList<>();
+
+        for (final List<BoundStatement> statements : partitions.values()) {
+            for (final List<BoundStatement> part : Lists.partition(statements, writeBatchSize)) {
+                callables.add(() -> writeBatch(c, part));
             }
         }
 
-        return async.eventuallyCollect(callables, new StreamCollector<Long, WriteMetric>() {
-            final ConcurrentLinkedQueue<Long> q = new ConcurrentLinkedQueue<Long>();
+        return async.eventuallyCollect(callables, new StreamCollector<WriteMetric, WriteMetric>() {
+            final ConcurrentLinkedQueue<WriteMetric> q = new ConcurrentLinkedQueue<>();
 
             @Override
-            public void resolved(Long result) throws Exception {
+            public void resolved(WriteMetric result) throws Exception {
                 q.add(result);
             }
 
             @Override
             public void failed(Throwable cause) throws Exception {
+                q.add(WriteMetric.error(QueryError.fromMessage(cause.getMessage())));
             }
 
             @Override
@@ -435,9 +511,33 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
 
             @Override
             public WriteMetric end(int resolved, int failed, int cancelled) throws Exception {
-                return new WriteMetric(ImmutableList.of(), ImmutableList.copyOf(q));
+                return WriteMetric.reduce().collect(q);
             }
-        }, 500);
+        }, writeConcurrency);
+    }
+
+    private AsyncFuture<WriteMetric> writeBatch(
+        final Connection c, final List<BoundStatement> statements
+    ) {
+        final Statement stmt;
+
+        if (statements.size() == 1) {
+            stmt = statements.get(0);
+        } else {
+            stmt = new BatchStatement(BatchStatement.Type.UNLOGGED).addAll(statements);
+        }
+
+        final long start = System.nanoTime();
+
+        return Async
+            .bind(async, c.session.executeAsync(stmt.setIdempotent(true)))
+            .directTransform(r -> new WriteMetric(ImmutableList.of(),
+                ImmutableList.of(System.nanoTime() - start)))
+            .catchFailed(e -> {
+                log.error("Failed to write {} point(s)", statements.size(), e);
+                return WriteMetric.error(QueryError.fromMessage(
+                    "failed to write " + statements.size() + " point(s): " + e.getMessage()));
+            });
     }
 
     private AsyncFuture<QueryTrace> buildTrace(
@@ -485,7 +585,7 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         final List<AsyncFuture<FetchData>> fetches = new ArrayList<>(prepared.size());
 
         for (final Schema.PreparedFetch p : prepared) {
-            final Function<RowFetchResult<Point>, AsyncFuture<QueryTrace>> traceBuilder;
+            final Function<RowFetchResult<PointChunk>, AsyncFuture<QueryTrace>> traceBuilder;
 
             final Statement stmt;
 
@@ -503,7 +603,7 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
 
             Async
                 .bind(async, c.session.executeAsync(stmt))
-                .onDone(new RowFetchHelper<>(future, p.converter(),
+                .onDone(new PointFetchHelper<>(future, p,
                     result -> traceBuilder.apply(result).directTransform(trace -> {
                         final ImmutableList<Long> times = ImmutableList.of(trace.getElapsed());
                         final List<MetricCollection> groups =
@@ -517,13 +617,65 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         return async.collect(fetches, FetchData.collect(FETCH));
     }
 
-    @RequiredArgsConstructor
-    private final class RowFetchHelper<R, T> implements FutureDone<ResultSet> {
-        private final List<R> data = new ArrayList<>();
+    private AsyncFuture<FetchData> streamDataPoints(
+        final QueryTrace.Watch w, final int limit, final QueryOptions options,
+        final PreparedFetch p, final Connection c, final FetchQuotaWatcher watcher,
+        final Consumer<MetricCollection> consumer
+    ) {
+        final Function<RowFetchResult<Void>, AsyncFuture<QueryTrace>> traceBuilder;
+
+        final Statement stmt;
+
+        if (options.isTracing()) {
+            stmt = p.fetch(limit).enableTracing();
+            traceBuilder =
+                result -> buildTrace(c, FETCH_SEGMENT.extend(p.toString()), w.elapsed(),
+                    result.getInfo());
+        } else {
+            stmt = p.fetch(limit);
+            traceBuilder = result -> async.resolved(w.end(FETCH_SEGMENT));
+        }
+
+        final ResolvableFuture<FetchData> future = async.future();
+
+        Async
+            .bind(async, c.session.executeAsync(stmt))
+            .onDone(new PointStreamHelper<>(future, p, watcher, consumer,
+                result -> traceBuilder.apply(result).directTransform(trace -> {
+                    final ImmutableList<Long> times = ImmutableList.of(trace.getElapsed());
+                    return FetchData.of(trace, times, ImmutableList.of());
+                })));
 
+        return future;
+    }
+
+    /**
+     * Helper which pages through all rows in a result set, accumulating them before the result is
+     * converted.
+     *
+     * @param <D> Type of the accumulated data.
+     * @param <T> Type of the converted result.
+     */
+    @RequiredArgsConstructor
+    private abstract class AbstractFetchHelper<D, T> implements FutureDone<ResultSet> {
         private final ResolvableFuture<T> future;
-        private final Transform<Row, R> rowConverter;
-        private final Transform<RowFetchResult<R>, AsyncFuture<T>> converter;
+        private final Transform<RowFetchResult<D>, AsyncFuture<T>> converter;
+
+        /**
+         * Accumulate a single row.
+         */
+        protected abstract void accept(Row row) throws Exception;
+
+        /**
+         * Access the data accumulated so far.
+         */
+        protected abstract D data();
+
+        /**
+         * Called after all rows of a page have been accepted, before the next page is processed.
+         */
+        protected void page() throws Exception {
+        }
 
         @Override
         public void failed(Throwable cause) throws Exception {
@@ -547,34 +699,32 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
                 : Optional.of(
                     Async.bind(async, rows.fetchMoreResults()).directTransform(r -> null));
 
-            while (count-- > 0) {
-                final R part;
-
-                try {
-                    part = rowConverter.transform(rows.one());
-                } catch (Exception e) {
-                    future.fail(e);
-                    return;
+            try {
+                while (count-- > 0) {
+                    accept(rows.one());
                 }
 
-                data.add(part);
+                page();
+            } catch (Exception e) {
+                future.fail(e);
+                return;
             }
 
             if (nextFetch.isPresent()) {
                 nextFetch.get().onDone(new FutureDone<Void>() {
                     @Override
                     public void failed(Throwable cause) throws Exception {
-                        RowFetchHelper.this.failed(cause);
+                        AbstractFetchHelper.this.failed(cause);
                     }
 
                     @Override
                     public void cancelled() throws Exception {
-                        RowFetchHelper.this.cancelled();
+                        AbstractFetchHelper.this.cancelled();
                     }
 
                     @Override
                     public void resolved(Void result) throws Exception {
-                        RowFetchHelper.this.resolved(rows);
+                        AbstractFetchHelper.this.resolved(rows);
                     }
                 });
 
@@ -585,7 +735,7 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
 
             try {
                 result =
-                    converter.transform(new RowFetchResult<>(rows.getAllExecutionInfo(), data));
+                    converter.transform(new RowFetchResult<>(rows.getAllExecutionInfo(), data()));
             } catch (final Exception e) {
                 future.fail(e);
                 return;
@@ -612,6 +762,139 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
         }
     }
 
+    private final class RowFetchHelper<R, T> extends AbstractFetchHelper<List<R>, T> {
+        private final List<R> data = new ArrayList<>();
+
+        private final Transform<Row, R> rowConverter;
+
+        public RowFetchHelper(
+            final ResolvableFuture<T> future, final Transform<Row, R> rowConverter,
+            final Transform<RowFetchResult<List<R>>, AsyncFuture<T>> converter
+        ) {
+            super(future, converter);
+            this.rowConverter = rowConverter;
+        }
+
+        @Override
+        protected void accept(final Row row) throws Exception {
+            data.add(rowConverter.transform(row));
+        }
+
+        @Override
+        protected List<R> data() {
+            return data;
+        }
+    }
+
+    /**
+     * Fetch helper which decodes rows straight into a primitive chunk of points.
+     */
+    private final class PointFetchHelper<T> extends AbstractFetchHelper<PointChunk, T> {
+        private final PointChunk.Builder points = PointChunk.builder();
+
+        private final PreparedFetch fetch;
+
+        public PointFetchHelper(
+            final ResolvableFuture<T> future, final PreparedFetch fetch,
+            final Transform<RowFetchResult<PointChunk>, AsyncFuture<T>> converter
+        ) {
+            super(future, converter);
+            this.fetch = fetch;
+        }
+
+        @Override
+        protected void accept(final Row row) throws Exception {
+            fetch.collect(row, points);
+        }
+
+        @Override
+        protected PointChunk data() {
+            return points.build();
+        }
+    }
+
+    /**
+     * Fetch helper which decodes each page of rows into a chunk of points, and passes it on to a
+     * consumer instead of accumulating it.
+     */
+    private final class PointStreamHelper<T> extends AbstractFetchHelper<Void, T> {
+        private final PreparedFetch fetch;
+        private final FetchQuotaWatcher watcher;
+        private final Consumer<MetricCollection> consumer;
+
+        private PointChunk.Builder points = PointChunk.builder();
+
+        public PointStreamHelper(
+            final ResolvableFuture<T> future, final PreparedFetch fetch,
+            final FetchQuotaWatcher watcher, final Consumer<MetricCollection> consumer,
+            final Transform<RowFetchResult<Void>, AsyncFuture<T>> converter
+        ) {
+            super(future, converter);
+            this.fetch = fetch;
+            this.watcher = watcher;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void accept(final Row row) throws Exception {
+            fetch.collect(row, points);
+        }
+
+        @Override
+        protected void page() throws Exception {
+            final PointChunk chunk = points.build();
+
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            points = PointChunk.builder();
+            watcher.readData(chunk.size());
+            consumer.accept(MetricCollection.points(chunk));
+        }
+
+        @Override
+        protected Void data() {
+            return null;
+        }
+    }
+
+    /**
+     * Collects the results of fetches for several partitions.
+     * <p>
+     * The first error of any fetch fails the whole collection, after all fetches have completed.
+     */
+    private static class FetchCollector implements StreamCollector<FetchData, FetchData> {
+        private final ConcurrentLinkedQueue<FetchData> results = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void resolved(final FetchData result) throws Exception {
+            results.add(result);
+        }
+
+        @Override
+        public void failed(final Throwable cause) throws Exception {
+            errors.add(cause);
+        }
+
+        @Override
+        public void cancelled() throws Exception {
+        }
+
+        @Override
+        public FetchData end(int resolved, int failed, int cancelled) throws Exception {
+            final Throwable error = errors.peek();
+
+            if (error != null) {
+                Throwables.propagateIfPossible(error, Exception.class);
+                throw new RuntimeException(error);
+            }
+
+            return FetchData.collect(FETCH).collect(results);
+        }
+    }
+
     @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
     private final class RowStreamHelper<R> implements FutureDone<ResultSet> {
         private final AsyncObserver<List<R>> observer;
@@ -753,6 +1036,6 @@ public class DatastaxBackend extends AbstractMetricBackend implements LifeCycles
     @Data
     private static class RowFetchResult<T> {
         final List<ExecutionInfo> info;
-        final List<T> data;
+        final T data;
     }
 }
@@ -36,10 +36,12 @@ import com.spotify.heroic.dagger.PrimaryComponent;
 import com.spotify.heroic.lifecycle.LifeCycle;
 import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metric.MetricModule;
+import com.spotify.heroic.metric.RowKeyCache;
 import com.spotify.heroic.metric.datastax.schema.Schema;
 import com.spotify.heroic.metric.datastax.schema.SchemaComponent;
 import com.spotify.heroic.metric.datastax.schema.SchemaModule;
 import com.spotify.heroic.metric.datastax.schema.ng.NextGenSchemaModule;
+import com.spotify.heroic.statistics.MetricBackendReporter;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
@@ -71,6 +73,9 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     public static final boolean DEFAULT_CONFIGURE = false;
     public static final int DEFAULT_FETCH_SIZE = 5000;
     public static final Duration DEFAULT_READ_TIMEOUT = new Duration(30, TimeUnit.SECONDS);
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+    public static final int DEFAULT_WRITE_CONCURRENCY = 64;
+    public static final int DEFAULT_FETCH_CONCURRENCY = 4;
 
     /* id of backend (defualt will be generated) */
     private final Optional<String> id;
@@ -92,6 +97,14 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
     private final RetryPolicy retryPolicy;
     /* authentication to apply to builder */
     private final DatastaxAuthentication authentication;
+    /* the maximum number of serialized row keys to cache */
+    private final long rowKeyCacheSize;
+    /* the maximum number of points in a single batch written to one partition */
+    private final int writeBatchSize;
+    /* the maximum number of batches to write concurrently for a single write request */
+    private final int writeConcurrency;
+    /* the maximum number of partitions to read concurrently for a single streaming fetch */
+    private final int fetchConcurrency;
 
     @JsonCreator
     public DatastaxMetricModule(
@@ -103,7 +116,11 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         @JsonProperty("readTimeout") Optional<Duration> readTimeout,
         @JsonProperty("consistencyLevel") Optional<ConsistencyLevel> consistencyLevel,
         @JsonProperty("retryPolicy") Optional<RetryPolicy> retryPolicy,
-        @JsonProperty("authentication") Optional<DatastaxAuthentication> authentication
+        @JsonProperty("authentication") Optional<DatastaxAuthentication> authentication,
+        @JsonProperty("rowKeyCacheSize") Optional<Long> rowKeyCacheSize,
+        @JsonProperty("writeBatchSize") Optional<Integer> writeBatchSize,
+        @JsonProperty("writeConcurrency") Optional<Integer> writeConcurrency,
+        @JsonProperty("fetchConcurrency") Optional<Integer> fetchConcurrency
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or("heroic");
@@ -115,6 +132,22 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         this.consistencyLevel = consistencyLevel.orElse(ConsistencyLevel.ONE);
         this.retryPolicy = retryPolicy.orElse(DefaultRetryPolicy.INSTANCE);
         this.authentication = authentication.orElseGet(DatastaxAuthentication.None::new);
+        this.rowKeyCacheSize = rowKeyCacheSize.orElse(RowKeyCache.DEFAULT_SIZE);
+        this.writeBatchSize = writeBatchSize.orElse(DEFAULT_WRITE_BATCH_SIZE);
+        this.writeConcurrency = writeConcurrency.orElse(DEFAULT_WRITE_CONCURRENCY);
+        this.fetchConcurrency = fetchConcurrency.orElse(DEFAULT_FETCH_CONCURRENCY);
+
+        if (this.writeBatchSize < 1) {
+            throw new IllegalArgumentException("writeBatchSize: must be positive");
+        }
+
+        if (this.writeConcurrency < 1) {
+            throw new IllegalArgumentException("writeConcurrency: must be positive");
+        }
+
+        if (this.fetchConcurrency < 1) {
+            throw new IllegalArgumentException("fetchConcurrency: must be positive");
+        }
     }
 
     private static List<InetSocketAddress> convert(Set<String> source) {
@@ -191,15 +224,37 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
             return groups;
         }
 
+        @Provides
+        @DatastaxScope
+        @Named("writeBatchSize")
+        public int writeBatchSize() {
+            return writeBatchSize;
+        }
+
+        @Provides
+        @DatastaxScope
+        @Named("writeConcurrency")
+        public int writeConcurrency() {
+            return writeConcurrency;
+        }
+
+        @Provides
+        @DatastaxScope
+        @Named("fetchConcurrency")
+        public int fetchConcurrency() {
+            return fetchConcurrency;
+        }
+
         @Provides
         @DatastaxScope
         public Managed<Connection> connection(
             final AsyncFramework async, @Named("configure") final boolean configure,
-            final Schema schema
+            final Schema schema, final MetricBackendReporter reporter
         ) {
             return async.managed(
                 new ManagedSetupConnection(async, seeds, schema, configure, fetchSize, readTimeout,
-                    consistencyLevel, retryPolicy, authentication));
+                    consistencyLevel, retryPolicy, authentication,
+                    new RowKeyCache<>(rowKeyCacheSize, reporter)));
         }
 
         @Provides
@@ -229,6 +284,10 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
         private Optional<ConsistencyLevel> consistencyLevel = empty();
         private Optional<RetryPolicy> retryPolicy = empty();
         private Optional<DatastaxAuthentication> authentication = empty();
+        private Optional<Long> rowKeyCacheSize = empty();
+        private Optional<Integer> writeBatchSize = empty();
+        private Optional<Integer> writeConcurrency = empty();
+        private Optional<Integer> fetchConcurrency = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -280,9 +339,30 @@ public final class DatastaxMetricModule implements MetricModule, DynamicModuleId
             return this;
         }
 
+        public Builder rowKeyCacheSize(long rowKeyCacheSize) {
+            this.rowKeyCacheSize = of(rowKeyCacheSize);
+            return this;
+        }
+
+        public Builder writeBatchSize(int writeBatchSize) {
+            this.writeBatchSize = of(writeBatchSize);
+            return this;
+        }
+
+        public Builder writeConcurrency(int writeConcurrency) {
+            this.writeConcurrency = of(writeConcurrency);
+            return this;
+        }
+
+        public Builder fetchConcurrency(int fetchConcurrency) {
+            this.fetchConcurrency = of(fetchConcurrency);
+            return this;
+        }
+
         public DatastaxMetricModule build() {
             return new DatastaxMetricModule(id, groups, seeds, schema, configure, fetchSize,
-                readTimeout, consistencyLevel, retryPolicy, authentication);
+                readTimeout, consistencyLevel, retryPolicy, authentication, rowKeyCacheSize,
+                writeBatchSize, writeConcurrency, fetchConcurrency);
         }
     }
 }
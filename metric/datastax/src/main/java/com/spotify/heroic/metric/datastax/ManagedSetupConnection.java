@@ -31,6 +31,7 @@ import com.datastax.driver.core.policies.RetryPolicy;
 import com.datastax.driver.core.policies.RoundRobinPolicy;
 import com.datastax.driver.core.policies.TokenAwarePolicy;
 import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.metric.RowKeyCache;
 import com.spotify.heroic.metric.datastax.schema.Schema;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
@@ -39,6 +40,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.util.Collection;
 
 @RequiredArgsConstructor
@@ -53,6 +55,7 @@ public class ManagedSetupConnection implements ManagedSetup<Connection> {
     private final ConsistencyLevel consistencyLevel;
     private final RetryPolicy retryPolicy;
     private final DatastaxAuthentication authentication;
+    private final RowKeyCache<ByteBuffer> rowKeyCache;
 
     public AsyncFuture<Connection> construct() {
         AsyncFuture<Session> session = async.call(() -> {
@@ -86,7 +89,7 @@ public class ManagedSetupConnection implements ManagedSetup<Connection> {
         }
 
         return session.lazyTransform(s -> {
-            return schema.instance(s).directTransform(schema -> {
+            return schema.instance(s, rowKeyCache).directTransform(schema -> {
                 return new Connection(s, schema);
             });
         });
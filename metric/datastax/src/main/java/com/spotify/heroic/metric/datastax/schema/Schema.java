@@ -27,11 +27,15 @@ import com.datastax.driver.core.Session;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.metric.RowKeyCache;
 import com.spotify.heroic.metric.datastax.schema.legacy.LegacySchema;
 import com.spotify.heroic.metric.datastax.schema.ng.NextGenSchema;
 import eu.toolchain.async.AsyncFuture;
 import eu.toolchain.async.Transform;
 
+import java.nio.ByteBuffer;
+
 @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.PROPERTY, property = "type")
 @JsonSubTypes({
     @JsonSubTypes.Type(value = LegacySchema.class, name = "legacy"), @JsonSubTypes.Type(
@@ -40,11 +44,24 @@ import eu.toolchain.async.Transform;
 public interface Schema {
     public AsyncFuture<Void> configure(final Session session);
 
-    public AsyncFuture<SchemaInstance> instance(final Session session);
+    /**
+     * Build an instance of the schema for the given session.
+     *
+     * @param session Session to prepare statements for.
+     * @param rowKeyCache Cache of serialized row keys for the instance to use.
+     */
+    public AsyncFuture<SchemaInstance> instance(
+        final Session session, final RowKeyCache<ByteBuffer> rowKeyCache
+    );
 
     public static interface PreparedFetch {
         public BoundStatement fetch(int limit);
 
         public Transform<Row, Point> converter();
+
+        /**
+         * Decode the point in the given row, and add it to the given chunk builder.
+         */
+        public void collect(Row row, PointChunk.Builder points);
     }
 }
@@ -56,5 +56,12 @@ public interface SchemaInstance {
 
     public static interface WriteSession {
         public BoundStatement writePoint(Series series, Point d) throws IOException;
+
+        /**
+         * Get the base of the row that a point with the given timestamp is written to.
+         * <p>
+         * Points with the same base and series are written to the same partition.
+         */
+        public long base(long timestamp);
     }
 }
@@ -28,6 +28,7 @@ import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.metric.BackendKey;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.datastax.MetricsRowKey;
 import com.spotify.heroic.metric.datastax.TypeSerializer;
 import com.spotify.heroic.metric.datastax.schema.AbstractSchemaInstance;
@@ -39,9 +40,7 @@ import lombok.Data;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Data
 public class LegacySchemaInstance extends AbstractSchemaInstance {
@@ -53,17 +52,20 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
     private final PreparedStatement fetch;
     private final PreparedStatement delete;
     private final PreparedStatement count;
+    private final TypeSerializer<MetricsRowKey> rowKey;
     private final BackendKeyUtils keyUtils;
 
     public LegacySchemaInstance(
         final String keyspace, final String pointsTable, final PreparedStatement write,
-        final PreparedStatement fetch, final PreparedStatement delete, final PreparedStatement count
+        final PreparedStatement fetch, final PreparedStatement delete,
+        final PreparedStatement count, final TypeSerializer<MetricsRowKey> rowKey
     ) {
         super(KEY);
         this.write = write;
         this.fetch = fetch;
         this.delete = delete;
         this.count = count;
+        this.rowKey = rowKey;
         this.keyUtils = new BackendKeyUtils(KEY, keyspace, pointsTable, this);
     }
 
@@ -78,7 +80,7 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
 
     @Override
     public TypeSerializer<MetricsRowKey> rowKey() {
-        return ROW_KEY;
+        return rowKey;
     }
 
     @Override
@@ -102,7 +104,7 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
             }
 
             final MetricsRowKey key = new MetricsRowKey(series, currentBase);
-            final ByteBuffer keyBlob = ROW_KEY.serialize(key);
+            final ByteBuffer keyBlob = rowKey.serialize(key);
             final int startKey = calculateColumnKey(modified.start());
             final int endKey = calculateColumnKey(modified.end());
             final long base = currentBase;
@@ -122,6 +124,11 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
                     };
                 }
 
+                @Override
+                public void collect(Row row, PointChunk.Builder points) {
+                    points.add(calculateAbsoluteTimestamp(base, row.getInt(0)), row.getDouble(1));
+                }
+
                 @Override
                 public String toString() {
                     return modified.toString();
@@ -136,7 +143,7 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
     public PreparedFetch row(final BackendKey key) throws IOException {
         final long base = key.getBase();
 
-        final ByteBuffer k = ROW_KEY.serialize(new MetricsRowKey(key.getSeries(), base));
+        final ByteBuffer k = rowKey.serialize(new MetricsRowKey(key.getSeries(), base));
 
         return new PreparedFetch() {
             @Override
@@ -153,6 +160,11 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
                 };
             }
 
+            @Override
+            public void collect(Row row, PointChunk.Builder points) {
+                points.add(calculateAbsoluteTimestamp(base, row.getInt(0)), row.getDouble(1));
+            }
+
             @Override
             public String toString() {
                 return "<Fetch Row " + key + ">";
@@ -163,22 +175,18 @@ public class LegacySchemaInstance extends AbstractSchemaInstance {
     @Override
     public WriteSession writeSession() {
         return new WriteSession() {
-            final Map<Long, ByteBuffer> cache = new HashMap<>();
-
             @Override
             public BoundStatement writePoint(Series series, Point d) throws IOException {
                 final long base = calculateBaseTimestamp(d.getTimestamp());
-
-                ByteBuffer key = cache.get(base);
-
-                if (key == null) {
-                    key = ROW_KEY.serialize(new MetricsRowKey(series, base));
-                    cache.put(base, key);
-                }
-
+                final ByteBuffer key = rowKey.serialize(new MetricsRowKey(series, base));
                 final int offset = calculateColumnKey(d.getTimestamp());
                 return write.bind(key, offset, d.getValue());
             }
+
+            @Override
+            public long base(final long timestamp) {
+                return calculateBaseTimestamp(timestamp);
+            }
         };
     }
 
@@ -25,7 +25,9 @@ import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.Session;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.spotify.heroic.metric.RowKeyCache;
 import com.spotify.heroic.metric.datastax.Async;
+import com.spotify.heroic.metric.datastax.CachedRowKeySerializer;
 import com.spotify.heroic.metric.datastax.schema.AbstractCassandraSchema;
 import com.spotify.heroic.metric.datastax.schema.Schema;
 import com.spotify.heroic.metric.datastax.schema.SchemaInstance;
@@ -36,6 +38,7 @@ import lombok.extern.slf4j.Slf4j;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 @Slf4j
@@ -100,7 +103,9 @@ public class NextGenSchema extends AbstractCassandraSchema implements Schema {
     }
 
     @Override
-    public AsyncFuture<SchemaInstance> instance(final Session s) {
+    public AsyncFuture<SchemaInstance> instance(
+        final Session s, final RowKeyCache<ByteBuffer> rowKeyCache
+    ) {
         final Map<String, String> values = ImmutableMap.of("keyspace", keyspace);
 
         final AsyncFuture<PreparedStatement> write = prepareAsync(values, s, WRITE_METRICS_CQL);
@@ -112,7 +117,8 @@ public class NextGenSchema extends AbstractCassandraSchema implements Schema {
             .collectAndDiscard(ImmutableList.of(write, fetch, delete, count))
             .directTransform(r -> {
                 return new NextGenSchemaInstance(keyspace, POINTS_TABLE, write.getNow(),
-                    fetch.getNow(), delete.getNow(), count.get());
+                    fetch.getNow(), delete.getNow(), count.get(),
+                    new CachedRowKeySerializer(NextGenSchemaInstance.ROW_KEY, rowKeyCache));
             });
     }
 }
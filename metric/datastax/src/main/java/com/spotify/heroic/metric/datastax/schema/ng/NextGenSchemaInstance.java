@@ -28,6 +28,7 @@ import com.spotify.heroic.common.DateRange;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.metric.BackendKey;
 import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.datastax.MetricsRowKey;
 import com.spotify.heroic.metric.datastax.TypeSerializer;
 import com.spotify.heroic.metric.datastax.schema.AbstractSchemaInstance;
@@ -39,9 +40,7 @@ import lombok.Data;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 @Data
 public class NextGenSchemaInstance extends AbstractSchemaInstance {
@@ -56,11 +55,13 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
     private final PreparedStatement fetch;
     private final PreparedStatement delete;
     private final PreparedStatement count;
+    private final TypeSerializer<MetricsRowKey> rowKey;
     private final BackendKeyUtils keyUtils;
 
     public NextGenSchemaInstance(
         final String keyspace, final String pointsTable, final PreparedStatement write,
-        final PreparedStatement fetch, final PreparedStatement delete, final PreparedStatement count
+        final PreparedStatement fetch, final PreparedStatement delete,
+        final PreparedStatement count, final TypeSerializer<MetricsRowKey> rowKey
     ) {
         super(KEY);
         this.keyspace = keyspace;
@@ -69,12 +70,13 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
         this.fetch = fetch;
         this.delete = delete;
         this.count = count;
+        this.rowKey = rowKey;
         this.keyUtils = new BackendKeyUtils(KEY, keyspace, pointsTable, this);
     }
 
     @Override
     public TypeSerializer<MetricsRowKey> rowKey() {
-        return ROW_KEY;
+        return rowKey;
     }
 
     @Override
@@ -85,22 +87,18 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
     @Override
     public WriteSession writeSession() {
         return new WriteSession() {
-            final Map<Long, ByteBuffer> cache = new HashMap<>();
-
             @Override
             public BoundStatement writePoint(Series series, Point d) throws IOException {
                 final long base = calculateBaseTimestamp(d.getTimestamp());
-
-                ByteBuffer key = cache.get(base);
-
-                if (key == null) {
-                    key = ROW_KEY.serialize(new MetricsRowKey(series, base));
-                    cache.put(base, key);
-                }
-
+                final ByteBuffer key = rowKey.serialize(new MetricsRowKey(series, base));
                 final int offset = calculateColumnKey(d.getTimestamp());
                 return write.bind(key, offset, d.getValue());
             }
+
+            @Override
+            public long base(final long timestamp) {
+                return calculateBaseTimestamp(timestamp);
+            }
         };
     }
 
@@ -119,7 +117,7 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                 continue;
             }
 
-            final ByteBuffer key = ROW_KEY.serialize(new MetricsRowKey(series, currentBase));
+            final ByteBuffer key = rowKey.serialize(new MetricsRowKey(series, currentBase));
             final int startColumn = calculateColumnKey(modified.start());
             final int endColumn = calculateColumnKey(modified.end());
             final long base = currentBase;
@@ -139,6 +137,11 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                     };
                 }
 
+                @Override
+                public void collect(Row row, PointChunk.Builder points) {
+                    points.add(calculateAbsoluteTimestamp(base, row.getInt(0)), row.getDouble(1));
+                }
+
                 @Override
                 public String toString() {
                     return modified.toString();
@@ -153,7 +156,7 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
     public PreparedFetch row(final BackendKey key) throws IOException {
         final long base = key.getBase();
 
-        final ByteBuffer k = ROW_KEY.serialize(new MetricsRowKey(key.getSeries(), base));
+        final ByteBuffer k = rowKey.serialize(new MetricsRowKey(key.getSeries(), base));
 
         return new PreparedFetch() {
             @Override
@@ -170,6 +173,11 @@ public class NextGenSchemaInstance extends AbstractSchemaInstance {
                 };
             }
 
+            @Override
+            public void collect(Row row, PointChunk.Builder points) {
+                points.add(calculateAbsoluteTimestamp(base, row.getInt(0)), row.getDouble(1));
+            }
+
             @Override
             public String toString() {
                 return "<Fetch Row " + key + ">";
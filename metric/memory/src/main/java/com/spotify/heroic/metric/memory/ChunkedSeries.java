@@ -0,0 +1,481 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointChunk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Points of a single series, stored in append-only chunks of primitive arrays.
+ * <p>
+ * Writers reserve a slot in the active chunk with a single atomic increment, and publish their
+ * slot independently of other writers. Readers skip slots which have not been published, so
+ * appends never wait for readers or for each other. When the active chunk is full it is replaced,
+ * and once all of its slots have been published it is sealed into an immutable chunk sorted by
+ * timestamp which is searched with a binary search.
+ * <p>
+ * The first active chunk is small, and each following one doubles in size up to the configured
+ * chunk size. This keeps the memory used by series with few points low.
+ * <p>
+ * When several points have the same timestamp, the one which was written last is kept. Points at
+ * {@link Long#MIN_VALUE} are not supported, since it marks slots that have not been published.
+ */
+class ChunkedSeries {
+    static final int POINT_BYTES = Long.BYTES + Double.BYTES;
+
+    /* active chunk of retired series, which can not be written to */
+    private static final Chunk RETIRED = new Chunk(0);
+
+    /* capacity of the first active chunk */
+    static final int INITIAL_CAPACITY = 16;
+
+    private final int chunkSize;
+    private final Listener listener;
+    private final AtomicReference<Chunk> active;
+
+    /* oldest first, copy-on-write while holding the lock of this series */
+    private volatile List<Segment> segments = Collections.emptyList();
+
+    ChunkedSeries(final int chunkSize, final Listener listener) {
+        this.chunkSize = chunkSize;
+        this.listener = listener;
+        this.active = new AtomicReference<>(allocate(Math.min(chunkSize, INITIAL_CAPACITY)));
+    }
+
+    /**
+     * Append a single point.
+     *
+     * @return {@code true} if the point was appended, {@code false} if this series has been
+     * retired and the point should be written to a new series instead.
+     */
+    boolean append(final long timestamp, final double value) {
+        while (true) {
+            final Chunk chunk = active.get();
+
+            if (chunk == RETIRED) {
+                return false;
+            }
+
+            final int slot = chunk.reserve();
+
+            if (slot < chunk.capacity()) {
+                if (chunk.publish(slot, timestamp, value)) {
+                    seal(chunk);
+                }
+
+                return true;
+            }
+
+            rotate(chunk);
+        }
+    }
+
+    /**
+     * Read all points in the range [start, end), sorted by timestamp.
+     */
+    PointChunk read(final long start, final long end) {
+        /* the active chunk is read first, a chunk which is rotated in between is then part of the
+         * segments, and reading it twice is harmless since duplicates are removed */
+        final Chunk chunk = active.get();
+        final List<Segment> segments = this.segments;
+
+        final List<PointChunk> parts = new ArrayList<>(segments.size() + 1);
+
+        for (final Segment segment : segments) {
+            segment.slice(start, end).ifPresent(parts::add);
+        }
+
+        chunk.slice(start, end).ifPresent(parts::add);
+
+        if (parts.isEmpty()) {
+            return PointChunk.empty();
+        }
+
+        return dedupe(PointChunk.mergeSorted(parts));
+    }
+
+    /**
+     * Remove the given sealed chunk.
+     *
+     * @return {@code true} if the chunk was removed.
+     */
+    synchronized boolean remove(final Sealed sealed) {
+        final List<Segment> next = new ArrayList<>(segments);
+
+        if (!next.remove(sealed)) {
+            return false;
+        }
+
+        segments = Collections.unmodifiableList(next);
+        return true;
+    }
+
+    /**
+     * Retire this series if it only contains points older than the given cutoff.
+     * <p>
+     * Points which are written while the series is being retired are returned, so that they can
+     * be written to a new series.
+     *
+     * @return Points that were written concurrently if the series was retired, or empty if the
+     * series still contains data.
+     */
+    synchronized Optional<PointChunk> retire(final long cutoff) {
+        final Chunk chunk = active.get();
+
+        if (chunk == RETIRED) {
+            return Optional.of(PointChunk.empty());
+        }
+
+        if (!segments.isEmpty() || chunk.max() >= cutoff) {
+            return Optional.empty();
+        }
+
+        active.set(RETIRED);
+        chunk.close();
+        listener.released(chunk.capacity());
+        return Optional.of(chunk.slice(cutoff, Long.MAX_VALUE).orElseGet(PointChunk::empty));
+    }
+
+    /**
+     * Retire this series and drop all of its points.
+     *
+     * @return Number of point slots which were released.
+     */
+    synchronized int close() {
+        final Chunk chunk = active.get();
+
+        if (chunk == RETIRED) {
+            return 0;
+        }
+
+        active.set(RETIRED);
+        chunk.close();
+
+        int released = chunk.capacity();
+
+        for (final Segment segment : segments) {
+            released += segment instanceof Sealed ? ((Sealed) segment).size()
+                : ((Chunk) segment).capacity();
+        }
+
+        segments = Collections.emptyList();
+        return released;
+    }
+
+    int segments() {
+        return segments.size();
+    }
+
+    /**
+     * Replace the given full chunk with a new one.
+     * <p>
+     * The chunk is sealed by whoever is last, out of this and the writers of its slots.
+     */
+    private void rotate(final Chunk chunk) {
+        synchronized (this) {
+            if (active.get() != chunk) {
+                return;
+            }
+
+            /* keep the chunk readable until it has been sealed */
+            segments = concat(segments, chunk);
+            active.set(allocate(Math.min(chunkSize, chunk.capacity() * 2)));
+        }
+
+        if (chunk.rotated()) {
+            seal(chunk);
+        }
+    }
+
+    private Chunk allocate(final int capacity) {
+        listener.allocated(capacity);
+        return new Chunk(capacity);
+    }
+
+    /**
+     * Replace a rotated chunk, which has all of its slots published, with a sealed chunk.
+     */
+    private void seal(final Chunk chunk) {
+        final PointChunk points = chunk.slice(Long.MIN_VALUE, Long.MAX_VALUE)
+            .map(ChunkedSeries::dedupe)
+            .orElseGet(PointChunk::empty);
+
+        final Sealed sealed = new Sealed(points);
+
+        synchronized (this) {
+            final List<Segment> next = new ArrayList<>(segments);
+            final int index = next.indexOf(chunk);
+
+            /* series was closed while sealing */
+            if (index < 0) {
+                return;
+            }
+
+            next.set(index, sealed);
+            segments = Collections.unmodifiableList(next);
+        }
+
+        listener.sealed(this, sealed, chunk.capacity());
+    }
+
+    private static List<Segment> concat(final List<Segment> segments, final Segment segment) {
+        final List<Segment> next = new ArrayList<>(segments.size() + 1);
+        next.addAll(segments);
+        next.add(segment);
+        return Collections.unmodifiableList(next);
+    }
+
+    /**
+     * Remove points with duplicate timestamps from a sorted chunk, keeping the last one.
+     */
+    static PointChunk dedupe(final PointChunk points) {
+        final int size = points.size();
+        int i = 1;
+
+        while (i < size && points.timestamp(i - 1) != points.timestamp(i)) {
+            i++;
+        }
+
+        if (i >= size) {
+            return points;
+        }
+
+        final PointChunk.Builder builder = PointChunk.builder(size);
+
+        for (int j = 0; j < size; j++) {
+            if (j + 1 < size && points.timestamp(j) == points.timestamp(j + 1)) {
+                continue;
+            }
+
+            builder.add(points.timestamp(j), points.value(j));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Get the index of the first point at or after the given timestamp in a sorted chunk.
+     */
+    static int lowerBound(final PointChunk points, final long timestamp) {
+        int low = 0;
+        int high = points.size();
+
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+
+            if (points.timestamp(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    interface Listener {
+        /**
+         * A new active chunk with the given capacity has been allocated.
+         */
+        void allocated(int capacity);
+
+        /**
+         * A full chunk with the given capacity has been sealed.
+         */
+        void sealed(ChunkedSeries series, Sealed sealed, int capacity);
+
+        /**
+         * An active chunk with the given capacity has been dropped without being sealed.
+         */
+        void released(int capacity);
+    }
+
+    interface Segment {
+        /**
+         * Get the points in the range [start, end), sorted by timestamp.
+         */
+        Optional<PointChunk> slice(long start, long end);
+    }
+
+    /**
+     * An immutable chunk of points, sorted by timestamp without duplicates.
+     */
+    static final class Sealed implements Segment {
+        private final PointChunk points;
+
+        Sealed(final PointChunk points) {
+            this.points = points;
+        }
+
+        int size() {
+            return points.size();
+        }
+
+        long max() {
+            return points.isEmpty() ? Long.MIN_VALUE : points.timestamp(points.size() - 1);
+        }
+
+        @Override
+        public Optional<PointChunk> slice(final long start, final long end) {
+            if (points.isEmpty() || end <= points.timestamp(0) || start > max()) {
+                return Optional.empty();
+            }
+
+            final int from = lowerBound(points, start);
+            final int to = lowerBound(points, end);
+
+            if (from >= to) {
+                return Optional.empty();
+            }
+
+            if (from == 0 && to == points.size()) {
+                return Optional.of(points);
+            }
+
+            final PointChunk.Builder builder = PointChunk.builder(to - from);
+
+            for (int i = from; i < to; i++) {
+                builder.add(points.timestamp(i), points.value(i));
+            }
+
+            return Optional.of(builder.build());
+        }
+    }
+
+    /**
+     * A chunk which points are appended to.
+     * <p>
+     * Slots are reserved in order, and each slot is published by writing its timestamp, after its
+     * value. Slots are published independently of each other, so readers skip slots which still
+     * have the {@link #UNPUBLISHED} timestamp.
+     */
+    static final class Chunk implements Segment {
+        static final long UNPUBLISHED = Long.MIN_VALUE;
+
+        private final AtomicLongArray timestamps;
+        private final double[] values;
+
+        private final AtomicInteger reserved = new AtomicInteger();
+        /* slots which have not been published, plus one until the chunk has been rotated */
+        private final AtomicInteger remaining;
+        private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+        Chunk(final int capacity) {
+            this.timestamps = new AtomicLongArray(capacity);
+            this.values = new double[capacity];
+            this.remaining = new AtomicInteger(capacity + 1);
+
+            for (int i = 0; i < capacity; i++) {
+                timestamps.lazySet(i, UNPUBLISHED);
+            }
+        }
+
+        int capacity() {
+            return values.length;
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        int reserve() {
+            return reserved.getAndIncrement();
+        }
+
+        /**
+         * Publish a reserved slot.
+         *
+         * @return {@code true} if this was the last slot of a rotated chunk, which should now be
+         * sealed.
+         */
+        boolean publish(final int slot, final long timestamp, final double value) {
+            values[slot] = value;
+            timestamps.set(slot, timestamp);
+            max.accumulateAndGet(timestamp, Math::max);
+            return remaining.decrementAndGet() == 0;
+        }
+
+        /**
+         * Mark that this chunk has been replaced as the active chunk.
+         *
+         * @return {@code true} if all slots have been published, and the chunk should now be
+         * sealed.
+         */
+        boolean rotated() {
+            return remaining.decrementAndGet() == 0;
+        }
+
+        /**
+         * Prevent any further slots from being reserved, and wait for the ones that have been
+         * reserved to be published.
+         * <p>
+         * Only used when retiring a series, appends never wait.
+         */
+        void close() {
+            final int count = Math.min(reserved.getAndSet(capacity()), capacity());
+
+            while (capacity() + 1 - remaining.get() < count) {
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public Optional<PointChunk> slice(final long start, final long end) {
+            final int size = Math.min(reserved.get(), capacity());
+
+            if (size == 0 || start > max.get()) {
+                return Optional.empty();
+            }
+
+            final PointChunk.Builder builder = PointChunk.builder(size);
+            boolean sorted = true;
+            long last = Long.MIN_VALUE;
+
+            for (int i = 0; i < size; i++) {
+                final long t = timestamps.get(i);
+
+                if (t == UNPUBLISHED || t < start || t >= end) {
+                    continue;
+                }
+
+                sorted = sorted && t >= last;
+                last = t;
+                builder.add(t, values[i]);
+            }
+
+            if (builder.size() == 0) {
+                return Optional.empty();
+            }
+
+            final PointChunk points = builder.build();
+            return Optional.of(sorted ? points : points.sorted());
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.metric.PointChunk;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Storage of points, where each series is stored in append-only chunks of primitive arrays.
+ * <p>
+ * Writes to the same series never take a lock, except when a chunk is full and has to be
+ * replaced.
+ * <p>
+ * Sealed chunks are evicted oldest first once they are older than the retention, or once the
+ * storage grows beyond its memory budget. The memory budget is checked on every write, retention
+ * is applied by {@link #expire(long)}.
+ */
+public class ChunkedStorage {
+    private final int chunkSize;
+    private final Optional<Long> retention;
+    private final Optional<Long> maxBytes;
+
+    private final ConcurrentHashMap<MemoryBackend.MemoryKey, ChunkedSeries> series =
+        new ConcurrentHashMap<>();
+
+    /* sealed chunks, in the order that they were sealed */
+    private final Queue<Entry> sealed = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong bytes = new AtomicLong();
+    /* largest timestamp evicted because of the memory budget */
+    private final AtomicLong horizon = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final ChunkedSeries.Listener listener = new ChunkedSeries.Listener() {
+        @Override
+        public void allocated(final int capacity) {
+            bytes.addAndGet(bytes(capacity));
+        }
+
+        @Override
+        public void sealed(
+            final ChunkedSeries series, final ChunkedSeries.Sealed chunk, final int capacity
+        ) {
+            bytes.addAndGet(bytes(chunk.size()) - bytes(capacity));
+            sealed.add(new Entry(series, chunk));
+        }
+
+        @Override
+        public void released(final int capacity) {
+            bytes.addAndGet(-bytes(capacity));
+        }
+    };
+
+    /**
+     * @param chunkSize Number of points in each chunk.
+     * @param retention Age in milliseconds after which points are evicted.
+     * @param maxBytes Approximate number of bytes that points are allowed to use. Only sealed
+     * chunks are evicted to stay within it, active chunks are counted but never evicted. Active
+     * chunks start small and grow with the series, so their total size is bounded by the number
+     * of series times the chunk size, but is usually much smaller.
+     */
+    public ChunkedStorage(
+        final int chunkSize, final Optional<Long> retention, final Optional<Long> maxBytes
+    ) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        this.chunkSize = chunkSize;
+        this.retention = retention;
+        this.maxBytes = maxBytes;
+    }
+
+    public void write(final MemoryBackend.MemoryKey key, final PointChunk points) {
+        final int size = points.size();
+        int i = 0;
+
+        while (i < size) {
+            final ChunkedSeries s = series.computeIfAbsent(key, this::newSeries);
+
+            while (i < size && s.append(points.timestamp(i), points.value(i))) {
+                i++;
+            }
+
+            if (i < size) {
+                /* series has been retired */
+                series.remove(key, s);
+            }
+        }
+
+        maxBytes.ifPresent(this::evict);
+    }
+
+    /**
+     * Read all points in the range [start, end), sorted by timestamp.
+     */
+    public PointChunk read(final MemoryBackend.MemoryKey key, final long start, final long end) {
+        final ChunkedSeries s = series.get(key);
+
+        if (s == null) {
+            return PointChunk.empty();
+        }
+
+        return s.read(start, end);
+    }
+
+    public void delete(final MemoryBackend.MemoryKey key) {
+        final ChunkedSeries s = series.remove(key);
+
+        if (s != null) {
+            /* concurrent writes to the closed series go to a new series */
+            bytes.addAndGet(-bytes(s.close()));
+        }
+    }
+
+    /**
+     * Evict all data which is older than the configured retention.
+     *
+     * @param now Current time in milliseconds.
+     */
+    public void expire(final long now) {
+        if (!retention.isPresent()) {
+            return;
+        }
+
+        final long cutoff = now - retention.get();
+
+        while (true) {
+            final Entry head = sealed.peek();
+
+            if (head == null || head.chunk.max() >= cutoff) {
+                break;
+            }
+
+            if (sealed.remove(head)) {
+                drop(head);
+            }
+        }
+
+        for (final Map.Entry<MemoryBackend.MemoryKey, ChunkedSeries> e : series.entrySet()) {
+            final ChunkedSeries s = e.getValue();
+
+            s.retire(cutoff).ifPresent(late -> {
+                series.remove(e.getKey(), s);
+
+                if (!late.isEmpty()) {
+                    write(e.getKey(), late);
+                }
+            });
+        }
+    }
+
+    /**
+     * Pass all stored points to the given consumer, one series at a time.
+     */
+    public void forEach(final BiConsumer<MemoryBackend.MemoryKey, PointChunk> consumer) {
+        for (final Map.Entry<MemoryBackend.MemoryKey, ChunkedSeries> e : series.entrySet()) {
+            final PointChunk points = e.getValue().read(Long.MIN_VALUE, Long.MAX_VALUE);
+
+            if (!points.isEmpty()) {
+                consumer.accept(e.getKey(), points);
+            }
+        }
+    }
+
+    /**
+     * Number of series stored.
+     */
+    public int size() {
+        return series.size();
+    }
+
+    /**
+     * Approximate number of bytes used by points.
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    /**
+     * Largest timestamp which might have been evicted to stay within the memory budget.
+     * <p>
+     * Points after this timestamp are only evicted because of the retention.
+     */
+    public long horizon() {
+        return horizon.get();
+    }
+
+    /**
+     * Restore the horizon of a previous storage, e.g. when recovering from a checkpoint.
+     */
+    public void restoreHorizon(final long horizon) {
+        this.horizon.accumulateAndGet(horizon, Math::max);
+    }
+
+    /**
+     * Number of sealed chunks.
+     */
+    public int chunks() {
+        return sealed.size();
+    }
+
+    private ChunkedSeries newSeries(final MemoryBackend.MemoryKey key) {
+        return new ChunkedSeries(chunkSize, listener);
+    }
+
+    private void evict(final long maxBytes) {
+        if (bytes.get() <= maxBytes || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            while (bytes.get() > maxBytes) {
+                final Entry head = sealed.poll();
+
+                if (head == null) {
+                    break;
+                }
+
+                horizon.accumulateAndGet(head.chunk.max(), Math::max);
+                drop(head);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private void drop(final Entry entry) {
+        if (entry.series.remove(entry.chunk)) {
+            bytes.addAndGet(-bytes(entry.chunk.size()));
+        }
+    }
+
+    private static long bytes(final int points) {
+        return (long) points * ChunkedSeries.POINT_BYTES;
+    }
+
+    private static final class Entry {
+        private final ChunkedSeries series;
+        private final ChunkedSeries.Sealed chunk;
+
+        private Entry(final ChunkedSeries series, final ChunkedSeries.Sealed chunk) {
+            this.series = series;
+            this.chunk = chunk;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.spotify.heroic.common.RequestTimer;
 import com.spotify.heroic.common.Series;
 import com.spotify.heroic.common.Statistics;
 import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
 import com.spotify.heroic.metric.AbstractMetricBackend;
 import com.spotify.heroic.metric.BackendEntry;
 import com.spotify.heroic.metric.BackendKey;
@@ -37,8 +38,11 @@ import com.spotify.heroic.metric.FetchQuotaWatcher;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricCollection;
 import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.Point;
+import com.spotify.heroic.metric.PointChunk;
 import com.spotify.heroic.metric.QueryTrace;
 import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.scheduler.Scheduler;
 import eu.toolchain.async.AsyncFramework;
 import eu.toolchain.async.AsyncFuture;
 import lombok.Data;
@@ -47,18 +51,24 @@ import lombok.ToString;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * MetricBackend for Heroic cassandra datastore.
  */
-@ToString(exclude = {"storage", "async", "createLock"})
-public class MemoryBackend extends AbstractMetricBackend {
+@ToString(exclude = {"storage", "chunked", "wal", "async", "scheduler", "createLock"})
+public class MemoryBackend extends AbstractMetricBackend implements LifeCycles {
     public static final String MEMORY_KEYS = "memory-keys";
+    public static final String CHUNKED_KEYS = "chunked-keys";
+    public static final String CHUNKED_BYTES = "chunked-bytes";
+    public static final String CHUNKED_CHUNKS = "chunked-chunks";
 
     public static final QueryTrace.Identifier FETCH =
         QueryTrace.identifier(MemoryBackend.class, "fetch");
@@ -80,22 +90,41 @@ public class MemoryBackend extends AbstractMetricBackend {
     private final AsyncFramework async;
     private final Groups groups;
     private final Map<MemoryKey, NavigableMap<Long, Metric>> storage;
+    private final Optional<ChunkedStorage> chunked;
+    private final Optional<WriteAheadLog> wal;
+    private final Scheduler scheduler;
 
     @Inject
     public MemoryBackend(
         final AsyncFramework async, final Groups groups,
         @Named("storage") final Map<MemoryKey, NavigableMap<Long, Metric>> storage,
-        LifeCycleRegistry registry
+        final Optional<ChunkedStorage> chunked, final Optional<WriteAheadLog> wal,
+        final Scheduler scheduler
     ) {
         super(async);
         this.async = async;
         this.groups = groups;
         this.storage = storage;
+        this.chunked = chunked;
+        this.wal = wal;
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public void register(LifeCycleRegistry registry) {
+        registry.start(this::start);
+        registry.stop(this::stop);
     }
 
     @Override
     public Statistics getStatistics() {
-        return Statistics.of(MEMORY_KEYS, storage.size());
+        final Statistics statistics = Statistics.of(MEMORY_KEYS, storage.size());
+
+        return chunked
+            .map(c -> statistics.merge(
+                Statistics.of(CHUNKED_KEYS, c.size(), CHUNKED_BYTES, c.bytes(), CHUNKED_CHUNKS,
+                    c.chunks())))
+            .orElse(statistics);
     }
 
     @Override
@@ -111,8 +140,7 @@ public class MemoryBackend extends AbstractMetricBackend {
     @Override
     public AsyncFuture<WriteMetric> write(WriteMetric.Request request) {
         final RequestTimer<WriteMetric> timer = WriteMetric.timer();
-        writeOne(request);
-        return async.resolved(timer.end());
+        return writeOne(request).directTransform(v -> timer.end());
     }
 
     @Override
@@ -135,7 +163,9 @@ public class MemoryBackend extends AbstractMetricBackend {
 
     @Override
     public AsyncFuture<Void> deleteKey(BackendKey key, QueryOptions options) {
-        storage.remove(new MemoryKey(key.getType(), key.getSeries()));
+        final MemoryKey k = new MemoryKey(key.getType(), key.getSeries());
+        storage.remove(k);
+        chunked.ifPresent(c -> c.delete(k));
         return async.resolved();
     }
 
@@ -145,10 +175,18 @@ public class MemoryBackend extends AbstractMetricBackend {
         private final Series series;
     }
 
-    private void writeOne(final WriteMetric.Request request) {
+    private AsyncFuture<Void> writeOne(final WriteMetric.Request request) {
         final MetricCollection g = request.getData();
 
         final MemoryKey key = new MemoryKey(g.getType(), request.getSeries());
+
+        if (chunked.isPresent() && key.getSource() == MetricType.POINT) {
+            final PointChunk points = g.asPointChunk();
+            /* points are logged after being stored, so that checkpoints include them */
+            chunked.get().write(key, points);
+            return wal.map(w -> w.append(request.getSeries(), points)).orElseGet(async::resolved);
+        }
+
         final NavigableMap<Long, Metric> tree = getOrCreate(key);
 
         synchronized (tree) {
@@ -156,11 +194,20 @@ public class MemoryBackend extends AbstractMetricBackend {
                 tree.put(d.getTimestamp(), d);
             }
         }
+
+        return async.resolved();
     }
 
     private List<MetricCollection> doFetch(
         final MemoryKey key, final DateRange range, final FetchQuotaWatcher watcher
     ) {
+        if (chunked.isPresent() && key.getSource() == MetricType.POINT) {
+            final PointChunk points =
+                chunked.get().read(key, range.getStart(), range.getEnd());
+            watcher.readData(points.size());
+            return ImmutableList.of(MetricCollection.points(points));
+        }
+
         final NavigableMap<Long, Metric> tree = storage.get(key);
 
         if (tree == null) {
@@ -168,13 +215,56 @@ public class MemoryBackend extends AbstractMetricBackend {
         }
 
         synchronized (tree) {
-            final Iterable<Metric> metrics = tree.subMap(range.getStart(), range.getEnd()).values();
+            final Collection<Metric> metrics =
+                tree.subMap(range.getStart(), range.getEnd()).values();
+
+            if (key.getSource() == MetricType.POINT) {
+                final PointChunk.Builder points = PointChunk.builder(metrics.size());
+
+                for (final Metric m : metrics) {
+                    points.add(m.getTimestamp(), ((Point) m).getValue());
+                }
+
+                watcher.readData(points.size());
+                return ImmutableList.of(MetricCollection.points(points.build()));
+            }
+
             final List<Metric> data = ImmutableList.copyOf(metrics);
             watcher.readData(data.size());
             return ImmutableList.of(MetricCollection.build(key.getSource(), data));
         }
     }
 
+    private AsyncFuture<Void> start() {
+        if (!chunked.isPresent()) {
+            return async.resolved();
+        }
+
+        final ChunkedStorage c = chunked.get();
+
+        return async.call(() -> {
+            if (wal.isPresent()) {
+                wal.get().recover(c);
+                c.expire(System.currentTimeMillis());
+            }
+
+            scheduler.periodically("memory-expire", 1, TimeUnit.MINUTES,
+                () -> c.expire(System.currentTimeMillis()));
+
+            wal.ifPresent(w -> {
+                scheduler.periodically("memory-wal-checkpoint", w.checkpointInterval(),
+                    TimeUnit.MILLISECONDS, () -> w.checkpoint(c));
+            });
+
+            return null;
+        });
+    }
+
+    private AsyncFuture<Void> stop() {
+        wal.ifPresent(WriteAheadLog::sync);
+        return async.resolved();
+    }
+
     /**
      * Get or create a new navigable map to store time data.
      *
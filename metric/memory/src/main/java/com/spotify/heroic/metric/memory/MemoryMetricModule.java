@@ -23,16 +23,23 @@ package com.spotify.heroic.metric.memory;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.spotify.heroic.common.Duration;
 import com.spotify.heroic.common.DynamicModuleId;
 import com.spotify.heroic.common.Groups;
 import com.spotify.heroic.common.ModuleId;
+import com.spotify.heroic.common.Series;
 import com.spotify.heroic.dagger.PrimaryComponent;
+import com.spotify.heroic.lifecycle.LifeCycle;
+import com.spotify.heroic.lifecycle.LifeCycleManager;
 import com.spotify.heroic.metric.Metric;
 import com.spotify.heroic.metric.MetricModule;
+import com.spotify.heroic.scheduler.Scheduler;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
 import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.serializer.Serializer;
+import eu.toolchain.serializer.SerializerFramework;
 import lombok.Data;
 
 import javax.inject.Named;
@@ -50,19 +57,65 @@ import static java.util.Optional.of;
 @ModuleId("memory")
 public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
     public static final String DEFAULT_GROUP = "memory";
+    public static final boolean DEFAULT_CHUNKED = false;
+    public static final int DEFAULT_CHUNK_SIZE = 512;
 
     private final Optional<String> id;
     private final Groups groups;
     private final boolean synchronizedStorage;
+    private final boolean chunked;
+    private final int chunkSize;
+    private final Optional<Duration> retention;
+    private final Optional<Long> maxBytes;
+    private final Optional<WriteAheadLogConfig> wal;
 
+    /**
+     * @param chunked Store points in per-series append-only chunks, which supports lock-free
+     * writes, retention and a memory budget.
+     * @param chunkSize Number of points in each chunk.
+     * @param retention Evict chunked points older than this.
+     * @param maxBytes Evict the oldest chunked points when they use more memory than this.
+     * @param walPath Directory to log written points to, which are recovered on start.
+     * @param walSegmentSize Size of each log segment, in bytes.
+     * @param walSyncInterval Maximum time that writes wait for the log to be synced to disk.
+     * @param walCheckpointInterval Time between checkpoints of all points in memory.
+     */
     @JsonCreator
     public MemoryMetricModule(
         @JsonProperty("id") Optional<String> id, @JsonProperty("groups") Optional<Groups> groups,
-        @JsonProperty("synchronizedStorage") Optional<Boolean> synchronizedStorage
+        @JsonProperty("synchronizedStorage") Optional<Boolean> synchronizedStorage,
+        @JsonProperty("chunked") Optional<Boolean> chunked,
+        @JsonProperty("chunkSize") Optional<Integer> chunkSize,
+        @JsonProperty("retention") Optional<Duration> retention,
+        @JsonProperty("maxBytes") Optional<Long> maxBytes,
+        @JsonProperty("walPath") Optional<String> walPath,
+        @JsonProperty("walSegmentSize") Optional<Integer> walSegmentSize,
+        @JsonProperty("walSyncInterval") Optional<Duration> walSyncInterval,
+        @JsonProperty("walCheckpointInterval") Optional<Duration> walCheckpointInterval
     ) {
         this.id = id;
         this.groups = groups.orElseGet(Groups::empty).or(DEFAULT_GROUP);
         this.synchronizedStorage = synchronizedStorage.orElse(false);
+        this.chunked = chunked.orElse(DEFAULT_CHUNKED);
+        this.chunkSize = chunkSize.orElse(DEFAULT_CHUNK_SIZE);
+        this.retention = retention;
+        this.maxBytes = maxBytes;
+        this.wal = WriteAheadLogConfig.of(walPath, walSegmentSize, walSyncInterval,
+            walCheckpointInterval);
+
+        if (this.wal.isPresent() && !this.chunked) {
+            throw new IllegalArgumentException("walPath requires chunked storage");
+        }
+
+        if (this.chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        maxBytes.ifPresent(m -> {
+            if (m <= 0) {
+                throw new IllegalArgumentException("maxBytes must be positive");
+            }
+        });
     }
 
     @Override
@@ -80,6 +133,9 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
     interface C extends Exposed {
         @Override
         MemoryBackend backend();
+
+        @Override
+        LifeCycle life();
     }
 
     @Module
@@ -102,6 +158,34 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
 
             return new ConcurrentSkipListMap<>(MemoryBackend.COMPARATOR);
         }
+
+        @Provides
+        @MemoryScope
+        public Optional<ChunkedStorage> chunkedStorage() {
+            if (!chunked) {
+                return empty();
+            }
+
+            return of(new ChunkedStorage(chunkSize, retention.map(Duration::toMilliseconds),
+                maxBytes));
+        }
+
+        @Provides
+        @MemoryScope
+        public Optional<WriteAheadLog> wal(
+            final AsyncFramework async, final Scheduler scheduler,
+            @Named("common") final SerializerFramework serializer,
+            final Serializer<Series> series
+        ) {
+            return wal.map(config -> new WriteAheadLog(async, scheduler, serializer, series,
+                config));
+        }
+
+        @Provides
+        @MemoryScope
+        public LifeCycle life(LifeCycleManager manager, MemoryBackend backend) {
+            return manager.build(backend);
+        }
     }
 
     @Override
@@ -117,6 +201,14 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
         private Optional<String> id = empty();
         private Optional<Groups> groups = empty();
         private Optional<Boolean> synchronizedStorage = empty();
+        private Optional<Boolean> chunked = empty();
+        private Optional<Integer> chunkSize = empty();
+        private Optional<Duration> retention = empty();
+        private Optional<Long> maxBytes = empty();
+        private Optional<String> walPath = empty();
+        private Optional<Integer> walSegmentSize = empty();
+        private Optional<Duration> walSyncInterval = empty();
+        private Optional<Duration> walCheckpointInterval = empty();
 
         public Builder id(String id) {
             this.id = of(id);
@@ -133,8 +225,50 @@ public final class MemoryMetricModule implements MetricModule, DynamicModuleId {
             return this;
         }
 
+        public Builder chunked(final boolean chunked) {
+            this.chunked = of(chunked);
+            return this;
+        }
+
+        public Builder chunkSize(final int chunkSize) {
+            this.chunkSize = of(chunkSize);
+            return this;
+        }
+
+        public Builder retention(final Duration retention) {
+            this.retention = of(retention);
+            return this;
+        }
+
+        public Builder maxBytes(final long maxBytes) {
+            this.maxBytes = of(maxBytes);
+            return this;
+        }
+
+        public Builder walPath(final String walPath) {
+            this.walPath = of(walPath);
+            return this;
+        }
+
+        public Builder walSegmentSize(final int walSegmentSize) {
+            this.walSegmentSize = of(walSegmentSize);
+            return this;
+        }
+
+        public Builder walSyncInterval(final Duration walSyncInterval) {
+            this.walSyncInterval = of(walSyncInterval);
+            return this;
+        }
+
+        public Builder walCheckpointInterval(final Duration walCheckpointInterval) {
+            this.walCheckpointInterval = of(walCheckpointInterval);
+            return this;
+        }
+
         public MemoryMetricModule build() {
-            return new MemoryMetricModule(id, groups, synchronizedStorage);
+            return new MemoryMetricModule(id, groups, synchronizedStorage, chunked, chunkSize,
+                retention, maxBytes, walPath, walSegmentSize, walSyncInterval,
+                walCheckpointInterval);
         }
     }
 }
@@ -50,6 +50,7 @@ public class Module implements HeroicModule {
         @Override
         public void setup() {
             config.registerType("memory", MemoryMetricModule.class);
+            config.registerType("tiered", TieredMetricModule.class);
         }
     }
 }
@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.async.AsyncObservable;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Statistics;
+import com.spotify.heroic.lifecycle.LifeCycleRegistry;
+import com.spotify.heroic.lifecycle.LifeCycles;
+import com.spotify.heroic.metric.BackendEntry;
+import com.spotify.heroic.metric.BackendKey;
+import com.spotify.heroic.metric.BackendKeyFilter;
+import com.spotify.heroic.metric.BackendKeySet;
+import com.spotify.heroic.metric.FetchBounds;
+import com.spotify.heroic.metric.FetchData;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.MetricBackend;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import lombok.ToString;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A metric backend which keeps recently written points in memory, in front of a persistent
+ * backend.
+ * <p>
+ * All writes go to the persistent backend, points within the window are also written to the
+ * in-memory head. Fetches are split at a boundary, where everything after it is read from the
+ * head and everything before it from the persistent backend.
+ * <p>
+ * The head only has complete data for the time since this backend was started, so the boundary
+ * is never earlier than the start time, or the last point evicted to stay within the memory
+ * budget. With a write-ahead log, the head is recovered on start and is complete since the log
+ * was created.
+ * <p>
+ * The head only sees points written through this instance. It must therefore be the only writer
+ * of the series that it serves, e.g. the only node consuming the ingestion pipeline for them.
+ * Points which other nodes write to the persistent backend are not visible in recent fetches.
+ * <p>
+ * The split follows the {@link FetchBounds} of the persistent backend, so that the point at the
+ * boundary is read exactly once and the end of the range is treated as it is by the backend.
+ */
+@ToString(of = {"backend", "window"})
+public class TieredMetricBackend implements MetricBackend, LifeCycles {
+    public static final QueryTrace.Identifier FETCH =
+        QueryTrace.identifier(TieredMetricBackend.class, "fetch");
+
+    private final AsyncFramework async;
+    private final Groups groups;
+    private final MetricBackend backend;
+    private final ChunkedStorage head;
+    private final Optional<WriteAheadLog> wal;
+    private final Scheduler scheduler;
+    private final long window;
+    private final LongSupplier clock;
+
+    /* time since which the head has all points */
+    private volatile long started;
+
+    @Inject
+    public TieredMetricBackend(
+        final AsyncFramework async, final Groups groups,
+        @Named("backend") final MetricBackend backend, final ChunkedStorage head,
+        final Optional<WriteAheadLog> wal, final Scheduler scheduler,
+        @Named("window") final long window
+    ) {
+        this(async, groups, backend, head, wal, scheduler, window, System::currentTimeMillis);
+    }
+
+    TieredMetricBackend(
+        final AsyncFramework async, final Groups groups, final MetricBackend backend,
+        final ChunkedStorage head, final Optional<WriteAheadLog> wal, final Scheduler scheduler,
+        final long window, final LongSupplier clock
+    ) {
+        this.async = async;
+        this.groups = groups;
+        this.backend = backend;
+        this.head = head;
+        this.wal = wal;
+        this.scheduler = scheduler;
+        this.window = window;
+        this.clock = clock;
+        this.started = clock.getAsLong();
+    }
+
+    @Override
+    public void register(final LifeCycleRegistry registry) {
+        registry.start(this::start);
+        registry.stop(this::stop);
+    }
+
+    @Override
+    public Statistics getStatistics() {
+        return backend
+            .getStatistics()
+            .merge(Statistics.of(MemoryBackend.CHUNKED_KEYS, head.size(),
+                MemoryBackend.CHUNKED_BYTES, head.bytes(), MemoryBackend.CHUNKED_CHUNKS,
+                head.chunks()));
+    }
+
+    @Override
+    public AsyncFuture<Void> configure() {
+        return backend.configure();
+    }
+
+    @Override
+    public AsyncFuture<WriteMetric> write(final WriteMetric.Request request) {
+        final MetricCollection g = request.getData();
+
+        if (g.getType() == MetricType.POINT) {
+            final MemoryBackend.MemoryKey key =
+                new MemoryBackend.MemoryKey(MetricType.POINT, request.getSeries());
+            final PointChunk recent = recent(g.asPointChunk(), clock.getAsLong() - window);
+
+            if (!recent.isEmpty()) {
+                head.write(key, recent);
+
+                if (wal.isPresent()) {
+                    final AsyncFuture<WriteMetric> logged = wal
+                        .get()
+                        .append(request.getSeries(), recent)
+                        .directTransform(v -> WriteMetric.of());
+
+                    return async.collect(ImmutableList.of(backend.write(request), logged),
+                        WriteMetric.reduce());
+                }
+            }
+        }
+
+        return backend.write(request);
+    }
+
+    @Override
+    public AsyncFuture<FetchData> fetch(
+        final FetchData.Request request, final FetchQuotaWatcher watcher
+    ) {
+        final long boundary = boundary();
+        final DateRange range = request.getRange();
+
+        if (request.getType() != MetricType.POINT || range.end() <= boundary) {
+            return backend.fetch(request, watcher);
+        }
+
+        final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH);
+        final MetricCollection recent = readHead(request, boundary, watcher);
+
+        if (range.start() >= boundary) {
+            return async.resolved(FetchData.of(w.end(), ImmutableList.of(),
+                ImmutableList.of(recent)));
+        }
+
+        return backend.fetch(older(request, boundary), watcher).directTransform(d -> {
+            final FetchData current = FetchData.of(w.end(), ImmutableList.of(),
+                ImmutableList.of(recent));
+            final FetchData merged =
+                FetchData.collect(FETCH).collect(ImmutableList.of(d, current));
+            return new FetchData(merged.getTrace(), d.getErrors(), merged.getTimes(),
+                merged.getGroups());
+        });
+    }
+
+    @Override
+    public AsyncFuture<FetchData> fetch(
+        final FetchData.Request request, final FetchQuotaWatcher watcher,
+        final Consumer<MetricCollection> consumer
+    ) {
+        final long boundary = boundary();
+        final DateRange range = request.getRange();
+
+        if (request.getType() != MetricType.POINT || range.end() <= boundary) {
+            return backend.fetch(request, watcher, consumer);
+        }
+
+        final QueryTrace.NamedWatch w = QueryTrace.watch(FETCH);
+        final MetricCollection recent = readHead(request, boundary, watcher);
+
+        if (range.start() >= boundary) {
+            consumer.accept(recent);
+            return async.resolved(FetchData.of(w.end(), ImmutableList.of(), ImmutableList.of()));
+        }
+
+        return backend.fetch(older(request, boundary), watcher, consumer).directTransform(d -> {
+            consumer.accept(recent);
+            return d;
+        });
+    }
+
+    @Override
+    public FetchBounds fetchBounds() {
+        return backend.fetchBounds();
+    }
+
+    @Override
+    public Iterable<BackendEntry> listEntries() {
+        return backend.listEntries();
+    }
+
+    @Override
+    public AsyncObservable<BackendKeySet> streamKeys(
+        final BackendKeyFilter filter, final QueryOptions options
+    ) {
+        return backend.streamKeys(filter, options);
+    }
+
+    @Override
+    public AsyncObservable<BackendKeySet> streamKeysPaged(
+        final BackendKeyFilter filter, final QueryOptions options, final long pageSize
+    ) {
+        return backend.streamKeysPaged(filter, options, pageSize);
+    }
+
+    @Override
+    public AsyncFuture<List<String>> serializeKeyToHex(final BackendKey key) {
+        return backend.serializeKeyToHex(key);
+    }
+
+    @Override
+    public AsyncFuture<List<BackendKey>> deserializeKeyFromHex(final String key) {
+        return backend.deserializeKeyFromHex(key);
+    }
+
+    @Override
+    public AsyncFuture<Void> deleteKey(final BackendKey key, final QueryOptions options) {
+        head.delete(new MemoryBackend.MemoryKey(key.getType(), key.getSeries()));
+
+        if (key.getType() == MetricType.POINT && wal.isPresent()) {
+            /* the deletion is logged, so that replaying the log does not bring the series back */
+            return async.collectAndDiscard(ImmutableList.of(backend.deleteKey(key, options),
+                wal.get().delete(key.getSeries())));
+        }
+
+        return backend.deleteKey(key, options);
+    }
+
+    @Override
+    public AsyncFuture<Long> countKey(final BackendKey key, final QueryOptions options) {
+        return backend.countKey(key, options);
+    }
+
+    @Override
+    public AsyncFuture<MetricCollection> fetchRow(final BackendKey key) {
+        return backend.fetchRow(key);
+    }
+
+    @Override
+    public AsyncObservable<MetricCollection> streamRow(final BackendKey key) {
+        return backend.streamRow(key);
+    }
+
+    @Override
+    public boolean isReady() {
+        return backend.isReady();
+    }
+
+    @Override
+    public Groups groups() {
+        return groups;
+    }
+
+    /**
+     * Timestamp from which the head has all points.
+     * <p>
+     * This assumes that all points are written through this instance, see the class
+     * documentation.
+     */
+    long boundary() {
+        final long now = clock.getAsLong();
+        return Math.max(Math.max(started, now - window), head.horizon() + 1);
+    }
+
+    private AsyncFuture<Void> start() {
+        return async.call(() -> {
+            if (wal.isPresent()) {
+                started = Math.min(started, wal.get().recover(head));
+                head.expire(clock.getAsLong());
+            }
+
+            scheduler.periodically("tiered-expire", 1, TimeUnit.MINUTES,
+                () -> head.expire(clock.getAsLong()));
+
+            wal.ifPresent(w -> {
+                scheduler.periodically("tiered-wal-checkpoint", w.checkpointInterval(),
+                    TimeUnit.MILLISECONDS, () -> w.checkpoint(head));
+            });
+
+            return null;
+        });
+    }
+
+    private AsyncFuture<Void> stop() {
+        wal.ifPresent(WriteAheadLog::sync);
+        return async.resolved();
+    }
+
+    /**
+     * Read the part of the request after the boundary from the head.
+     * <p>
+     * The head is read with the same bounds as the persistent backend, which is fetched up to the
+     * boundary when the range starts before it.
+     */
+    private MetricCollection readHead(
+        final FetchData.Request request, final long boundary, final FetchQuotaWatcher watcher
+    ) {
+        final FetchBounds bounds = backend.fetchBounds();
+        final DateRange range = request.getRange();
+
+        final long start;
+
+        if (range.start() >= boundary) {
+            start = bounds.startInclusive() ? range.start() : after(range.start());
+        } else {
+            start = bounds.endInclusive() ? after(boundary) : boundary;
+        }
+
+        final long end = bounds.endInclusive() ? after(range.end()) : range.end();
+
+        final MemoryBackend.MemoryKey key =
+            new MemoryBackend.MemoryKey(MetricType.POINT, request.getSeries());
+        final PointChunk points = head.read(key, start, end);
+        watcher.readData(points.size());
+        return MetricCollection.points(points);
+    }
+
+    private FetchData.Request older(final FetchData.Request request, final long boundary) {
+        return new FetchData.Request(request.getType(), request.getSeries(),
+            request.getRange().end(boundary), request.getOptions());
+    }
+
+    private static long after(final long timestamp) {
+        return timestamp == Long.MAX_VALUE ? timestamp : timestamp + 1;
+    }
+
+    private static PointChunk recent(final PointChunk points, final long cutoff) {
+        final int size = points.size();
+        int i = 0;
+
+        while (i < size && points.timestamp(i) >= cutoff) {
+            i++;
+        }
+
+        if (i >= size) {
+            return points;
+        }
+
+        final PointChunk.Builder builder = PointChunk.builder(size);
+
+        for (int j = 0; j < size; j++) {
+            if (points.timestamp(j) >= cutoff) {
+                builder.add(points.timestamp(j), points.value(j));
+            }
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.common.Duration;
+import com.spotify.heroic.common.DynamicModuleId;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.ModuleId;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.dagger.PrimaryComponent;
+import com.spotify.heroic.lifecycle.LifeCycle;
+import com.spotify.heroic.lifecycle.LifeCycleManager;
+import com.spotify.heroic.metric.MetricBackend;
+import com.spotify.heroic.metric.MetricModule;
+import com.spotify.heroic.scheduler.Scheduler;
+import dagger.Component;
+import dagger.Module;
+import dagger.Provides;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.serializer.Serializer;
+import eu.toolchain.serializer.SerializerFramework;
+import lombok.Data;
+
+import javax.inject.Named;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+/**
+ * Keeps recent points in memory, in front of another metric backend.
+ * <p>
+ * Recent points are only read from memory, so each node using this module must be the only
+ * writer of the series that it is queried for.
+ */
+@Data
+@ModuleId("tiered")
+public final class TieredMetricModule implements MetricModule, DynamicModuleId {
+    public static final Duration DEFAULT_WINDOW = Duration.of(3, TimeUnit.HOURS);
+
+    private final Optional<String> id;
+    private final Optional<Groups> groups;
+    private final MetricModule backend;
+    private final Duration window;
+    private final int chunkSize;
+    private final Optional<Long> maxBytes;
+    private final Optional<WriteAheadLogConfig> wal;
+
+    /**
+     * @param backend Persistent backend that all data is written to.
+     * @param window Points newer than this are kept in memory, and read from there.
+     * @param chunkSize Number of points in each in-memory chunk.
+     * @param maxBytes Memory budget for the in-memory points.
+     * @param walPath Directory to log written points to, which are recovered on start.
+     * @param walSegmentSize Size of each log segment, in bytes.
+     * @param walSyncInterval Maximum time that writes wait for the log to be synced to disk.
+     * @param walCheckpointInterval Time between checkpoints of all points in memory.
+     */
+    @JsonCreator
+    public TieredMetricModule(
+        @JsonProperty("id") Optional<String> id, @JsonProperty("groups") Optional<Groups> groups,
+        @JsonProperty("backend") Optional<MetricModule> backend,
+        @JsonProperty("window") Optional<Duration> window,
+        @JsonProperty("chunkSize") Optional<Integer> chunkSize,
+        @JsonProperty("maxBytes") Optional<Long> maxBytes,
+        @JsonProperty("walPath") Optional<String> walPath,
+        @JsonProperty("walSegmentSize") Optional<Integer> walSegmentSize,
+        @JsonProperty("walSyncInterval") Optional<Duration> walSyncInterval,
+        @JsonProperty("walCheckpointInterval") Optional<Duration> walCheckpointInterval
+    ) {
+        this.id = id;
+        this.groups = groups;
+        this.backend = backend.orElseThrow(() -> new NullPointerException("backend"));
+        this.window = window.orElse(DEFAULT_WINDOW);
+        this.chunkSize = chunkSize.orElse(MemoryMetricModule.DEFAULT_CHUNK_SIZE);
+        this.maxBytes = maxBytes;
+        this.wal = WriteAheadLogConfig.of(walPath, walSegmentSize, walSyncInterval,
+            walCheckpointInterval);
+
+        if (this.chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+
+        maxBytes.ifPresent(m -> {
+            if (m <= 0) {
+                throw new IllegalArgumentException("maxBytes must be positive");
+            }
+        });
+    }
+
+    @Override
+    public Exposed module(PrimaryComponent primary, Depends depends, String id) {
+        return DaggerTieredMetricModule_C
+            .builder()
+            .primaryComponent(primary)
+            .depends(depends)
+            .m(new M(backend.module(primary, depends, id)))
+            .build();
+    }
+
+    @MemoryScope
+    @Component(modules = M.class, dependencies = {PrimaryComponent.class, Depends.class})
+    interface C extends Exposed {
+        @Override
+        TieredMetricBackend backend();
+
+        @Override
+        LifeCycle life();
+    }
+
+    @Module
+    class M {
+        private final Exposed exposed;
+
+        M(final Exposed exposed) {
+            this.exposed = exposed;
+        }
+
+        @Provides
+        @MemoryScope
+        @Named("backend")
+        public MetricBackend backend() {
+            return exposed.backend();
+        }
+
+        @Provides
+        @MemoryScope
+        public Groups groups(@Named("backend") MetricBackend backend) {
+            return groups.orElseGet(backend::groups);
+        }
+
+        @Provides
+        @MemoryScope
+        @Named("window")
+        public long window() {
+            return window.toMilliseconds();
+        }
+
+        @Provides
+        @MemoryScope
+        public ChunkedStorage head() {
+            return new ChunkedStorage(chunkSize, of(window.toMilliseconds()), maxBytes);
+        }
+
+        @Provides
+        @MemoryScope
+        public Optional<WriteAheadLog> wal(
+            final AsyncFramework async, final Scheduler scheduler,
+            @Named("common") final SerializerFramework serializer,
+            final Serializer<Series> series
+        ) {
+            return wal.map(config -> new WriteAheadLog(async, scheduler, serializer, series,
+                config));
+        }
+
+        @Provides
+        @MemoryScope
+        public LifeCycle life(LifeCycleManager manager, TieredMetricBackend backend) {
+            return LifeCycle.combined(ImmutableList.of(exposed.life(), manager.build(backend)));
+        }
+    }
+
+    @Override
+    public Optional<String> id() {
+        return id;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Optional<String> id = empty();
+        private Optional<Groups> groups = empty();
+        private Optional<MetricModule> backend = empty();
+        private Optional<Duration> window = empty();
+        private Optional<Integer> chunkSize = empty();
+        private Optional<Long> maxBytes = empty();
+        private Optional<String> walPath = empty();
+        private Optional<Integer> walSegmentSize = empty();
+        private Optional<Duration> walSyncInterval = empty();
+        private Optional<Duration> walCheckpointInterval = empty();
+
+        public Builder id(String id) {
+            this.id = of(id);
+            return this;
+        }
+
+        public Builder groups(Groups groups) {
+            this.groups = of(groups);
+            return this;
+        }
+
+        public Builder backend(final MetricModule backend) {
+            this.backend = of(backend);
+            return this;
+        }
+
+        public Builder window(final Duration window) {
+            this.window = of(window);
+            return this;
+        }
+
+        public Builder chunkSize(final int chunkSize) {
+            this.chunkSize = of(chunkSize);
+            return this;
+        }
+
+        public Builder maxBytes(final long maxBytes) {
+            this.maxBytes = of(maxBytes);
+            return this;
+        }
+
+        public Builder walPath(final String walPath) {
+            this.walPath = of(walPath);
+            return this;
+        }
+
+        public Builder walSegmentSize(final int walSegmentSize) {
+            this.walSegmentSize = of(walSegmentSize);
+            return this;
+        }
+
+        public Builder walSyncInterval(final Duration walSyncInterval) {
+            this.walSyncInterval = of(walSyncInterval);
+            return this;
+        }
+
+        public Builder walCheckpointInterval(final Duration walCheckpointInterval) {
+            this.walCheckpointInterval = of(walCheckpointInterval);
+            return this;
+        }
+
+        public TieredMetricModule build() {
+            return new TieredMetricModule(id, groups, backend, window, chunkSize, maxBytes,
+                walPath, walSegmentSize, walSyncInterval, walCheckpointInterval);
+        }
+    }
+}
@@ -0,0 +1,664 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.ResolvableFuture;
+import eu.toolchain.serializer.BytesSerialWriter;
+import eu.toolchain.serializer.SerialReader;
+import eu.toolchain.serializer.Serializer;
+import eu.toolchain.serializer.SerializerFramework;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of written points, which is used to recover chunked storage after a restart.
+ * <p>
+ * Points are appended as records to memory-mapped segments, which are rotated once full. Writes
+ * are acknowledged once the segment they were appended to has been synced to disk, which is done
+ * for all pending writes at once after at most the configured sync interval.
+ * <p>
+ * Deleted series are logged as well, so that they are not brought back by a replay.
+ * <p>
+ * A checkpoint writes everything in the storage to a single file, after which all older segments
+ * are removed. Recovery replays the latest checkpoint, followed by all segments written after it.
+ * The checkpoint also records the eviction horizon of the storage, since points which were
+ * evicted to stay within the memory budget are not part of it.
+ * <p>
+ * Each record is prefixed by its length and checksum, replay of a file stops at the first record
+ * that is incomplete.
+ */
+@Slf4j
+public class WriteAheadLog {
+    static final String SEGMENT = "segment-";
+    static final String CHECKPOINT = "checkpoint-";
+    static final String SUFFIX = ".wal";
+    static final String SINCE = "since";
+
+    /* length and checksum of a record */
+    static final int HEADER = Integer.BYTES * 2;
+
+    /* types of records */
+    static final byte POINTS = 0;
+    static final byte DELETE = 1;
+    static final byte HORIZON = 2;
+
+    /* approximate size of the batches of records which are decoded at once when replaying */
+    static final int REPLAY_BATCH_BYTES = 1 << 22;
+
+    private final AsyncFramework async;
+    private final Scheduler scheduler;
+    private final SerializerFramework serializer;
+    private final Serializer<Series> seriesSerializer;
+    private final WriteAheadLogConfig config;
+
+    private final Object lock = new Object();
+    private final Object checkpointLock = new Object();
+
+    /* sequence number of the next segment or checkpoint */
+    private long sequence = 0;
+    private MappedByteBuffer current = null;
+    /* segments which have been rotated, but not synced */
+    private List<MappedByteBuffer> unsynced = new ArrayList<>();
+    private List<ResolvableFuture<Void>> pending = new ArrayList<>();
+
+    public WriteAheadLog(
+        final AsyncFramework async, final Scheduler scheduler,
+        final SerializerFramework serializer, final Serializer<Series> seriesSerializer,
+        final WriteAheadLogConfig config
+    ) {
+        this.async = async;
+        this.scheduler = scheduler;
+        this.serializer = serializer;
+        this.seriesSerializer = seriesSerializer;
+        this.config = config;
+    }
+
+    /**
+     * Replay the log into the given storage.
+     * <p>
+     * Must be called before anything is appended.
+     *
+     * @return The time in milliseconds since which all writes have been logged.
+     */
+    public long recover(final ChunkedStorage storage) throws Exception {
+        final Path path = config.getPath();
+        Files.createDirectories(path);
+
+        final long since = since(path.resolve(SINCE));
+
+        final TreeMap<Long, Path> segments = list(SEGMENT);
+        final TreeMap<Long, Path> checkpoints = list(CHECKPOINT);
+
+        final List<Path> files = new ArrayList<>();
+
+        final Optional<Long> checkpoint =
+            checkpoints.isEmpty() ? Optional.empty() : Optional.of(checkpoints.lastKey());
+        checkpoint.ifPresent(c -> files.add(checkpoints.get(c)));
+        files.addAll(segments.tailMap(checkpoint.orElse(-1L), false).values());
+
+        final long started = System.currentTimeMillis();
+        final long points = replay(files, storage);
+
+        log.info("{}: Replayed {} point(s) from {} file(s) in {}ms", path, points, files.size(),
+            System.currentTimeMillis() - started);
+
+        synchronized (lock) {
+            sequence = Math.max(last(segments), last(checkpoints)) + 1;
+        }
+
+        return since;
+    }
+
+    /**
+     * Append points to the log.
+     *
+     * @return A future that is resolved once the points have been synced to disk.
+     */
+    public AsyncFuture<Void> append(final Series series, final PointChunk points) {
+        final byte[] record;
+
+        try {
+            record = encode(series, points);
+        } catch (final IOException e) {
+            return async.failed(e);
+        }
+
+        return append(record);
+    }
+
+    /**
+     * Append the deletion of a series to the log.
+     * <p>
+     * The series must be deleted from the storage before it is appended to the log.
+     *
+     * @return A future that is resolved once the deletion has been synced to disk.
+     */
+    public AsyncFuture<Void> delete(final Series series) {
+        final byte[] record;
+
+        try {
+            record = encodeDelete(series);
+        } catch (final IOException e) {
+            return async.failed(e);
+        }
+
+        return append(record);
+    }
+
+    public long checkpointInterval() {
+        return config.getCheckpointInterval();
+    }
+
+    /**
+     * Sync all appended points to disk, and resolve the pending writes.
+     */
+    public void sync() {
+        final List<ResolvableFuture<Void>> futures;
+        final List<MappedByteBuffer> segments;
+
+        synchronized (lock) {
+            futures = pending;
+            pending = new ArrayList<>();
+            segments = unsynced;
+            unsynced = new ArrayList<>();
+
+            if (current != null) {
+                segments.add(current);
+            }
+        }
+
+        try {
+            for (final MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        } catch (final RuntimeException e) {
+            log.error("{}: Failed to sync", config.getPath(), e);
+            futures.forEach(f -> f.fail(e));
+            return;
+        }
+
+        futures.forEach(f -> f.resolve(null));
+    }
+
+    /**
+     * Write everything in the storage to a checkpoint, and remove all older segments.
+     * <p>
+     * Points must be written to the storage before they are appended to the log, so that
+     * everything in the removed segments is part of the checkpoint.
+     * <p>
+     * The horizon is read once all points have been written, so that it covers everything which
+     * was evicted before or while the checkpoint was written.
+     */
+    public void checkpoint(final ChunkedStorage storage) throws IOException {
+        synchronized (checkpointLock) {
+            final long checkpoint;
+
+            synchronized (lock) {
+                if (current != null) {
+                    unsynced.add(current);
+                    current = null;
+                }
+
+                checkpoint = sequence++;
+            }
+
+            final Path path = config.getPath();
+            final Path target = path.resolve(CHECKPOINT + checkpoint + SUFFIX);
+            final Path temporary = path.resolve(CHECKPOINT + checkpoint + SUFFIX + ".tmp");
+
+            try (final FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+                storage.forEach((key, points) -> {
+                    try {
+                        write(channel, encode(key.getSeries(), points));
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+
+                write(channel, encodeHorizon(storage.horizon()));
+                channel.force(true);
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+
+            for (final Path p : list(SEGMENT).headMap(checkpoint).values()) {
+                Files.deleteIfExists(p);
+            }
+
+            for (final Path p : list(CHECKPOINT).headMap(checkpoint).values()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private AsyncFuture<Void> append(final byte[] record) {
+        final ResolvableFuture<Void> future = async.future();
+        final boolean schedule;
+
+        synchronized (lock) {
+            try {
+                segmentFor(record.length).put(record);
+            } catch (final IOException e) {
+                return async.failed(e);
+            }
+
+            schedule = pending.isEmpty();
+            pending.add(future);
+        }
+
+        if (schedule) {
+            scheduler.schedule("memory-wal-sync", config.getSyncInterval(), TimeUnit.MILLISECONDS,
+                this::sync);
+        }
+
+        return future;
+    }
+
+    private MappedByteBuffer segmentFor(final int size) throws IOException {
+        if (current != null && current.remaining() >= size) {
+            return current;
+        }
+
+        if (current != null) {
+            unsynced.add(current);
+        }
+
+        final Path file = config.getPath().resolve(SEGMENT + (sequence++) + SUFFIX);
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            /* the mapping stays valid after the channel has been closed */
+            current =
+                channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(config.getSegmentSize(),
+                    size));
+        }
+
+        return current;
+    }
+
+    /**
+     * Replay the given files in order.
+     * <p>
+     * Files are split into batches of records, which are decoded in parallel. Points are written
+     * by one thread per shard of series so that the order of writes to each series is kept. Only
+     * a few batches are decoded ahead of the one being written, so that recovery does not hold
+     * the decoded log in memory next to the storage it is filling.
+     */
+    private long replay(final List<Path> files, final ChunkedStorage storage) throws Exception {
+        final int threads = config.getReplayThreads();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final Deque<Future<List<Record>>> decoding = new ArrayDeque<>();
+            long points = 0;
+
+            for (final Path file : files) {
+                for (final ByteBuffer batch : scan(file)) {
+                    decoding.add(executor.submit(() -> decodeBatch(batch)));
+
+                    if (decoding.size() > threads) {
+                        points += apply(executor, threads, decoding.poll().get(), storage);
+                    }
+                }
+            }
+
+            while (!decoding.isEmpty()) {
+                points += apply(executor, threads, decoding.poll().get(), storage);
+            }
+
+            return points;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Write a batch of records to the storage, with one task per shard of series.
+     *
+     * @return The number of points written.
+     */
+    private long apply(
+        final ExecutorService executor, final int threads, final List<Record> records,
+        final ChunkedStorage storage
+    ) throws Exception {
+        final List<Future<Long>> shards = new ArrayList<>(threads);
+
+        for (int i = 0; i < threads; i++) {
+            final int shard = i;
+
+            shards.add(executor.submit(() -> {
+                long points = 0;
+
+                for (final Record r : records) {
+                    if (r.type == HORIZON) {
+                        if (shard == 0) {
+                            storage.restoreHorizon(r.horizon);
+                        }
+
+                        continue;
+                    }
+
+                    if (Math.floorMod(r.series.hashCode(), threads) != shard) {
+                        continue;
+                    }
+
+                    final MemoryBackend.MemoryKey key =
+                        new MemoryBackend.MemoryKey(MetricType.POINT, r.series);
+
+                    if (r.type == DELETE) {
+                        storage.delete(key);
+                        continue;
+                    }
+
+                    storage.write(key, r.points);
+                    points += r.points.size();
+                }
+
+                return points;
+            }));
+        }
+
+        long points = 0;
+
+        for (final Future<Long> shard : shards) {
+            points += shard.get();
+        }
+
+        return points;
+    }
+
+    /**
+     * Split a file into batches of whole records, stopping at the first incomplete or corrupt
+     * record.
+     * <p>
+     * Batches are views of the mapped file, and are only decoded when they are about to be
+     * replayed.
+     */
+    private List<ByteBuffer> scan(final Path file) throws IOException {
+        final ByteBuffer buffer;
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        final List<ByteBuffer> batches = new ArrayList<>();
+        final CRC32 crc = new CRC32();
+
+        /* start of the current batch, and end of the last valid record */
+        int start = 0;
+        int end = 0;
+
+        while (buffer.remaining() >= HEADER) {
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+
+            final ByteBuffer body = buffer.slice();
+            body.limit(length);
+
+            crc.reset();
+            crc.update(body);
+
+            if ((int) crc.getValue() != checksum) {
+                log.warn("{}: Stopping at corrupt record", file);
+                break;
+            }
+
+            buffer.position(buffer.position() + length);
+            end = buffer.position();
+
+            if (end - start >= REPLAY_BATCH_BYTES) {
+                batches.add(slice(buffer, start, end));
+                start = end;
+            }
+        }
+
+        if (end > start) {
+            batches.add(slice(buffer, start, end));
+        }
+
+        return batches;
+    }
+
+    private List<Record> decodeBatch(final ByteBuffer batch) throws IOException {
+        final List<Record> records = new ArrayList<>();
+
+        while (batch.hasRemaining()) {
+            final int length = batch.getInt();
+            /* the checksum has been verified while scanning */
+            batch.getInt();
+
+            final ByteBuffer body = batch.slice();
+            body.limit(length);
+
+            records.add(decode(body));
+            batch.position(batch.position() + length);
+        }
+
+        return records;
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer, final int start, final int end) {
+        final ByteBuffer slice = buffer.duplicate();
+        slice.position(start);
+        slice.limit(end);
+        return slice.slice();
+    }
+
+    private byte[] encode(final Series series, final PointChunk points) throws IOException {
+        final byte[] key = key(series);
+
+        final ByteBuffer buffer = record(1 + Integer.BYTES + key.length + Integer.BYTES +
+            points.size() * ChunkedSeries.POINT_BYTES);
+        buffer.put(POINTS);
+        buffer.putInt(key.length);
+        buffer.put(key);
+        buffer.putInt(points.size());
+
+        for (int i = 0; i < points.size(); i++) {
+            buffer.putLong(points.timestamp(i));
+            buffer.putDouble(points.value(i));
+        }
+
+        return seal(buffer);
+    }
+
+    private byte[] encodeDelete(final Series series) throws IOException {
+        final byte[] key = key(series);
+
+        final ByteBuffer buffer = record(1 + Integer.BYTES + key.length);
+        buffer.put(DELETE);
+        buffer.putInt(key.length);
+        buffer.put(key);
+        return seal(buffer);
+    }
+
+    private static byte[] encodeHorizon(final long horizon) {
+        final ByteBuffer buffer = record(1 + Long.BYTES);
+        buffer.put(HORIZON);
+        buffer.putLong(horizon);
+        return seal(buffer);
+    }
+
+    private byte[] key(final Series series) throws IOException {
+        try (final BytesSerialWriter writer = serializer.writeBytes()) {
+            seriesSerializer.serialize(writer, series);
+            return writer.toByteArray();
+        }
+    }
+
+    /**
+     * Allocate a record with a body of the given length, positioned after the header.
+     */
+    private static ByteBuffer record(final int length) {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER + length);
+        buffer.position(HEADER);
+        return buffer;
+    }
+
+    /**
+     * Fill in the header of a record.
+     */
+    private static byte[] seal(final ByteBuffer buffer) {
+        final int length = buffer.capacity() - HEADER;
+
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER, length);
+
+        buffer.putInt(0, length);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    private Record decode(final ByteBuffer body) throws IOException {
+        final byte type = body.get();
+
+        if (type == HORIZON) {
+            return new Record(type, null, null, body.getLong());
+        }
+
+        final int keyLength = body.getInt();
+        final ByteBuffer key = body.slice();
+        key.limit(keyLength);
+        body.position(body.position() + keyLength);
+
+        final Series series;
+
+        try (final SerialReader reader = serializer.readByteBuffer(key)) {
+            series = seriesSerializer.deserialize(reader);
+        }
+
+        if (type == DELETE) {
+            return new Record(type, series, null, 0L);
+        }
+
+        final int size = body.getInt();
+        final PointChunk.Builder points = PointChunk.builder(size);
+
+        for (int i = 0; i < size; i++) {
+            points.add(body.getLong(), body.getDouble());
+        }
+
+        return new Record(type, series, points.build(), 0L);
+    }
+
+    private static void write(final FileChannel channel, final byte[] record) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private TreeMap<Long, Path> list(final String prefix) throws IOException {
+        final TreeMap<Long, Path> files = new TreeMap<>();
+
+        try (final DirectoryStream<Path> stream =
+                 Files.newDirectoryStream(config.getPath(), prefix + "*" + SUFFIX)) {
+            for (final Path p : stream) {
+                final String name = p.getFileName().toString();
+                final String number =
+                    name.substring(prefix.length(), name.length() - SUFFIX.length());
+
+                try {
+                    files.put(Long.parseLong(number), p);
+                } catch (final NumberFormatException e) {
+                    log.warn("{}: Ignoring unexpected file", p);
+                }
+            }
+        }
+
+        return files;
+    }
+
+    private static long last(final TreeMap<Long, Path> files) {
+        return files.isEmpty() ? -1L : files.lastKey();
+    }
+
+    /**
+     * Read the time that logging started at, or record the current time if this is a new log.
+     */
+    private static long since(final Path file) throws IOException {
+        if (Files.exists(file)) {
+            return Long.parseLong(
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim());
+        }
+
+        final long now = System.currentTimeMillis();
+        Files.write(file, Long.toString(now).getBytes(StandardCharsets.UTF_8));
+        return now;
+    }
+
+    private static final class Record {
+        private final byte type;
+        /* series of points and delete records */
+        private final Series series;
+        /* points of point records */
+        private final PointChunk points;
+        /* horizon of horizon records */
+        private final long horizon;
+
+        private Record(
+            final byte type, final Series series, final PointChunk points, final long horizon
+        ) {
+            this.type = type;
+            this.series = series;
+            this.points = points;
+            this.horizon = horizon;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.common.Duration;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for logging written points to disk.
+ */
+@Data
+public class WriteAheadLogConfig {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final Duration DEFAULT_SYNC_INTERVAL = Duration.of(10, TimeUnit.MILLISECONDS);
+    public static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.of(5, TimeUnit.MINUTES);
+
+    /**
+     * Directory that segments and checkpoints are stored in.
+     */
+    private final Path path;
+
+    /**
+     * Size of each memory-mapped segment, in bytes.
+     */
+    private final int segmentSize;
+
+    /**
+     * Maximum time that a write waits for the log to be synced to disk, in milliseconds.
+     */
+    private final long syncInterval;
+
+    /**
+     * Time between checkpoints, in milliseconds.
+     */
+    private final long checkpointInterval;
+
+    /**
+     * Number of threads used to replay the log.
+     */
+    private final int replayThreads;
+
+    /**
+     * Build a configuration from module options, if a path is configured.
+     */
+    public static Optional<WriteAheadLogConfig> of(
+        final Optional<String> path, final Optional<Integer> segmentSize,
+        final Optional<Duration> syncInterval, final Optional<Duration> checkpointInterval
+    ) {
+        if (!path.isPresent()) {
+            return Optional.empty();
+        }
+
+        final int size = segmentSize.orElse(DEFAULT_SEGMENT_SIZE);
+
+        if (size <= 0) {
+            throw new IllegalArgumentException("walSegmentSize must be positive");
+        }
+
+        return Optional.of(new WriteAheadLogConfig(Paths.get(path.get()), size,
+            syncInterval.orElse(DEFAULT_SYNC_INTERVAL).toMilliseconds(),
+            checkpointInterval.orElse(DEFAULT_CHECKPOINT_INTERVAL).toMilliseconds(),
+            Runtime.getRuntime().availableProcessors()));
+    }
+}
@@ -0,0 +1,165 @@
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointChunk;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkedStorageTest {
+    private static final MemoryBackend.MemoryKey KEY =
+        new MemoryBackend.MemoryKey(MetricType.POINT, Series.of("a"));
+
+    private final ChunkedStorage storage =
+        new ChunkedStorage(4, Optional.empty(), Optional.empty());
+
+    @Test
+    public void testReadRange() {
+        storage.write(KEY, points(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+
+        assertEquals(points(3, 4, 5, 6, 7), storage.read(KEY, 3, 8));
+        assertEquals(points(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), storage.read(KEY, 0, 100));
+        assertEquals(PointChunk.empty(), storage.read(KEY, 11, 100));
+        assertEquals(2, storage.chunks());
+    }
+
+    @Test
+    public void testOutOfOrderAndDuplicates() {
+        storage.write(KEY, PointChunk.builder().add(5, 1).add(1, 1).add(3, 1).build());
+        storage.write(KEY, PointChunk.builder().add(3, 2).add(2, 2).add(5, 2).add(4, 2).build());
+
+        final PointChunk expected =
+            PointChunk.builder().add(1, 1).add(2, 2).add(3, 2).add(4, 2).add(5, 2).build();
+
+        assertEquals(expected, storage.read(KEY, 0, 100));
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        final ChunkedStorage storage =
+            new ChunkedStorage(4, Optional.empty(), Optional.of(2L * 4 * 16));
+
+        storage.write(KEY, points(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13));
+
+        /* oldest chunks are evicted first */
+        assertEquals(points(9, 10, 11, 12, 13), storage.read(KEY, 0, 100));
+        assertTrue(storage.bytes() <= 2L * 4 * 16);
+    }
+
+    @Test
+    public void testActiveChunksGrow() {
+        final ChunkedStorage storage = new ChunkedStorage(64, Optional.empty(), Optional.empty());
+        final long slot = ChunkedSeries.POINT_BYTES;
+
+        storage.write(KEY, points(1));
+        assertEquals(ChunkedSeries.INITIAL_CAPACITY * slot, storage.bytes());
+
+        storage.write(KEY, points(2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17));
+
+        /* the full chunk is sealed, and the next one is twice as large */
+        assertEquals(ChunkedSeries.INITIAL_CAPACITY * slot * 3, storage.bytes());
+    }
+
+    @Test
+    public void testPublishOutOfOrder() {
+        final ChunkedSeries.Chunk chunk = new ChunkedSeries.Chunk(4);
+
+        final int first = chunk.reserve();
+        final int second = chunk.reserve();
+
+        /* a later slot is visible before an earlier one has been published */
+        assertFalse(chunk.publish(second, 2, 2));
+        assertEquals(points(2), chunk.slice(0, 100).get());
+
+        assertFalse(chunk.publish(first, 1, 1));
+        assertEquals(points(1, 2), chunk.slice(0, 100).get());
+    }
+
+    @Test
+    public void testRetention() {
+        final MemoryBackend.MemoryKey other =
+            new MemoryBackend.MemoryKey(MetricType.POINT, Series.of("b"));
+        final ChunkedStorage storage = new ChunkedStorage(4, Optional.of(10L), Optional.empty());
+
+        storage.write(KEY, points(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13));
+        storage.write(other, points(1, 2));
+
+        storage.expire(15);
+
+        assertEquals(points(5, 6, 7, 8, 9, 10, 11, 12, 13), storage.read(KEY, 0, 100));
+        assertEquals(PointChunk.empty(), storage.read(other, 0, 100));
+        assertEquals(1, storage.size());
+
+        /* writes to a retired series go to a new one */
+        storage.write(other, points(20));
+        assertEquals(points(20), storage.read(other, 0, 100));
+    }
+
+    @Test
+    public void testDelete() {
+        storage.write(KEY, points(1, 2, 3, 4, 5, 6));
+        storage.delete(KEY);
+
+        assertEquals(PointChunk.empty(), storage.read(KEY, 0, 100));
+        assertEquals(0L, storage.bytes());
+    }
+
+    @Test
+    public void testConcurrentAppends() throws Exception {
+        final int threads = 8;
+        final int count = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * count;
+
+            final Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                for (int i = 0; i < count; i++) {
+                    storage.write(KEY, points(offset + i));
+                }
+            });
+
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+
+        final PointChunk points = storage.read(KEY, 0, Long.MAX_VALUE);
+
+        assertEquals(threads * count, points.size());
+
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(i, points.timestamp(i));
+        }
+    }
+
+    private static PointChunk points(final long... timestamps) {
+        final PointChunk.Builder builder = PointChunk.builder();
+
+        for (final long t : timestamps) {
+            builder.add(t, t);
+        }
+
+        return builder.build();
+    }
+}
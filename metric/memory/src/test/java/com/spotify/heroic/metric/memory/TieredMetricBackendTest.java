@@ -0,0 +1,170 @@
+package com.spotify.heroic.metric.memory;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.heroic.QueryOptions;
+import com.spotify.heroic.common.DateRange;
+import com.spotify.heroic.common.Groups;
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.metric.BackendKey;
+import com.spotify.heroic.metric.FetchBounds;
+import com.spotify.heroic.metric.FetchData;
+import com.spotify.heroic.metric.FetchQuotaWatcher;
+import com.spotify.heroic.metric.MetricBackend;
+import com.spotify.heroic.metric.MetricCollection;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.metric.QueryTrace;
+import com.spotify.heroic.metric.WriteMetric;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.TinyAsync;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TieredMetricBackendTest {
+    private static final long STARTED = 1000000L;
+    private static final long WINDOW = 100000L;
+    private static final Series SERIES = Series.of("a");
+
+    @Mock
+    private MetricBackend backend;
+    @Mock
+    private Scheduler scheduler;
+    @Mock
+    private WriteAheadLog wal;
+
+    private final AsyncFramework async = TinyAsync.builder().build();
+
+    private ChunkedStorage head;
+    private TieredMetricBackend tiered;
+    private long now = STARTED;
+
+    @Before
+    public void setup() {
+        head = new ChunkedStorage(4, Optional.of(WINDOW), Optional.empty());
+        tiered = new TieredMetricBackend(async, Groups.empty(), backend, head, Optional.empty(),
+            scheduler, WINDOW, () -> now);
+
+        doReturn(async.resolved(WriteMetric.of())).when(backend).write(any());
+        doReturn(FetchBounds.CLOSED_OPEN).when(backend).fetchBounds();
+    }
+
+    @Test
+    public void testRecentFromHead() throws Exception {
+        write(points(STARTED + 10, STARTED + 20));
+
+        final FetchData data = fetch(STARTED, STARTED + 100);
+
+        assertEquals(points(STARTED + 10, STARTED + 20), points(data));
+        verify(backend, never()).fetch(any(), any());
+    }
+
+    @Test
+    public void testOldFromBackend() throws Exception {
+        final FetchData.Request request = request(0, 500);
+        final FetchData result =
+            FetchData.of(QueryTrace.of(QueryTrace.identifier("test")), ImmutableList.of(),
+                ImmutableList.of(MetricCollection.points(points(10))));
+        doReturn(async.resolved(result)).when(backend).fetch(request, FetchQuotaWatcher.NO_QUOTA);
+
+        assertEquals(result, tiered.fetch(request, FetchQuotaWatcher.NO_QUOTA).get());
+    }
+
+    @Test
+    public void testSplitFetch() throws Exception {
+        write(points(STARTED + 10, STARTED + 20));
+
+        final FetchData older =
+            FetchData.of(QueryTrace.of(QueryTrace.identifier("test")), ImmutableList.of(),
+                ImmutableList.of(MetricCollection.points(points(10, 20))));
+        doReturn(async.resolved(older))
+            .when(backend)
+            .fetch(request(0, STARTED), FetchQuotaWatcher.NO_QUOTA);
+
+        final FetchData data = fetch(0, STARTED + 100);
+
+        assertEquals(points(10, 20, STARTED + 10, STARTED + 20), points(data));
+    }
+
+    @Test
+    public void testSplitFetchFollowsBackendBounds() throws Exception {
+        doReturn(FetchBounds.OPEN_CLOSED).when(backend).fetchBounds();
+        write(points(STARTED, STARTED + 10, STARTED + 100));
+
+        /* the backend returns the point at the boundary, and the head the point at the end */
+        final FetchData older =
+            FetchData.of(QueryTrace.of(QueryTrace.identifier("test")), ImmutableList.of(),
+                ImmutableList.of(MetricCollection.points(points(10, STARTED))));
+        doReturn(async.resolved(older))
+            .when(backend)
+            .fetch(request(0, STARTED), FetchQuotaWatcher.NO_QUOTA);
+
+        final FetchData data = fetch(0, STARTED + 100);
+
+        assertEquals(points(10, STARTED, STARTED + 10, STARTED + 100), points(data));
+    }
+
+    @Test
+    public void testBoundaryFollowsWindow() throws Exception {
+        now = STARTED + 2 * WINDOW;
+        assertEquals(STARTED + WINDOW, tiered.boundary());
+
+        write(points(STARTED + 10, now - 10));
+        assertEquals(points(now - 10),
+            head.read(new MemoryBackend.MemoryKey(MetricType.POINT, SERIES), 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testDeleteKeyIsLogged() throws Exception {
+        tiered = new TieredMetricBackend(async, Groups.empty(), backend, head, Optional.of(wal),
+            scheduler, WINDOW, () -> now);
+
+        final BackendKey key = new BackendKey(SERIES, 0L);
+        doReturn(async.resolved()).when(backend).deleteKey(key, QueryOptions.defaults());
+        doReturn(async.resolved()).when(wal).delete(SERIES);
+
+        tiered.deleteKey(key, QueryOptions.defaults()).get();
+
+        verify(wal).delete(SERIES);
+    }
+
+    private void write(final PointChunk points) throws Exception {
+        tiered.write(new WriteMetric.Request(SERIES, MetricCollection.points(points))).get();
+    }
+
+    private FetchData fetch(final long start, final long end) throws Exception {
+        return tiered.fetch(request(start, end), FetchQuotaWatcher.NO_QUOTA).get();
+    }
+
+    private static FetchData.Request request(final long start, final long end) {
+        return new FetchData.Request(MetricType.POINT, SERIES, new DateRange(start, end),
+            QueryOptions.defaults());
+    }
+
+    private static PointChunk points(final FetchData data) {
+        assertEquals(1, data.getGroups().size());
+        return data.getGroups().get(0).asPointChunk();
+    }
+
+    private static PointChunk points(final long... timestamps) {
+        final PointChunk.Builder builder = PointChunk.builder();
+
+        for (final long t : timestamps) {
+            builder.add(t, t);
+        }
+
+        return builder.build();
+    }
+}
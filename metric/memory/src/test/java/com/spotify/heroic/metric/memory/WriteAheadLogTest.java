@@ -0,0 +1,250 @@
+package com.spotify.heroic.metric.memory;
+
+import com.spotify.heroic.common.Series;
+import com.spotify.heroic.common.Series_Serializer;
+import com.spotify.heroic.metric.MetricType;
+import com.spotify.heroic.metric.PointChunk;
+import com.spotify.heroic.scheduler.Scheduler;
+import eu.toolchain.async.AsyncFramework;
+import eu.toolchain.async.AsyncFuture;
+import eu.toolchain.async.TinyAsync;
+import eu.toolchain.serializer.BytesSerialWriter;
+import eu.toolchain.serializer.SerializerFramework;
+import eu.toolchain.serializer.TinySerializer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WriteAheadLogTest {
+    private static final Series A = Series.of("a");
+    private static final Series B = Series.of("b");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Mock
+    private Scheduler scheduler;
+
+    private final AsyncFramework async = TinyAsync.builder().build();
+    private final SerializerFramework serializer = TinySerializer.builder().build();
+
+    private WriteAheadLogConfig config;
+
+    @Before
+    public void setup() {
+        config = new WriteAheadLogConfig(folder.getRoot().toPath(), 256, 10, 1000, 2);
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        final WriteAheadLog wal = newLog();
+        wal.recover(newStorage());
+
+        final AsyncFuture<Void> a = wal.append(A, points(1, 2, 3));
+        wal.append(B, points(1, 2));
+        wal.append(A, points(4, 5, 6, 7, 8, 9, 10, 11, 12));
+
+        assertFalse(a.isDone());
+        wal.sync();
+        assertTrue(a.isDone());
+
+        final ChunkedStorage recovered = newStorage();
+        newLog().recover(recovered);
+
+        assertEquals(points(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12), read(recovered, A));
+        assertEquals(points(1, 2), read(recovered, B));
+    }
+
+    @Test
+    public void testCheckpoint() throws Exception {
+        final ChunkedStorage storage = newStorage();
+        final WriteAheadLog wal = newLog();
+        wal.recover(storage);
+
+        for (int i = 0; i < 10; i++) {
+            write(storage, wal, A, points(i));
+        }
+
+        wal.checkpoint(storage);
+
+        /* all segments before the checkpoint are removed */
+        assertEquals(1, files().size());
+
+        write(storage, wal, B, points(1));
+        wal.sync();
+
+        final ChunkedStorage recovered = newStorage();
+        newLog().recover(recovered);
+
+        assertEquals(points(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), read(recovered, A));
+        assertEquals(points(1), read(recovered, B));
+    }
+
+    @Test
+    public void testRecoverManyBatches() throws Exception {
+        /* segments which hold several batches */
+        config = new WriteAheadLogConfig(folder.getRoot().toPath(),
+            WriteAheadLog.REPLAY_BATCH_BYTES * 4, 10, 1000, 2);
+
+        final WriteAheadLog wal = newLog();
+        wal.recover(newStorage());
+
+        /* each record is about half a batch, with writes to each series spread over batches */
+        final int size = WriteAheadLog.REPLAY_BATCH_BYTES / ChunkedSeries.POINT_BYTES / 2;
+        final PointChunk.Builder a = PointChunk.builder();
+        final PointChunk.Builder b = PointChunk.builder();
+
+        for (int r = 0; r < 8; r++) {
+            final PointChunk.Builder points = PointChunk.builder(size);
+
+            for (int i = 0; i < size; i++) {
+                final long t = (long) r * size + i;
+                points.add(t, t);
+                (r % 2 == 0 ? a : b).add(t, t);
+            }
+
+            wal.append(r % 2 == 0 ? A : B, points.build());
+        }
+
+        wal.sync();
+
+        final ChunkedStorage recovered = newStorage();
+        newLog().recover(recovered);
+
+        assertEquals(a.build(), read(recovered, A));
+        assertEquals(b.build(), read(recovered, B));
+    }
+
+    @Test
+    public void testDelete() throws Exception {
+        final ChunkedStorage storage = newStorage();
+        final WriteAheadLog wal = newLog();
+        wal.recover(storage);
+
+        write(storage, wal, A, points(1, 2));
+        write(storage, wal, B, points(1));
+        wal.checkpoint(storage);
+
+        storage.delete(new MemoryBackend.MemoryKey(MetricType.POINT, A));
+        wal.delete(A);
+        write(storage, wal, A, points(3));
+        write(storage, wal, B, points(2));
+        wal.sync();
+
+        final ChunkedStorage recovered = newStorage();
+        newLog().recover(recovered);
+
+        assertEquals(points(3), read(recovered, A));
+        assertEquals(points(1, 2), read(recovered, B));
+    }
+
+    @Test
+    public void testCheckpointHorizon() throws Exception {
+        final ChunkedStorage storage = new ChunkedStorage(4, Optional.empty(), Optional.of(100L));
+        final WriteAheadLog wal = newLog();
+        wal.recover(storage);
+
+        for (int i = 0; i < 12; i++) {
+            write(storage, wal, A, points(i));
+        }
+
+        assertNotEquals(Long.MIN_VALUE, storage.horizon());
+        wal.checkpoint(storage);
+
+        final ChunkedStorage recovered = newStorage();
+        newLog().recover(recovered);
+
+        assertEquals(storage.horizon(), recovered.horizon());
+    }
+
+    @Test
+    public void testIncompleteRecord() throws Exception {
+        final WriteAheadLog wal = newLog();
+        wal.recover(newStorage());
+
+        wal.append(A, points(1, 2));
+        wal.append(A, points(3, 4));
+        wal.sync();
+
+        /* corrupt the last point of the last record */
+        final Path segment = files().get(0);
+
+        try (final FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            final int first = WriteAheadLog.HEADER + 1 + 4 + serialized(A) + 4 + 2 * 16;
+            final int last = first + WriteAheadLog.HEADER + 1 + 4 + serialized(A) + 4 + 16;
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), last);
+        }
+
+        final ChunkedStorage recovered = newStorage();
+        newLog().recover(recovered);
+
+        assertEquals(points(1, 2), read(recovered, A));
+    }
+
+    private WriteAheadLog newLog() {
+        return new WriteAheadLog(async, scheduler, serializer, new Series_Serializer(serializer),
+            config);
+    }
+
+    private ChunkedStorage newStorage() {
+        return new ChunkedStorage(4, Optional.empty(), Optional.empty());
+    }
+
+    private List<Path> files() throws IOException {
+        return Files
+            .list(folder.getRoot().toPath())
+            .filter(p -> p.getFileName().toString().endsWith(WriteAheadLog.SUFFIX))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private int serialized(final Series series) throws IOException {
+        try (final BytesSerialWriter writer = serializer.writeBytes()) {
+            new Series_Serializer(serializer).serialize(writer, series);
+            return writer.toByteArray().length;
+        }
+    }
+
+    private static void write(
+        final ChunkedStorage storage, final WriteAheadLog wal, final Series series,
+        final PointChunk points
+    ) {
+        storage.write(new MemoryBackend.MemoryKey(MetricType.POINT, series), points);
+        wal.append(series, points);
+    }
+
+    private static PointChunk read(final ChunkedStorage storage, final Series series) {
+        return storage.read(new MemoryBackend.MemoryKey(MetricType.POINT, series), 0,
+            Long.MAX_VALUE);
+    }
+
+    private static PointChunk points(final long... timestamps) {
+        final PointChunk.Builder builder = PointChunk.builder();
+
+        for (final long t : timestamps) {
+            builder.add(t, t);
+        }
+
+        return builder.build();
+    }
+}
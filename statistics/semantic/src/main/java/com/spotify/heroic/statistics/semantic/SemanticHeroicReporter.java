@@ -28,6 +28,8 @@ import com.spotify.heroic.statistics.HeroicReporter;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
 import com.spotify.heroic.statistics.MetadataBackendReporter;
 import com.spotify.heroic.statistics.MetricBackendReporter;
+import com.spotify.heroic.statistics.QueryCacheReporter;
+import com.spotify.heroic.statistics.SeriesCacheReporter;
 import com.spotify.heroic.statistics.SuggestBackendReporter;
 import com.spotify.metrics.core.SemanticMetricRegistry;
 import lombok.RequiredArgsConstructor;
@@ -74,6 +76,16 @@ public class SemanticHeroicReporter implements HeroicReporter {
         return new SemanticMetricBackendReporter(registry);
     }
 
+    @Override
+    public QueryCacheReporter newQueryCache() {
+        return new SemanticQueryCacheReporter(registry);
+    }
+
+    @Override
+    public SeriesCacheReporter newSeriesCache() {
+        return new SemanticSeriesCacheReporter(registry);
+    }
+
     @Override
     public void registerShards(Set<Map<String, String>> knownShards) {
         final Set<ClusteredManager> clustered;
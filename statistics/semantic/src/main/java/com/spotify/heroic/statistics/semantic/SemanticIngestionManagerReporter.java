@@ -22,6 +22,8 @@
 package com.spotify.heroic.statistics.semantic;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.spotify.heroic.statistics.FutureReporter;
 import com.spotify.heroic.statistics.FutureReporter.Context;
 import com.spotify.heroic.statistics.IngestionManagerReporter;
@@ -36,6 +38,9 @@ public class SemanticIngestionManagerReporter implements IngestionManagerReporte
     private final FutureReporter metadataWrite;
 
     private final Counter concurrentWritesCounter;
+    private final Counter pendingWritesCounter;
+    private final Histogram writeWait;
+    private final Meter writeRejected;
 
     public SemanticIngestionManagerReporter(SemanticMetricRegistry registry) {
         final MetricId id = MetricId.build().tagged("component", COMPONENT);
@@ -43,6 +48,12 @@ public class SemanticIngestionManagerReporter implements IngestionManagerReporte
             id.tagged("what", "metadata-write", "unit", Units.FAILURE));
         this.concurrentWritesCounter =
             registry.counter(id.tagged("what", "concurrent-writes", "unit", Units.WRITE));
+        this.pendingWritesCounter =
+            registry.counter(id.tagged("what", "pending-writes", "unit", Units.WRITE));
+        this.writeWait =
+            registry.histogram(id.tagged("what", "write-wait", "unit", Units.MILLISECOND));
+        this.writeRejected =
+            registry.meter(id.tagged("what", "write-rejected", "unit", Units.DROP));
     }
 
     @Override
@@ -59,4 +70,24 @@ public class SemanticIngestionManagerReporter implements IngestionManagerReporte
     public void decrementConcurrentWrites() {
         concurrentWritesCounter.dec();
     }
+
+    @Override
+    public void incrementPendingWrites() {
+        pendingWritesCounter.inc();
+    }
+
+    @Override
+    public void decrementPendingWrites() {
+        pendingWritesCounter.dec();
+    }
+
+    @Override
+    public void reportWriteWait(final long millis) {
+        writeWait.update(millis);
+    }
+
+    @Override
+    public void reportWriteRejected() {
+        writeRejected.mark();
+    }
 }
@@ -21,6 +21,7 @@
 
 package com.spotify.heroic.statistics.semantic;
 
+import com.codahale.metrics.Meter;
 import com.spotify.heroic.QueryOptions;
 import com.spotify.heroic.async.AsyncObservable;
 import com.spotify.heroic.common.Groups;
@@ -29,6 +30,7 @@ import com.spotify.heroic.metric.BackendEntry;
 import com.spotify.heroic.metric.BackendKey;
 import com.spotify.heroic.metric.BackendKeyFilter;
 import com.spotify.heroic.metric.BackendKeySet;
+import com.spotify.heroic.metric.FetchBounds;
 import com.spotify.heroic.metric.FetchData;
 import com.spotify.heroic.metric.FetchQuotaWatcher;
 import com.spotify.heroic.metric.MetricBackend;
@@ -43,6 +45,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 @ToString(of = {"base"})
 public class SemanticMetricBackendReporter implements MetricBackendReporter {
@@ -58,6 +61,9 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
     private final FutureReporter findSeries;
     private final FutureReporter queryMetrics;
 
+    private final Meter rowKeyCacheHit;
+    private final Meter rowKeyCacheMiss;
+
     public SemanticMetricBackendReporter(SemanticMetricRegistry registry) {
         final MetricId base = MetricId.build().tagged("component", COMPONENT);
 
@@ -78,6 +84,11 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             base.tagged("what", "find-series", "unit", Units.QUERY));
         this.queryMetrics = new SemanticFutureReporter(registry,
             base.tagged("what", "query-metrics", "unit", Units.QUERY));
+
+        this.rowKeyCacheHit = registry.meter(
+            base.tagged("what", "row-key-cache-hit", "unit", Units.LOOKUP));
+        this.rowKeyCacheMiss = registry.meter(
+            base.tagged("what", "row-key-cache-miss", "unit", Units.LOOKUP));
     }
 
     @Override
@@ -95,6 +106,16 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
         return queryMetrics.setup();
     }
 
+    @Override
+    public void reportRowKeyCacheHit() {
+        rowKeyCacheHit.mark();
+    }
+
+    @Override
+    public void reportRowKeyCacheMiss() {
+        rowKeyCacheMiss.mark();
+    }
+
     @RequiredArgsConstructor
     private class InstrumentedMetricBackend implements MetricBackend {
         private final MetricBackend delegate;
@@ -121,6 +142,19 @@ public class SemanticMetricBackendReporter implements MetricBackendReporter {
             return delegate.fetch(request, watcher).onDone(fetch.setup());
         }
 
+        @Override
+        public AsyncFuture<FetchData> fetch(
+            final FetchData.Request request, final FetchQuotaWatcher watcher,
+            final Consumer<MetricCollection> consumer
+        ) {
+            return delegate.fetch(request, watcher, consumer).onDone(fetch.setup());
+        }
+
+        @Override
+        public FetchBounds fetchBounds() {
+            return delegate.fetchBounds();
+        }
+
         @Override
         public Iterable<BackendEntry> listEntries() {
             return delegate.listEntries();
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015 Spotify AB.
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.spotify.heroic.statistics.semantic;
+
+import com.codahale.metrics.Meter;
+import com.spotify.heroic.statistics.SeriesCacheReporter;
+import com.spotify.metrics.core.MetricId;
+import com.spotify.metrics.core.SemanticMetricRegistry;
+import lombok.ToString;
+
+@ToString(of = {})
+public class SemanticSeriesCacheReporter implements SeriesCacheReporter {
+    private static final String COMPONENT = "series-cache";
+
+    private final Meter hit;
+    private final Meter miss;
+
+    public SemanticSeriesCacheReporter(SemanticMetricRegistry registry) {
+        final MetricId id = MetricId.build().tagged("component", COMPONENT);
+        this.hit = registry.meter(id.tagged("what", "hit", "unit", Units.LOOKUP));
+        this.miss = registry.meter(id.tagged("what", "miss", "unit", Units.LOOKUP));
+    }
+
+    @Override
+    public void reportHit() {
+        hit.mark();
+    }
+
+    @Override
+    public void reportMiss() {
+        miss.mark();
+    }
+}
@@ -33,4 +33,6 @@ final class Units {
     public static final String BYTE = "B";
     public static final String MILLISECOND = "ms";
     public static final String DROP = "drop";
+    public static final String SAMPLE = "sample";
+    public static final String LOOKUP = "lookup";
 }